@@ -2,15 +2,20 @@ package org.symphonyoss.integration.authentication.jwt;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListenableFutureTask;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.Jws;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.symphonyoss.integration.Integration;
@@ -21,12 +26,15 @@ import org.symphonyoss.integration.authentication.api.jwt.JwtAuthentication;
 import org.symphonyoss.integration.authentication.api.model.AppToken;
 import org.symphonyoss.integration.authentication.api.model.JwtPayload;
 import org.symphonyoss.integration.authentication.api.model.PodCertificate;
+import org.symphonyoss.integration.authentication.exception.UnregisteredAppAuthException;
 import org.symphonyoss.integration.exception.RemoteApiException;
 import org.symphonyoss.integration.exception.authentication.ExpirationException;
 import org.symphonyoss.integration.exception.authentication.MalformedParameterException;
 import org.symphonyoss.integration.exception.authentication.UnauthorizedUserException;
 import org.symphonyoss.integration.exception.bootstrap.UnexpectedBootstrapException;
 import org.symphonyoss.integration.logging.LogMessageSource;
+import org.symphonyoss.integration.model.yaml.Application;
+import org.symphonyoss.integration.model.yaml.ApplicationState;
 import org.symphonyoss.integration.model.yaml.IntegrationProperties;
 import org.symphonyoss.integration.pod.api.client.IntegrationAuthApiClient;
 import org.symphonyoss.integration.pod.api.client.IntegrationHttpApiClient;
@@ -38,10 +46,19 @@ import org.symphonyoss.integration.utils.RsaKeyUtils;
 import org.symphonyoss.integration.utils.TokenUtils;
 
 import java.security.PublicKey;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 
 /**
  * Service class responsible for handling JWT authentication stuff.
@@ -49,7 +66,9 @@ import javax.annotation.PostConstruct;
  * Created by rsanchez on 28/07/17.
  */
 @Component
-public class JwtAuthenticationImpl implements JwtAuthentication {
+public class JwtAuthenticationImpl implements JwtAuthentication, PodCertificateRefreshStatus {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(JwtAuthenticationImpl.class);
 
   private static final String AUTHORIZATION_HEADER_PREFIX = "BEARER ";
 
@@ -69,6 +88,31 @@ public class JwtAuthenticationImpl implements JwtAuthentication {
   private static final String INTEGRATION_UNAVAILABLE_SOLUTION =
       INTEGRATION_UNAVAILABLE + ".solution";
 
+  private static final String POD_CERTIFICATE_REFRESH_FAILED =
+      "integration.auth.jwt.pod.certificate.refresh.failed";
+  private static final String POD_CERTIFICATE_REFRESH_FAILED_SOLUTION =
+      POD_CERTIFICATE_REFRESH_FAILED + ".solution";
+
+  /**
+   * Fraction of the cache duration after which a pod public certificate is reloaded in background.
+   */
+  private static final double REFRESH_AHEAD_RATIO = 0.8;
+
+  /**
+   * Interval (in seconds) between the checks performed by the refresh-ahead task.
+   */
+  private static final long REFRESH_CHECK_INTERVAL = 30;
+
+  /**
+   * Maximum number of token pairs kept in the local cache.
+   */
+  private static final long TOKEN_PAIR_CACHE_SIZE = 10000;
+
+  /**
+   * Lifetime (in minutes) of the token pairs kept in the local cache.
+   */
+  private static final long TOKEN_PAIR_CACHE_DURATION = 5;
+
   @Autowired
   private LogMessageSource logMessage;
 
@@ -102,7 +146,42 @@ public class JwtAuthenticationImpl implements JwtAuthentication {
 
   private LoadingCache<String, PublicKey> podPublicSignatureVerifierCache;
 
-  private PodInfo podInfo;
+  /**
+   * Token pairs generated or validated recently, keyed by configuration ID and application token.
+   */
+  private Cache<String, AppToken> tokenPairCache = CacheBuilder.newBuilder()
+      .maximumSize(TOKEN_PAIR_CACHE_SIZE)
+      .expireAfterWrite(TOKEN_PAIR_CACHE_DURATION, TimeUnit.MINUTES)
+      .build();
+
+  private volatile PodInfo podInfo;
+
+  private final Object podInfoLock = new Object();
+
+  private ScheduledExecutorService scheduler =
+      Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+          Thread thread = new Thread(runnable, "pod-certificate-refresh");
+          thread.setDaemon(true);
+          return thread;
+        }
+      });
+
+  /**
+   * Time (in milliseconds) of the last successful load of the pod public certificate per app.
+   */
+  private Map<String, Long> podCertificateLoadTime = new ConcurrentHashMap<>();
+
+  /**
+   * Last refresh failure of the pod public certificate per app.
+   */
+  private Map<String, String> podCertificateRefreshFailures = new ConcurrentHashMap<>();
+
+  /**
+   * Period (in milliseconds) after which a pod public certificate must be reloaded in background.
+   */
+  private long refreshAheadPeriod;
 
   /**
    * Initialize HTTP client.
@@ -112,29 +191,157 @@ public class JwtAuthenticationImpl implements JwtAuthentication {
     this.apiClient = new IntegrationAuthApiClient(integrationHttpApiClient, logMessage);
     this.podInfoClient = new PodInfoClient(symphonyHttpApiClient, logMessage);
     initializeCache(properties.getPublicPodCertificateCacheDuration());
+
+    scheduler.scheduleWithFixedDelay(new Runnable() {
+      @Override
+      public void run() {
+        refreshAhead();
+      }
+    }, 0, REFRESH_CHECK_INTERVAL, TimeUnit.SECONDS);
+  }
+
+  /**
+   * Stops the refresh-ahead task.
+   */
+  @PreDestroy
+  public void destroy() {
+    scheduler.shutdownNow();
   }
 
   /**
    * Initializes the local cache for public pod certificates.
-   * @param cacheDuration The cache duration before expiring.
+   *
+   * Entries are never evicted by time. Once the cache duration has elapsed the next read triggers
+   * an asynchronous reload, and the previous public key keeps being served until the reload
+   * finishes. The refresh-ahead task reloads the entries before they get to this point.
+   * @param cacheDuration The cache duration before refreshing.
    */
   private void initializeCache(int cacheDuration) {
-    podPublicSignatureVerifierCache = CacheBuilder.newBuilder().expireAfterWrite(
+    this.refreshAheadPeriod =
+        (long) (TimeUnit.MINUTES.toMillis(cacheDuration) * REFRESH_AHEAD_RATIO);
+
+    podPublicSignatureVerifierCache = CacheBuilder.newBuilder().refreshAfterWrite(
         cacheDuration, TimeUnit.MINUTES).build(new CacheLoader<String, PublicKey>() {
       /**
-       * Called when the cache is empty or has expired.
+       * Called when the cache is empty.
        * @param appId Application ID used as key to cache the pod public certificate.
        * @return PublicKey created through the public pod PEM certificate.
        */
       @Override
       public PublicKey load(String appId) {
-        PodCertificate podPublicCert = appAuthenticationService.getPodPublicCertificate(appId);
-        PublicKey pk = rsaKeyUtils.getPublicKeyFromCertificate(podPublicCert.getCertificate());
-        return pk;
+        return loadPodPublicKey(appId);
+      }
+
+      /**
+       * Called when the cached entry must be refreshed. The reload runs in background, so the
+       * old public key is returned to the callers meanwhile.
+       * @param appId Application ID used as key to cache the pod public certificate.
+       * @param oldValue Public key currently cached.
+       * @return Future of the new public key.
+       */
+      @Override
+      public ListenableFuture<PublicKey> reload(final String appId, PublicKey oldValue) {
+        ListenableFutureTask<PublicKey> task =
+            ListenableFutureTask.create(new Callable<PublicKey>() {
+              @Override
+              public PublicKey call() throws Exception {
+                return loadPodPublicKey(appId);
+              }
+            });
+
+        scheduler.execute(task);
+        return task;
       }
     });
   }
 
+  /**
+   * Retrieves the pod public certificate and keeps track of the result to be reported by the
+   * health-check.
+   * @param appId Application ID
+   * @return PublicKey created through the public pod PEM certificate.
+   */
+  private PublicKey loadPodPublicKey(String appId) {
+    try {
+      PodCertificate podPublicCert = appAuthenticationService.getPodPublicCertificate(appId);
+      PublicKey pk = rsaKeyUtils.getPublicKeyFromCertificate(podPublicCert.getCertificate());
+
+      podCertificateLoadTime.put(appId, System.currentTimeMillis());
+      podCertificateRefreshFailures.remove(appId);
+
+      return pk;
+    } catch (UnregisteredAppAuthException e) {
+      // Application not bootstrapped yet, it's not a refresh failure.
+      throw e;
+    } catch (RuntimeException e) {
+      String message = logMessage.getMessage(POD_CERTIFICATE_REFRESH_FAILED, appId);
+      String solution = logMessage.getMessage(POD_CERTIFICATE_REFRESH_FAILED_SOLUTION);
+      LOGGER.error(message + " " + solution, e);
+
+      podCertificateRefreshFailures.put(appId, message);
+      throw e;
+    }
+  }
+
+  /**
+   * Pre-populates the pod public certificates for all the provisioned applications and reloads
+   * them before the cache duration has elapsed. It also retrieves the pod info, so the JWT
+   * validation doesn't need to wait for any pod round-trip.
+   */
+  private void refreshAhead() {
+    for (Application application : properties.getApplications().values()) {
+      String component = application.getComponent();
+
+      if (StringUtils.isEmpty(component) || !ApplicationState.PROVISIONED.equals(
+          application.getState())) {
+        continue;
+      }
+
+      try {
+        refreshPodPublicKey(properties.getApplicationId(component));
+        refreshPodInfo(component);
+      } catch (RuntimeException e) {
+        LOGGER.debug("Fail to refresh the authentication data for the application " + component, e);
+      }
+    }
+  }
+
+  /**
+   * Loads the pod public certificate if it's missing or reloads it asynchronously if it's about
+   * to reach the cache duration.
+   * @param appId Application ID
+   */
+  private void refreshPodPublicKey(String appId) {
+    Long loadTime = podCertificateLoadTime.get(appId);
+
+    if (podPublicSignatureVerifierCache.getIfPresent(appId) == null) {
+      podPublicSignatureVerifierCache.getUnchecked(appId);
+    } else if (loadTime == null
+        || System.currentTimeMillis() - loadTime >= refreshAheadPeriod) {
+      podPublicSignatureVerifierCache.refresh(appId);
+    }
+  }
+
+  /**
+   * Retrieves the pod info if it wasn't retrieved before.
+   * @param component Application component used to retrieve the session token
+   */
+  private void refreshPodInfo(String component) {
+    if (podInfo == null) {
+      synchronized (podInfoLock) {
+        if (podInfo == null) {
+          String sessionToken = authenticationProxy.getSessionToken(component);
+          podInfo = podInfoClient.getPodInfo(sessionToken);
+        }
+      }
+    }
+  }
+
+  @Override
+  public Map<String, String> getPodCertificateRefreshFailures() {
+    return Collections.unmodifiableMap(new HashMap<>(podCertificateRefreshFailures));
+  }
+
   /**
    * Retrieve an integration by a configuration ID.
    * @param configurationId Configuration ID.
@@ -208,12 +415,15 @@ public class JwtAuthenticationImpl implements JwtAuthentication {
     String sessionToken = authenticationProxy.getSessionToken(integration.getSettings().getType());
     apiClient.saveAppAuthenticationToken(sessionToken, configurationId, bothTokens);
 
+    tokenPairCache.put(getTokenPairKey(configurationId, appToken), bothTokens);
+
     return appToken;
   }
 
   /**
    * Validate if the Symphony previously generated token by the app token and the SBE token are
-   * valid.
+   * valid. The token pair is looked up in the local cache first, so the Symphony backend is only
+   * reached when the pair wasn't generated or validated recently by this instance.
    * @param configurationId Application identifier.
    * @param applicationToken App token generated by the "authenticate" service.
    * @return <code>true</code> if the token pair is valid.
@@ -221,16 +431,36 @@ public class JwtAuthenticationImpl implements JwtAuthentication {
   public boolean isValidTokenPair(String configurationId, String applicationToken,
       String symphonyToken) {
     Integration integration = getIntegrationAndCheckAvailability(configurationId);
-    String sessionToken = authenticationProxy.getSessionToken(integration.getSettings().getType());
 
-    AppToken bothTokens = apiClient.getAppAuthenticationToken(sessionToken, configurationId,
-        applicationToken);
+    String key = getTokenPairKey(configurationId, applicationToken);
+    AppToken bothTokens = tokenPairCache.getIfPresent(key);
+
     if (bothTokens == null) {
-      return false;
+      String sessionToken =
+          authenticationProxy.getSessionToken(integration.getSettings().getType());
+
+      bothTokens = apiClient.getAppAuthenticationToken(sessionToken, configurationId,
+          applicationToken);
+      if (bothTokens == null) {
+        return false;
+      }
+
+      tokenPairCache.put(key, bothTokens);
     }
+
     return symphonyToken.equals(bothTokens.getSymphonyToken());
   }
 
+  /**
+   * Builds the token pair cache key.
+   * @param configurationId Application identifier.
+   * @param applicationToken App token generated by the "authenticate" service.
+   * @return Token pair cache key
+   */
+  private String getTokenPairKey(String configurationId, String applicationToken) {
+    return configurationId + ":" + applicationToken;
+  }
+
   /**
    * Validate if the sent JWT is valid by checking its signer and decodification and then return it.
    * @param configurationId Application identifier.
@@ -276,7 +506,11 @@ public class JwtAuthenticationImpl implements JwtAuthentication {
     }
 
     if (podInfo == null) {
-      podInfo = getPodInfo(configurationId);
+      synchronized (podInfoLock) {
+        if (podInfo == null) {
+          podInfo = getPodInfo(configurationId);
+        }
+      }
     }
 
     return podInfo.verifyPodId(podId);
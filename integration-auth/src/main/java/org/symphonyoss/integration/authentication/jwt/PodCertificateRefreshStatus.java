@@ -0,0 +1,33 @@
+/**
+ * Copyright 2016-2017 Symphony Integrations - Symphony LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.symphonyoss.integration.authentication.jwt;
+
+import java.util.Map;
+
+/**
+ * Reports the applications whose pod public certificate couldn't be refreshed.
+ */
+public interface PodCertificateRefreshStatus {
+
+  /**
+   * Returns the last failure message of the pod public certificate refresh for each application
+   * whose latest attempt has failed.
+   * @return Map of application ID to failure message
+   */
+  Map<String, String> getPodCertificateRefreshFailures();
+
+}
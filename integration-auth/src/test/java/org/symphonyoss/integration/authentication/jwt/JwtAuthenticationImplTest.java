@@ -5,6 +5,8 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
@@ -27,11 +29,14 @@ import org.symphonyoss.integration.authentication.api.AppAuthenticationProxy;
 import org.symphonyoss.integration.authentication.api.model.AppToken;
 import org.symphonyoss.integration.authentication.api.model.JwtPayload;
 import org.symphonyoss.integration.authentication.api.model.PodCertificate;
+import org.symphonyoss.integration.authentication.exception.UnregisteredAppAuthException;
 import org.symphonyoss.integration.exception.authentication.ExpirationException;
 import org.symphonyoss.integration.exception.authentication.UnauthorizedUserException;
 import org.symphonyoss.integration.exception.bootstrap.UnexpectedBootstrapException;
 import org.symphonyoss.integration.logging.LogMessageSource;
 import org.symphonyoss.integration.model.config.IntegrationSettings;
+import org.symphonyoss.integration.model.yaml.Application;
+import org.symphonyoss.integration.model.yaml.ApplicationState;
 import org.symphonyoss.integration.model.yaml.IntegrationProperties;
 import org.symphonyoss.integration.pod.api.client.IntegrationAuthApiClient;
 import org.symphonyoss.integration.pod.api.client.IntegrationHttpApiClient;
@@ -240,6 +245,37 @@ public class JwtAuthenticationImplTest {
     assertFalse(result);
   }
 
+  @Test
+  public void testIsValidTokenPairAfterAuthenticate() {
+    doReturn(MOCK_APP_TOKEN).when(tokenUtils).generateToken();
+    doReturn(mockAppToken).when(appAuthenticationService).authenticate(MOCK_APP_ID,
+        MOCK_APP_TOKEN);
+
+    jwtAuthentication.authenticate(MOCK_CONFIG_ID);
+
+    assertTrue(jwtAuthentication.isValidTokenPair(MOCK_CONFIG_ID, MOCK_APP_TOKEN,
+        MOCK_SYMPHONY_TOKEN));
+    assertFalse(jwtAuthentication.isValidTokenPair(MOCK_CONFIG_ID, MOCK_APP_TOKEN,
+        MOCK_APP_TOKEN));
+
+    verify(apiClient, never()).getAppAuthenticationToken(MOCK_SESSION_TOKEN, MOCK_CONFIG_ID,
+        MOCK_APP_TOKEN);
+  }
+
+  @Test
+  public void testIsValidTokenPairCached() {
+    doReturn(mockAppToken).when(apiClient).getAppAuthenticationToken(
+        MOCK_SESSION_TOKEN, MOCK_CONFIG_ID, MOCK_APP_TOKEN);
+
+    assertTrue(jwtAuthentication.isValidTokenPair(MOCK_CONFIG_ID, MOCK_APP_TOKEN,
+        MOCK_SYMPHONY_TOKEN));
+    assertTrue(jwtAuthentication.isValidTokenPair(MOCK_CONFIG_ID, MOCK_APP_TOKEN,
+        MOCK_SYMPHONY_TOKEN));
+
+    verify(apiClient, times(1)).getAppAuthenticationToken(MOCK_SESSION_TOKEN, MOCK_CONFIG_ID,
+        MOCK_APP_TOKEN);
+  }
+
   @Test
   public void testParseJwtPayload() {
     doReturn(mockPublicKey).when(rsaKeyUtils).getPublicKeyFromCertificate(null);
@@ -299,4 +335,67 @@ public class JwtAuthenticationImplTest {
     verify(podInfoClient, times(1)).getPodInfo(MOCK_SESSION_TOKEN);
   }
 
+  @Test
+  public void testRefreshAhead() {
+    mockApplications();
+    doReturn(mockPublicKey).when(rsaKeyUtils).getPublicKeyFromCertificate(null);
+
+    Map<String, Object> data = new HashMap<>();
+    data.put(POD_ID, MOCK_POD_ID);
+    data.put(EXTERNAL_POD_ID, MOCK_POD_ID);
+
+    doReturn(new PodInfo(data)).when(podInfoClient).getPodInfo(MOCK_SESSION_TOKEN);
+
+    ReflectionTestUtils.invokeMethod(jwtAuthentication, "refreshAhead");
+
+    LoadingCache cache = (LoadingCache) ReflectionTestUtils.getField(jwtAuthentication,
+        "podPublicSignatureVerifierCache");
+    assertEquals(mockPublicKey, cache.getIfPresent(MOCK_APP_ID));
+    assertTrue(jwtAuthentication.checkPodInfo(MOCK_CONFIG_ID, MOCK_POD_ID));
+    assertTrue(jwtAuthentication.getPodCertificateRefreshFailures().isEmpty());
+
+    verify(podInfoClient, times(1)).getPodInfo(MOCK_SESSION_TOKEN);
+  }
+
+  @Test
+  public void testRefreshAheadUnregisteredApp() {
+    mockApplications();
+    doThrow(UnregisteredAppAuthException.class).when(appAuthenticationService)
+        .getPodPublicCertificate(MOCK_APP_ID);
+
+    ReflectionTestUtils.invokeMethod(jwtAuthentication, "refreshAhead");
+
+    assertTrue(jwtAuthentication.getPodCertificateRefreshFailures().isEmpty());
+  }
+
+  @Test
+  public void testRefreshAheadFailure() {
+    mockApplications();
+    doThrow(UnexpectedBootstrapException.class).when(appAuthenticationService)
+        .getPodPublicCertificate(MOCK_APP_ID);
+
+    ReflectionTestUtils.invokeMethod(jwtAuthentication, "refreshAhead");
+
+    assertTrue(jwtAuthentication.getPodCertificateRefreshFailures().containsKey(MOCK_APP_ID));
+
+    doReturn(mockValidCertificate).when(appAuthenticationService)
+        .getPodPublicCertificate(MOCK_APP_ID);
+    doReturn(mockPublicKey).when(rsaKeyUtils).getPublicKeyFromCertificate(null);
+
+    ReflectionTestUtils.invokeMethod(jwtAuthentication, "refreshAhead");
+
+    assertTrue(jwtAuthentication.getPodCertificateRefreshFailures().isEmpty());
+  }
+
+  private void mockApplications() {
+    Application application = new Application();
+    application.setComponent(MOCK_CONFIG_ID);
+    application.setState(ApplicationState.PROVISIONED);
+
+    Map<String, Application> apps = new HashMap<>();
+    apps.put(MOCK_CONFIG_ID, application);
+
+    doReturn(apps).when(properties).getApplications();
+  }
+
 }
@@ -0,0 +1,84 @@
+/**
+ * Copyright 2016-2017 Symphony Integrations - Symphony LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.symphonyoss.integration.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.actuate.health.OrderedHealthAggregator;
+import org.symphonyoss.integration.healthcheck.AsyncCompositeHealthIndicator;
+import org.symphonyoss.integration.logging.LogMessageSource;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the aggregation of the health indicators performed by
+ * {@link AsyncCompositeHealthIndicator#health()}.
+ *
+ * The registered indicators return immediately, so the results reflect the dispatching and
+ * aggregation overhead rather than the remote service checks.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AsyncCompositeHealthIndicatorBenchmark {
+
+  /**
+   * Number of registered health indicators.
+   */
+  @Param({ "1", "5", "20" })
+  private int indicatorCount;
+
+  private AsyncCompositeHealthIndicator healthIndicator;
+
+  @Setup
+  public void setup() {
+    healthIndicator =
+        new AsyncCompositeHealthIndicator(new OrderedHealthAggregator(), new LogMessageSource());
+
+    for (int i = 0; i < indicatorCount; i++) {
+      final String name = "service" + i;
+
+      healthIndicator.addHealthIndicator(name, new HealthIndicator() {
+        @Override
+        public Health health() {
+          return Health.up().withDetail("name", name).build();
+        }
+      });
+    }
+  }
+
+  @Benchmark
+  public Health health() {
+    return healthIndicator.health();
+  }
+
+}
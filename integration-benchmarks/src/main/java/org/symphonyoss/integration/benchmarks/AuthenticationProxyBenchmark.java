@@ -0,0 +1,103 @@
+/**
+ * Copyright 2016-2017 Symphony Integrations - Symphony LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.symphonyoss.integration.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.symphonyoss.integration.authentication.AuthenticationProxyImpl;
+import org.symphonyoss.integration.authentication.AuthenticationToken;
+import org.symphonyoss.integration.authentication.UserAuthenticationContext;
+import org.symphonyoss.integration.logging.LogMessageSource;
+import org.symphonyoss.integration.model.yaml.IntegrationProperties;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.ws.rs.client.Client;
+
+/**
+ * Benchmarks the lookup of the HTTP client by session token executed by the Pod and Agent API
+ * clients before every request, through
+ * {@link AuthenticationProxyImpl#httpClientForSessionToken(String)}.
+ *
+ * Each invocation looks up the next registered user, so the results are not biased by the
+ * iteration order of the registered contexts.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuthenticationProxyBenchmark {
+
+  /**
+   * Number of registered integration users.
+   */
+  @Param({ "10", "100", "1000" })
+  private int userCount;
+
+  private AuthenticationProxyImpl proxy;
+
+  private String[] sessionTokens;
+
+  private int next;
+
+  @Setup
+  public void setup() {
+    proxy = new AuthenticationProxyImpl();
+    ReflectionTestUtils.setField(proxy, "properties", new IntegrationProperties());
+    ReflectionTestUtils.setField(proxy, "logMessage", new LogMessageSource());
+
+    sessionTokens = new String[userCount];
+
+    for (int i = 0; i < userCount; i++) {
+      proxy.registerUser("user" + i, null, null);
+    }
+
+    Map<String, UserAuthenticationContext> authContexts =
+        (Map<String, UserAuthenticationContext>) ReflectionTestUtils.getField(proxy,
+            "authContexts");
+
+    for (int i = 0; i < userCount; i++) {
+      sessionTokens[i] = "session" + i;
+
+      AuthenticationToken token = new AuthenticationToken(sessionTokens[i], "km" + i);
+      authContexts.get("user" + i).setToken(token);
+    }
+  }
+
+  @Benchmark
+  public Client httpClientForSessionToken() {
+    String sessionToken = sessionTokens[next];
+    next = (next + 1) % sessionTokens.length;
+
+    return proxy.httpClientForSessionToken(sessionToken);
+  }
+
+}
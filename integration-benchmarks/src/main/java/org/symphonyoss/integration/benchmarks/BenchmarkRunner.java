@@ -0,0 +1,66 @@
+/**
+ * Copyright 2016-2017 Symphony Integrations - Symphony LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.symphonyoss.integration.benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point for the Integration Bridge benchmarks.
+ *
+ * Accepts the same arguments as the JMH command line, but writes the results as JSON to
+ * 'jmh-result.json' unless another format or file is given, so the results of different builds
+ * can be compared.
+ *
+ * Usage: java -jar target/benchmarks.jar [JMH options] [benchmark regexp]
+ */
+public class BenchmarkRunner {
+
+  private static final String DEFAULT_RESULT_FILE = "jmh-result.json";
+
+  public static void main(String[] args) throws Exception {
+    CommandLineOptions cmdOptions = new CommandLineOptions(args);
+
+    if (cmdOptions.shouldHelp()) {
+      cmdOptions.showHelp();
+      return;
+    }
+
+    ChainedOptionsBuilder builder = new OptionsBuilder().parent(cmdOptions);
+
+    if (!cmdOptions.getResultFormat().hasValue()) {
+      builder.resultFormat(ResultFormatType.JSON);
+    }
+
+    if (!cmdOptions.getResult().hasValue()) {
+      builder.result(DEFAULT_RESULT_FILE);
+    }
+
+    Runner runner = new Runner(builder.build());
+
+    if (cmdOptions.shouldList()) {
+      runner.list();
+    } else {
+      runner.run();
+    }
+  }
+
+}
@@ -0,0 +1,75 @@
+/**
+ * Copyright 2016-2017 Symphony Integrations - Symphony LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.symphonyoss.integration.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.symphonyoss.integration.core.service.CryptoServiceImpl;
+import org.symphonyoss.integration.exception.CryptoException;
+import org.symphonyoss.integration.logging.LogMessageSource;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the encryption and decryption of the values stored by the integrations through
+ * {@link CryptoServiceImpl}. Most of the cost comes from the key derivation executed on every call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CryptoServiceBenchmark {
+
+  private static final String KEY = "5810d144e4b0f884b709cc90";
+
+  private static final String PLAIN_TEXT = "{\"token\":\"bd37f1e0-9f1a-4f43-a72c-4c8a3fa1d5e2\"}";
+
+  private CryptoServiceImpl cryptoService;
+
+  private String encryptedText;
+
+  @Setup
+  public void setup() throws CryptoException {
+    cryptoService = new CryptoServiceImpl();
+    ReflectionTestUtils.setField(cryptoService, "logMessage", new LogMessageSource());
+
+    encryptedText = cryptoService.encrypt(PLAIN_TEXT, KEY);
+  }
+
+  @Benchmark
+  public String encrypt() throws CryptoException {
+    return cryptoService.encrypt(PLAIN_TEXT, KEY);
+  }
+
+  @Benchmark
+  public String decrypt() throws CryptoException {
+    return cryptoService.decrypt(encryptedText, KEY);
+  }
+
+}
@@ -0,0 +1,113 @@
+/**
+ * Copyright 2016-2017 Symphony Integrations - Symphony LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.symphonyoss.integration.benchmarks;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.symphonyoss.integration.core.bridge.IntegrationBridgeImpl;
+import org.symphonyoss.integration.exception.RemoteApiException;
+import org.symphonyoss.integration.logging.LogMessageSource;
+import org.symphonyoss.integration.model.config.IntegrationInstance;
+import org.symphonyoss.integration.model.message.Message;
+import org.symphonyoss.integration.service.StreamService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the message fan-out performed by
+ * {@link IntegrationBridgeImpl#sendMessage(IntegrationInstance, String, Message)}.
+ *
+ * The stream service is stubbed so the results reflect the bridge overhead per stream rather than
+ * the Agent round trip.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IntegrationBridgeBenchmark {
+
+  private static final String INTEGRATION_USER = "jirawebhook";
+
+  private static final String MESSAGE_BODY =
+      "<messageML>Test Message. Stream: <b>${entity['jirawebhook'].stream}</b></messageML>";
+
+  /**
+   * Number of streams configured for the integration instance.
+   */
+  @Param({ "1", "10", "50" })
+  private int streamCount;
+
+  private IntegrationBridgeImpl bridge;
+
+  private IntegrationInstance instance;
+
+  private Message message;
+
+  @Setup
+  public void setup() throws RemoteApiException {
+    List<String> streams = new ArrayList<>();
+
+    for (int i = 0; i < streamCount; i++) {
+      streams.add("stream" + i);
+    }
+
+    instance = new IntegrationInstance();
+    instance.setInstanceId("5810d144e4b0f884b709cc90");
+    instance.setConfigurationId("57e82afce4b07fea0651e8ac");
+
+    message = new Message();
+    message.setMessage(MESSAGE_BODY);
+
+    Message response = new Message();
+    response.setMessage(MESSAGE_BODY);
+
+    StreamService streamService = mock(StreamService.class);
+    doReturn(streams).when(streamService).getStreams(any(IntegrationInstance.class));
+    doReturn(response).when(streamService)
+        .postMessage(anyString(), anyString(), any(Message.class));
+
+    bridge = new IntegrationBridgeImpl();
+    ReflectionTestUtils.setField(bridge, "streamService", streamService);
+    ReflectionTestUtils.setField(bridge, "logMessage", new LogMessageSource());
+  }
+
+  @Benchmark
+  public List<Message> sendMessage() throws RemoteApiException {
+    return bridge.sendMessage(instance, INTEGRATION_USER, message);
+  }
+
+}
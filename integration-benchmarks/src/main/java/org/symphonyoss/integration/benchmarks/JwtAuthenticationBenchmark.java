@@ -0,0 +1,124 @@
+/**
+ * Copyright 2016-2017 Symphony Integrations - Symphony LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.symphonyoss.integration.benchmarks;
+
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+import com.google.common.cache.LoadingCache;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.impl.crypto.RsaProvider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.symphonyoss.integration.Integration;
+import org.symphonyoss.integration.authentication.api.model.JwtPayload;
+import org.symphonyoss.integration.authentication.jwt.JwtAuthenticationImpl;
+import org.symphonyoss.integration.logging.LogMessageSource;
+import org.symphonyoss.integration.model.config.IntegrationSettings;
+import org.symphonyoss.integration.model.yaml.IntegrationProperties;
+import org.symphonyoss.integration.service.IntegrationBridge;
+
+import java.security.KeyPair;
+import java.security.PublicKey;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the JWT validation executed for every authenticated request sent by the
+ * applications, through {@link JwtAuthenticationImpl#parseJwtPayload(String, String)}.
+ *
+ * The pod public certificate is loaded into the cache upfront, so the results reflect the
+ * signature verification and the payload deserialization only.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtAuthenticationBenchmark {
+
+  private static final String CONFIG_ID = "57e82afce4b07fea0651e8ac";
+
+  private static final String INTEGRATION_TYPE = "jiraWebHookIntegration";
+
+  private static final String APP_ID = "jira";
+
+  private static final int CACHE_DURATION = 60;
+
+  private JwtAuthenticationImpl jwtAuthentication;
+
+  private String jwt;
+
+  @Setup
+  public void setup() {
+    KeyPair keyPair = RsaProvider.generateKeyPair(1024);
+
+    jwt = Jwts.builder()
+        .setSubject("123456")
+        .setExpiration(new Date(System.currentTimeMillis() + TimeUnit.DAYS.toMillis(1)))
+        .setAudience("www.symphony.com")
+        .setIssuer("Symphony Communication Services LLC.")
+        .signWith(SignatureAlgorithm.RS512, keyPair.getPrivate())
+        .compact();
+
+    IntegrationSettings settings = mock(IntegrationSettings.class);
+    doReturn(INTEGRATION_TYPE).when(settings).getType();
+
+    Integration integration = mock(Integration.class);
+    doReturn(settings).when(integration).getSettings();
+
+    IntegrationBridge integrationBridge = mock(IntegrationBridge.class);
+    doReturn(integration).when(integrationBridge).getIntegrationById(CONFIG_ID);
+
+    IntegrationProperties properties = mock(IntegrationProperties.class);
+    doReturn(APP_ID).when(properties).getApplicationId(INTEGRATION_TYPE);
+
+    jwtAuthentication = new JwtAuthenticationImpl();
+    ReflectionTestUtils.setField(jwtAuthentication, "integrationBridge", integrationBridge);
+    ReflectionTestUtils.setField(jwtAuthentication, "properties", properties);
+    ReflectionTestUtils.setField(jwtAuthentication, "logMessage", new LogMessageSource());
+    ReflectionTestUtils.invokeMethod(jwtAuthentication, "initializeCache", CACHE_DURATION);
+
+    LoadingCache<String, PublicKey> cache = (LoadingCache<String, PublicKey>)
+        ReflectionTestUtils.getField(jwtAuthentication, "podPublicSignatureVerifierCache");
+    cache.put(APP_ID, keyPair.getPublic());
+  }
+
+  @TearDown
+  public void tearDown() {
+    jwtAuthentication.destroy();
+  }
+
+  @Benchmark
+  public JwtPayload parseJwtPayload() {
+    return jwtAuthentication.parseJwtPayload(CONFIG_ID, jwt);
+  }
+
+}
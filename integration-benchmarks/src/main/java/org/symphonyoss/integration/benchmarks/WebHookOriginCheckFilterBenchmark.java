@@ -0,0 +1,143 @@
+/**
+ * Copyright 2016-2017 Symphony Integrations - Symphony LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.symphonyoss.integration.benchmarks;
+
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockFilterConfig;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.context.support.StaticWebApplicationContext;
+import org.symphonyoss.integration.Integration;
+import org.symphonyoss.integration.logging.LogMessageSource;
+import org.symphonyoss.integration.model.yaml.IntegrationProperties;
+import org.symphonyoss.integration.web.filter.WebHookOriginCheckFilter;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+
+/**
+ * Benchmarks the origin check executed for every webhook request by
+ * {@link WebHookOriginCheckFilter#doFilter(ServletRequest, ServletResponse, FilterChain)}.
+ *
+ * The blocked origin path is not covered since it relies on reverse DNS lookups.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WebHookOriginCheckFilterBenchmark {
+
+  private static final String INTEGRATION_TYPE = "jiraWebHookIntegration";
+
+  private static final String WEBHOOK_URL =
+      "/integration/v1/whi/" + INTEGRATION_TYPE + "/57e82afce4b07fea0651e8ac/5810d144e4b0f884b709cc90";
+
+  private static final String REMOTE_ADDRESS = "192.30.252.40";
+
+  /**
+   * Number of entries in the global whitelist.
+   */
+  @Param({ "0", "10", "100" })
+  private int whiteListSize;
+
+  private WebHookOriginCheckFilter filter;
+
+  private MockHttpServletRequest request;
+
+  private MockHttpServletResponse response;
+
+  private FilterChain chain;
+
+  @Setup
+  public void setup() throws ServletException {
+    Set<String> globalWhiteList = new HashSet<>();
+
+    for (int i = 0; i < whiteListSize; i++) {
+      globalWhiteList.add("10.0." + (i / 256) + "." + (i % 256));
+    }
+
+    if (whiteListSize > 0) {
+      globalWhiteList.add(REMOTE_ADDRESS);
+    }
+
+    IntegrationProperties properties = mock(IntegrationProperties.class);
+    doReturn(globalWhiteList).when(properties).getGlobalWhiteList();
+
+    Integration integration = mock(Integration.class);
+    doReturn(Collections.emptySet()).when(integration).getIntegrationWhiteList();
+
+    MockServletContext servletContext = new MockServletContext();
+
+    StaticWebApplicationContext springContext = new StaticWebApplicationContext();
+    springContext.setServletContext(servletContext);
+    springContext.getBeanFactory().registerSingleton(INTEGRATION_TYPE, integration);
+    springContext.getBeanFactory().registerSingleton("integrationProperties", properties);
+    springContext.getBeanFactory().registerSingleton("logMessageSource",
+        mock(LogMessageSource.class));
+    springContext.refresh();
+
+    servletContext.setAttribute(WebApplicationContext.ROOT_WEB_APPLICATION_CONTEXT_ATTRIBUTE,
+        springContext);
+
+    filter = new WebHookOriginCheckFilter();
+    filter.init(new MockFilterConfig(servletContext));
+
+    request = new MockHttpServletRequest("POST", WEBHOOK_URL);
+    request.setRemoteAddr(REMOTE_ADDRESS);
+
+    response = new MockHttpServletResponse();
+
+    chain = new FilterChain() {
+      @Override
+      public void doFilter(ServletRequest request, ServletResponse response) {
+        // Request accepted
+      }
+    };
+  }
+
+  @Benchmark
+  public void doFilter() throws IOException, ServletException {
+    filter.doFilter(request, response, chain);
+  }
+
+}
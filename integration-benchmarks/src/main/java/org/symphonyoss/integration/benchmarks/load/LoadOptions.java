@@ -0,0 +1,302 @@
+/**
+ * Copyright 2016-2017 Symphony Integrations - Symphony LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.symphonyoss.integration.benchmarks.load;
+
+import static org.symphonyoss.integration.metrics.IntegrationMetricsConstants.BASE_METRIC_NAME;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Command line options of the {@link WebHookLoadGenerator}.
+ */
+public class LoadOptions {
+
+  private static final String DEFAULT_URL = "http://localhost:8186";
+
+  private static final String WEBHOOK_PATH = "/integration/v1/whi/";
+
+  private static final String METRICS_PATH = "/metrics";
+
+  private static final String OPTION_PREFIX = "--";
+
+  public static final String USAGE =
+      "Usage: WebHookLoadGenerator --type=<integration type> --config=<configuration id>\n"
+          + "    --hash=<instance hash> --payload=<file or directory> [options]\n"
+          + "\n"
+          + "Options:\n"
+          + "  --url=<url>                Integration Bridge base URL [" + DEFAULT_URL + "]\n"
+          + "  --content-type=<type>      Payload content type [application/json]\n"
+          + "  --concurrency=<n>          Maximum concurrent requests [10]\n"
+          + "  --rate=<n>                 Arrival rate in requests per second. Zero sends the\n"
+          + "                             requests back to back on each connection [0]\n"
+          + "  --duration=<seconds>       Test duration [60]\n"
+          + "  --timeout=<millis>         Request timeout [30000]\n"
+          + "  --metrics-url=<url>        Bridge metrics endpoint [<url>" + METRICS_PATH + "]\n"
+          + "  --metrics-interval=<secs>  Metrics collection interval. Zero disables it [5]\n"
+          + "  --metrics-filter=<text>    Only collect the metrics containing this text ["
+          + BASE_METRIC_NAME + "]\n";
+
+  private String url = DEFAULT_URL;
+
+  private String type;
+
+  private String configurationId;
+
+  private String hash;
+
+  private List<File> payloads = new ArrayList<>();
+
+  private String contentType = "application/json";
+
+  private int concurrency = 10;
+
+  private double rate;
+
+  private int durationSeconds = 60;
+
+  private int timeoutMillis = 30000;
+
+  private String metricsUrl;
+
+  private int metricsIntervalSeconds = 5;
+
+  private String metricsFilter = BASE_METRIC_NAME;
+
+  /**
+   * Parses the command line arguments. Options are informed as '--name=value' or '--name value'.
+   * @param args Command line arguments
+   * @return Load options
+   * @throws IllegalArgumentException Invalid or missing option
+   */
+  public static LoadOptions parse(String[] args) {
+    LoadOptions options = new LoadOptions();
+
+    for (int i = 0; i < args.length; i++) {
+      String arg = args[i];
+
+      if (!arg.startsWith(OPTION_PREFIX)) {
+        throw new IllegalArgumentException("Unexpected argument: " + arg);
+      }
+
+      String name = arg.substring(OPTION_PREFIX.length());
+      String value;
+
+      int separator = name.indexOf('=');
+
+      if (separator >= 0) {
+        value = name.substring(separator + 1);
+        name = name.substring(0, separator);
+      } else if (i + 1 < args.length) {
+        value = args[++i];
+      } else {
+        throw new IllegalArgumentException("Missing value for option: " + arg);
+      }
+
+      options.set(name, value);
+    }
+
+    options.validate();
+
+    return options;
+  }
+
+  private void set(String name, String value) {
+    switch (name) {
+      case "url":
+        this.url = stripTrailingSlash(value);
+        break;
+      case "type":
+        this.type = value;
+        break;
+      case "config":
+        this.configurationId = value;
+        break;
+      case "hash":
+        this.hash = value;
+        break;
+      case "payload":
+        this.payloads = listPayloads(new File(value));
+        break;
+      case "content-type":
+        this.contentType = value;
+        break;
+      case "concurrency":
+        this.concurrency = Integer.parseInt(value);
+        break;
+      case "rate":
+        this.rate = Double.parseDouble(value);
+        break;
+      case "duration":
+        this.durationSeconds = Integer.parseInt(value);
+        break;
+      case "timeout":
+        this.timeoutMillis = Integer.parseInt(value);
+        break;
+      case "metrics-url":
+        this.metricsUrl = value;
+        break;
+      case "metrics-interval":
+        this.metricsIntervalSeconds = Integer.parseInt(value);
+        break;
+      case "metrics-filter":
+        this.metricsFilter = value;
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown option: " + OPTION_PREFIX + name);
+    }
+  }
+
+  private void validate() {
+    checkRequired("type", type);
+    checkRequired("config", configurationId);
+    checkRequired("hash", hash);
+
+    if (payloads.isEmpty()) {
+      throw new IllegalArgumentException("No payload files found. Use --payload to inform them");
+    }
+
+    if (concurrency <= 0) {
+      throw new IllegalArgumentException("Concurrency must be greater than zero");
+    }
+
+    if (rate < 0) {
+      throw new IllegalArgumentException("Rate must not be negative");
+    }
+
+    if (durationSeconds <= 0) {
+      throw new IllegalArgumentException("Duration must be greater than zero");
+    }
+
+    if (metricsIntervalSeconds < 0) {
+      throw new IllegalArgumentException("Metrics interval must not be negative");
+    }
+  }
+
+  private void checkRequired(String name, String value) {
+    if (value == null || value.isEmpty()) {
+      throw new IllegalArgumentException("Missing required option: " + OPTION_PREFIX + name);
+    }
+  }
+
+  /**
+   * Lists the recorded payloads. A directory is expanded to its files, sorted by name.
+   * @param path Payload file or directory
+   * @return Payload files
+   */
+  private List<File> listPayloads(File path) {
+    if (path.isFile()) {
+      return Collections.singletonList(path);
+    }
+
+    File[] files = path.listFiles();
+
+    if (files == null) {
+      throw new IllegalArgumentException("Payload not found: " + path);
+    }
+
+    Arrays.sort(files);
+
+    List<File> result = new ArrayList<>();
+
+    for (File file : files) {
+      if (file.isFile()) {
+        result.add(file);
+      }
+    }
+
+    return result;
+  }
+
+  private String stripTrailingSlash(String value) {
+    return value.endsWith("/") ? value.substring(0, value.length() - 1) : value;
+  }
+
+  /**
+   * Webhook URL the payloads are sent to.
+   * @return Webhook URL
+   */
+  public String getWebHookUrl() {
+    return url + WEBHOOK_PATH + type + "/" + configurationId + "/" + hash;
+  }
+
+  public String getMetricsUrl() {
+    return metricsUrl != null ? metricsUrl : url + METRICS_PATH;
+  }
+
+  public String getUrl() {
+    return url;
+  }
+
+  public String getType() {
+    return type;
+  }
+
+  public String getConfigurationId() {
+    return configurationId;
+  }
+
+  public String getHash() {
+    return hash;
+  }
+
+  public List<File> getPayloads() {
+    return payloads;
+  }
+
+  public String getContentType() {
+    return contentType;
+  }
+
+  public int getConcurrency() {
+    return concurrency;
+  }
+
+  /**
+   * Arrival rate in requests per second. Zero means closed loop, i.e. each connection sends the
+   * next request as soon as the previous one completes.
+   * @return Arrival rate
+   */
+  public double getRate() {
+    return rate;
+  }
+
+  public boolean isOpenLoop() {
+    return rate > 0;
+  }
+
+  public int getDurationSeconds() {
+    return durationSeconds;
+  }
+
+  public int getTimeoutMillis() {
+    return timeoutMillis;
+  }
+
+  public int getMetricsIntervalSeconds() {
+    return metricsIntervalSeconds;
+  }
+
+  public String getMetricsFilter() {
+    return metricsFilter;
+  }
+
+}
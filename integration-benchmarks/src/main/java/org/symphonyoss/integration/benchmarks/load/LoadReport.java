@@ -0,0 +1,222 @@
+/**
+ * Copyright 2016-2017 Symphony Integrations - Symphony LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.symphonyoss.integration.benchmarks.load;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Results of a load test: responses by HTTP status, failures without response, latency
+ * percentiles and throughput.
+ *
+ * Latencies are kept individually, so the percentiles are exact.
+ */
+public class LoadReport {
+
+  private static final double[] PERCENTILES = { 50, 90, 95, 99, 99.9 };
+
+  private static final int INITIAL_CAPACITY = 1024;
+
+  private static final double RANK_TOLERANCE = 1e-9;
+
+  private final SortedMap<Integer, Long> responsesByStatus = new TreeMap<>();
+
+  private final SortedMap<String, Long> failuresByType = new TreeMap<>();
+
+  private long[] latencies = new long[INITIAL_CAPACITY];
+
+  private int count;
+
+  private long notSent;
+
+  private long elapsedNanos;
+
+  private long[] sortedLatencies;
+
+  /**
+   * Records a request answered by the bridge.
+   * @param status HTTP status
+   * @param latencyNanos Request latency
+   */
+  public synchronized void recordResponse(int status, long latencyNanos) {
+    increment(responsesByStatus, status);
+    addLatency(latencyNanos);
+  }
+
+  /**
+   * Records a request that failed without response (e.g. connection refused or timeout).
+   * @param cause Failure
+   * @param latencyNanos Time until the failure
+   */
+  public synchronized void recordFailure(Throwable cause, long latencyNanos) {
+    increment(failuresByType, cause.getClass().getSimpleName());
+    addLatency(latencyNanos);
+  }
+
+  /**
+   * Records the requests scheduled but not sent before the end of the test.
+   * @param notSent Number of requests
+   */
+  public synchronized void setNotSent(long notSent) {
+    this.notSent = notSent;
+  }
+
+  /**
+   * Records the test duration, from the first request until the last response.
+   * @param elapsedNanos Test duration
+   */
+  public synchronized void setElapsedNanos(long elapsedNanos) {
+    this.elapsedNanos = elapsedNanos;
+  }
+
+  private <K> void increment(Map<K, Long> counters, K key) {
+    Long current = counters.get(key);
+    counters.put(key, current == null ? 1 : current + 1);
+  }
+
+  private void addLatency(long latencyNanos) {
+    if (count == latencies.length) {
+      latencies = Arrays.copyOf(latencies, count * 2);
+    }
+
+    latencies[count++] = latencyNanos;
+    sortedLatencies = null;
+  }
+
+  /**
+   * Requests completed, with or without response.
+   * @return Number of requests
+   */
+  public synchronized long getCompleted() {
+    return count;
+  }
+
+  /**
+   * Requests answered with a 2xx status.
+   * @return Number of requests
+   */
+  public synchronized long getSuccessful() {
+    long successful = 0;
+
+    for (Map.Entry<Integer, Long> entry : responsesByStatus.entrySet()) {
+      if (entry.getKey() / 100 == 2) {
+        successful += entry.getValue();
+      }
+    }
+
+    return successful;
+  }
+
+  public synchronized SortedMap<Integer, Long> getResponsesByStatus() {
+    return new TreeMap<>(responsesByStatus);
+  }
+
+  public synchronized SortedMap<String, Long> getFailuresByType() {
+    return new TreeMap<>(failuresByType);
+  }
+
+  public synchronized long getNotSent() {
+    return notSent;
+  }
+
+  /**
+   * Completed requests per second.
+   * @return Throughput
+   */
+  public synchronized double getThroughput() {
+    if (elapsedNanos <= 0) {
+      return 0;
+    }
+
+    return count / (elapsedNanos / (double) TimeUnit.SECONDS.toNanos(1));
+  }
+
+  /**
+   * Latency percentile, using the nearest-rank method.
+   * @param percentile Percentile between 0 and 100
+   * @return Latency in milliseconds or zero if there are no requests
+   */
+  public synchronized double getLatencyPercentile(double percentile) {
+    if (count == 0) {
+      return 0;
+    }
+
+    if (sortedLatencies == null) {
+      sortedLatencies = Arrays.copyOf(latencies, count);
+      Arrays.sort(sortedLatencies);
+    }
+
+    // Tolerance for the rounding error of percentiles such as 99.9
+    int rank = (int) Math.ceil(percentile / 100 * count - RANK_TOLERANCE);
+    int index = Math.min(Math.max(rank - 1, 0), count - 1);
+
+    return toMillis(sortedLatencies[index]);
+  }
+
+  public synchronized double getMaxLatency() {
+    return getLatencyPercentile(100);
+  }
+
+  private double toMillis(long nanos) {
+    return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+  }
+
+  @Override
+  public synchronized String toString() {
+    StringBuilder builder = new StringBuilder();
+
+    builder.append(String.format("Duration:    %.1f s%n", elapsedNanos / 1e9));
+    builder.append(String.format("Completed:   %d (%d successful)%n", count, getSuccessful()));
+    builder.append(String.format("Not sent:    %d%n", notSent));
+    builder.append(String.format("Throughput:  %.1f req/s%n", getThroughput()));
+
+    builder.append(String.format("%nLatency (ms)%n"));
+
+    for (double percentile : PERCENTILES) {
+      builder.append(String.format("  p%-6s %10.2f%n", format(percentile),
+          getLatencyPercentile(percentile)));
+    }
+
+    builder.append(String.format("  %-7s %10.2f%n", "max", getMaxLatency()));
+
+    builder.append(String.format("%nResponses by status%n"));
+
+    for (Map.Entry<Integer, Long> entry : responsesByStatus.entrySet()) {
+      builder.append(String.format("  %-7d %10d%n", entry.getKey(), entry.getValue()));
+    }
+
+    if (!failuresByType.isEmpty()) {
+      builder.append(String.format("%nFailures without response%n"));
+
+      for (Map.Entry<String, Long> entry : failuresByType.entrySet()) {
+        builder.append(String.format("  %-30s %10d%n", entry.getKey(), entry.getValue()));
+      }
+    }
+
+    return builder.toString();
+  }
+
+  private String format(double percentile) {
+    return percentile == Math.floor(percentile) ? String.valueOf((long) percentile)
+        : String.valueOf(percentile);
+  }
+
+}
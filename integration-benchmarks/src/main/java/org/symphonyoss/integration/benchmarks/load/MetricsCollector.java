@@ -0,0 +1,167 @@
+/**
+ * Copyright 2016-2017 Symphony Integrations - Symphony LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.symphonyoss.integration.benchmarks.load;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.util.EntityUtils;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Samples the bridge metrics endpoint while the load test runs, so the client side results can be
+ * compared with the request metrics collected by the bridge itself (active requests, request
+ * timers and response code meters per integration).
+ *
+ * Only numeric metrics whose name contains the configured filter are kept.
+ */
+public class MetricsCollector implements Runnable {
+
+  private static final TypeReference<Map<String, Object>> METRICS_TYPE =
+      new TypeReference<Map<String, Object>>() {};
+
+  private final CloseableHttpClient client;
+
+  private final String metricsUrl;
+
+  private final String filter;
+
+  private final ObjectMapper mapper = new ObjectMapper();
+
+  private final SortedMap<String, MetricSamples> samples = new TreeMap<>();
+
+  private int failures;
+
+  private String lastFailure;
+
+  public MetricsCollector(CloseableHttpClient client, String metricsUrl, String filter) {
+    this.client = client;
+    this.metricsUrl = metricsUrl;
+    this.filter = filter;
+  }
+
+  /**
+   * Takes one sample of the bridge metrics. Failures are counted and reported, but they don't
+   * interrupt the load test.
+   */
+  @Override
+  public void run() {
+    try {
+      Map<String, Object> metrics = fetch();
+
+      synchronized (this) {
+        for (Map.Entry<String, Object> entry : metrics.entrySet()) {
+          if (entry.getKey().contains(filter) && entry.getValue() instanceof Number) {
+            double value = ((Number) entry.getValue()).doubleValue();
+            addSample(entry.getKey(), value);
+          }
+        }
+      }
+    } catch (IOException e) {
+      synchronized (this) {
+        failures++;
+        lastFailure = e.getMessage();
+      }
+    }
+  }
+
+  private Map<String, Object> fetch() throws IOException {
+    HttpGet request = new HttpGet(metricsUrl);
+
+    try (CloseableHttpResponse response = client.execute(request)) {
+      int status = response.getStatusLine().getStatusCode();
+      String body = EntityUtils.toString(response.getEntity());
+
+      if (status != HttpStatus.SC_OK) {
+        throw new IOException("Metrics endpoint returned HTTP " + status);
+      }
+
+      return mapper.readValue(body, METRICS_TYPE);
+    }
+  }
+
+  private void addSample(String name, double value) {
+    MetricSamples metric = samples.get(name);
+
+    if (metric == null) {
+      metric = new MetricSamples(value);
+      samples.put(name, metric);
+    } else {
+      metric.add(value);
+    }
+  }
+
+  @Override
+  public synchronized String toString() {
+    StringBuilder builder = new StringBuilder();
+
+    builder.append(String.format("Bridge metrics (%s)%n", metricsUrl));
+
+    if (samples.isEmpty()) {
+      builder.append(String.format("  No metrics collected%n"));
+    } else {
+      builder.append(String.format("  %-70s %14s %14s %14s %14s%n", "name", "start", "end",
+          "delta", "max"));
+
+      for (Map.Entry<String, MetricSamples> entry : samples.entrySet()) {
+        MetricSamples metric = entry.getValue();
+        builder.append(String.format("  %-70s %14.2f %14.2f %14.2f %14.2f%n", entry.getKey(),
+            metric.first, metric.last, metric.last - metric.first, metric.max));
+      }
+    }
+
+    if (failures > 0) {
+      builder.append(String.format("  %d samples failed. Last failure: %s%n", failures,
+          lastFailure));
+    }
+
+    return builder.toString();
+  }
+
+  /**
+   * First, last and maximum values sampled for a metric.
+   */
+  private static class MetricSamples {
+
+    private final double first;
+
+    private double last;
+
+    private double max;
+
+    private MetricSamples(double value) {
+      this.first = value;
+      this.last = value;
+      this.max = value;
+    }
+
+    private void add(double value) {
+      this.last = value;
+      this.max = Math.max(max, value);
+    }
+
+  }
+
+}
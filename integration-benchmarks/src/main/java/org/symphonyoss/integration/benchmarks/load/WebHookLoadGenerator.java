@@ -0,0 +1,316 @@
+/**
+ * Copyright 2016-2017 Symphony Integrations - Symphony LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.symphonyoss.integration.benchmarks.load;
+
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.util.EntityUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replays recorded webhook payloads against the Integration Bridge webhook endpoint
+ * ('/integration/v1/whi/{type}/{configurationId}/{hash}') and reports throughput, latency
+ * percentiles and the responses by HTTP status. The bridge request metrics are sampled during the
+ * test and reported along with the client side results.
+ *
+ * Two load models are supported:
+ *
+ * - Open loop (--rate greater than zero): requests are scheduled at a fixed arrival rate
+ * regardless of the bridge response times, and sent by up to --concurrency connections. The
+ * latency is measured from the scheduled time, so the time spent waiting for a free connection
+ * is included when the bridge can't keep up.
+ *
+ * - Closed loop (--rate zero): each of the --concurrency connections sends the next request as
+ * soon as the previous one completes.
+ *
+ * The payload files are sent in round robin.
+ */
+public class WebHookLoadGenerator {
+
+  /**
+   * Time to wait for the requests in flight after the test duration.
+   */
+  private static final long DRAIN_GRACE_MILLIS = TimeUnit.SECONDS.toMillis(5);
+
+  private final LoadOptions options;
+
+  private final List<byte[]> payloads;
+
+  private final ContentType contentType;
+
+  private final LoadReport report = new LoadReport();
+
+  private final AtomicLong sequence = new AtomicLong();
+
+  private CloseableHttpClient client;
+
+  private MetricsCollector metrics;
+
+  public WebHookLoadGenerator(LoadOptions options, List<byte[]> payloads) {
+    this.options = options;
+    this.payloads = payloads;
+    this.contentType = ContentType.parse(options.getContentType());
+  }
+
+  /**
+   * Runs the load test.
+   * @return Load test results
+   * @throws IOException Report failure to close the HTTP client
+   * @throws InterruptedException Test interrupted
+   */
+  public LoadReport run() throws IOException, InterruptedException {
+    PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+    connectionManager.setMaxTotal(options.getConcurrency() + 1);
+    connectionManager.setDefaultMaxPerRoute(options.getConcurrency() + 1);
+
+    RequestConfig requestConfig = RequestConfig.custom()
+        .setConnectTimeout(options.getTimeoutMillis())
+        .setSocketTimeout(options.getTimeoutMillis())
+        .setConnectionRequestTimeout(options.getTimeoutMillis())
+        .build();
+
+    client = HttpClients.custom()
+        .setConnectionManager(connectionManager)
+        .setDefaultRequestConfig(requestConfig)
+        .build();
+
+    ScheduledExecutorService metricsScheduler =
+        Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory("load-metrics"));
+    metrics = new MetricsCollector(client, options.getMetricsUrl(), options.getMetricsFilter());
+
+    try {
+      if (options.getMetricsIntervalSeconds() > 0) {
+        metricsScheduler.scheduleAtFixedRate(metrics, 0, options.getMetricsIntervalSeconds(),
+            TimeUnit.SECONDS);
+      }
+
+      execute();
+
+      // Final sample, after the bridge has processed all the requests
+      metricsScheduler.shutdown();
+      metricsScheduler.awaitTermination(options.getTimeoutMillis(), TimeUnit.MILLISECONDS);
+
+      if (options.getMetricsIntervalSeconds() > 0) {
+        metrics.run();
+      }
+    } finally {
+      metricsScheduler.shutdownNow();
+      client.close();
+    }
+
+    return report;
+  }
+
+  /**
+   * Bridge metrics sampled during the last run.
+   * @return Metrics collector or null if the test didn't run
+   */
+  public MetricsCollector getMetrics() {
+    return metrics;
+  }
+
+  private void execute() throws InterruptedException {
+    ThreadPoolExecutor executor = new ThreadPoolExecutor(options.getConcurrency(),
+        options.getConcurrency(), 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(),
+        new DaemonThreadFactory("load-worker"));
+
+    long start = System.nanoTime();
+    long deadline = start + TimeUnit.SECONDS.toNanos(options.getDurationSeconds());
+
+    if (options.isOpenLoop()) {
+      dispatchOpenLoop(executor, start, deadline);
+    } else {
+      for (int i = 0; i < options.getConcurrency(); i++) {
+        executor.execute(new ClosedLoopWorker(deadline));
+      }
+    }
+
+    executor.shutdown();
+
+    long drainMillis = options.getTimeoutMillis() + DRAIN_GRACE_MILLIS;
+
+    if (!executor.awaitTermination(drainMillis, TimeUnit.MILLISECONDS)) {
+      report.setNotSent(executor.shutdownNow().size());
+    }
+
+    report.setElapsedNanos(System.nanoTime() - start);
+  }
+
+  /**
+   * Schedules the requests at the configured arrival rate until the deadline.
+   */
+  private void dispatchOpenLoop(ThreadPoolExecutor executor, long start, long deadline) {
+    double intervalNanos = TimeUnit.SECONDS.toNanos(1) / options.getRate();
+
+    for (long i = 0; ; i++) {
+      long scheduled = start + (long) (i * intervalNanos);
+
+      if (scheduled >= deadline) {
+        break;
+      }
+
+      long wait;
+
+      while ((wait = scheduled - System.nanoTime()) > 0) {
+        LockSupport.parkNanos(wait);
+      }
+
+      executor.execute(new OpenLoopRequest(scheduled));
+    }
+  }
+
+  /**
+   * Sends the next payload and records the outcome.
+   * @param startNanos Time the latency is measured from
+   */
+  private void send(long startNanos) {
+    int index = (int) (sequence.getAndIncrement() % payloads.size());
+
+    HttpPost request = new HttpPost(options.getWebHookUrl());
+    request.setEntity(new ByteArrayEntity(payloads.get(index), contentType));
+
+    try (CloseableHttpResponse response = client.execute(request)) {
+      EntityUtils.consume(response.getEntity());
+      report.recordResponse(response.getStatusLine().getStatusCode(),
+          System.nanoTime() - startNanos);
+    } catch (IOException e) {
+      report.recordFailure(e, System.nanoTime() - startNanos);
+    }
+  }
+
+  /**
+   * Request scheduled by the open loop dispatcher.
+   */
+  private class OpenLoopRequest implements Runnable {
+
+    private final long scheduled;
+
+    private OpenLoopRequest(long scheduled) {
+      this.scheduled = scheduled;
+    }
+
+    @Override
+    public void run() {
+      send(scheduled);
+    }
+
+  }
+
+  /**
+   * Connection sending requests back to back until the deadline.
+   */
+  private class ClosedLoopWorker implements Runnable {
+
+    private final long deadline;
+
+    private ClosedLoopWorker(long deadline) {
+      this.deadline = deadline;
+    }
+
+    @Override
+    public void run() {
+      while (System.nanoTime() < deadline && !Thread.currentThread().isInterrupted()) {
+        send(System.nanoTime());
+      }
+    }
+
+  }
+
+  /**
+   * Creates named daemon threads, so pending requests never keep the JVM alive.
+   */
+  private static class DaemonThreadFactory implements ThreadFactory {
+
+    private final String prefix;
+
+    private final AtomicInteger counter = new AtomicInteger();
+
+    private DaemonThreadFactory(String prefix) {
+      this.prefix = prefix;
+    }
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+      Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+
+  }
+
+  /**
+   * Usage: java -cp benchmarks.jar org.symphonyoss.integration.benchmarks.load.WebHookLoadGenerator
+   * --type=jiraWebHookIntegration --config=57e82afce4b07fea0651e8ac --hash=5810d144e4b0f884b709cc90
+   * --payload=payloads/jira --rate=200 --concurrency=50 --duration=120
+   */
+  public static void main(String[] args) throws IOException, InterruptedException {
+    LoadOptions options;
+
+    try {
+      options = LoadOptions.parse(args);
+    } catch (IllegalArgumentException e) {
+      System.err.println(e.getMessage());
+      System.err.println();
+      System.err.println(LoadOptions.USAGE);
+      System.exit(1);
+      return;
+    }
+
+    List<byte[]> payloads = new ArrayList<>();
+
+    for (File file : options.getPayloads()) {
+      payloads.add(Files.readAllBytes(file.toPath()));
+    }
+
+    String model = options.isOpenLoop() ? options.getRate() + " req/s" : "closed loop";
+
+    System.out.println(String.format("Sending %d payload(s) to %s for %d s (%s, concurrency %d)%n",
+        payloads.size(), options.getWebHookUrl(), options.getDurationSeconds(), model,
+        options.getConcurrency()));
+
+    WebHookLoadGenerator generator = new WebHookLoadGenerator(options, payloads);
+    LoadReport report = generator.run();
+
+    System.out.println(report);
+
+    if (options.getMetricsIntervalSeconds() > 0) {
+      System.out.println(generator.getMetrics());
+    }
+  }
+
+}
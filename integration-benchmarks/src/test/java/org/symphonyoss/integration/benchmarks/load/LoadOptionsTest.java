@@ -0,0 +1,103 @@
+/**
+ * Copyright 2016-2017 Symphony Integrations - Symphony LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.symphonyoss.integration.benchmarks.load;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Unit test for {@link LoadOptions}
+ */
+public class LoadOptionsTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private File payloads;
+
+  @Before
+  public void init() throws IOException {
+    payloads = folder.newFolder("payloads");
+    new File(payloads, "b.json").createNewFile();
+    new File(payloads, "a.json").createNewFile();
+  }
+
+  @Test
+  public void testDefaults() {
+    LoadOptions options = LoadOptions.parse(new String[] { "--type=jiraWebHookIntegration",
+        "--config=57e82afce4b07fea0651e8ac", "--hash", "5810d144e4b0f884b709cc90",
+        "--payload=" + payloads.getAbsolutePath() });
+
+    assertEquals("http://localhost:8186/integration/v1/whi/jiraWebHookIntegration/"
+        + "57e82afce4b07fea0651e8ac/5810d144e4b0f884b709cc90", options.getWebHookUrl());
+    assertEquals("http://localhost:8186/metrics", options.getMetricsUrl());
+    assertEquals(10, options.getConcurrency());
+    assertEquals(60, options.getDurationSeconds());
+    assertFalse(options.isOpenLoop());
+
+    assertEquals(2, options.getPayloads().size());
+    assertEquals("a.json", options.getPayloads().get(0).getName());
+  }
+
+  @Test
+  public void testOptions() {
+    LoadOptions options = LoadOptions.parse(new String[] { "--url=http://bridge:8080/",
+        "--type=t", "--config=c", "--hash=h",
+        "--payload=" + new File(payloads, "a.json").getAbsolutePath(), "--rate=250.5",
+        "--concurrency=50", "--duration=120", "--content-type=application/xml",
+        "--metrics-url=http://bridge:8081/metrics", "--metrics-interval=0" });
+
+    assertEquals("http://bridge:8080/integration/v1/whi/t/c/h", options.getWebHookUrl());
+    assertEquals("http://bridge:8081/metrics", options.getMetricsUrl());
+    assertTrue(options.isOpenLoop());
+    assertEquals(250.5, options.getRate(), 0);
+    assertEquals(50, options.getConcurrency());
+    assertEquals(120, options.getDurationSeconds());
+    assertEquals("application/xml", options.getContentType());
+    assertEquals(0, options.getMetricsIntervalSeconds());
+    assertEquals(1, options.getPayloads().size());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testMissingRequired() {
+    LoadOptions.parse(new String[] { "--type=t", "--config=c",
+        "--payload=" + payloads.getAbsolutePath() });
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testUnknownOption() {
+    LoadOptions.parse(new String[] { "--type=t", "--config=c", "--hash=h",
+        "--payload=" + payloads.getAbsolutePath(), "--threads=10" });
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testPayloadNotFound() {
+    LoadOptions.parse(new String[] { "--type=t", "--config=c", "--hash=h",
+        "--payload=" + new File(folder.getRoot(), "missing").getAbsolutePath() });
+  }
+
+}
@@ -0,0 +1,93 @@
+/**
+ * Copyright 2016-2017 Symphony Integrations - Symphony LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.symphonyoss.integration.benchmarks.load;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.net.SocketTimeoutException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit test for {@link LoadReport}
+ */
+public class LoadReportTest {
+
+  @Test
+  public void testEmpty() {
+    LoadReport report = new LoadReport();
+
+    assertEquals(0, report.getCompleted());
+    assertEquals(0, report.getThroughput(), 0);
+    assertEquals(0, report.getLatencyPercentile(99), 0);
+  }
+
+  @Test
+  public void testPercentiles() {
+    LoadReport report = new LoadReport();
+
+    // Latencies from 1ms to 2000ms, forcing the latency buffer to grow
+    for (int i = 1; i <= 2000; i++) {
+      report.recordResponse(200, TimeUnit.MILLISECONDS.toNanos(i));
+    }
+
+    assertEquals(1000, report.getLatencyPercentile(50), 0);
+    assertEquals(1980, report.getLatencyPercentile(99), 0);
+    assertEquals(1998, report.getLatencyPercentile(99.9), 0);
+    assertEquals(2000, report.getMaxLatency(), 0);
+    assertEquals(1, report.getLatencyPercentile(0), 0);
+  }
+
+  @Test
+  public void testBreakdown() {
+    LoadReport report = new LoadReport();
+    report.recordResponse(200, 1);
+    report.recordResponse(200, 1);
+    report.recordResponse(204, 1);
+    report.recordResponse(503, 1);
+    report.recordFailure(new SocketTimeoutException(), 1);
+    report.setNotSent(3);
+
+    assertEquals(5, report.getCompleted());
+    assertEquals(3, report.getSuccessful());
+    assertEquals(Long.valueOf(2), report.getResponsesByStatus().get(200));
+    assertEquals(Long.valueOf(1), report.getResponsesByStatus().get(503));
+    assertEquals(Long.valueOf(1), report.getFailuresByType().get("SocketTimeoutException"));
+    assertEquals(3, report.getNotSent());
+
+    String summary = report.toString();
+    assertTrue(summary.contains("503"));
+    assertTrue(summary.contains("SocketTimeoutException"));
+  }
+
+  @Test
+  public void testThroughput() {
+    LoadReport report = new LoadReport();
+
+    for (int i = 0; i < 500; i++) {
+      report.recordResponse(200, 1);
+    }
+
+    report.setElapsedNanos(TimeUnit.SECONDS.toNanos(2));
+
+    assertEquals(250, report.getThroughput(), 0.001);
+  }
+
+}
@@ -0,0 +1,40 @@
+/**
+ * Copyright 2016-2017 Symphony Integrations - Symphony LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.symphonyoss.integration.config;
+
+import org.symphonyoss.integration.model.config.IntegrationInstance;
+import org.symphonyoss.integration.service.IntegrationService;
+
+import java.util.List;
+
+/**
+ * {@link IntegrationService} able to save several integration instances at once.
+ */
+public interface BatchIntegrationService extends IntegrationService {
+
+  /**
+   * Saves several integration instances. All the instances are submitted even if some of them
+   * fail.
+   * @param instances Integration instances to be saved
+   * @param userId User identifier
+   * @return Integration instances saved, in the same order they were submitted
+   * @throws org.symphonyoss.integration.exception.IntegrationRuntimeException First failure
+   * reported, after all the instances have been processed
+   */
+  List<IntegrationInstance> saveAll(List<IntegrationInstance> instances, String userId);
+
+}
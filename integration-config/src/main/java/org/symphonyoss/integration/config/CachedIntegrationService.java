@@ -0,0 +1,493 @@
+/**
+ * Copyright 2016-2017 Symphony Integrations - Symphony LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.symphonyoss.integration.config;
+
+import static javax.ws.rs.core.Response.Status.BAD_REQUEST;
+import static javax.ws.rs.core.Response.Status.NOT_FOUND;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.symphonyoss.integration.config.model.SnapshotEntry;
+import org.symphonyoss.integration.config.snapshot.IntegrationSnapshotStore;
+import org.symphonyoss.integration.exception.IntegrationRuntimeException;
+import org.symphonyoss.integration.exception.RemoteApiException;
+import org.symphonyoss.integration.model.config.IntegrationInstance;
+import org.symphonyoss.integration.model.config.IntegrationSettings;
+import org.symphonyoss.integration.service.IntegrationService;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+/**
+ * Read-through tiered implementation of the {@link IntegrationService}.
+ *
+ * Integrations and integration instances are read from memory, then from the local snapshot on
+ * disk, and finally from the {@link RemoteIntegrationService}. Entries older than the
+ * revalidation period are still returned, but they are revalidated against the remote server in
+ * background. If the remote server is unreachable the cached entries keep being served, so the
+ * webhooks for known instances are accepted during a POD outage.
+ *
+ * The memory tier is warmed up from the disk snapshot at startup. It keeps at most
+ * {@link #MEMORY_CACHE_SIZE} entries of each kind, and the entries not read for
+ * {@link #MEMORY_CACHE_DURATION} hours are evicted (they're still read from the disk snapshot).
+ * Saves are sent to the remote server and the results are written through to both tiers.
+ *
+ * The memory tier keeps the JSON representation of the objects, and every read returns a new copy,
+ * so the changes made by a caller aren't seen by the others.
+ */
+@Component
+public class CachedIntegrationService implements BatchIntegrationService {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(CachedIntegrationService.class);
+
+  private static final String SNAPSHOT_DIR_PROPERTY = "config.snapshot.dir";
+
+  private static final String DEFAULT_SNAPSHOT_DIR = "config-snapshot";
+
+  private static final String REVALIDATE_PERIOD_PROPERTY = "config.snapshot.revalidate.seconds";
+
+  private static final String DEFAULT_REVALIDATE_PERIOD = "60";
+
+  private static final int REVALIDATION_POOL_SIZE = 2;
+
+  private static final String KEY_SEPARATOR = ":";
+
+  /**
+   * Maximum number of integrations, integration types and instances kept in memory
+   */
+  private static final int MEMORY_CACHE_SIZE = 10000;
+
+  /**
+   * Time (in hours) an entry is kept in memory after it was last read
+   */
+  private static final int MEMORY_CACHE_DURATION = 1;
+
+  @Autowired
+  private RemoteIntegrationService remoteIntegrationService;
+
+  @Autowired
+  private Environment environment;
+
+  private ObjectMapper mapper = new ObjectMapper();
+
+  private IntegrationSnapshotStore store;
+
+  private ExecutorService revalidationPool =
+      Executors.newFixedThreadPool(REVALIDATION_POOL_SIZE, new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+          Thread thread = new Thread(runnable, "config-revalidation");
+          thread.setDaemon(true);
+          return thread;
+        }
+      });
+
+  /**
+   * Integrations cached in memory, by configuration identifier
+   */
+  private Cache<String, CachedEntry<IntegrationSettings>> integrations = newMemoryCache();
+
+  /**
+   * Configuration identifier by integration type
+   */
+  private Cache<String, String> integrationTypes = newMemoryCache();
+
+  /**
+   * Integration instances cached in memory, by configuration identifier and instance identifier
+   */
+  private Cache<String, CachedEntry<IntegrationInstance>> instances = newMemoryCache();
+
+  /**
+   * Keys being revalidated at the moment
+   */
+  private Set<String> revalidating =
+      Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+  private long revalidatePeriod;
+
+  @Override
+  @PostConstruct
+  public void init() {
+    this.mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    String directory = environment.getProperty(SNAPSHOT_DIR_PROPERTY, DEFAULT_SNAPSHOT_DIR);
+    this.store = new IntegrationSnapshotStore(directory, mapper);
+
+    String period = environment.getProperty(REVALIDATE_PERIOD_PROPERTY, DEFAULT_REVALIDATE_PERIOD);
+    this.revalidatePeriod = TimeUnit.SECONDS.toMillis(Long.valueOf(period));
+
+    warmUp();
+  }
+
+  /**
+   * Stops the background revalidation.
+   */
+  @PreDestroy
+  public void destroy() {
+    revalidationPool.shutdownNow();
+  }
+
+  private static <V> Cache<String, V> newMemoryCache() {
+    return CacheBuilder.newBuilder()
+        .maximumSize(MEMORY_CACHE_SIZE)
+        .expireAfterAccess(MEMORY_CACHE_DURATION, TimeUnit.HOURS)
+        .build();
+  }
+
+  /**
+   * Loads the disk snapshot into memory. Entries loaded from disk are revalidated on the first
+   * access.
+   */
+  private void warmUp() {
+    for (SnapshotEntry entry : store.loadIntegrations()) {
+      cacheIntegration(entry.getIntegration(), 0);
+    }
+
+    for (SnapshotEntry entry : store.loadInstances()) {
+      cacheInstance(entry.getInstance(), 0);
+    }
+
+    LOGGER.info("Configuration snapshot loaded. Integrations: {}, instances: {}",
+        integrations.size(), instances.size());
+  }
+
+  @Override
+  public IntegrationSettings getIntegrationById(String integrationId, String userId) {
+    CachedEntry<IntegrationSettings> entry = integrations.getIfPresent(integrationId);
+
+    if (entry == null) {
+      SnapshotEntry snapshot = store.loadIntegration(integrationId);
+
+      if (snapshot != null) {
+        entry = cacheIntegration(snapshot.getIntegration(), 0);
+      }
+    }
+
+    IntegrationSettings settings = copyOf(entry);
+
+    if (settings == null) {
+      settings = remoteIntegrationService.getIntegrationById(integrationId, userId);
+      writeThrough(settings, userId);
+      return settings;
+    }
+
+    if (entry.isStale(revalidatePeriod)) {
+      revalidateIntegration(integrationId, userId);
+    }
+
+    return settings;
+  }
+
+  @Override
+  public IntegrationSettings getIntegrationByType(String integrationType, String userId) {
+    String configurationId = integrationTypes.getIfPresent(integrationType);
+
+    if (configurationId != null) {
+      CachedEntry<IntegrationSettings> entry = integrations.getIfPresent(configurationId);
+      IntegrationSettings settings = copyOf(entry);
+
+      if ((settings != null) && (integrationType.equals(settings.getType()))) {
+        if (entry.isStale(revalidatePeriod)) {
+          revalidateIntegration(configurationId, userId);
+        }
+
+        return settings;
+      }
+    }
+
+    IntegrationSettings settings =
+        remoteIntegrationService.getIntegrationByType(integrationType, userId);
+    writeThrough(settings, userId);
+    return settings;
+  }
+
+  @Override
+  public IntegrationSettings save(IntegrationSettings settings, String userId) {
+    IntegrationSettings saved = remoteIntegrationService.save(settings, userId);
+    writeThrough(saved, userId);
+    return saved;
+  }
+
+  @Override
+  public IntegrationInstance getInstanceById(String configurationId, String instanceId,
+      String userId) {
+    String key = instanceKey(configurationId, instanceId);
+    CachedEntry<IntegrationInstance> entry = instances.getIfPresent(key);
+
+    if (entry == null) {
+      SnapshotEntry snapshot = store.loadInstance(configurationId, instanceId);
+
+      if (snapshot != null) {
+        entry = cacheInstance(snapshot.getInstance(), 0);
+      }
+    }
+
+    IntegrationInstance instance = copyOf(entry);
+
+    if (instance == null) {
+      instance = remoteIntegrationService.getInstanceById(configurationId, instanceId, userId);
+      writeThrough(instance, userId);
+      return instance;
+    }
+
+    if (entry.isStale(revalidatePeriod)) {
+      revalidateInstance(configurationId, instanceId, userId);
+    }
+
+    return instance;
+  }
+
+  @Override
+  public IntegrationInstance save(IntegrationInstance instance, String userId) {
+    IntegrationInstance saved = remoteIntegrationService.save(instance, userId);
+    writeThrough(saved, userId);
+    return saved;
+  }
+
+  @Override
+  public List<IntegrationInstance> saveAll(List<IntegrationInstance> instances, String userId) {
+    List<IntegrationInstance> saved;
+
+    try {
+      saved = remoteIntegrationService.saveAll(instances, userId);
+    } catch (RuntimeException e) {
+      // Some instances may have been saved, so they're revalidated on the next read
+      for (IntegrationInstance instance : instances) {
+        expireInstance(instance);
+      }
+
+      throw e;
+    }
+
+    for (IntegrationInstance instance : saved) {
+      writeThrough(instance, userId);
+    }
+
+    return saved;
+  }
+
+  private void expireInstance(IntegrationInstance instance) {
+    String key = instanceKey(instance.getConfigurationId(), instance.getInstanceId());
+    CachedEntry<IntegrationInstance> entry = instances.getIfPresent(key);
+
+    if (entry != null) {
+      instances.put(key, new CachedEntry<>(entry.type, entry.content, 0));
+    }
+  }
+
+  private void writeThrough(IntegrationSettings settings, String userId) {
+    if ((settings != null) && (settings.getConfigurationId() != null)) {
+      cacheIntegration(settings, System.currentTimeMillis());
+      store.saveIntegration(new SnapshotEntry(userId, settings));
+    }
+  }
+
+  private void writeThrough(IntegrationInstance instance, String userId) {
+    if ((instance != null) && (instance.getConfigurationId() != null)
+        && (instance.getInstanceId() != null)) {
+      cacheInstance(instance, System.currentTimeMillis());
+      store.saveInstance(new SnapshotEntry(userId, instance));
+    }
+  }
+
+  private CachedEntry<IntegrationSettings> cacheIntegration(IntegrationSettings settings,
+      long validatedAt) {
+    CachedEntry<IntegrationSettings> entry =
+        newEntry(IntegrationSettings.class, settings, validatedAt);
+
+    if (entry == null) {
+      integrations.invalidate(settings.getConfigurationId());
+      return null;
+    }
+
+    integrations.put(settings.getConfigurationId(), entry);
+
+    if (settings.getType() != null) {
+      integrationTypes.put(settings.getType(), settings.getConfigurationId());
+    }
+
+    return entry;
+  }
+
+  private CachedEntry<IntegrationInstance> cacheInstance(IntegrationInstance instance,
+      long validatedAt) {
+    String key = instanceKey(instance.getConfigurationId(), instance.getInstanceId());
+    CachedEntry<IntegrationInstance> entry =
+        newEntry(IntegrationInstance.class, instance, validatedAt);
+
+    if (entry == null) {
+      instances.invalidate(key);
+      return null;
+    }
+
+    instances.put(key, entry);
+    return entry;
+  }
+
+  /**
+   * Creates a memory entry holding the JSON representation of the value.
+   * @return Memory entry or null if the value can't be serialized
+   */
+  private <T> CachedEntry<T> newEntry(Class<T> type, T value, long validatedAt) {
+    try {
+      return new CachedEntry<>(type, mapper.writeValueAsBytes(value), validatedAt);
+    } catch (JsonProcessingException e) {
+      LOGGER.warn("Fail to keep the " + type.getSimpleName() + " in memory", e);
+      return null;
+    }
+  }
+
+  /**
+   * Reads a new copy of the value kept in a memory entry.
+   * @return Value or null if there is no entry or it can't be read
+   */
+  private <T> T copyOf(CachedEntry<T> entry) {
+    if (entry == null) {
+      return null;
+    }
+
+    try {
+      return mapper.readValue(entry.content, entry.type);
+    } catch (IOException e) {
+      LOGGER.warn("Fail to read the " + entry.type.getSimpleName() + " kept in memory", e);
+      return null;
+    }
+  }
+
+  /**
+   * Reloads the integration from the remote server in background. The cached entry is removed
+   * only if the remote server reports the integration doesn't exist anymore.
+   */
+  private void revalidateIntegration(final String configurationId, final String userId) {
+    final String key = "integration" + KEY_SEPARATOR + configurationId;
+
+    if (!revalidating.add(key)) {
+      return;
+    }
+
+    revalidationPool.submit(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          IntegrationSettings settings =
+              remoteIntegrationService.getIntegrationById(configurationId, userId);
+          writeThrough(settings, userId);
+        } catch (IntegrationRuntimeException e) {
+          if (isNotFound(e)) {
+            integrations.invalidate(configurationId);
+            store.deleteIntegration(configurationId);
+          } else {
+            LOGGER.warn("Fail to revalidate the integration {}. Keeping the cached entry",
+                configurationId);
+          }
+        } finally {
+          revalidating.remove(key);
+        }
+      }
+    });
+  }
+
+  /**
+   * Reloads the integration instance from the remote server in background. The cached entry is
+   * removed only if the remote server reports the instance doesn't exist anymore.
+   */
+  private void revalidateInstance(final String configurationId, final String instanceId,
+      final String userId) {
+    final String key = instanceKey(configurationId, instanceId);
+
+    if (!revalidating.add(key)) {
+      return;
+    }
+
+    revalidationPool.submit(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          IntegrationInstance instance =
+              remoteIntegrationService.getInstanceById(configurationId, instanceId, userId);
+          writeThrough(instance, userId);
+        } catch (IntegrationRuntimeException e) {
+          if (isNotFound(e)) {
+            instances.invalidate(key);
+            store.deleteInstance(configurationId, instanceId);
+          } else {
+            LOGGER.warn("Fail to revalidate the instance {}. Keeping the cached entry",
+                instanceId);
+          }
+        } finally {
+          revalidating.remove(key);
+        }
+      }
+    });
+  }
+
+  private boolean isNotFound(IntegrationRuntimeException e) {
+    if (e.getCause() instanceof RemoteApiException) {
+      int code = ((RemoteApiException) e.getCause()).getCode();
+      return (code == BAD_REQUEST.getStatusCode()) || (code == NOT_FOUND.getStatusCode());
+    }
+
+    return false;
+  }
+
+  private String instanceKey(String configurationId, String instanceId) {
+    return configurationId + KEY_SEPARATOR + instanceId;
+  }
+
+  /**
+   * JSON representation of a value cached in memory with the time it was last validated against
+   * the remote server.
+   */
+  private static class CachedEntry<T> {
+
+    private final Class<T> type;
+
+    private final byte[] content;
+
+    private final long validatedAt;
+
+    CachedEntry(Class<T> type, byte[] content, long validatedAt) {
+      this.type = type;
+      this.content = content;
+      this.validatedAt = validatedAt;
+    }
+
+    boolean isStale(long period) {
+      return System.currentTimeMillis() - validatedAt >= period;
+    }
+
+  }
+
+}
@@ -37,16 +37,23 @@ import static org.symphonyoss.integration.config.properties.LocalIntegrationServ
 import static org.symphonyoss.integration.config.properties.LocalIntegrationServiceProperties.FAILED_TO_SAVE_INSTANCE;
 import static org.symphonyoss.integration.config.properties.LocalIntegrationServiceProperties.FILE_NOT_FOUND;
 import static org.symphonyoss.integration.config.properties.LocalIntegrationServiceProperties.FILE_NOT_FOUND_SOLUTION;
+import static org.symphonyoss.integration.config.properties.LocalIntegrationServiceProperties.JOURNAL_FILE_EXCEPTION;
+import static org.symphonyoss.integration.config.properties.LocalIntegrationServiceProperties.JOURNAL_FILE_EXCEPTION_SOLUTION;
+import static org.symphonyoss.integration.config.properties.LocalIntegrationServiceProperties.RELOAD_FAILED;
+import static org.symphonyoss.integration.config.properties.LocalIntegrationServiceProperties.RELOAD_FAILED_SOLUTION;
 
 import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.core.env.Environment;
 import org.springframework.stereotype.Component;
+import org.symphonyoss.integration.config.event.ConfigurationChangedEventData;
 import org.symphonyoss.integration.config.exception.ConfigurationNotFoundException;
 import org.symphonyoss.integration.config.exception.InitializationConfigException;
 import org.symphonyoss.integration.config.exception.InstanceNotFoundException;
@@ -54,7 +61,10 @@ import org.symphonyoss.integration.config.exception.InvalidConfigurationIdExcept
 import org.symphonyoss.integration.config.exception.InvalidInstanceIdException;
 import org.symphonyoss.integration.config.exception.SaveConfigurationException;
 import org.symphonyoss.integration.config.exception.SaveInstanceException;
+import org.symphonyoss.integration.config.journal.IntegrationRepositoryJournal;
 import org.symphonyoss.integration.config.model.IntegrationRepository;
+import org.symphonyoss.integration.config.model.JournalRecord;
+import org.symphonyoss.integration.config.watcher.ConfigurationFileWatcher;
 import org.symphonyoss.integration.logging.LogMessageSource;
 import org.symphonyoss.integration.model.config.IntegrationInstance;
 import org.symphonyoss.integration.model.config.IntegrationSettings;
@@ -63,18 +73,29 @@ import org.symphonyoss.integration.service.IntegrationService;
 import java.io.Closeable;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.List;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 
 /**
  * Implementation of the {@link IntegrationService} that reads a JSON file to load the
  * integrations.
  *
+ * When the JSON file lives outside the classpath, the changes are appended to a journal file
+ * instead of rewriting the whole JSON file on each save. The journal is compacted into the JSON
+ * file when it reaches {@link #COMPACTION_THRESHOLD} records and at startup, after being replayed.
+ *
+ * The file outside the classpath is also watched for external changes. A changed file is parsed
+ * in background, the journal is replayed over it and the result replaces the current repository.
+ * The integrations and instances that were created or modified are published through a
+ * {@link ConfigurationChangedEventData}.
+ *
  * Created by rsanchez on 03/05/16.
  */
 @Component
@@ -85,6 +106,13 @@ public class LocalIntegrationService implements IntegrationService {
 
   private static final String DEFAULT_FILE_NAME = "configuration.json";
 
+  private static final String WATCH_ENABLED_PROPERTY = "config.watch.enabled";
+
+  /**
+   * Maximum number of journal records before compacting the journal into the configuration file
+   */
+  private static final int COMPACTION_THRESHOLD = 1000;
+
   @Autowired
   private LogMessageSource logMessage;
 
@@ -108,12 +136,31 @@ public class LocalIntegrationService implements IntegrationService {
    */
   private volatile IntegrationRepository repository;
 
+  /**
+   * Journal of the changes applied over the configuration file
+   */
+  private IntegrationRepositoryJournal journal;
+
+  /**
+   * Watcher for external changes on the configuration file
+   */
+  private ConfigurationFileWatcher watcher;
+
   @Autowired
   private Environment environment;
 
+  @Autowired
+  private ApplicationEventPublisher publisher;
+
   @Override
   @PostConstruct
   public void init() {
+    closeStream(watcher);
+    this.watcher = null;
+
+    closeStream(journal);
+    this.journal = null;
+
     this.fileName = environment.getProperty("config.filename", DEFAULT_FILE_NAME);
     this.mapper.configure(SerializationFeature.INDENT_OUTPUT, true);
     this.mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
@@ -134,6 +181,170 @@ public class LocalIntegrationService implements IntegrationService {
     } finally {
       closeStream(input);
     }
+
+    if (saveFile) {
+      replayJournal();
+      watchFile();
+    }
+  }
+
+  /**
+   * Stops watching the configuration file and closes the journal, syncing the pending records.
+   */
+  @PreDestroy
+  public synchronized void destroy() {
+    closeStream(watcher);
+    this.watcher = null;
+
+    closeStream(journal);
+    this.journal = null;
+  }
+
+  /**
+   * Starts watching the configuration file for external changes if it's enabled through the
+   * property 'config.watch.enabled'.
+   */
+  private void watchFile() {
+    if (!Boolean.parseBoolean(environment.getProperty(WATCH_ENABLED_PROPERTY, "true"))) {
+      return;
+    }
+
+    ConfigurationFileWatcher fileWatcher = new ConfigurationFileWatcher(Paths.get(fileName),
+        new Runnable() {
+          @Override
+          public void run() {
+            reload();
+          }
+        });
+
+    try {
+      fileWatcher.start();
+      this.watcher = fileWatcher;
+    } catch (IOException e) {
+      LOGGER.error("Fail to watch the file " + fileName + ". External changes will require a "
+          + "restart", e);
+    }
+  }
+
+  /**
+   * Reloads the configuration file, replays the journal over it, and replaces the current
+   * repository. It's invoked by the file watcher thread. The integrations and instances created
+   * or modified are published to the application context. The current repository is kept if the
+   * file can't be read.
+   *
+   * The configuration file written by the journal compaction is ignored, as the current
+   * repository already holds its content.
+   */
+  public void reload() {
+    ConfigurationChangedEventData event;
+
+    // Holding the lock avoids missing journal records compacted while the file is being read
+    synchronized (this) {
+      IntegrationRepository loaded;
+
+      try {
+        byte[] content = Files.readAllBytes(Paths.get(fileName));
+        IntegrationRepositoryJournal current = getJournal();
+
+        if (current.isLastSnapshot(content)) {
+          LOGGER.debug("Ignoring the file {} written by the journal compaction", fileName);
+          return;
+        }
+
+        loaded = mapper.readValue(content, IntegrationRepository.class);
+        current.replay(loaded);
+      } catch (IOException e) {
+        String message = logMessage.getMessage(RELOAD_FAILED, fileName);
+        String solution = logMessage.getMessage(RELOAD_FAILED_SOLUTION, fileName);
+        LOGGER.error(message + " " + solution, e);
+        return;
+      }
+
+      event = diff(repository, loaded);
+      this.repository = loaded;
+    }
+
+    if (!event.isEmpty()) {
+      LOGGER.info("File {} reloaded. Integrations changed: {}, instances changed: {}", fileName,
+          event.getIntegrations().size(), event.getInstances().size());
+      publisher.publishEvent(event);
+    }
+  }
+
+  /**
+   * Computes the integrations and instances that were created or modified.
+   * @param current Current repository
+   * @param loaded Repository loaded from the configuration file
+   * @return Integrations and instances created or modified
+   */
+  private ConfigurationChangedEventData diff(IntegrationRepository current,
+      IntegrationRepository loaded) {
+    List<IntegrationSettings> integrations = new ArrayList<>();
+
+    for (IntegrationSettings settings : loaded.getIntegrations()) {
+      IntegrationSettings previous = current.getIntegrationById(settings.getConfigurationId());
+
+      if (!sameContent(previous, settings)) {
+        integrations.add(settings);
+      }
+    }
+
+    List<IntegrationInstance> instances = new ArrayList<>();
+
+    for (IntegrationInstance instance : loaded.getInstances()) {
+      IntegrationInstance previous = current.getInstanceById(instance.getInstanceId());
+
+      if (!sameContent(previous, instance)) {
+        instances.add(instance);
+      }
+    }
+
+    return new ConfigurationChangedEventData(integrations, instances);
+  }
+
+  private boolean sameContent(Object previous, Object value) {
+    if (previous == null) {
+      return false;
+    }
+
+    JsonNode previousNode = mapper.valueToTree(previous);
+    JsonNode node = mapper.valueToTree(value);
+    return previousNode.equals(node);
+  }
+
+  /**
+   * Replays the journal over the repository loaded from the configuration file and compacts it.
+   * @throws InitializationConfigException Failure to read or compact the journal
+   */
+  private synchronized void replayJournal() {
+    try {
+      IntegrationRepositoryJournal current = getJournal();
+
+      int records = current.replay(repository);
+
+      if (records > 0) {
+        LOGGER.info("{} records replayed from the journal of the file {}", records, fileName);
+        current.compact(repository);
+      }
+    } catch (IOException e) {
+      String message = logMessage.getMessage(JOURNAL_FILE_EXCEPTION, fileName);
+      String solution = logMessage.getMessage(JOURNAL_FILE_EXCEPTION_SOLUTION, fileName);
+
+      throw new InitializationConfigException(message, e, solution);
+    }
+  }
+
+  /**
+   * Returns the journal of the configuration file, opening it if required.
+   * @return Journal of the configuration file
+   * @throws IOException Failure to open the journal file
+   */
+  private IntegrationRepositoryJournal getJournal() throws IOException {
+    if ((journal == null) || !journal.isOpen()) {
+      journal = new IntegrationRepositoryJournal(fileName, mapper);
+    }
+
+    return journal;
   }
 
   /**
@@ -195,11 +406,9 @@ public class LocalIntegrationService implements IntegrationService {
       throw new InvalidConfigurationIdException(message, solution);
     }
 
-    List<IntegrationSettings> integrations = repository.getIntegrations();
-    for (IntegrationSettings settings : integrations) {
-      if (integrationType.equals(settings.getType())) {
-        return settings;
-      }
+    IntegrationSettings settings = repository.getIntegrationByType(integrationType);
+    if (settings != null) {
+      return settings;
     }
 
     String message = logMessage.getMessage(INTEGRATION_TYPE_NOT_FOUND, integrationType);
@@ -217,10 +426,7 @@ public class LocalIntegrationService implements IntegrationService {
     }
 
     try {
-      IntegrationRepository copy = new IntegrationRepository(repository);
-      copy.putIntegration(settings);
-
-      saveRepository(copy);
+      saveRepository(new JournalRecord(settings));
 
       return settings;
     } catch (IOException e) {
@@ -232,19 +438,20 @@ public class LocalIntegrationService implements IntegrationService {
   }
 
   /**
-   * Save the repository class into a local file.
-   * @param repository Repository object
+   * Append the change to the journal and apply it to the repository. The journal is compacted
+   * into the local file when it gets too large.
+   * @param record Change to be saved
    * @throws IOException
    */
-  private void saveRepository(IntegrationRepository repository) throws IOException {
+  private synchronized void saveRepository(JournalRecord record) throws IOException {
     if (saveFile) {
-      OutputStream output = null;
-      try {
-        output = new FileOutputStream(fileName);
-        this.mapper.writeValue(output, repository);
-        this.repository = repository;
-      } finally {
-        closeStream(output);
+      IntegrationRepositoryJournal current = getJournal();
+      current.append(record);
+
+      record.applyTo(repository);
+
+      if (current.size() >= COMPACTION_THRESHOLD) {
+        current.compact(repository);
       }
     }
   }
@@ -281,10 +488,7 @@ public class LocalIntegrationService implements IntegrationService {
     }
 
     try {
-      IntegrationRepository copy = new IntegrationRepository(repository);
-      copy.putInstance(instance);
-
-      saveRepository(copy);
+      saveRepository(new JournalRecord(instance));
 
       return instance;
     } catch (IOException e) {
@@ -18,6 +18,7 @@ package org.symphonyoss.integration.config;
 
 import static javax.ws.rs.core.Response.Status.BAD_REQUEST;
 import static javax.ws.rs.core.Response.Status.FORBIDDEN;
+import static javax.ws.rs.core.Response.Status.NOT_FOUND;
 import static org.symphonyoss.integration.config.properties.RemoteIntegrationServiceProperties.FORBIDDEN_USER;
 import static org.symphonyoss.integration.config.properties.RemoteIntegrationServiceProperties.FORBIDDEN_USER_SOLUTION;
 import static org.symphonyoss.integration.config.properties.RemoteIntegrationServiceProperties.INTEGRATION_INSTANCE_NOT_FOUND;
@@ -31,6 +32,7 @@ import static org.symphonyoss.integration.config.properties.RemoteIntegrationSer
 import static org.symphonyoss.integration.config.properties.RemoteIntegrationServiceProperties.UNHEALTH_API;
 import static org.symphonyoss.integration.config.properties.RemoteIntegrationServiceProperties.UNHEALTH_API_SOLUTION;
 
+import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.symphonyoss.integration.authentication.AuthenticationProxy;
@@ -47,17 +49,37 @@ import org.symphonyoss.integration.pod.api.client.PodHttpApiClient;
 import org.symphonyoss.integration.pod.api.model.IntegrationInstanceSubmissionCreate;
 import org.symphonyoss.integration.pod.api.model.IntegrationInstanceSubmissionUpdate;
 import org.symphonyoss.integration.pod.api.model.IntegrationSubmissionCreate;
-import org.symphonyoss.integration.service.IntegrationService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 
 /**
  * Reads configurations from any configured server.
  *
+ * Saving an integration or instance that already has an identifier issues the update directly and
+ * only falls back to the creation when the server reports it doesn't exist, so the usual case
+ * takes a single round-trip. A batch of instances is saved by {@link #BATCH_SAVE_POOL_SIZE}
+ * concurrent requests, so the updates share the pooled connections to the POD instead of being
+ * issued one after the other.
+ *
  * Created by mquilzini on 26/05/16.
  */
 @Component
-public class RemoteIntegrationService implements IntegrationService {
+public class RemoteIntegrationService implements BatchIntegrationService {
+
+  /**
+   * Maximum number of concurrent requests issued by a batch save
+   */
+  private static final int BATCH_SAVE_POOL_SIZE = 4;
 
   @Autowired
   private AuthenticationProxy authenticationProxy;
@@ -72,6 +94,16 @@ public class RemoteIntegrationService implements IntegrationService {
 
   private ConfigurationInstanceApiClient instanceApiClient;
 
+  private ExecutorService batchExecutor =
+      Executors.newFixedThreadPool(BATCH_SAVE_POOL_SIZE, new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+          Thread thread = new Thread(runnable, "config-batch-save");
+          thread.setDaemon(true);
+          return thread;
+        }
+      });
+
   @Override
   @PostConstruct
   public void init() {
@@ -79,6 +111,14 @@ public class RemoteIntegrationService implements IntegrationService {
     instanceApiClient = new ConfigurationInstanceApiClient(client,logMessage);
   }
 
+  /**
+   * Stops the batch save threads.
+   */
+  @PreDestroy
+  public void destroy() {
+    batchExecutor.shutdownNow();
+  }
+
   @Override
   public IntegrationSettings getIntegrationById(String integrationId, String userId) {
     try {
@@ -135,11 +175,24 @@ public class RemoteIntegrationService implements IntegrationService {
 
   @Override
   public IntegrationSettings save(IntegrationSettings settings, String userId) {
-    if (integrationExists(settings, userId)) {
-      return updateIntegration(settings, userId);
-    } else {
+    if (StringUtils.isEmpty(settings.getConfigurationId())) {
       return createIntegration(settings, userId);
     }
+
+    IntegrationSubmissionCreate update = buildIntegrationSubmission(settings);
+
+    try {
+      return configurationApiClient.updateIntegration(authenticationProxy.getSessionToken(userId),
+          settings.getConfigurationId(), update);
+    } catch (RemoteApiException e) {
+      checkExceptionCodeForbidden(e);
+
+      if (isNotFound(e)) {
+        return createIntegration(settings, userId);
+      }
+
+      throw getUnknownException(e);
+    }
   }
 
   @Override
@@ -164,41 +217,85 @@ public class RemoteIntegrationService implements IntegrationService {
 
   @Override
   public IntegrationInstance save(IntegrationInstance instance, String userId) {
-    if (instanceExists(instance, userId)) {
-      return updateInstance(instance, userId);
-    } else {
+    if (StringUtils.isEmpty(instance.getInstanceId())) {
       return createInstance(instance, userId);
     }
-  }
 
-  private IntegrationSettings createIntegration(IntegrationSettings settings, String userId)
-      throws RemoteConfigurationException {
-    IntegrationSubmissionCreate create = buildIntegrationSubmission(settings);
+    IntegrationInstanceSubmissionUpdate instanceUpdate = new IntegrationInstanceSubmissionUpdate();
+    instanceUpdate.setInstanceId(instance.getInstanceId());
+    instanceUpdate.setConfigurationId(instance.getConfigurationId());
+    instanceUpdate.setName(instance.getName());
+    instanceUpdate.setOptionalProperties(instance.getOptionalProperties());
 
     try {
-      return configurationApiClient.createIntegration(authenticationProxy.getSessionToken(userId),
-          create);
+      return instanceApiClient.updateInstance(authenticationProxy.getSessionToken(userId),
+          instanceUpdate);
     } catch (RemoteApiException e) {
       checkExceptionCodeForbidden(e);
 
-      if (e.getCode() == BAD_REQUEST.getStatusCode()) {
-        String message = logMessage.getMessage(INVALID_INTEGRATION_SETTINGS);
-        String solution = logMessage.getMessage(INVALID_INTEGRATION_SETTINGS_SOLUTION);
-
-        throw new RemoteConfigurationException(message, e, solution);
+      if (isNotFound(e)) {
+        return createInstance(instance, userId);
       }
 
       throw getUnknownException(e);
     }
   }
 
-  private IntegrationSettings updateIntegration(IntegrationSettings settings, String userId)
+  @Override
+  public List<IntegrationInstance> saveAll(List<IntegrationInstance> instances,
+      final String userId) {
+    List<Future<IntegrationInstance>> futures = new ArrayList<>();
+
+    for (final IntegrationInstance instance : instances) {
+      futures.add(batchExecutor.submit(new Callable<IntegrationInstance>() {
+        @Override
+        public IntegrationInstance call() throws Exception {
+          return save(instance, userId);
+        }
+      }));
+    }
+
+    List<IntegrationInstance> result = new ArrayList<>();
+    RuntimeException failure = null;
+
+    for (Future<IntegrationInstance> future : futures) {
+      try {
+        result.add(future.get());
+      } catch (ExecutionException e) {
+        if (failure == null) {
+          failure = (e.getCause() instanceof RuntimeException) ? (RuntimeException) e.getCause()
+              : new RemoteConfigurationException(logMessage.getMessage(UNHEALTH_API), e.getCause(),
+                  logMessage.getMessage(UNHEALTH_API_SOLUTION));
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new RemoteConfigurationException(logMessage.getMessage(UNHEALTH_API), e,
+            logMessage.getMessage(UNHEALTH_API_SOLUTION));
+      }
+    }
+
+    if (failure != null) {
+      throw failure;
+    }
+
+    return result;
+  }
+
+  /**
+   * The server reports missing entities as bad requests or not found.
+   */
+  private boolean isNotFound(RemoteApiException e) {
+    return (e.getCode() == BAD_REQUEST.getStatusCode())
+        || (e.getCode() == NOT_FOUND.getStatusCode());
+  }
+
+  private IntegrationSettings createIntegration(IntegrationSettings settings, String userId)
       throws RemoteConfigurationException {
     IntegrationSubmissionCreate create = buildIntegrationSubmission(settings);
 
     try {
-      return configurationApiClient.updateIntegration(authenticationProxy.getSessionToken(userId),
-          settings.getConfigurationId(), create);
+      return configurationApiClient.createIntegration(authenticationProxy.getSessionToken(userId),
+          create);
     } catch (RemoteApiException e) {
       checkExceptionCodeForbidden(e);
 
@@ -223,46 +320,6 @@ public class RemoteIntegrationService implements IntegrationService {
     return create;
   }
 
-  private boolean integrationExists(IntegrationSettings settings, String userId)
-      throws RemoteConfigurationException {
-    try {
-      configurationApiClient.getIntegrationById(authenticationProxy.getSessionToken(userId),
-          settings.getConfigurationId());
-      return true;
-    } catch (RemoteApiException e) {
-      checkExceptionCodeForbidden(e);
-
-      if (e.getCode() == BAD_REQUEST.getStatusCode()) {
-        return false;
-      } else {
-        throw getUnknownException(e);
-      }
-    }
-  }
-
-  private IntegrationInstance updateInstance(IntegrationInstance instance, String userId) throws RemoteConfigurationException {
-    IntegrationInstanceSubmissionUpdate instanceUpdate = new IntegrationInstanceSubmissionUpdate();
-    instanceUpdate.setInstanceId(instance.getInstanceId());
-    instanceUpdate.setConfigurationId(instance.getConfigurationId());
-    instanceUpdate.setName(instance.getName());
-    instanceUpdate.setOptionalProperties(instance.getOptionalProperties());
-
-    try {
-      return instanceApiClient.updateInstance(authenticationProxy.getSessionToken(userId), instanceUpdate);
-    } catch (RemoteApiException e) {
-      checkExceptionCodeForbidden(e);
-
-      if (e.getCode() == BAD_REQUEST.getStatusCode()) {
-        String message = logMessage.getMessage(INVALID_INTEGRATION_INSTANCE);
-        String solution = logMessage.getMessage(INVALID_INTEGRATION_INSTANCE_SOLUTION);
-
-        throw new RemoteConfigurationException(message, e, solution);
-      }
-
-      throw getUnknownException(e);
-    }
-  }
-
   private IntegrationInstance createInstance(IntegrationInstance instance, String userId)
       throws RemoteConfigurationException {
     IntegrationInstanceSubmissionCreate instanceCreate = new IntegrationInstanceSubmissionCreate();
@@ -287,20 +344,4 @@ public class RemoteIntegrationService implements IntegrationService {
     }
   }
 
-  private boolean instanceExists(IntegrationInstance instance, String userId) throws RemoteConfigurationException {
-    try {
-      instanceApiClient.getInstanceById(authenticationProxy.getSessionToken(userId),
-          instance.getConfigurationId(), instance.getInstanceId());
-      return true;
-    } catch (RemoteApiException e) {
-      checkExceptionCodeForbidden(e);
-
-      if (e.getCode() == BAD_REQUEST.getStatusCode()) {
-        return false;
-      } else {
-        throw getUnknownException(e);
-      }
-    }
-  }
-
 }
@@ -0,0 +1,58 @@
+/**
+ * Copyright 2016-2017 Symphony Integrations - Symphony LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.symphonyoss.integration.config.event;
+
+import org.symphonyoss.integration.model.config.IntegrationInstance;
+import org.symphonyoss.integration.model.config.IntegrationSettings;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Configuration changed event object.
+ *
+ * This class holds the integrations and integration instances that were created or modified
+ * after reloading the configuration file.
+ *
+ * This event might be used to notify the integrations that their settings have changed.
+ */
+public class ConfigurationChangedEventData {
+
+  private List<IntegrationSettings> integrations;
+
+  private List<IntegrationInstance> instances;
+
+  public ConfigurationChangedEventData(List<IntegrationSettings> integrations,
+      List<IntegrationInstance> instances) {
+    this.integrations = Collections.unmodifiableList(integrations);
+    this.instances = Collections.unmodifiableList(instances);
+  }
+
+  public List<IntegrationSettings> getIntegrations() {
+    return integrations;
+  }
+
+  public List<IntegrationInstance> getInstances() {
+    return instances;
+  }
+
+  public boolean isEmpty() {
+    return integrations.isEmpty() && instances.isEmpty();
+  }
+
+}
@@ -0,0 +1,279 @@
+/**
+ * Copyright 2016-2017 Symphony Integrations - Symphony LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.symphonyoss.integration.config.journal;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.symphonyoss.integration.config.model.IntegrationRepository;
+import org.symphonyoss.integration.config.model.JournalRecord;
+import org.symphonyoss.integration.storage.RecordLog;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Append-only journal of the changes applied over the configuration file.
+ *
+ * Each change is appended to the journal file as a {@link RecordLog} record holding the JSON
+ * representation of the change. The journal is synced to the disk in batches, either when
+ * {@link #SYNC_BATCH_SIZE} records are pending or after {@link #SYNC_INTERVAL} milliseconds. The
+ * compaction writes the whole repository as a new configuration file and truncates the journal.
+ *
+ * At startup, the journal is memory-mapped and replayed over the configuration file. A partially
+ * written record at the end of the journal (e.g. the process crashed while appending) is ignored.
+ * A failed append is truncated from the journal and closes it, so the records appended later are
+ * never hidden behind a torn record.
+ */
+public class IntegrationRepositoryJournal implements Closeable {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(IntegrationRepositoryJournal.class);
+
+  private static final String JOURNAL_SUFFIX = ".journal";
+
+  private static final String SNAPSHOT_SUFFIX = ".tmp";
+
+  /**
+   * Maximum number of records written before syncing the journal
+   */
+  private static final int SYNC_BATCH_SIZE = 64;
+
+  /**
+   * Maximum time (in milliseconds) a written record waits to be synced
+   */
+  private static final long SYNC_INTERVAL = 100;
+
+  private final ObjectMapper mapper;
+
+  private final Path snapshotPath;
+
+  private final Path journalPath;
+
+  private final RecordLog log;
+
+  private final ScheduledExecutorService scheduler =
+      Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+          Thread thread = new Thread(runnable, "config-journal-sync");
+          thread.setDaemon(true);
+          return thread;
+        }
+      });
+
+  /**
+   * Number of records currently stored in the journal
+   */
+  private int size;
+
+  /**
+   * Number of records written but not synced yet
+   */
+  private int pendingSync;
+
+  /**
+   * Length and checksum of the last configuration file written by the compaction, or -1 if the
+   * journal hasn't been compacted yet
+   */
+  private long snapshotLength = -1;
+
+  private long snapshotChecksum = -1;
+
+  public IntegrationRepositoryJournal(String fileName, ObjectMapper mapper) throws IOException {
+    this.mapper = mapper;
+    this.snapshotPath = Paths.get(fileName);
+    this.journalPath = Paths.get(fileName + JOURNAL_SUFFIX);
+    this.log = new RecordLog(journalPath);
+
+    scheduler.scheduleWithFixedDelay(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          sync();
+        } catch (IOException e) {
+          LOGGER.error("Fail to sync the journal file " + journalPath, e);
+        }
+      }
+    }, SYNC_INTERVAL, SYNC_INTERVAL, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Replays the journal records over the repository.
+   * @param repository Repository loaded from the configuration file
+   * @return Number of records replayed
+   * @throws IOException Failure to read the journal file
+   */
+  public synchronized int replay(final IntegrationRepository repository) throws IOException {
+    this.size = log.replay(new RecordLog.PayloadHandler() {
+      @Override
+      public void handle(byte[] payload) throws IOException {
+        JournalRecord record = mapper.readValue(payload, JournalRecord.class);
+        record.applyTo(repository);
+      }
+    });
+
+    return size;
+  }
+
+  /**
+   * Appends a new record to the journal. The record is synced to the disk immediately if the
+   * sync batch is full, otherwise it will be synced by the background task.
+   *
+   * If the record can't be written completely, the journal is truncated back to its previous
+   * length and closed. The caller must open a new journal to keep saving changes.
+   *
+   * @param record Change applied to the repository
+   * @throws IOException Failure to write the journal file
+   */
+  public synchronized void append(JournalRecord record) throws IOException {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    mapper.writeValue(output, record);
+
+    try {
+      log.append(output.toByteArray());
+    } catch (IOException e) {
+      discard(e);
+      throw e;
+    }
+
+    size++;
+    pendingSync++;
+
+    if (pendingSync >= SYNC_BATCH_SIZE) {
+      sync();
+    }
+  }
+
+  /**
+   * Writes the repository as the new configuration file and truncates the journal. The new
+   * configuration file is written to a temporary file first and then moved over the current one,
+   * so a crash during the compaction keeps the previous configuration file and journal.
+   * @param repository Current repository
+   * @throws IOException Failure to write the configuration file or to truncate the journal
+   */
+  public synchronized void compact(IntegrationRepository repository) throws IOException {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    mapper.writeValue(output, repository);
+
+    Path tmpPath = Paths.get(snapshotPath.toString() + SNAPSHOT_SUFFIX);
+    byte[] content = output.toByteArray();
+
+    try (FileChannel snapshot = FileChannel.open(tmpPath, StandardOpenOption.CREATE,
+        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      ByteBuffer buffer = ByteBuffer.wrap(content);
+
+      while (buffer.hasRemaining()) {
+        snapshot.write(buffer);
+      }
+
+      snapshot.force(true);
+    }
+
+    // Recorded before the move, so the file watcher never sees a snapshot it can't recognize
+    this.snapshotLength = content.length;
+    this.snapshotChecksum = RecordLog.checksum(content);
+
+    Files.move(tmpPath, snapshotPath, StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE);
+
+    log.clear();
+
+    size = 0;
+    pendingSync = 0;
+
+    LOGGER.info("Journal {} compacted into {}", journalPath, snapshotPath);
+  }
+
+  /**
+   * Checks if the content is the configuration file written by the last compaction.
+   * @param content Content of the configuration file
+   * @return true if the content was written by the last compaction or false otherwise
+   */
+  public synchronized boolean isLastSnapshot(byte[] content) {
+    return (content.length == snapshotLength) && (RecordLog.checksum(content) == snapshotChecksum);
+  }
+
+  /**
+   * Syncs the pending records to the disk.
+   * @throws IOException Failure to sync the journal file
+   */
+  public synchronized void sync() throws IOException {
+    if (pendingSync > 0) {
+      log.force();
+      pendingSync = 0;
+    }
+  }
+
+  /**
+   * Returns the number of records currently stored in the journal.
+   * @return Number of records
+   */
+  public synchronized int size() {
+    return size;
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    scheduler.shutdown();
+
+    try {
+      sync();
+    } finally {
+      log.close();
+    }
+  }
+
+  /**
+   * Closes the journal after a failed append. The torn record has already been removed by the
+   * {@link RecordLog}.
+   * @param cause Append failure
+   */
+  private void discard(IOException cause) {
+    LOGGER.error("Fail to append to the journal file " + journalPath + ". Closing the journal",
+        cause);
+
+    scheduler.shutdown();
+
+    try {
+      log.close();
+    } catch (IOException e) {
+      cause.addSuppressed(e);
+    }
+  }
+
+  /**
+   * Checks if the journal can still be written.
+   * @return true if the journal is open or false otherwise
+   */
+  public boolean isOpen() {
+    return log.isOpen();
+  }
+
+}
@@ -16,48 +16,94 @@
 
 package org.symphonyoss.integration.config.model;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import org.symphonyoss.integration.model.config.IntegrationInstance;
 import org.symphonyoss.integration.model.config.IntegrationSettings;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Repository class to map a list of integrations and integration instances.
  *
+ * Reads are lock-free and writes are serialized. Integrations are indexed by identifier and type,
+ * and instances are indexed by identifier.
+ *
  * Created by rsanchez on 09/05/16.
  */
 public class IntegrationRepository {
 
-  private Map<String, IntegrationSettings> integrationMap = new HashMap<>();
+  private final ConcurrentMap<String, IntegrationSettings> integrationMap =
+      new ConcurrentHashMap<>();
+
+  private final ConcurrentMap<String, IntegrationInstance> instanceMap = new ConcurrentHashMap<>();
 
-  private Map<String, IntegrationInstance> instanceMap = new HashMap<>();
+  private final ConcurrentMap<String, Set<String>> integrationsByType = new ConcurrentHashMap<>();
 
   public IntegrationRepository() {}
 
   public IntegrationRepository(IntegrationRepository repository) {
-    this.integrationMap.putAll(repository.integrationMap);
+    for (IntegrationSettings settings : repository.integrationMap.values()) {
+      putIntegration(settings);
+    }
+
     this.instanceMap.putAll(repository.instanceMap);
   }
 
+  @JsonProperty("configurations")
   public List<IntegrationSettings> getIntegrations() {
     return new ArrayList<>(integrationMap.values());
   }
 
   public void setConfigurations(List<IntegrationSettings> integrations) {
     for (IntegrationSettings settings : integrations) {
-      this.integrationMap.put(settings.getConfigurationId(), settings);
+      putIntegration(settings);
     }
   }
 
   public IntegrationSettings getIntegrationById(String id) {
-    return this.integrationMap.get(id);
+    return integrationMap.get(id);
   }
 
-  public IntegrationSettings putIntegration(IntegrationSettings settings) {
-    return this.integrationMap.put(settings.getConfigurationId(), settings);
+  /**
+   * Retrieves an integration by type.
+   * @param type Integration type
+   * @return Integration settings or null if there is no integration with the given type
+   */
+  public IntegrationSettings getIntegrationByType(String type) {
+    Set<String> ids = (type == null) ? null : integrationsByType.get(type);
+
+    if (ids == null) {
+      return null;
+    }
+
+    for (String id : ids) {
+      IntegrationSettings settings = getIntegrationById(id);
+
+      // Entries may have been changed in place by the callers, so the index can be outdated
+      if ((settings != null) && (type.equals(settings.getType()))) {
+        return settings;
+      }
+    }
+
+    return null;
+  }
+
+  public synchronized IntegrationSettings putIntegration(IntegrationSettings settings) {
+    String id = settings.getConfigurationId();
+    IntegrationSettings previous = integrationMap.put(id, settings);
+
+    if (previous != null) {
+      unindexType(previous.getType(), id);
+    }
+
+    indexType(settings.getType(), id);
+
+    return previous;
   }
 
   public List<IntegrationInstance> getInstances() {
@@ -66,16 +112,43 @@ public class IntegrationRepository {
 
   public void setInstances(List<IntegrationInstance> instances) {
     for (IntegrationInstance instance : instances) {
-      this.instanceMap.put(instance.getInstanceId(), instance);
+      putInstance(instance);
     }
   }
 
   public IntegrationInstance getInstanceById(String id) {
-    return this.instanceMap.get(id);
+    return instanceMap.get(id);
   }
 
   public IntegrationInstance putInstance(IntegrationInstance instance) {
-    return this.instanceMap.put(instance.getInstanceId(), instance);
+    return instanceMap.put(instance.getInstanceId(), instance);
+  }
+
+  private void indexType(String type, String id) {
+    if (type == null) {
+      return;
+    }
+
+    Set<String> ids = integrationsByType.get(type);
+
+    if (ids == null) {
+      ids = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+      integrationsByType.put(type, ids);
+    }
+
+    ids.add(id);
+  }
+
+  private void unindexType(String type, String id) {
+    if (type == null) {
+      return;
+    }
+
+    Set<String> ids = integrationsByType.get(type);
+
+    if (ids != null) {
+      ids.remove(id);
+    }
   }
 
 }
@@ -0,0 +1,73 @@
+/**
+ * Copyright 2016-2017 Symphony Integrations - Symphony LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.symphonyoss.integration.config.model;
+
+import org.symphonyoss.integration.model.config.IntegrationInstance;
+import org.symphonyoss.integration.model.config.IntegrationSettings;
+
+/**
+ * Single change appended to the configuration journal. Each record holds either an integration
+ * or an integration instance that must be applied over the configuration snapshot.
+ */
+public class JournalRecord {
+
+  private IntegrationSettings integration;
+
+  private IntegrationInstance instance;
+
+  public JournalRecord() {}
+
+  public JournalRecord(IntegrationSettings integration) {
+    this.integration = integration;
+  }
+
+  public JournalRecord(IntegrationInstance instance) {
+    this.instance = instance;
+  }
+
+  public IntegrationSettings getIntegration() {
+    return integration;
+  }
+
+  public void setIntegration(IntegrationSettings integration) {
+    this.integration = integration;
+  }
+
+  public IntegrationInstance getInstance() {
+    return instance;
+  }
+
+  public void setInstance(IntegrationInstance instance) {
+    this.instance = instance;
+  }
+
+  /**
+   * Applies this change to the repository.
+   * @param repository Integration repository
+   */
+  public void applyTo(IntegrationRepository repository) {
+    if (integration != null) {
+      repository.putIntegration(integration);
+    }
+
+    if (instance != null) {
+      repository.putInstance(instance);
+    }
+  }
+
+}
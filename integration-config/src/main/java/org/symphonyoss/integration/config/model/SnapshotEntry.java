@@ -0,0 +1,70 @@
+/**
+ * Copyright 2016-2017 Symphony Integrations - Symphony LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.symphonyoss.integration.config.model;
+
+import org.symphonyoss.integration.model.config.IntegrationInstance;
+import org.symphonyoss.integration.model.config.IntegrationSettings;
+
+/**
+ * Integration or integration instance stored in the local configuration snapshot, along with the
+ * user used to retrieve it from the remote server.
+ */
+public class SnapshotEntry {
+
+  private String userId;
+
+  private IntegrationSettings integration;
+
+  private IntegrationInstance instance;
+
+  public SnapshotEntry() {}
+
+  public SnapshotEntry(String userId, IntegrationSettings integration) {
+    this.userId = userId;
+    this.integration = integration;
+  }
+
+  public SnapshotEntry(String userId, IntegrationInstance instance) {
+    this.userId = userId;
+    this.instance = instance;
+  }
+
+  public String getUserId() {
+    return userId;
+  }
+
+  public void setUserId(String userId) {
+    this.userId = userId;
+  }
+
+  public IntegrationSettings getIntegration() {
+    return integration;
+  }
+
+  public void setIntegration(IntegrationSettings integration) {
+    this.integration = integration;
+  }
+
+  public IntegrationInstance getInstance() {
+    return instance;
+  }
+
+  public void setInstance(IntegrationInstance instance) {
+    this.instance = instance;
+  }
+
+}
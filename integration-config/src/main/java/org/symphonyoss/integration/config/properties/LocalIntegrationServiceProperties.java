@@ -31,6 +31,14 @@ public class LocalIntegrationServiceProperties {
 
   public static final String FILE_NOT_FOUND_SOLUTION = FILE_NOT_FOUND + ".solution";
 
+  public static final String JOURNAL_FILE_EXCEPTION = "integration.local.config.journal.file.exception";
+
+  public static final String JOURNAL_FILE_EXCEPTION_SOLUTION = JOURNAL_FILE_EXCEPTION + ".solution";
+
+  public static final String RELOAD_FAILED = "integration.local.config.reload.failed";
+
+  public static final String RELOAD_FAILED_SOLUTION = RELOAD_FAILED + ".solution";
+
   public static final String INTEGRATION_INVALID_ID = "integration.local.config.integration.invalidId";
 
   public static final String INTEGRATION_INVALID_ID_SOLUTION = INTEGRATION_INVALID_ID + ".solution";
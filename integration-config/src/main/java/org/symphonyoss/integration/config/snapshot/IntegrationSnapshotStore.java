@@ -0,0 +1,195 @@
+/**
+ * Copyright 2016-2017 Symphony Integrations - Symphony LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.symphonyoss.integration.config.snapshot;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.symphonyoss.integration.config.model.SnapshotEntry;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Disk tier of the configuration snapshot. Each integration and integration instance is stored as
+ * a JSON file inside the snapshot directory, so a single record can be written or read without
+ * touching the others.
+ */
+public class IntegrationSnapshotStore {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(IntegrationSnapshotStore.class);
+
+  private static final String INTEGRATIONS_DIR = "integrations";
+
+  private static final String INSTANCES_DIR = "instances";
+
+  private static final String FILE_EXTENSION = ".json";
+
+  private static final String TMP_EXTENSION = ".tmp";
+
+  private static final String SEPARATOR = "~";
+
+  private static final String ENCODING = "UTF-8";
+
+  private final File integrationsDir;
+
+  private final File instancesDir;
+
+  private final ObjectMapper mapper;
+
+  public IntegrationSnapshotStore(String directory, ObjectMapper mapper) {
+    this.integrationsDir = new File(directory, INTEGRATIONS_DIR);
+    this.instancesDir = new File(directory, INSTANCES_DIR);
+    this.mapper = mapper;
+
+    integrationsDir.mkdirs();
+    instancesDir.mkdirs();
+  }
+
+  public SnapshotEntry loadIntegration(String configurationId) {
+    return read(integrationFile(configurationId));
+  }
+
+  public SnapshotEntry loadInstance(String configurationId, String instanceId) {
+    return read(instanceFile(configurationId, instanceId));
+  }
+
+  public void saveIntegration(SnapshotEntry entry) {
+    write(integrationFile(entry.getIntegration().getConfigurationId()), entry);
+  }
+
+  public void saveInstance(SnapshotEntry entry) {
+    write(instanceFile(entry.getInstance().getConfigurationId(),
+        entry.getInstance().getInstanceId()), entry);
+  }
+
+  public void deleteIntegration(String configurationId) {
+    integrationFile(configurationId).delete();
+  }
+
+  public void deleteInstance(String configurationId, String instanceId) {
+    instanceFile(configurationId, instanceId).delete();
+  }
+
+  /**
+   * Reads all the integrations stored in the snapshot.
+   * @return Integrations stored
+   */
+  public List<SnapshotEntry> loadIntegrations() {
+    return readAll(integrationsDir);
+  }
+
+  /**
+   * Reads all the integration instances stored in the snapshot.
+   * @return Integration instances stored
+   */
+  public List<SnapshotEntry> loadInstances() {
+    return readAll(instancesDir);
+  }
+
+  private List<SnapshotEntry> readAll(File directory) {
+    List<SnapshotEntry> result = new ArrayList<>();
+    File[] files = directory.listFiles();
+
+    if (files == null) {
+      return result;
+    }
+
+    for (File file : files) {
+      if (file.getName().endsWith(FILE_EXTENSION)) {
+        SnapshotEntry entry = read(file);
+
+        if (entry != null) {
+          result.add(entry);
+        }
+      }
+    }
+
+    return result;
+  }
+
+  private SnapshotEntry read(File file) {
+    if (!file.exists()) {
+      return null;
+    }
+
+    try {
+      return mapper.readValue(file, SnapshotEntry.class);
+    } catch (IOException e) {
+      LOGGER.warn("Ignoring invalid snapshot file " + file, e);
+      return null;
+    }
+  }
+
+  /**
+   * Writes the entry to a temporary file and moves it over the current one, so readers never see
+   * a partially written file. Each write uses its own temporary file, so concurrent writes of the
+   * same record don't interleave.
+   */
+  private void write(File file, SnapshotEntry entry) {
+    Path tmpFile = null;
+
+    try {
+      tmpFile = Files.createTempFile(file.getParentFile().toPath(), file.getName(), TMP_EXTENSION);
+      mapper.writeValue(tmpFile.toFile(), entry);
+
+      Path target = file.toPath();
+      Files.move(tmpFile, target, StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      LOGGER.warn("Fail to write the snapshot file " + file, e);
+      deleteQuietly(tmpFile);
+    }
+  }
+
+  private void deleteQuietly(Path tmpFile) {
+    if (tmpFile == null) {
+      return;
+    }
+
+    try {
+      Files.deleteIfExists(tmpFile);
+    } catch (IOException e) {
+      LOGGER.warn("Fail to remove the temporary snapshot file " + tmpFile, e);
+    }
+  }
+
+  private File integrationFile(String configurationId) {
+    return new File(integrationsDir, encode(configurationId) + FILE_EXTENSION);
+  }
+
+  private File instanceFile(String configurationId, String instanceId) {
+    return new File(instancesDir,
+        encode(configurationId) + SEPARATOR + encode(instanceId) + FILE_EXTENSION);
+  }
+
+  private String encode(String id) {
+    try {
+      return URLEncoder.encode(id, ENCODING);
+    } catch (UnsupportedEncodingException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+}
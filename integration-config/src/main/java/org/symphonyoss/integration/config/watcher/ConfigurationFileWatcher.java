@@ -0,0 +1,112 @@
+/**
+ * Copyright 2016-2017 Symphony Integrations - Symphony LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.symphonyoss.integration.config.watcher;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+
+/**
+ * Watches a single file and runs a callback in a background thread whenever the file is created
+ * or modified. Several events received together are handled with a single callback execution.
+ */
+public class ConfigurationFileWatcher implements Runnable, Closeable {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ConfigurationFileWatcher.class);
+
+  private static final String THREAD_NAME = "configuration-file-watcher";
+
+  private final Path file;
+
+  private final Runnable callback;
+
+  private WatchService watchService;
+
+  public ConfigurationFileWatcher(Path file, Runnable callback) {
+    this.file = file.toAbsolutePath();
+    this.callback = callback;
+  }
+
+  /**
+   * Starts watching the file.
+   * @throws IOException Failure to register the watch service
+   */
+  public void start() throws IOException {
+    Path directory = file.getParent();
+
+    this.watchService = directory.getFileSystem().newWatchService();
+    directory.register(watchService, ENTRY_CREATE, ENTRY_MODIFY);
+
+    Thread thread = new Thread(this, THREAD_NAME);
+    thread.setDaemon(true);
+    thread.start();
+
+    LOGGER.info("Watching changes on the file {}", file);
+  }
+
+  @Override
+  public void run() {
+    try {
+      while (true) {
+        WatchKey key = watchService.take();
+
+        boolean changed = false;
+
+        for (WatchEvent<?> event : key.pollEvents()) {
+          if (file.getFileName().equals(event.context())) {
+            changed = true;
+          }
+        }
+
+        key.reset();
+
+        if (changed) {
+          notifyChange();
+        }
+      }
+    } catch (InterruptedException | ClosedWatchServiceException e) {
+      LOGGER.info("Stopped watching the file {}", file);
+    }
+  }
+
+  private void notifyChange() {
+    try {
+      callback.run();
+    } catch (RuntimeException e) {
+      LOGGER.error("Fail to handle the changes on the file " + file, e);
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (watchService != null) {
+      watchService.close();
+    }
+  }
+
+}
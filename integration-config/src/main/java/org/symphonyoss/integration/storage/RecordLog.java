@@ -0,0 +1,267 @@
+/**
+ * Copyright 2016-2017 Symphony Integrations - Symphony LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.symphonyoss.integration.storage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only file of checksummed records, shared by the file based stores.
+ *
+ * Each record is written with the format [payload length (int)][CRC32 of the payload (long)]
+ * [payload]. The file is memory-mapped to be replayed, and a partially written record at the end
+ * of the file (e.g. the process crashed while appending) is discarded. A failed append is
+ * truncated back, so the records appended later are never hidden behind a torn record.
+ */
+public class RecordLog implements Closeable {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(RecordLog.class);
+
+  private static final String REWRITE_SUFFIX = ".compact";
+
+  /**
+   * Record header size (payload length + checksum)
+   */
+  private static final int HEADER_SIZE = 12;
+
+  private final Path path;
+
+  private FileChannel channel;
+
+  /**
+   * Receives the payloads read from the file.
+   */
+  public interface PayloadHandler {
+
+    void handle(byte[] payload) throws IOException;
+
+  }
+
+  /**
+   * Opens the file, creating it if it doesn't exist. New records are appended after the existing
+   * ones, even if the file isn't replayed.
+   * @param path Record file
+   * @throws IOException Failure to open the file
+   */
+  public RecordLog(Path path) throws IOException {
+    this.path = path;
+    this.channel = open(path);
+  }
+
+  /**
+   * Reads all the records stored in the file and discards an incomplete record at the end of it.
+   * @param handler Receives the payloads in the order they were appended
+   * @return Number of records read
+   * @throws IOException Failure to read the file
+   */
+  public synchronized int replay(PayloadHandler handler) throws IOException {
+    long fileSize = channel.size();
+    MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+
+    int replayed = 0;
+    int validLength = 0;
+
+    while (buffer.remaining() >= HEADER_SIZE) {
+      int length = buffer.getInt();
+      long checksum = buffer.getLong();
+
+      if ((length < 0) || (length > buffer.remaining())) {
+        break;
+      }
+
+      byte[] payload = new byte[length];
+      buffer.get(payload);
+
+      if (checksum != checksum(payload)) {
+        break;
+      }
+
+      handler.handle(payload);
+
+      replayed++;
+      validLength = buffer.position();
+    }
+
+    if (validLength < fileSize) {
+      LOGGER.warn("Discarding incomplete record at the end of the file {}", path);
+      channel.truncate(validLength);
+    }
+
+    channel.position(validLength);
+
+    return replayed;
+  }
+
+  /**
+   * Appends a record to the file. The record isn't synced to the disk, see {@link #force()}.
+   *
+   * If the record can't be written completely, the file is truncated back to its previous length.
+   * If even that fails, the file is closed.
+   *
+   * @param payload Record payload
+   * @throws IOException Failure to write the file
+   */
+  public synchronized void append(byte[] payload) throws IOException {
+    ByteBuffer buffer = frame(payload);
+    long position = channel.position();
+
+    try {
+      write(channel, buffer);
+    } catch (IOException e) {
+      rollback(position, e);
+      throw e;
+    }
+  }
+
+  /**
+   * Syncs the records appended to the disk.
+   * @throws IOException Failure to sync the file
+   */
+  public synchronized void force() throws IOException {
+    channel.force(false);
+  }
+
+  /**
+   * Removes all the records from the file and syncs it to the disk.
+   * @throws IOException Failure to truncate the file
+   */
+  public synchronized void clear() throws IOException {
+    channel.truncate(0);
+    channel.force(true);
+  }
+
+  /**
+   * Replaces the content of the file with the given records. The records are written to a
+   * temporary file first and then moved over the current one, so a failure or a crash during the
+   * rewrite keeps the previous records, and the file remains open for appends.
+   * @param payloads Records payload
+   * @throws IOException Failure to write the file
+   */
+  public synchronized void rewrite(Iterable<byte[]> payloads) throws IOException {
+    Path tmpPath = Paths.get(path.toString() + REWRITE_SUFFIX);
+
+    try {
+      try (FileChannel tmp = FileChannel.open(tmpPath, StandardOpenOption.CREATE,
+          StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+        for (byte[] payload : payloads) {
+          write(tmp, frame(payload));
+        }
+
+        tmp.force(true);
+      }
+
+      Files.move(tmpPath, path, StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      try {
+        Files.deleteIfExists(tmpPath);
+      } catch (IOException deleteFailure) {
+        e.addSuppressed(deleteFailure);
+      }
+
+      throw e;
+    }
+
+    FileChannel previous = channel;
+    this.channel = open(path);
+
+    previous.close();
+  }
+
+  public Path getPath() {
+    return path;
+  }
+
+  /**
+   * Checks if the file can still be written.
+   * @return true if the file is open or false otherwise
+   */
+  public synchronized boolean isOpen() {
+    return channel.isOpen();
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    channel.close();
+  }
+
+  /**
+   * Computes the checksum used by the records.
+   * @param content Content to be checked
+   * @return CRC32 of the content
+   */
+  public static long checksum(byte[] content) {
+    CRC32 crc = new CRC32();
+    crc.update(content);
+    return crc.getValue();
+  }
+
+  private static ByteBuffer frame(byte[] payload) {
+    ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + payload.length);
+    buffer.putInt(payload.length);
+    buffer.putLong(checksum(payload));
+    buffer.put(payload);
+    buffer.flip();
+    return buffer;
+  }
+
+  private static void write(FileChannel target, ByteBuffer buffer) throws IOException {
+    while (buffer.hasRemaining()) {
+      target.write(buffer);
+    }
+  }
+
+  private static FileChannel open(Path file) throws IOException {
+    FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+        StandardOpenOption.READ, StandardOpenOption.WRITE);
+    channel.position(channel.size());
+    return channel;
+  }
+
+  /**
+   * Removes a torn record from the end of the file. The file is closed if it can't be truncated.
+   * @param position File length before the failed append
+   * @param cause Append failure
+   */
+  private void rollback(long position, IOException cause) {
+    try {
+      channel.truncate(position);
+      channel.force(false);
+    } catch (IOException e) {
+      cause.addSuppressed(e);
+
+      try {
+        channel.close();
+      } catch (IOException closeFailure) {
+        cause.addSuppressed(closeFailure);
+      }
+    }
+  }
+
+}
@@ -0,0 +1,238 @@
+/**
+ * Copyright 2016-2017 Symphony Integrations - Symphony LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.symphonyoss.integration.config;
+
+import static javax.ws.rs.core.Response.Status.BAD_REQUEST;
+import static javax.ws.rs.core.Response.Status.INTERNAL_SERVER_ERROR;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.internal.util.reflection.Whitebox;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.core.env.Environment;
+import org.symphonyoss.integration.config.snapshot.IntegrationSnapshotStore;
+import org.symphonyoss.integration.exception.RemoteApiException;
+import org.symphonyoss.integration.exception.config.RemoteConfigurationException;
+import org.symphonyoss.integration.model.config.IntegrationInstance;
+import org.symphonyoss.integration.model.config.IntegrationSettings;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit tests for {@link CachedIntegrationService}
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class CachedIntegrationServiceTest {
+
+  private static final String USER_ID = "userId";
+
+  private static final String CONFIGURATION_ID = "configurationId";
+
+  private static final String INSTANCE_ID = "instanceId";
+
+  private static final String TYPE = "jiraWebHookIntegration";
+
+  private static final String OPTIONAL_PROPERTIES = "{\"streams\":[\"stream1\"]}";
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Mock
+  private RemoteIntegrationService remoteIntegrationService;
+
+  @Mock
+  private Environment environment;
+
+  @InjectMocks
+  private CachedIntegrationService service;
+
+  @Before
+  public void init() {
+    doReturn(folder.getRoot().getAbsolutePath()).when(environment)
+        .getProperty(eq("config.snapshot.dir"), anyString());
+    doReturn("60").when(environment)
+        .getProperty(eq("config.snapshot.revalidate.seconds"), anyString());
+
+    service.init();
+  }
+
+  @Test
+  public void testGetInstanceReadThrough() {
+    IntegrationInstance instance = mockInstance();
+    doReturn(instance).when(remoteIntegrationService)
+        .getInstanceById(CONFIGURATION_ID, INSTANCE_ID, USER_ID);
+
+    assertEquals(instance, service.getInstanceById(CONFIGURATION_ID, INSTANCE_ID, USER_ID));
+    assertEquals(INSTANCE_ID,
+        service.getInstanceById(CONFIGURATION_ID, INSTANCE_ID, USER_ID).getInstanceId());
+
+    verify(remoteIntegrationService, times(1)).getInstanceById(CONFIGURATION_ID, INSTANCE_ID,
+        USER_ID);
+  }
+
+  @Test
+  public void testGetInstanceReturnsCopies() {
+    IntegrationInstance instance = mockInstance();
+    instance.setOptionalProperties(OPTIONAL_PROPERTIES);
+    doReturn(instance).when(remoteIntegrationService)
+        .getInstanceById(CONFIGURATION_ID, INSTANCE_ID, USER_ID);
+
+    service.getInstanceById(CONFIGURATION_ID, INSTANCE_ID, USER_ID).setOptionalProperties(null);
+    instance.setOptionalProperties(null);
+
+    IntegrationInstance first = service.getInstanceById(CONFIGURATION_ID, INSTANCE_ID, USER_ID);
+    IntegrationInstance second = service.getInstanceById(CONFIGURATION_ID, INSTANCE_ID, USER_ID);
+    first.setOptionalProperties(null);
+
+    assertNotSame(first, second);
+    assertEquals(OPTIONAL_PROPERTIES, second.getOptionalProperties());
+  }
+
+  @Test
+  public void testGetIntegrationByType() {
+    IntegrationSettings settings = mockSettings();
+    doReturn(settings).when(remoteIntegrationService).getIntegrationByType(TYPE, USER_ID);
+
+    assertEquals(settings, service.getIntegrationByType(TYPE, USER_ID));
+    assertEquals(CONFIGURATION_ID, service.getIntegrationByType(TYPE, USER_ID).getConfigurationId());
+    assertEquals(TYPE, service.getIntegrationById(CONFIGURATION_ID, USER_ID).getType());
+
+    verify(remoteIntegrationService, times(1)).getIntegrationByType(TYPE, USER_ID);
+  }
+
+  @Test
+  public void testSaveWriteThrough() {
+    IntegrationInstance instance = mockInstance();
+    doReturn(instance).when(remoteIntegrationService).save(instance, USER_ID);
+
+    assertEquals(instance, service.save(instance, USER_ID));
+    assertEquals(INSTANCE_ID,
+        service.getInstanceById(CONFIGURATION_ID, INSTANCE_ID, USER_ID).getInstanceId());
+
+    IntegrationSnapshotStore store = new IntegrationSnapshotStore(
+        folder.getRoot().getAbsolutePath(), new ObjectMapper());
+    assertEquals(USER_ID, store.loadInstance(CONFIGURATION_ID, INSTANCE_ID).getUserId());
+  }
+
+  @Test
+  public void testSaveAllWriteThrough() {
+    List<IntegrationInstance> instances = Collections.singletonList(mockInstance());
+    doReturn(instances).when(remoteIntegrationService).saveAll(instances, USER_ID);
+
+    assertEquals(instances, service.saveAll(instances, USER_ID));
+    assertEquals(INSTANCE_ID,
+        service.getInstanceById(CONFIGURATION_ID, INSTANCE_ID, USER_ID).getInstanceId());
+
+    verify(remoteIntegrationService, never()).getInstanceById(CONFIGURATION_ID, INSTANCE_ID,
+        USER_ID);
+  }
+
+  @Test
+  public void testWarmUpServesDuringOutage() throws InterruptedException {
+    IntegrationInstance instance = mockInstance();
+    doReturn(instance).when(remoteIntegrationService)
+        .getInstanceById(CONFIGURATION_ID, INSTANCE_ID, USER_ID);
+    service.getInstanceById(CONFIGURATION_ID, INSTANCE_ID, USER_ID);
+
+    RemoteApiException cause = new RemoteApiException(INTERNAL_SERVER_ERROR.getStatusCode(),
+        "unavailable");
+    doThrow(new RemoteConfigurationException("message", cause, "solution"))
+        .when(remoteIntegrationService).getInstanceById(CONFIGURATION_ID, INSTANCE_ID, USER_ID);
+
+    CachedIntegrationService restarted = restart("0");
+    IntegrationInstance result = restarted.getInstanceById(CONFIGURATION_ID, INSTANCE_ID, USER_ID);
+    awaitRevalidation(restarted);
+
+    assertEquals(INSTANCE_ID, result.getInstanceId());
+    assertEquals(INSTANCE_ID,
+        restarted.getInstanceById(CONFIGURATION_ID, INSTANCE_ID, USER_ID).getInstanceId());
+  }
+
+  @Test
+  public void testRevalidateRemovesMissingInstance() throws InterruptedException {
+    IntegrationInstance instance = mockInstance();
+    doReturn(instance).when(remoteIntegrationService)
+        .getInstanceById(CONFIGURATION_ID, INSTANCE_ID, USER_ID);
+    service.getInstanceById(CONFIGURATION_ID, INSTANCE_ID, USER_ID);
+
+    RemoteApiException cause = new RemoteApiException(BAD_REQUEST.getStatusCode(), "not found");
+    doThrow(new RemoteConfigurationException("message", cause, "solution"))
+        .when(remoteIntegrationService).getInstanceById(CONFIGURATION_ID, INSTANCE_ID, USER_ID);
+
+    CachedIntegrationService restarted = restart("0");
+    restarted.getInstanceById(CONFIGURATION_ID, INSTANCE_ID, USER_ID);
+    awaitRevalidation(restarted);
+
+    IntegrationSnapshotStore store = new IntegrationSnapshotStore(
+        folder.getRoot().getAbsolutePath(), new ObjectMapper());
+    assertNull(store.loadInstance(CONFIGURATION_ID, INSTANCE_ID));
+  }
+
+  private CachedIntegrationService restart(String revalidatePeriod) {
+    doReturn(revalidatePeriod).when(environment)
+        .getProperty(eq("config.snapshot.revalidate.seconds"), anyString());
+
+    CachedIntegrationService restarted = new CachedIntegrationService();
+    Whitebox.setInternalState(restarted, "remoteIntegrationService", remoteIntegrationService);
+    Whitebox.setInternalState(restarted, "environment", environment);
+    Whitebox.setInternalState(restarted, "revalidationPool", Executors.newSingleThreadExecutor());
+    restarted.init();
+
+    return restarted;
+  }
+
+  private void awaitRevalidation(CachedIntegrationService cached) throws InterruptedException {
+    ExecutorService pool = (ExecutorService) Whitebox.getInternalState(cached, "revalidationPool");
+    pool.shutdown();
+    pool.awaitTermination(5, TimeUnit.SECONDS);
+  }
+
+  private IntegrationSettings mockSettings() {
+    IntegrationSettings settings = new IntegrationSettings();
+    settings.setConfigurationId(CONFIGURATION_ID);
+    settings.setType(TYPE);
+    return settings;
+  }
+
+  private IntegrationInstance mockInstance() {
+    IntegrationInstance instance = new IntegrationInstance();
+    instance.setConfigurationId(CONFIGURATION_ID);
+    instance.setInstanceId(INSTANCE_ID);
+    return instance;
+  }
+
+}
@@ -21,27 +21,34 @@ import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.symphonyoss.integration.utils.WebHookConfigurationUtils.LAST_POSTED_DATE;
 import static org.symphonyoss.integration.utils.WebHookConfigurationUtils.OWNER;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Spy;
 import org.mockito.internal.util.reflection.Whitebox;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.core.env.Environment;
+import org.symphonyoss.integration.config.event.ConfigurationChangedEventData;
 import org.symphonyoss.integration.config.exception.ConfigurationNotFoundException;
 import org.symphonyoss.integration.config.exception.InitializationConfigException;
 import org.symphonyoss.integration.config.exception.InstanceNotFoundException;
@@ -97,6 +104,9 @@ public class LocalIntegrationServiceTest {
   @Mock
   private LogMessageSource logMessage;
 
+  @Mock
+  private ApplicationEventPublisher publisher;
+
   @InjectMocks
   private LocalIntegrationService service;
 
@@ -112,6 +122,11 @@ public class LocalIntegrationServiceTest {
     if (file.exists()) {
      file.delete();
     }
+
+    File journal = new File(MOCK_CONFIGURATION + ".journal");
+    if (journal.exists()) {
+      journal.delete();
+    }
   }
 
   @Test(expected = InvalidConfigurationIdException.class)
@@ -189,6 +204,135 @@ public class LocalIntegrationServiceTest {
     assertTrue(saved.getVisible());
   }
 
+  @Test
+  public void testReplayJournal() throws IntegrationConfigException, IOException,
+      URISyntaxException {
+    TemporaryFolder tmpDir = new TemporaryFolder();
+    tmpDir.create();
+
+    String toPathAsString = tmpDir.getRoot().getPath() + "/mock-configuration-tmp.json";
+    Path toPath = Paths.get(toPathAsString);
+    Path fromPath = Paths.get(getClass().getClassLoader().getResource(MOCK_CONFIGURATION).toURI());
+    Files.copy(fromPath, toPath, REPLACE_EXISTING, COPY_ATTRIBUTES);
+
+    doReturn(toPathAsString).when(environment).getProperty(CONFIG_ENV_PROPERTY, DEFAULT_FILE_NAME);
+
+    service.init();
+
+    IntegrationInstance instance =
+        service.getInstanceById("575062074b54ba5e759c0fd0", "4321", TEST_USER);
+    instance.setCreatorId("new-user");
+    service.save(instance, TEST_USER);
+
+    File journal = new File(toPathAsString + ".journal");
+    assertTrue(journal.length() > 0);
+
+    // Reloads the configuration file and replays the journal
+    service.init();
+
+    IntegrationInstance saved =
+        service.getInstanceById("575062074b54ba5e759c0fd0", "4321", TEST_USER);
+    assertEquals("new-user", saved.getCreatorId());
+
+    // Journal must be compacted into the configuration file
+    assertEquals(0, journal.length());
+
+    service.init();
+
+    saved = service.getInstanceById("575062074b54ba5e759c0fd0", "4321", TEST_USER);
+    assertEquals("new-user", saved.getCreatorId());
+
+    IntegrationSettings jira = service.getIntegrationById("575062074b54ba5e759c0fd9", TEST_USER);
+    assertEquals("jiraWebHookIntegration", jira.getType());
+
+    tmpDir.delete();
+  }
+
+  @Test
+  public void testReload() throws IntegrationConfigException, IOException, URISyntaxException {
+    TemporaryFolder tmpDir = new TemporaryFolder();
+    tmpDir.create();
+
+    String toPathAsString = tmpDir.getRoot().getPath() + "/mock-configuration-tmp.json";
+    Path toPath = Paths.get(toPathAsString);
+    Path fromPath = Paths.get(getClass().getClassLoader().getResource(MOCK_CONFIGURATION).toURI());
+    Files.copy(fromPath, toPath, REPLACE_EXISTING, COPY_ATTRIBUTES);
+
+    doReturn(toPathAsString).when(environment).getProperty(CONFIG_ENV_PROPERTY, DEFAULT_FILE_NAME);
+
+    service.init();
+
+    // Nothing changed
+    service.reload();
+    verify(publisher, never()).publishEvent(any(ConfigurationChangedEventData.class));
+
+    // Simulates an external change
+    ObjectMapper mapper = new ObjectMapper();
+    JsonNode root = mapper.readTree(toPath.toFile());
+    ((ObjectNode) root.path("configurations").get(0)).put("description", "Changed externally");
+    mapper.writeValue(toPath.toFile(), root);
+
+    service.reload();
+
+    IntegrationSettings jira = service.getIntegrationById("575062074b54ba5e759c0fd9", TEST_USER);
+    assertEquals("Changed externally", jira.getDescription());
+
+    ArgumentCaptor<ConfigurationChangedEventData> captor =
+        ArgumentCaptor.forClass(ConfigurationChangedEventData.class);
+    verify(publisher).publishEvent(captor.capture());
+
+    ConfigurationChangedEventData event = captor.getValue();
+    assertEquals(1, event.getIntegrations().size());
+    assertEquals("575062074b54ba5e759c0fd9", event.getIntegrations().get(0).getConfigurationId());
+    assertTrue(event.getInstances().isEmpty());
+
+    tmpDir.delete();
+  }
+
+  @Test
+  public void testReloadIgnoresCompaction() throws IntegrationConfigException, IOException,
+      URISyntaxException {
+    TemporaryFolder tmpDir = new TemporaryFolder();
+    tmpDir.create();
+
+    String toPathAsString = tmpDir.getRoot().getPath() + "/mock-configuration-tmp.json";
+    Path toPath = Paths.get(toPathAsString);
+    Path fromPath = Paths.get(getClass().getClassLoader().getResource(MOCK_CONFIGURATION).toURI());
+    Files.copy(fromPath, toPath, REPLACE_EXISTING, COPY_ATTRIBUTES);
+
+    doReturn(toPathAsString).when(environment).getProperty(CONFIG_ENV_PROPERTY, DEFAULT_FILE_NAME);
+
+    service.init();
+
+    IntegrationInstance instance =
+        service.getInstanceById("575062074b54ba5e759c0fd0", "4321", TEST_USER);
+    instance.setCreatorId("new-user");
+    service.save(instance, TEST_USER);
+
+    // Replays and compacts the journal into the configuration file
+    service.init();
+
+    Object repository = Whitebox.getInternalState(service, "repository");
+
+    // The file written by the compaction must not be parsed again
+    service.reload();
+    assertSame(repository, Whitebox.getInternalState(service, "repository"));
+
+    // An external change must still be reloaded
+    ObjectMapper mapper = new ObjectMapper();
+    JsonNode root = mapper.readTree(toPath.toFile());
+    ((ObjectNode) root.path("configurations").get(0)).put("description", "Changed externally");
+    mapper.writeValue(toPath.toFile(), root);
+
+    service.reload();
+
+    IntegrationSettings jira = service.getIntegrationById("575062074b54ba5e759c0fd9", TEST_USER);
+    assertEquals("Changed externally", jira.getDescription());
+
+    service.destroy();
+    tmpDir.delete();
+  }
+
   /**
    * Test to validate the behavior when the file does not exists.
    * @throws InitializationConfigException
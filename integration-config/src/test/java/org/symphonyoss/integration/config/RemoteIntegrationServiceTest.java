@@ -18,11 +18,15 @@ package org.symphonyoss.integration.config;
 
 import static javax.ws.rs.core.Response.Status.BAD_REQUEST;
 import static javax.ws.rs.core.Response.Status.FORBIDDEN;
+import static javax.ws.rs.core.Response.Status.NOT_FOUND;
 import static org.junit.Assert.assertEquals;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import org.junit.Before;
@@ -45,6 +49,9 @@ import org.symphonyoss.integration.pod.api.model.IntegrationInstanceSubmissionCr
 import org.symphonyoss.integration.pod.api.model.IntegrationInstanceSubmissionUpdate;
 import org.symphonyoss.integration.pod.api.model.IntegrationSubmissionCreate;
 
+import java.util.Arrays;
+import java.util.List;
+
 import javax.ws.rs.core.Response;
 
 /**
@@ -150,7 +157,8 @@ public class RemoteIntegrationServiceTest {
     IntegrationSettings settings = buildIntegrationSettings();
 
     doThrow(new RemoteApiException(BAD_REQUEST.getStatusCode(), API_EXCEPTION_MESSAGE)).when(
-        configurationApiClient).getIntegrationById(TOKEN, CONFIGURATION_ID);
+        configurationApiClient)
+        .updateIntegration(eq(TOKEN), eq(CONFIGURATION_ID), any(IntegrationSubmissionCreate.class));
 
     doThrow(RemoteApiException.class).when(configurationApiClient).createIntegration(eq(TOKEN),
         any(IntegrationSubmissionCreate.class));
@@ -163,7 +171,8 @@ public class RemoteIntegrationServiceTest {
     IntegrationSettings settings = buildIntegrationSettings();
 
     doThrow(new RemoteApiException(BAD_REQUEST.getStatusCode(), API_EXCEPTION_MESSAGE)).when(
-        configurationApiClient).getIntegrationById(TOKEN, CONFIGURATION_ID);
+        configurationApiClient)
+        .updateIntegration(eq(TOKEN), eq(CONFIGURATION_ID), any(IntegrationSubmissionCreate.class));
 
     doReturn(settings).when(configurationApiClient)
         .createIntegration(eq(TOKEN), any(IntegrationSubmissionCreate.class));
@@ -190,6 +199,9 @@ public class RemoteIntegrationServiceTest {
         configurationApiClient)
         .updateIntegration(eq(TOKEN), eq(CONFIGURATION_ID), any(IntegrationSubmissionCreate.class));
 
+    doThrow(new RemoteApiException(BAD_REQUEST.getStatusCode(), API_EXCEPTION_MESSAGE)).when(
+        configurationApiClient).createIntegration(eq(TOKEN), any(IntegrationSubmissionCreate.class));
+
     remoteIntegrationService.save(settings, USER_ID);
   }
 
@@ -239,7 +251,8 @@ public class RemoteIntegrationServiceTest {
     IntegrationInstance instance = buildInstance();
 
     doThrow(new RemoteApiException(BAD_REQUEST.getStatusCode(), API_EXCEPTION_MESSAGE)).when(
-        instanceApiClient).getInstanceById(TOKEN, CONFIGURATION_ID, INSTANCE_ID);
+        instanceApiClient)
+        .updateInstance(eq(TOKEN), any(IntegrationInstanceSubmissionUpdate.class));
 
     doThrow(RemoteApiException.class).when(instanceApiClient)
         .createInstance(eq(TOKEN), any(IntegrationInstanceSubmissionCreate.class));
@@ -252,7 +265,8 @@ public class RemoteIntegrationServiceTest {
     IntegrationInstance instance = buildInstance();
 
     doThrow(new RemoteApiException(BAD_REQUEST.getStatusCode(), API_EXCEPTION_MESSAGE)).when(
-        instanceApiClient).getInstanceById(TOKEN, CONFIGURATION_ID, INSTANCE_ID);
+        instanceApiClient)
+        .updateInstance(eq(TOKEN), any(IntegrationInstanceSubmissionUpdate.class));
 
     doThrow(new RemoteApiException(BAD_REQUEST.getStatusCode(), API_EXCEPTION_MESSAGE)).when(
         instanceApiClient)
@@ -266,7 +280,8 @@ public class RemoteIntegrationServiceTest {
     IntegrationInstance instance = buildInstance();
 
     doThrow(new RemoteApiException(BAD_REQUEST.getStatusCode(), API_EXCEPTION_MESSAGE)).when(
-        instanceApiClient).getInstanceById(TOKEN, CONFIGURATION_ID, INSTANCE_ID);
+        instanceApiClient)
+        .updateInstance(eq(TOKEN), any(IntegrationInstanceSubmissionUpdate.class));
 
     doReturn(instance).when(instanceApiClient)
         .createInstance(eq(TOKEN), any(IntegrationInstanceSubmissionCreate.class));
@@ -292,6 +307,10 @@ public class RemoteIntegrationServiceTest {
         instanceApiClient)
         .updateInstance(eq(TOKEN), any(IntegrationInstanceSubmissionUpdate.class));
 
+    doThrow(new RemoteApiException(BAD_REQUEST.getStatusCode(), API_EXCEPTION_MESSAGE)).when(
+        instanceApiClient)
+        .createInstance(eq(TOKEN), any(IntegrationInstanceSubmissionCreate.class));
+
     remoteIntegrationService.save(instance, USER_ID);
   }
 
@@ -305,6 +324,62 @@ public class RemoteIntegrationServiceTest {
     assertEquals(instance, remoteIntegrationService.save(instance, USER_ID));
   }
 
+  @Test
+  public void testSaveInstanceNotFound() throws Exception {
+    IntegrationInstance instance = buildInstance();
+
+    doThrow(new RemoteApiException(NOT_FOUND.getStatusCode(), API_EXCEPTION_MESSAGE)).when(
+        instanceApiClient)
+        .updateInstance(eq(TOKEN), any(IntegrationInstanceSubmissionUpdate.class));
+
+    doReturn(instance).when(instanceApiClient)
+        .createInstance(eq(TOKEN), any(IntegrationInstanceSubmissionCreate.class));
+
+    assertEquals(instance, remoteIntegrationService.save(instance, USER_ID));
+  }
+
+  @Test
+  public void testSaveInstanceWithoutId() throws Exception {
+    IntegrationInstance instance = buildInstance();
+    instance.setInstanceId(null);
+
+    doReturn(instance).when(instanceApiClient)
+        .createInstance(eq(TOKEN), any(IntegrationInstanceSubmissionCreate.class));
+
+    assertEquals(instance, remoteIntegrationService.save(instance, USER_ID));
+
+    verify(instanceApiClient, never()).updateInstance(eq(TOKEN),
+        any(IntegrationInstanceSubmissionUpdate.class));
+    verify(instanceApiClient, never()).getInstanceById(TOKEN, CONFIGURATION_ID, INSTANCE_ID);
+  }
+
+  @Test
+  public void testSaveAll() throws Exception {
+    IntegrationInstance first = buildInstance();
+    IntegrationInstance second = buildInstance();
+
+    doReturn(first).doReturn(second).when(instanceApiClient)
+        .updateInstance(eq(TOKEN), any(IntegrationInstanceSubmissionUpdate.class));
+
+    List<IntegrationInstance> result =
+        remoteIntegrationService.saveAll(Arrays.asList(first, second), USER_ID);
+
+    assertEquals(2, result.size());
+    verify(instanceApiClient, times(2)).updateInstance(eq(TOKEN),
+        any(IntegrationInstanceSubmissionUpdate.class));
+  }
+
+  @Test(expected = ForbiddenUserException.class)
+  public void testSaveAllFailed() throws Exception {
+    IntegrationInstance instance = buildInstance();
+
+    doThrow(new RemoteApiException(FORBIDDEN.getStatusCode(), API_EXCEPTION_MESSAGE)).when(
+        instanceApiClient)
+        .updateInstance(eq(TOKEN), any(IntegrationInstanceSubmissionUpdate.class));
+
+    remoteIntegrationService.saveAll(Arrays.asList(instance, instance), USER_ID);
+  }
+
   private IntegrationSettings buildIntegrationSettings() {
     IntegrationSettings settings = new IntegrationSettings();
     settings.setConfigurationId(CONFIGURATION_ID);
@@ -0,0 +1,170 @@
+/**
+ * Copyright 2016-2017 Symphony Integrations - Symphony LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.symphonyoss.integration.config.journal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.symphonyoss.integration.config.model.IntegrationRepository;
+import org.symphonyoss.integration.config.model.JournalRecord;
+import org.symphonyoss.integration.model.config.IntegrationInstance;
+import org.symphonyoss.integration.model.config.IntegrationSettings;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+/**
+ * Unit tests for {@link IntegrationRepositoryJournal}
+ */
+public class IntegrationRepositoryJournalTest {
+
+  private static final String CONFIGURATION_ID = "575062074b54ba5e759c0fd9";
+
+  private static final String INSTANCE_ID = "1234";
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private ObjectMapper mapper = new ObjectMapper();
+
+  private String fileName;
+
+  private IntegrationRepositoryJournal journal;
+
+  @Before
+  public void init() throws IOException {
+    this.mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    this.fileName = new File(folder.getRoot(), "configuration.json").getPath();
+    this.journal = new IntegrationRepositoryJournal(fileName, mapper);
+  }
+
+  @After
+  public void finish() throws IOException {
+    journal.close();
+  }
+
+  @Test
+  public void testAppendAndReplay() throws IOException {
+    journal.append(new JournalRecord(mockSettings()));
+    journal.append(new JournalRecord(mockInstance("creator1")));
+    journal.append(new JournalRecord(mockInstance("creator2")));
+    journal.close();
+
+    journal = new IntegrationRepositoryJournal(fileName, mapper);
+
+    IntegrationRepository repository = new IntegrationRepository();
+    assertEquals(3, journal.replay(repository));
+    assertEquals(3, journal.size());
+
+    assertNotNull(repository.getIntegrationById(CONFIGURATION_ID));
+    assertEquals("creator2", repository.getInstanceById(INSTANCE_ID).getCreatorId());
+  }
+
+  @Test
+  public void testReplayIncompleteRecord() throws IOException {
+    journal.append(new JournalRecord(mockInstance("creator1")));
+    journal.append(new JournalRecord(mockInstance("creator2")));
+    journal.close();
+
+    // Simulates a crash while appending the last record
+    File journalFile = new File(fileName + ".journal");
+    try (RandomAccessFile file = new RandomAccessFile(journalFile, "rw")) {
+      file.setLength(file.length() - 5);
+    }
+
+    journal = new IntegrationRepositoryJournal(fileName, mapper);
+
+    IntegrationRepository repository = new IntegrationRepository();
+    assertEquals(1, journal.replay(repository));
+    assertEquals("creator1", repository.getInstanceById(INSTANCE_ID).getCreatorId());
+
+    // New records must be appended after the last valid one
+    journal.append(new JournalRecord(mockInstance("creator3")));
+    journal.close();
+
+    journal = new IntegrationRepositoryJournal(fileName, mapper);
+
+    repository = new IntegrationRepository();
+    assertEquals(2, journal.replay(repository));
+    assertEquals("creator3", repository.getInstanceById(INSTANCE_ID).getCreatorId());
+  }
+
+  @Test
+  public void testAppendAfterReopen() throws IOException {
+    journal.append(new JournalRecord(mockInstance("creator1")));
+    journal.close();
+
+    assertFalse(journal.isOpen());
+
+    // A journal reopened without replaying must not overwrite the existing records
+    journal = new IntegrationRepositoryJournal(fileName, mapper);
+    journal.append(new JournalRecord(mockInstance("creator2")));
+    journal.close();
+
+    journal = new IntegrationRepositoryJournal(fileName, mapper);
+
+    IntegrationRepository repository = new IntegrationRepository();
+    assertEquals(2, journal.replay(repository));
+    assertEquals("creator2", repository.getInstanceById(INSTANCE_ID).getCreatorId());
+  }
+
+  @Test
+  public void testCompact() throws IOException {
+    journal.append(new JournalRecord(mockSettings()));
+    journal.append(new JournalRecord(mockInstance("creator1")));
+
+    IntegrationRepository repository = new IntegrationRepository();
+    repository.putIntegration(mockSettings());
+    repository.putInstance(mockInstance("creator1"));
+
+    journal.compact(repository);
+
+    assertEquals(0, journal.size());
+    assertEquals(0, new File(fileName + ".journal").length());
+
+    IntegrationRepository snapshot = mapper.readValue(new File(fileName),
+        IntegrationRepository.class);
+    assertNotNull(snapshot.getIntegrationById(CONFIGURATION_ID));
+    assertEquals("creator1", snapshot.getInstanceById(INSTANCE_ID).getCreatorId());
+  }
+
+  private IntegrationSettings mockSettings() {
+    IntegrationSettings settings = new IntegrationSettings();
+    settings.setConfigurationId(CONFIGURATION_ID);
+    settings.setType("jiraWebHookIntegration");
+    return settings;
+  }
+
+  private IntegrationInstance mockInstance(String creatorId) {
+    IntegrationInstance instance = new IntegrationInstance();
+    instance.setInstanceId(INSTANCE_ID);
+    instance.setConfigurationId(CONFIGURATION_ID);
+    instance.setCreatorId(creatorId);
+    return instance;
+  }
+
+}
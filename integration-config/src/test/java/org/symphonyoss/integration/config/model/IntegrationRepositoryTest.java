@@ -0,0 +1,97 @@
+/**
+ * Copyright 2016-2017 Symphony Integrations - Symphony LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.symphonyoss.integration.config.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+import org.symphonyoss.integration.model.config.IntegrationInstance;
+import org.symphonyoss.integration.model.config.IntegrationSettings;
+
+import java.io.IOException;
+
+/**
+ * Unit tests for {@link IntegrationRepository}
+ */
+public class IntegrationRepositoryTest {
+
+  private static final String JIRA_ID = "575062074b54ba5e759c0fd9";
+
+  private static final String GITHUB_ID = "575062074b54ba5e759c0fd0";
+
+  private static final String JIRA_TYPE = "jiraWebHookIntegration";
+
+  private static final String GITHUB_TYPE = "gitHubWebHookIntegration";
+
+  private static final Long OWNER = 123L;
+
+  private IntegrationRepository repository = new IntegrationRepository();
+
+  @Test
+  public void testGetIntegrationByType() {
+    repository.putIntegration(mockSettings(JIRA_ID, JIRA_TYPE, OWNER));
+    repository.putIntegration(mockSettings(GITHUB_ID, GITHUB_TYPE, null));
+
+    assertEquals(JIRA_ID, repository.getIntegrationByType(JIRA_TYPE).getConfigurationId());
+    assertEquals(GITHUB_ID, repository.getIntegrationByType(GITHUB_TYPE).getConfigurationId());
+    assertNull(repository.getIntegrationByType("test"));
+  }
+
+  @Test
+  public void testReindexIntegration() {
+    repository.putIntegration(mockSettings(JIRA_ID, JIRA_TYPE, OWNER));
+    repository.putIntegration(mockSettings(JIRA_ID, GITHUB_TYPE, null));
+
+    assertNull(repository.getIntegrationByType(JIRA_TYPE));
+    assertEquals(JIRA_ID, repository.getIntegrationByType(GITHUB_TYPE).getConfigurationId());
+  }
+
+  @Test
+  public void testSerialization() throws IOException {
+    repository.putIntegration(mockSettings(JIRA_ID, JIRA_TYPE, OWNER));
+    repository.putInstance(mockInstance("1234", JIRA_ID));
+
+    ObjectMapper mapper = new ObjectMapper();
+    mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    String json = mapper.writeValueAsString(repository);
+    IntegrationRepository result = mapper.readValue(json, IntegrationRepository.class);
+
+    assertEquals(JIRA_ID, result.getIntegrationByType(JIRA_TYPE).getConfigurationId());
+    assertEquals(JIRA_ID, result.getInstanceById("1234").getConfigurationId());
+  }
+
+  private IntegrationSettings mockSettings(String id, String type, Long owner) {
+    IntegrationSettings settings = new IntegrationSettings();
+    settings.setConfigurationId(id);
+    settings.setType(type);
+    settings.setOwner(owner);
+    return settings;
+  }
+
+  private IntegrationInstance mockInstance(String id, String configurationId) {
+    IntegrationInstance instance = new IntegrationInstance();
+    instance.setInstanceId(id);
+    instance.setConfigurationId(configurationId);
+    return instance;
+  }
+
+}
@@ -0,0 +1,138 @@
+/**
+ * Copyright 2016-2017 Symphony Integrations - Symphony LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.symphonyoss.integration.config.snapshot;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.symphonyoss.integration.config.model.SnapshotEntry;
+import org.symphonyoss.integration.model.config.IntegrationInstance;
+import org.symphonyoss.integration.model.config.IntegrationSettings;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Unit tests for {@link IntegrationSnapshotStore}
+ */
+public class IntegrationSnapshotStoreTest {
+
+  private static final String USER_ID = "userId";
+
+  private static final String CONFIGURATION_ID = "configuration/id";
+
+  private static final String INSTANCE_ID = "instanceId";
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private IntegrationSnapshotStore store;
+
+  @Before
+  public void init() {
+    store = new IntegrationSnapshotStore(folder.getRoot().getAbsolutePath(), new ObjectMapper());
+  }
+
+  @Test
+  public void testSaveAndLoadIntegration() {
+    IntegrationSettings settings = new IntegrationSettings();
+    settings.setConfigurationId(CONFIGURATION_ID);
+
+    store.saveIntegration(new SnapshotEntry(USER_ID, settings));
+
+    SnapshotEntry entry = store.loadIntegration(CONFIGURATION_ID);
+    assertEquals(USER_ID, entry.getUserId());
+    assertEquals(CONFIGURATION_ID, entry.getIntegration().getConfigurationId());
+    assertEquals(1, store.loadIntegrations().size());
+
+    store.deleteIntegration(CONFIGURATION_ID);
+    assertNull(store.loadIntegration(CONFIGURATION_ID));
+  }
+
+  @Test
+  public void testSaveAndLoadInstance() {
+    IntegrationInstance instance = new IntegrationInstance();
+    instance.setConfigurationId(CONFIGURATION_ID);
+    instance.setInstanceId(INSTANCE_ID);
+
+    store.saveInstance(new SnapshotEntry(USER_ID, instance));
+
+    SnapshotEntry entry = store.loadInstance(CONFIGURATION_ID, INSTANCE_ID);
+    assertEquals(INSTANCE_ID, entry.getInstance().getInstanceId());
+    assertEquals(1, store.loadInstances().size());
+
+    store.deleteInstance(CONFIGURATION_ID, INSTANCE_ID);
+    assertTrue(store.loadInstances().isEmpty());
+  }
+
+  @Test
+  public void testConcurrentSavesOfTheSameInstance() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    List<Future<Void>> futures = new ArrayList<>();
+
+    try {
+      for (int i = 0; i < 50; i++) {
+        final IntegrationInstance instance = new IntegrationInstance();
+        instance.setConfigurationId(CONFIGURATION_ID);
+        instance.setInstanceId(INSTANCE_ID);
+        instance.setName("instance" + i);
+
+        futures.add(executor.submit(new Callable<Void>() {
+          @Override
+          public Void call() throws Exception {
+            store.saveInstance(new SnapshotEntry(USER_ID, instance));
+            return null;
+          }
+        }));
+      }
+
+      for (Future<Void> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    SnapshotEntry entry = store.loadInstance(CONFIGURATION_ID, INSTANCE_ID);
+    assertTrue(entry.getInstance().getName().startsWith("instance"));
+
+    String[] files = new File(folder.getRoot(), "instances").list();
+    assertEquals(1, files.length);
+  }
+
+  @Test
+  public void testIgnoreInvalidFile() throws IOException {
+    File invalid = new File(folder.getRoot(), "integrations/invalid.json");
+    Files.write(invalid.toPath(), "{".getBytes("UTF-8"));
+
+    assertTrue(store.loadIntegrations().isEmpty());
+  }
+
+}
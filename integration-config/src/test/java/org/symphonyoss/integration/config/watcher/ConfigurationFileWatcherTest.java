@@ -0,0 +1,87 @@
+/**
+ * Copyright 2016-2017 Symphony Integrations - Symphony LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.symphonyoss.integration.config.watcher;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit tests for {@link ConfigurationFileWatcher}
+ */
+public class ConfigurationFileWatcherTest {
+
+  private static final long TIMEOUT = 30;
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private Path file;
+
+  private CountDownLatch latch = new CountDownLatch(1);
+
+  private ConfigurationFileWatcher watcher;
+
+  @Before
+  public void init() throws IOException {
+    this.file = new File(folder.getRoot(), "configuration.json").toPath();
+    Files.write(file, "{}".getBytes(StandardCharsets.UTF_8));
+
+    this.watcher = new ConfigurationFileWatcher(file, new Runnable() {
+      @Override
+      public void run() {
+        latch.countDown();
+      }
+    });
+
+    watcher.start();
+  }
+
+  @After
+  public void finish() throws IOException {
+    watcher.close();
+  }
+
+  @Test
+  public void testFileChanged() throws IOException, InterruptedException {
+    Files.write(file, "{ \"instances\": [] }".getBytes(StandardCharsets.UTF_8));
+    assertTrue(latch.await(TIMEOUT, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void testOtherFileChanged() throws IOException, InterruptedException {
+    Path other = new File(folder.getRoot(), "configuration.json.journal").toPath();
+    Files.write(other, "{}".getBytes(StandardCharsets.UTF_8));
+
+    assertFalse(latch.await(1, TimeUnit.SECONDS));
+  }
+
+}
@@ -0,0 +1,129 @@
+/**
+ * Copyright 2016-2017 Symphony Integrations - Symphony LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.symphonyoss.integration.storage;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Unit tests for {@link RecordLog}
+ */
+public class RecordLogTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private Path path;
+
+  private List<String> replayed = new ArrayList<>();
+
+  private RecordLog.PayloadHandler handler = new RecordLog.PayloadHandler() {
+    @Override
+    public void handle(byte[] payload) {
+      replayed.add(new String(payload, StandardCharsets.UTF_8));
+    }
+  };
+
+  @Before
+  public void init() {
+    path = new File(folder.getRoot(), "records.log").toPath();
+  }
+
+  @Test
+  public void testDiscardIncompleteRecord() throws IOException {
+    try (RecordLog log = new RecordLog(path)) {
+      log.append(bytes("record1"));
+      log.append(bytes("record2"));
+    }
+
+    try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+      file.setLength(file.length() - 2);
+    }
+
+    try (RecordLog log = new RecordLog(path)) {
+      assertEquals(1, log.replay(handler));
+      log.append(bytes("record3"));
+    }
+
+    replayed.clear();
+
+    try (RecordLog log = new RecordLog(path)) {
+      assertEquals(2, log.replay(handler));
+    }
+
+    assertEquals(Arrays.asList("record1", "record3"), replayed);
+  }
+
+  @Test
+  public void testRewrite() throws IOException {
+    try (RecordLog log = new RecordLog(path)) {
+      log.append(bytes("record1"));
+      log.append(bytes("record2"));
+
+      log.rewrite(Arrays.asList(bytes("record2")));
+      log.append(bytes("record3"));
+    }
+
+    try (RecordLog log = new RecordLog(path)) {
+      assertEquals(2, log.replay(handler));
+    }
+
+    assertEquals(Arrays.asList("record2", "record3"), replayed);
+  }
+
+  @Test
+  public void testRewriteFailureKeepsTheLogOpen() throws IOException {
+    // The rewrite can't create its temporary file
+    new File(path.toString() + ".compact").mkdir();
+
+    try (RecordLog log = new RecordLog(path)) {
+      log.append(bytes("record1"));
+
+      try {
+        log.rewrite(Arrays.asList(bytes("record1")));
+        fail();
+      } catch (IOException e) {
+        log.append(bytes("record2"));
+      }
+    }
+
+    try (RecordLog log = new RecordLog(path)) {
+      assertEquals(2, log.replay(handler));
+    }
+
+    assertEquals(Arrays.asList("record1", "record2"), replayed);
+  }
+
+  private byte[] bytes(String value) {
+    return value.getBytes(StandardCharsets.UTF_8);
+  }
+
+}
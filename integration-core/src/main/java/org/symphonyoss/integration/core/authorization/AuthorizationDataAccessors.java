@@ -0,0 +1,121 @@
+/**
+ * Copyright 2016-2017 Symphony Integrations - Symphony LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.symphonyoss.integration.core.authorization;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Reads the fields of the authorization data objects. The field accessors are resolved once per
+ * data class and field name, and reused by all the following reads.
+ *
+ * Data restored from the disk is represented as a map of properties, so maps are read by key.
+ */
+final class AuthorizationDataAccessors {
+
+  /**
+   * Accessor used when the data class doesn't declare the field
+   */
+  private static final Accessor MISSING = new Accessor(null);
+
+  private static final ConcurrentMap<Class<?>, ConcurrentMap<String, Accessor>> ACCESSORS =
+      new ConcurrentHashMap<>();
+
+  private AuthorizationDataAccessors() {}
+
+  /**
+   * Reads the field value as a string.
+   * @param data Authorization data object
+   * @param fieldName Field declared by the data class
+   * @return Field value as a string or null if the field is missing or null
+   */
+  static String getValue(Object data, String fieldName) {
+    if (data == null) {
+      return null;
+    }
+
+    if (data instanceof Map) {
+      Object value = ((Map<?, ?>) data).get(fieldName);
+      return value == null ? null : value.toString();
+    }
+
+    Accessor accessor = getAccessor(data.getClass(), fieldName);
+
+    if (accessor.getter == null) {
+      return null;
+    }
+
+    try {
+      Object value = (Object) accessor.getter.invokeExact(data);
+      return value == null ? null : value.toString();
+    } catch (Throwable e) {
+      return null;
+    }
+  }
+
+  private static Accessor getAccessor(Class<?> dataClass, String fieldName) {
+    ConcurrentMap<String, Accessor> classAccessors = ACCESSORS.get(dataClass);
+
+    if (classAccessors == null) {
+      ConcurrentMap<String, Accessor> created = new ConcurrentHashMap<>();
+      classAccessors = ACCESSORS.putIfAbsent(dataClass, created);
+
+      if (classAccessors == null) {
+        classAccessors = created;
+      }
+    }
+
+    Accessor accessor = classAccessors.get(fieldName);
+
+    if (accessor == null) {
+      accessor = resolve(dataClass, fieldName);
+      classAccessors.putIfAbsent(fieldName, accessor);
+    }
+
+    return accessor;
+  }
+
+  private static Accessor resolve(Class<?> dataClass, String fieldName) {
+    try {
+      Field field = dataClass.getDeclaredField(fieldName);
+      field.setAccessible(true);
+
+      MethodHandle getter = MethodHandles.lookup().unreflectGetter(field)
+          .asType(MethodType.methodType(Object.class, Object.class));
+
+      return new Accessor(getter);
+    } catch (NoSuchFieldException | IllegalAccessException | SecurityException e) {
+      return MISSING;
+    }
+  }
+
+  private static final class Accessor {
+
+    private final MethodHandle getter;
+
+    Accessor(MethodHandle getter) {
+      this.getter = getter;
+    }
+
+  }
+
+}
@@ -0,0 +1,178 @@
+/**
+ * Copyright 2016-2017 Symphony Integrations - Symphony LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.symphonyoss.integration.core.authorization;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.symphonyoss.integration.authorization.UserAuthorizationData;
+import org.symphonyoss.integration.storage.RecordLog;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Log-structured file store for the user authorization data.
+ *
+ * Every save is appended to the log as a {@link RecordLog} record and synced to the disk before
+ * returning. The payload holds the configuration identifier, URL and user identifier in binary
+ * form, followed by the JSON representation of the authorization data.
+ *
+ * At startup the log is memory-mapped and replayed; the last record wins for each key. A partially
+ * written record at the end of the log (e.g. the process crashed while appending) is discarded.
+ * The compaction rewrites the log with the live records only.
+ */
+public class AuthorizationLogStore implements Closeable {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(AuthorizationLogStore.class);
+
+  private final ObjectMapper mapper;
+
+  private final RecordLog log;
+
+  /**
+   * Number of records stored in the log, including the overwritten ones
+   */
+  private int size;
+
+  /**
+   * Receives the records read from the log.
+   */
+  public interface RecordHandler {
+
+    void handle(String configurationId, UserAuthorizationData data);
+
+  }
+
+  public AuthorizationLogStore(String fileName, ObjectMapper mapper) throws IOException {
+    this.mapper = mapper;
+    this.log = new RecordLog(Paths.get(fileName));
+  }
+
+  /**
+   * Reads all the records stored in the log.
+   * @param handler Receives the records in the order they were appended
+   * @return Number of records read
+   * @throws IOException Failure to read the log file
+   */
+  public synchronized int replay(final RecordHandler handler) throws IOException {
+    this.size = log.replay(new RecordLog.PayloadHandler() {
+      @Override
+      public void handle(byte[] payload) throws IOException {
+        readRecord(payload, handler);
+      }
+    });
+
+    return size;
+  }
+
+  /**
+   * Appends the authorization data to the log and syncs it to the disk.
+   * @param configurationId Configuration identifier
+   * @param data User authorization data
+   * @throws IOException Failure to write the log file
+   */
+  public synchronized void append(String configurationId, UserAuthorizationData data)
+      throws IOException {
+    log.append(writeRecord(configurationId, data));
+    log.force();
+    size++;
+  }
+
+  /**
+   * Rewrites the log with the current authorization data. If the compaction fails, the previous
+   * log is kept and new records can still be appended to it.
+   * @param records Current authorization data by configuration identifier
+   * @throws IOException Failure to write the log file
+   */
+  public synchronized void compact(Map<String, Collection<UserAuthorizationData>> records)
+      throws IOException {
+    List<byte[]> payloads = new ArrayList<>();
+
+    for (Map.Entry<String, Collection<UserAuthorizationData>> entry : records.entrySet()) {
+      for (UserAuthorizationData data : entry.getValue()) {
+        payloads.add(writeRecord(entry.getKey(), data));
+      }
+    }
+
+    log.rewrite(payloads);
+
+    int compacted = payloads.size();
+
+    LOGGER.info("Authorization file {} compacted from {} to {} records", log.getPath(), size,
+        compacted);
+    this.size = compacted;
+  }
+
+  /**
+   * Returns the number of records stored in the log, including the overwritten ones.
+   * @return Number of records
+   */
+  public synchronized int size() {
+    return size;
+  }
+
+  public Path getPath() {
+    return log.getPath();
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    log.close();
+  }
+
+  private byte[] writeRecord(String configurationId, UserAuthorizationData data)
+      throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+    try (DataOutputStream output = new DataOutputStream(bytes)) {
+      output.writeUTF(configurationId);
+      output.writeUTF(data.getUrl() == null ? StringUtils.EMPTY : data.getUrl());
+      output.writeBoolean(data.getUserId() != null);
+      output.writeLong(data.getUserId() == null ? 0 : data.getUserId());
+      output.write(mapper.writeValueAsBytes(data.getData()));
+    }
+
+    return bytes.toByteArray();
+  }
+
+  private void readRecord(byte[] payload, RecordHandler handler) throws IOException {
+    try (DataInputStream input = new DataInputStream(new ByteArrayInputStream(payload))) {
+      String configurationId = input.readUTF();
+      String url = StringUtils.defaultIfEmpty(input.readUTF(), null);
+      boolean hasUserId = input.readBoolean();
+      long userId = input.readLong();
+
+      Object data = mapper.readValue(input, Object.class);
+
+      handler.handle(configurationId,
+          new UserAuthorizationData(url, hasUserId ? userId : null, data));
+    }
+  }
+
+}
@@ -22,6 +22,7 @@ import org.symphonyoss.integration.authentication.AuthenticationProxy;
 import org.symphonyoss.integration.authorization.AuthorizationException;
 import org.symphonyoss.integration.authorization.AuthorizationRepositoryService;
 import org.symphonyoss.integration.authorization.UserAuthorizationData;
+import org.symphonyoss.integration.authorization.UserAuthorizationDataKey;
 import org.symphonyoss.integration.exception.RemoteApiException;
 import org.symphonyoss.integration.logging.LogMessageSource;
 import org.symphonyoss.integration.pod.api.client.IntegrationAuthApiClient;
@@ -29,9 +30,14 @@ import org.symphonyoss.integration.pod.api.client.IntegrationHttpApiClient;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Implementation of a API based repository for authorization data.
+ *
+ * The results of {@link #find(String, String, String, Long)} are cached for a short period, and
+ * the data saved through this service is written through to the cache.
+ *
  * Created by campidelli on 8/1/17.
  */
 @Component
@@ -41,12 +47,19 @@ public class AuthorizationRepositoryServiceImpl implements AuthorizationReposito
   private static final String API_MSG = "core.integration.authorization.repo.api.exception";
   private static final String API_MSG_SOLUTION = API_MSG + ".solution";
 
+  private static final long CACHE_TTL = TimeUnit.SECONDS.toMillis(30);
+
+  private static final int CACHE_MAX_ENTRIES = 10000;
+
   private final LogMessageSource logMessage;
 
   private final AuthenticationProxy authenticationProxy;
 
   private final IntegrationAuthApiClient apiClient;
 
+  private final UserAuthorizationDataCache cache =
+      new UserAuthorizationDataCache(CACHE_TTL, CACHE_MAX_ENTRIES);
+
   public AuthorizationRepositoryServiceImpl(IntegrationHttpApiClient integrationHttpApiClient,
       AuthenticationProxy authenticationProxy, LogMessageSource logMessage) {
     this.logMessage = logMessage;
@@ -59,9 +72,14 @@ public class AuthorizationRepositoryServiceImpl implements AuthorizationReposito
       throws AuthorizationException {
     String sessionToken = authenticationProxy.getSessionToken(integrationUser);
 
+    UserAuthorizationDataKey key =
+        new UserAuthorizationDataKey(configurationId, data.getUrl(), data.getUserId());
+
     try {
       apiClient.saveUserAuthData(sessionToken, configurationId, data);
+      cache.put(key, configurationId, data);
     } catch (RemoteApiException e) {
+      cache.invalidate(key);
       throw new AuthorizationException(logMessage.getMessage(API_MSG), e,
           logMessage.getMessage(API_MSG_SOLUTION));
     }
@@ -70,10 +88,20 @@ public class AuthorizationRepositoryServiceImpl implements AuthorizationReposito
   @Override
   public UserAuthorizationData find(String integrationUser, String configurationId, String url,
       Long userId) throws AuthorizationException {
+    UserAuthorizationDataKey key = new UserAuthorizationDataKey(configurationId, url, userId);
+    UserAuthorizationDataCache.Entry cached = cache.get(key);
+
+    if (cached != null) {
+      return cached.getData();
+    }
+
     String sessionToken = authenticationProxy.getSessionToken(integrationUser);
 
     try {
-      return apiClient.getUserAuthData(sessionToken, configurationId, userId, url);
+      UserAuthorizationData data =
+          apiClient.getUserAuthData(sessionToken, configurationId, userId, url);
+      cache.put(key, configurationId, data);
+      return data;
     } catch (RemoteApiException e) {
       throw new AuthorizationException(logMessage.getMessage(API_MSG), e,
           logMessage.getMessage(API_MSG_SOLUTION));
@@ -92,4 +120,29 @@ public class AuthorizationRepositoryServiceImpl implements AuthorizationReposito
           logMessage.getMessage(API_MSG_SOLUTION));
     }
   }
+
+  /**
+   * Removes the cached authorization data of the user.
+   * @param configurationId Configuration identifier
+   * @param url Integration URL
+   * @param userId User identifier
+   */
+  public void invalidate(String configurationId, String url, Long userId) {
+    cache.invalidate(new UserAuthorizationDataKey(configurationId, url, userId));
+  }
+
+  /**
+   * Removes the cached authorization data of all the users of the configuration.
+   * @param configurationId Configuration identifier
+   */
+  public void invalidate(String configurationId) {
+    cache.invalidate(configurationId);
+  }
+
+  /**
+   * Removes all the cached authorization data.
+   */
+  public void invalidateAll() {
+    cache.invalidateAll();
+  }
 }
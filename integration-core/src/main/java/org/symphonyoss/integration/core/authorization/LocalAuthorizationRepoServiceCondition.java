@@ -22,11 +22,25 @@ import org.springframework.core.type.AnnotatedTypeMetadata;
 import org.symphonyoss.integration.authorization.AuthorizationRepositoryService;
 
 /**
- * Conditional class to create a local implementation of {@link AuthorizationRepositoryService}
+ * Conditional class to create a local implementation of {@link AuthorizationRepositoryService}.
+ *
+ * The local implementation keeps the authorization data in memory only, unless a storage file is
+ * provided through the system property {@link #LOCAL_AUTHORIZATION_FILE}.
+ *
  * Created by rsanchez on 14/08/17.
  */
 public class LocalAuthorizationRepoServiceCondition implements Condition {
 
+  public static final String LOCAL_AUTHORIZATION_FILE = "local_authorization_file";
+
+  /**
+   * Returns the file used to persist the local authorization data.
+   * @return File path or null if the authorization data shouldn't be persisted
+   */
+  public static String getStorageFile() {
+    return System.getProperty(LOCAL_AUTHORIZATION_FILE);
+  }
+
   @Override
   public boolean matches(ConditionContext conditionContext, AnnotatedTypeMetadata annotatedTypeMetadata) {
     String localAuthorization = System.getProperty("local_authorization");
@@ -16,58 +16,229 @@
 
 package org.symphonyoss.integration.core.authorization;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Conditional;
 import org.springframework.stereotype.Component;
 import org.symphonyoss.integration.authorization.AuthorizationException;
 import org.symphonyoss.integration.authorization.AuthorizationRepositoryService;
 import org.symphonyoss.integration.authorization.UserAuthorizationData;
 import org.symphonyoss.integration.authorization.UserAuthorizationDataKey;
+import org.symphonyoss.integration.exception.IntegrationRuntimeException;
+import org.symphonyoss.integration.logging.LogMessageSource;
 
-import java.lang.reflect.Field;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
 
 /**
  * Implementation of a local based repository for authorization data.
  *
+ * The authorization data is partitioned by configuration. Each data field used in a search filter
+ * gets a secondary index in the partition on its first use, so the following searches only visit
+ * the records matching the indexed values.
+ *
+ * When a storage file is provided (see {@link LocalAuthorizationRepoServiceCondition}), every
+ * save is also appended to an {@link AuthorizationLogStore} and the data is restored from it at
+ * startup. The log is compacted in background once it holds much more records than the live
+ * ones.
+ *
  * Created by rsanchez on 14/08/17.
  */
 @Component
 @Conditional(LocalAuthorizationRepoServiceCondition.class)
 public class LocalAuthorizationRepositoryService implements AuthorizationRepositoryService {
 
-  private final Map<UserAuthorizationDataKey, UserAuthorizationData> properties = new HashMap<>();
+  private static final Logger LOGGER =
+      LoggerFactory.getLogger(LocalAuthorizationRepositoryService.class);
+
+  private static final String FILE_MSG = "core.integration.authorization.local.repo.file.exception";
+  private static final String FILE_MSG_SOLUTION = FILE_MSG + ".solution";
+
+  private static final String COMPONENT = "Local Authorization Repository";
+
+  /**
+   * Minimum number of log records to consider the compaction
+   */
+  private static final int COMPACTION_THRESHOLD = 1000;
+
+  /**
+   * The log is compacted when it holds this many times the number of live records
+   */
+  private static final int COMPACTION_RATIO = 2;
+
+  private static final long COMPACTION_INTERVAL = TimeUnit.MINUTES.toMillis(1);
+
+  @Autowired
+  private LogMessageSource logMessage;
+
+  private final ConcurrentMap<String, Partition> partitions = new ConcurrentHashMap<>();
+
+  private AuthorizationLogStore store;
+
+  private ScheduledExecutorService compactionScheduler;
+
+  @PostConstruct
+  public void init() {
+    String fileName = LocalAuthorizationRepoServiceCondition.getStorageFile();
+
+    if (StringUtils.isNotBlank(fileName)) {
+      open(fileName);
+    }
+  }
+
+  /**
+   * Restores the authorization data from the storage file and persists the following saves.
+   * @param fileName Storage file
+   */
+  void open(String fileName) {
+    try {
+      this.store = new AuthorizationLogStore(fileName, new ObjectMapper());
+
+      int records = store.replay(new AuthorizationLogStore.RecordHandler() {
+        @Override
+        public void handle(String configurationId, UserAuthorizationData data) {
+          getPartition(configurationId).put(newKey(configurationId, data), data);
+        }
+      });
+
+      LOGGER.info("Restored {} authorization records from {}", records, fileName);
+    } catch (IOException e) {
+      throw new IntegrationRuntimeException(COMPONENT, logMessage.getMessage(FILE_MSG, fileName),
+          e, logMessage.getMessage(FILE_MSG_SOLUTION, fileName));
+    }
+
+    this.compactionScheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+      @Override
+      public Thread newThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, "authorization-compaction");
+        thread.setDaemon(true);
+        return thread;
+      }
+    });
+
+    compactionScheduler.scheduleWithFixedDelay(new Runnable() {
+      @Override
+      public void run() {
+        compactIfNeeded();
+      }
+    }, COMPACTION_INTERVAL, COMPACTION_INTERVAL, TimeUnit.MILLISECONDS);
+  }
 
   @Override
   public void save(String integrationUser, String configurationId, UserAuthorizationData data)
       throws AuthorizationException {
-    UserAuthorizationDataKey key = new UserAuthorizationDataKey(configurationId, data.getUrl(),
-        data.getUserId());
+    UserAuthorizationDataKey key = newKey(configurationId, data);
 
-    properties.put(key, data);
+    if (store == null) {
+      getPartition(configurationId).put(key, data);
+      return;
+    }
+
+    // Keeps the log and the memory in the same order
+    synchronized (store) {
+      try {
+        store.append(configurationId, data);
+      } catch (IOException e) {
+        String fileName = store.getPath().toString();
+        throw new AuthorizationException(logMessage.getMessage(FILE_MSG, fileName), e,
+            logMessage.getMessage(FILE_MSG_SOLUTION, fileName));
+      }
+
+      getPartition(configurationId).put(key, data);
+    }
+  }
+
+  /**
+   * Rewrites the storage file with the live records when the overwritten records dominate it.
+   */
+  void compactIfNeeded() {
+    if (store == null) {
+      return;
+    }
+
+    synchronized (store) {
+      Map<String, Collection<UserAuthorizationData>> records = new HashMap<>();
+      int live = 0;
+
+      for (Map.Entry<String, Partition> partition : partitions.entrySet()) {
+        Collection<UserAuthorizationData> values = partition.getValue().records.values();
+        records.put(partition.getKey(), values);
+        live += values.size();
+      }
+
+      int size = store.size();
+
+      if ((size < COMPACTION_THRESHOLD) || (size < live * COMPACTION_RATIO)) {
+        return;
+      }
+
+      try {
+        store.compact(records);
+      } catch (IOException e) {
+        LOGGER.error(logMessage.getMessage(FILE_MSG, store.getPath().toString()), e);
+      }
+    }
+  }
+
+  private UserAuthorizationDataKey newKey(String configurationId, UserAuthorizationData data) {
+    return new UserAuthorizationDataKey(configurationId, data.getUrl(), data.getUserId());
   }
 
   @Override
   public UserAuthorizationData find(String integrationUser, String configurationId, String url,
       Long userId) throws AuthorizationException {
+    Partition partition = partitions.get(configurationId);
+
+    if (partition == null) {
+      return null;
+    }
+
     UserAuthorizationDataKey key = new UserAuthorizationDataKey(configurationId, url, userId);
-    return properties.get(key);
+    return partition.records.get(key);
   }
 
   @Override
   public List<UserAuthorizationData> search(String integrationUser, String configurationId,
       Map<String, String> filter) throws AuthorizationException {
-    List<UserAuthorizationData> result = new ArrayList<>();
+    Partition partition = partitions.get(configurationId);
+
+    if (partition == null) {
+      return new ArrayList<>();
+    }
+
+    return partition.search(filter);
+  }
+
+  private Partition getPartition(String configurationId) {
+    Partition partition = partitions.get(configurationId);
+
+    if (partition == null) {
+      Partition created = new Partition();
+      partition = partitions.putIfAbsent(configurationId, created);
 
-    for (UserAuthorizationData userAuthorizationData : properties.values()) {
-      if (isAcceptable(userAuthorizationData, filter)) {
-        result.add(userAuthorizationData);
+      if (partition == null) {
+        partition = created;
       }
     }
 
-    return result;
+    return partition;
   }
 
   /**
@@ -77,19 +248,14 @@ public class LocalAuthorizationRepositoryService implements AuthorizationReposit
    * @param filter Filters
    * @return true if the authorization data should be considered according to the filter.
    */
-  private boolean isAcceptable(UserAuthorizationData userAuthorizationData, Map<String, String> filter) {
+  private static boolean isAcceptable(UserAuthorizationData userAuthorizationData,
+      Map<String, String> filter) {
     Object data = userAuthorizationData.getData();
 
     for (Map.Entry<String, String> query : filter.entrySet()) {
+      String value = AuthorizationDataAccessors.getValue(data, query.getKey());
 
-      try {
-        Field field = data.getClass().getDeclaredField(query.getKey());
-        field.setAccessible(true);
-
-        if (!query.getValue().equals(field.get(data).toString())) {
-          return false;
-        }
-      } catch (NoSuchFieldException | IllegalAccessException | NullPointerException e) {
+      if (!query.getValue().equals(value)) {
         return false;
       }
     }
@@ -97,4 +263,137 @@ public class LocalAuthorizationRepositoryService implements AuthorizationReposit
     return true;
   }
 
+  /**
+   * Authorization data of a single configuration. Writes are serialized, reads are lock-free.
+   */
+  private static class Partition {
+
+    private final ConcurrentMap<UserAuthorizationDataKey, UserAuthorizationData> records =
+        new ConcurrentHashMap<>();
+
+    /**
+     * Record keys by field name and field value
+     */
+    private final ConcurrentMap<String, ConcurrentMap<String, Set<UserAuthorizationDataKey>>>
+        indexes = new ConcurrentHashMap<>();
+
+    synchronized void put(UserAuthorizationDataKey key, UserAuthorizationData data) {
+      UserAuthorizationData previous = records.put(key, data);
+
+      for (Map.Entry<String, ConcurrentMap<String, Set<UserAuthorizationDataKey>>> index :
+          indexes.entrySet()) {
+        String field = index.getKey();
+
+        if (previous != null) {
+          unindex(index.getValue(), AuthorizationDataAccessors.getValue(previous.getData(), field),
+              key);
+        }
+
+        index(index.getValue(), AuthorizationDataAccessors.getValue(data.getData(), field), key);
+      }
+    }
+
+    List<UserAuthorizationData> search(Map<String, String> filter) {
+      List<UserAuthorizationData> result = new ArrayList<>();
+
+      if (filter.isEmpty()) {
+        result.addAll(records.values());
+        return result;
+      }
+
+      // Visits only the records matching the most selective indexed field. The records are
+      // checked against the whole filter, as they may have changed after the lookup.
+      for (UserAuthorizationDataKey key : getCandidates(filter)) {
+        UserAuthorizationData data = records.get(key);
+
+        if ((data != null) && (isAcceptable(data, filter))) {
+          result.add(data);
+        }
+      }
+
+      return result;
+    }
+
+    private Collection<UserAuthorizationDataKey> getCandidates(Map<String, String> filter) {
+      Collection<UserAuthorizationDataKey> candidates = null;
+
+      for (Map.Entry<String, String> query : filter.entrySet()) {
+        Set<UserAuthorizationDataKey> keys = getIndex(query.getKey()).get(query.getValue());
+
+        if (keys == null) {
+          return Collections.emptySet();
+        }
+
+        if ((candidates == null) || (keys.size() < candidates.size())) {
+          candidates = keys;
+        }
+      }
+
+      return candidates;
+    }
+
+    private ConcurrentMap<String, Set<UserAuthorizationDataKey>> getIndex(String field) {
+      ConcurrentMap<String, Set<UserAuthorizationDataKey>> index = indexes.get(field);
+
+      if (index == null) {
+        index = buildIndex(field);
+      }
+
+      return index;
+    }
+
+    private synchronized ConcurrentMap<String, Set<UserAuthorizationDataKey>> buildIndex(
+        String field) {
+      ConcurrentMap<String, Set<UserAuthorizationDataKey>> index = indexes.get(field);
+
+      if (index == null) {
+        index = new ConcurrentHashMap<>();
+
+        for (Map.Entry<UserAuthorizationDataKey, UserAuthorizationData> record :
+            records.entrySet()) {
+          index(index, AuthorizationDataAccessors.getValue(record.getValue().getData(), field),
+              record.getKey());
+        }
+
+        indexes.put(field, index);
+      }
+
+      return index;
+    }
+
+    private void index(ConcurrentMap<String, Set<UserAuthorizationDataKey>> index, String value,
+        UserAuthorizationDataKey key) {
+      if (value == null) {
+        return;
+      }
+
+      Set<UserAuthorizationDataKey> keys = index.get(value);
+
+      if (keys == null) {
+        keys = Collections.newSetFromMap(new ConcurrentHashMap<UserAuthorizationDataKey, Boolean>());
+        index.put(value, keys);
+      }
+
+      keys.add(key);
+    }
+
+    private void unindex(ConcurrentMap<String, Set<UserAuthorizationDataKey>> index, String value,
+        UserAuthorizationDataKey key) {
+      if (value == null) {
+        return;
+      }
+
+      Set<UserAuthorizationDataKey> keys = index.get(value);
+
+      if (keys != null) {
+        keys.remove(key);
+
+        if (keys.isEmpty()) {
+          index.remove(value);
+        }
+      }
+    }
+
+  }
+
 }
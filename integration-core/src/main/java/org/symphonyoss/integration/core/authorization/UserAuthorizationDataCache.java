@@ -0,0 +1,123 @@
+/**
+ * Copyright 2016-2017 Symphony Integrations - Symphony LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.symphonyoss.integration.core.authorization;
+
+import org.symphonyoss.integration.authorization.UserAuthorizationData;
+import org.symphonyoss.integration.authorization.UserAuthorizationDataKey;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded cache of user authorization data, with a fixed time to live. The least recently used
+ * entries are evicted when the cache is full. Lookups that didn't find authorization data are
+ * cached as well.
+ */
+public class UserAuthorizationDataCache {
+
+  private final long ttl;
+
+  private final Map<UserAuthorizationDataKey, Entry> entries;
+
+  /**
+   * @param ttl Time to live, in milliseconds
+   * @param maxEntries Max number of entries
+   */
+  public UserAuthorizationDataCache(long ttl, final int maxEntries) {
+    this.ttl = ttl;
+    this.entries = new LinkedHashMap<UserAuthorizationDataKey, Entry>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<UserAuthorizationDataKey, Entry> eldest) {
+        return size() > maxEntries;
+      }
+    };
+  }
+
+  /**
+   * Retrieves the cached lookup result.
+   * @param key Configuration, URL and user
+   * @return Cached entry or null if the key is not cached
+   */
+  public synchronized Entry get(UserAuthorizationDataKey key) {
+    Entry entry = entries.get(key);
+
+    if ((entry != null) && (System.currentTimeMillis() >= entry.expiresAt)) {
+      entries.remove(key);
+      return null;
+    }
+
+    return entry;
+  }
+
+  /**
+   * Caches the lookup result.
+   * @param key Configuration, URL and user
+   * @param configurationId Configuration identifier
+   * @param data Authorization data or null if not found
+   */
+  public synchronized void put(UserAuthorizationDataKey key, String configurationId,
+      UserAuthorizationData data) {
+    entries.put(key, new Entry(configurationId, data, System.currentTimeMillis() + ttl));
+  }
+
+  public synchronized void invalidate(UserAuthorizationDataKey key) {
+    entries.remove(key);
+  }
+
+  /**
+   * Removes all the entries of the configuration.
+   * @param configurationId Configuration identifier
+   */
+  public synchronized void invalidate(String configurationId) {
+    Iterator<Entry> iterator = entries.values().iterator();
+
+    while (iterator.hasNext()) {
+      if (configurationId.equals(iterator.next().configurationId)) {
+        iterator.remove();
+      }
+    }
+  }
+
+  public synchronized void invalidateAll() {
+    entries.clear();
+  }
+
+  /**
+   * Cached lookup result.
+   */
+  public static class Entry {
+
+    private final String configurationId;
+
+    private final UserAuthorizationData data;
+
+    private final long expiresAt;
+
+    Entry(String configurationId, UserAuthorizationData data, long expiresAt) {
+      this.configurationId = configurationId;
+      this.data = data;
+      this.expiresAt = expiresAt;
+    }
+
+    public UserAuthorizationData getData() {
+      return data;
+    }
+
+  }
+
+}
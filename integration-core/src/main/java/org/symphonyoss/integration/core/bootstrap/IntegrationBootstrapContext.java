@@ -43,9 +43,11 @@ import org.slf4j.MDC;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 import org.symphonyoss.integration.Integration;
 import org.symphonyoss.integration.authentication.AuthenticationProxy;
+import org.symphonyoss.integration.config.event.ConfigurationChangedEventData;
 import org.symphonyoss.integration.core.NullIntegration;
 import org.symphonyoss.integration.core.runnable.IntegrationAbstractRunnable;
 import org.symphonyoss.integration.event.HealthCheckEventData;
@@ -366,6 +368,28 @@ public class IntegrationBootstrapContext implements IntegrationBootstrap {
     this.integrations.clear();
   }
 
+  /**
+   * Notifies the bootstrapped integrations that their settings have changed.
+   * @param event Integrations and instances created or modified
+   */
+  @EventListener
+  public void handleConfigurationChangedEvent(ConfigurationChangedEventData event) {
+    for (IntegrationSettings settings : event.getIntegrations()) {
+      Integration integration = getIntegrationById(settings.getConfigurationId());
+
+      if (integration == null) {
+        continue;
+      }
+
+      try {
+        integration.onConfigChange(settings);
+      } catch (IntegrationRuntimeException e) {
+        LOGGER.error("Fail to apply the configuration changes for the integration "
+            + settings.getConfigurationId(), e);
+      }
+    }
+  }
+
   @Override
   public Integration getIntegrationById(String id) throws IllegalStateException {
     return this.integrations.get(id);
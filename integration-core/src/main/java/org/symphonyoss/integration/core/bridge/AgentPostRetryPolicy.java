@@ -0,0 +1,184 @@
+/**
+ * Copyright 2016-2017 Symphony Integrations - Symphony LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.symphonyoss.integration.core.bridge;
+
+import org.springframework.core.env.Environment;
+import org.symphonyoss.integration.exception.RemoteApiException;
+import org.symphonyoss.integration.exception.authentication.ConnectivityException;
+
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.util.Random;
+
+import javax.ws.rs.ProcessingException;
+import javax.ws.rs.core.Response;
+
+/**
+ * Retry policy applied when posting messages to the Agent.
+ *
+ * Only the failures where the Agent hasn't processed the message are retried: connectivity
+ * failures, connect timeouts and the gateway errors (502, 503 and 504). Read timeouts aren't
+ * retried because the message might have been posted already.
+ *
+ * The delay between the attempts grows exponentially and uses full jitter, so the integrations
+ * don't retry in lockstep after an Agent outage.
+ *
+ * The same failures are the only ones stored as dead letters, so both features agree on what's
+ * safe to post again.
+ *
+ * The policy is read from the properties below. Each property can be overridden per integration
+ * user, for instance 'integration.bridge.retry.jirawebhook.max-attempts'.
+ *
+ * <ul>
+ *   <li>integration.bridge.retry.max-attempts: Total attempts, including the first one</li>
+ *   <li>integration.bridge.retry.initial-backoff: Delay cap of the first retry in milliseconds</li>
+ *   <li>integration.bridge.retry.max-backoff: Delay cap of any retry in milliseconds</li>
+ *   <li>integration.bridge.retry.multiplier: Growth factor of the delay cap</li>
+ * </ul>
+ */
+public final class AgentPostRetryPolicy {
+
+  static final String RETRY_PREFIX = "integration.bridge.retry.";
+
+  static final String MAX_ATTEMPTS = "max-attempts";
+
+  static final String INITIAL_BACKOFF = "initial-backoff";
+
+  static final String MAX_BACKOFF = "max-backoff";
+
+  static final String MULTIPLIER = "multiplier";
+
+  static final int DEFAULT_MAX_ATTEMPTS = 3;
+
+  static final long DEFAULT_INITIAL_BACKOFF = 100L;
+
+  static final long DEFAULT_MAX_BACKOFF = 2000L;
+
+  static final double DEFAULT_MULTIPLIER = 2.0;
+
+  private static final String CONNECT_TIMED_OUT = "connect timed out";
+
+  private final int maxAttempts;
+
+  private final long initialBackoff;
+
+  private final long maxBackoff;
+
+  private final double multiplier;
+
+  AgentPostRetryPolicy(int maxAttempts, long initialBackoff, long maxBackoff, double multiplier) {
+    this.maxAttempts = Math.max(1, maxAttempts);
+    this.initialBackoff = Math.max(0, initialBackoff);
+    this.maxBackoff = Math.max(this.initialBackoff, maxBackoff);
+    this.multiplier = Math.max(1.0, multiplier);
+  }
+
+  /**
+   * Reads the retry policy of the given integration user.
+   * @param environment Application environment
+   * @param integrationUser Integration username
+   * @return Retry policy
+   */
+  static AgentPostRetryPolicy from(Environment environment, String integrationUser) {
+    int maxAttempts = getProperty(environment, integrationUser, MAX_ATTEMPTS, Integer.class,
+        DEFAULT_MAX_ATTEMPTS);
+    long initialBackoff = getProperty(environment, integrationUser, INITIAL_BACKOFF, Long.class,
+        DEFAULT_INITIAL_BACKOFF);
+    long maxBackoff = getProperty(environment, integrationUser, MAX_BACKOFF, Long.class,
+        DEFAULT_MAX_BACKOFF);
+    double multiplier = getProperty(environment, integrationUser, MULTIPLIER, Double.class,
+        DEFAULT_MULTIPLIER);
+
+    return new AgentPostRetryPolicy(maxAttempts, initialBackoff, maxBackoff, multiplier);
+  }
+
+  private static <T> T getProperty(Environment environment, String integrationUser, String name,
+      Class<T> type, T defaultValue) {
+    if (environment == null) {
+      return defaultValue;
+    }
+
+    T value = environment.getProperty(RETRY_PREFIX + integrationUser + "." + name, type);
+
+    if (value == null) {
+      value = environment.getProperty(RETRY_PREFIX + name, type);
+    }
+
+    return value != null ? value : defaultValue;
+  }
+
+  int getMaxAttempts() {
+    return maxAttempts;
+  }
+
+  /**
+   * Checks if the failure can be retried without posting the message twice.
+   * @param e Failure raised when posting the message
+   * @return true if the failure can be retried or false otherwise
+   */
+  public static boolean isRetryable(Exception e) {
+    if (e instanceof ConnectivityException) {
+      return true;
+    }
+
+    if (e instanceof RemoteApiException) {
+      int code = ((RemoteApiException) e).getCode();
+      return code == Response.Status.BAD_GATEWAY.getStatusCode()
+          || code == Response.Status.SERVICE_UNAVAILABLE.getStatusCode()
+          || code == Response.Status.GATEWAY_TIMEOUT.getStatusCode();
+    }
+
+    if (e instanceof ProcessingException) {
+      Throwable cause = e.getCause();
+
+      while (cause != null) {
+        if (cause instanceof ConnectException) {
+          return true;
+        }
+
+        if (cause instanceof SocketTimeoutException && cause.getMessage() != null
+            && cause.getMessage().toLowerCase().contains(CONNECT_TIMED_OUT)) {
+          return true;
+        }
+
+        cause = cause.getCause();
+      }
+    }
+
+    return false;
+  }
+
+  /**
+   * Computes the delay before the next attempt. The delay is drawn uniformly between zero and
+   * the cap of the given retry.
+   * @param retry Retry number, starting from 1
+   * @param random Random source
+   * @return Delay in milliseconds
+   */
+  long nextBackoff(int retry, Random random) {
+    double cap = initialBackoff * Math.pow(multiplier, Math.max(0, retry - 1));
+    long bound = (long) Math.min(maxBackoff, cap);
+
+    if (bound <= 0) {
+      return 0;
+    }
+
+    return (long) (random.nextDouble() * (bound + 1));
+  }
+
+}
@@ -17,6 +17,7 @@
 package org.symphonyoss.integration.core.bridge;
 
 import static org.apache.commons.lang3.StringUtils.isBlank;
+import static org.symphonyoss.integration.metrics.IntegrationMetricsConstants.BASE_METRIC_NAME;
 import static org.symphonyoss.integration.core.properties
     .IntegrationBridgeExceptionHandlerProperties.FAIL_NOTIFY_OWNER;
 import static org.symphonyoss.integration.core.properties
@@ -32,6 +33,7 @@ import static org.symphonyoss.integration.core.properties
 import static org.symphonyoss.integration.core.properties
     .IntegrationBridgeExceptionHandlerProperties.UPDATE_INSTANCE_NOTIFY;
 
+import com.codahale.metrics.MetricRegistry;
 import com.fasterxml.jackson.databind.JsonNode;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
@@ -40,25 +42,34 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
 import org.symphonyoss.integration.authentication.AuthenticationProxy;
+import org.symphonyoss.integration.config.BatchIntegrationService;
 import org.symphonyoss.integration.entity.model.User;
 import org.symphonyoss.integration.exception.ExceptionHandler;
 import org.symphonyoss.integration.exception.IntegrationRuntimeException;
 import org.symphonyoss.integration.exception.RemoteApiException;
-import org.symphonyoss.integration.exception.config.IntegrationConfigException;
 import org.symphonyoss.integration.logging.LogMessageSource;
 import org.symphonyoss.integration.model.config.IntegrationInstance;
 import org.symphonyoss.integration.model.message.Message;
 import org.symphonyoss.integration.model.message.MessageMLVersion;
-import org.symphonyoss.integration.model.stream.Stream;
 import org.symphonyoss.integration.pod.api.client.PodHttpApiClient;
 import org.symphonyoss.integration.pod.api.client.UserApiClient;
-import org.symphonyoss.integration.service.IntegrationService;
 import org.symphonyoss.integration.service.StreamService;
 import org.symphonyoss.integration.utils.WebHookConfigurationUtils;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 import javax.annotation.PostConstruct;
 import javax.ws.rs.core.Response.Status;
@@ -96,12 +107,26 @@ public class IntegrationBridgeExceptionHandler extends ExceptionHandler {
 
   private static final String ROOMS = "rooms";
 
+  private static final String KEY_SEPARATOR = ":";
+
+  /**
+   * Expiration of the cached owner IMs and bot display names, in milliseconds
+   */
+  private static final long CACHE_EXPIRATION = TimeUnit.MINUTES.toMillis(30);
+
+  /**
+   * Period to batch the streams revoked from the same instance, in milliseconds
+   */
+  private static final long STREAM_REMOVAL_WINDOW = TimeUnit.SECONDS.toMillis(2);
+
+  private static final String STREAM_REMOVAL_BATCH_METRIC = "streamRemoval.batchSize";
+
   @Autowired
   private AuthenticationProxy authenticationProxy;
 
-  @Qualifier("remoteIntegrationService")
+  @Qualifier("cachedIntegrationService")
   @Autowired
-  private IntegrationService integrationService;
+  private BatchIntegrationService integrationService;
 
   @Autowired
   private StreamService streamService;
@@ -114,6 +139,37 @@ public class IntegrationBridgeExceptionHandler extends ExceptionHandler {
   @Autowired
   private LogMessageSource logMessage;
 
+  @Autowired(required = false)
+  private MetricRegistry metricsRegistry;
+
+  /**
+   * IM stream identifiers by integration user and owner
+   */
+  private final Map<String, CachedValue> imStreams = new ConcurrentHashMap<>();
+
+  /**
+   * Display names by integration user
+   */
+  private final Map<String, CachedValue> botDisplayNames = new ConcurrentHashMap<>();
+
+  /**
+   * Streams waiting to be removed, by integration user and instance
+   */
+  private final Map<String, PendingRemoval> pendingRemovals = new ConcurrentHashMap<>();
+
+  /**
+   * Single thread, so the updates of an instance never run concurrently
+   */
+  private final ScheduledExecutorService removalScheduler =
+      Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+          Thread thread = new Thread(runnable, "stream-removal");
+          thread.setDaemon(true);
+          return thread;
+        }
+      });
+
   @PostConstruct
   public void init() {
     usersApi = new UserApiClient(podApiClient, logMessage);
@@ -140,14 +196,18 @@ public class IntegrationBridgeExceptionHandler extends ExceptionHandler {
   }
 
   /**
-   * Update the integration instance removing the stream. Needs to notify the instance owner.
+   * Schedules the removal of the stream from the integration instance. The streams revoked from
+   * the same instance within {@link #STREAM_REMOVAL_WINDOW} milliseconds are removed with a single
+   * instance update and reported with a single notification to the instance owner. The updates of
+   * the instances whose window elapsed at the same time are saved together.
    * @param instance to determine the unreachable room name and provide info for the remaining process.
    * @param integrationUser to remove the stream from the instance and to notify the instance owner.
    * @param stream to be removed from the instance.
    */
   private void updateStreams(IntegrationInstance instance, String integrationUser, String stream) {
+    String roomName = StringUtils.EMPTY;
+
     try {
-      String roomName = StringUtils.EMPTY;
       Iterator<JsonNode> rooms =
           WebHookConfigurationUtils.fromJsonString(instance.getOptionalProperties())
               .path(ROOMS)
@@ -162,53 +222,171 @@ public class IntegrationBridgeExceptionHandler extends ExceptionHandler {
           break;
         }
       }
+    } catch (IOException e) {
+      String solution = logMessage.getMessage(FAIL_UPDATE_STREAM_SOLUTION);
+      LOGGER.error(logMessage.getMessage(FAIL_UPDATE_STREAM), e, solution);
+      return;
+    }
+
+    final String key = integrationUser + KEY_SEPARATOR + instance.getConfigurationId()
+        + KEY_SEPARATOR + instance.getInstanceId();
+
+    while (true) {
+      PendingRemoval pending = pendingRemovals.get(key);
+
+      if (pending == null) {
+        PendingRemoval created = new PendingRemoval(integrationUser);
+        created.add(instance, stream, roomName);
+
+        if (pendingRemovals.putIfAbsent(key, created) == null) {
+          removalScheduler.schedule(new Runnable() {
+            @Override
+            public void run() {
+              flushStreamRemovals(key, System.currentTimeMillis());
+            }
+          }, STREAM_REMOVAL_WINDOW, TimeUnit.MILLISECONDS);
+          return;
+        }
+      } else if (pending.add(instance, stream, roomName)) {
+        return;
+      } else {
+        // Batch already being processed
+        pendingRemovals.remove(key, pending);
+      }
+    }
+  }
+
+  /**
+   * Processes all the pending stream removals on the calling thread.
+   */
+  void flushStreamRemovals() {
+    flushStreamRemovals(null, Long.MAX_VALUE);
+  }
+
+  /**
+   * Takes the batch of streams of the given instance, along with the other batches whose window
+   * has already elapsed, and removes them grouped by integration user.
+   * @param key Integration user and instance
+   * @param now Current time, in milliseconds
+   */
+  private void flushStreamRemovals(String key, long now) {
+    Map<String, List<PendingRemoval>> batches = new HashMap<>();
+
+    for (Map.Entry<String, PendingRemoval> entry : pendingRemovals.entrySet()) {
+      PendingRemoval pending = entry.getValue();
+      boolean due = entry.getKey().equals(key) || pending.dueAt <= now;
+
+      if (due && pendingRemovals.remove(entry.getKey(), pending)) {
+        pending.close();
+
+        List<PendingRemoval> batch = batches.get(pending.integrationUser);
+
+        if (batch == null) {
+          batch = new ArrayList<>();
+          batches.put(pending.integrationUser, batch);
+        }
+
+        batch.add(pending);
+      }
+    }
+
+    for (Map.Entry<String, List<PendingRemoval>> batch : batches.entrySet()) {
+      removeStreams(batch.getKey(), batch.getValue());
+    }
+  }
+
+  /**
+   * Removes the batches of streams from their integration instances, saves the instances with a
+   * single batch save and notifies the instance owners.
+   * @param integrationUser Integration user
+   * @param batch Pending removals of the integration user
+   */
+  private void removeStreams(String integrationUser, List<PendingRemoval> batch) {
+    List<IntegrationInstance> instances = new ArrayList<>();
+    List<PendingRemoval> updated = new ArrayList<>();
+
+    for (PendingRemoval pending : batch) {
+      if (metricsRegistry != null) {
+        metricsRegistry.histogram(
+            MetricRegistry.name(BASE_METRIC_NAME, STREAM_REMOVAL_BATCH_METRIC))
+            .update(pending.streams.size());
+      }
+
+      try {
+        removeStreamsFromInstance(pending.instance, pending.streams);
+        instances.add(pending.instance);
+        updated.add(pending);
+      } catch (IOException e) {
+        String solution = logMessage.getMessage(FAIL_UPDATE_STREAM_SOLUTION);
+        LOGGER.error(logMessage.getMessage(FAIL_UPDATE_STREAM), e, solution);
+      }
+    }
+
+    if (instances.isEmpty()) {
+      return;
+    }
 
-      removeStreamFromInstance(instance, integrationUser, stream);
-      notifyInstanceOwner(instance, integrationUser, roomName);
-    } catch (IntegrationRuntimeException | IOException e) {
+    try {
+      integrationService.saveAll(instances, integrationUser);
+    } catch (IntegrationRuntimeException e) {
       String solution = logMessage.getMessage(FAIL_UPDATE_STREAM_SOLUTION);
       LOGGER.error(logMessage.getMessage(FAIL_UPDATE_STREAM), e, solution);
+      return;
+    }
+
+    for (PendingRemoval pending : updated) {
+      notifyInstanceOwner(pending.instance, integrationUser, pending.roomNames);
     }
   }
 
   /**
-   * Remove stream from instance
+   * Remove streams from instance
    * @param instance Integration instance
-   * @param integrationUser Integration user
-   * @param stream Stream that will be removed
-   * @throws IntegrationConfigException Reports failure to save the configuration instance
+   * @param removedStreams Streams that will be removed
    * @throws IOException Reports failure to read or write the JSON nodes
    */
-  private void removeStreamFromInstance(IntegrationInstance instance, String integrationUser,
-      String stream) throws IOException {
+  private void removeStreamsFromInstance(IntegrationInstance instance,
+      Collection<String> removedStreams) throws IOException {
     String optionalProperties = instance.getOptionalProperties();
 
     List<String> streams = streamService.getStreams(instance);
-    streams.remove(stream);
+    streams.removeAll(removedStreams);
 
     JsonNode optionalPropertiesNode =
         WebHookConfigurationUtils.setStreams(optionalProperties, streams);
     instance.setOptionalProperties(WebHookConfigurationUtils.toJsonString(optionalPropertiesNode));
-
-    integrationService.save(instance, integrationUser);
   }
 
   /**
-   * Notifies the instance owner about the integration bridge not being able to post the message to the configured room.
+   * Notifies the instance owner about the integration bridge not being able to post the message to
+   * the configured rooms.
    * @param instance to determine the owner of this instance.
    * @param integrationUser to determine which integration user is going to post the message.
-   * @param roomName to tell the user which room we can't reach.
+   * @param roomNames to tell the user which rooms we can't reach.
    */
   private void notifyInstanceOwner(IntegrationInstance instance, String integrationUser,
-      String roomName) {
+      Collection<String> roomNames) {
+    String imKey = null;
+
     try {
       // Create IM
       Long ownerUserId = WebHookConfigurationUtils.getOwner(instance.getOptionalProperties());
-      Stream im = streamService.createIM(integrationUser, ownerUserId);
+      imKey = integrationUser + KEY_SEPARATOR + ownerUserId;
+
+      String im = getCachedValue(imStreams, imKey);
+
+      if (im == null) {
+        im = streamService.createIM(integrationUser, ownerUserId).getId();
+        imStreams.put(imKey, new CachedValue(im));
+      }
 
       // Posting message through the IM
-      postIM(integrationUser, roomName, im.getId(), instance.getName());
+      postIM(integrationUser, roomNames, im, instance.getName());
     } catch (RemoteApiException | IOException e) {
+      if (imKey != null) {
+        imStreams.remove(imKey);
+      }
+
       LOGGER.error(logMessage.getMessage(FAIL_NOTIFY_OWNER), e);
     }
   }
@@ -216,24 +394,30 @@ public class IntegrationBridgeExceptionHandler extends ExceptionHandler {
   /**
    * Posting a notification message through the IM.
    * @param integrationUser to determine which integration user is going to post the message.
-   * @param roomName to tell the user which room we can't reach.
+   * @param roomNames to tell the user which rooms we can't reach.
    * @param im to determine where to post the actual message.
-   * @param instanceName just in case we can't determine the room name.
+   * @param instanceName just in case we can't determine the room names.
    * @throws RemoteApiException when something goes wrong with the API while sending the message.
    */
-  private void postIM(String integrationUser, String roomName, String im, String instanceName)
-      throws RemoteApiException {
+  private void postIM(String integrationUser, Collection<String> roomNames, String im,
+      String instanceName) throws RemoteApiException {
+    String displayName = getBotDisplayName(integrationUser);
 
-    User userInfo = usersApi.getUserByUsername(authenticationProxy.getSessionToken(integrationUser),
-        integrationUser);
+    Set<String> knownRooms = new LinkedHashSet<>();
+
+    for (String roomName : roomNames) {
+      if (!isBlank(roomName)) {
+        knownRooms.add(roomName);
+      }
+    }
 
     String message;
 
-    if (isBlank(roomName)) {
-      message =
-          String.format(UNDETERMINED_ROOM_NOTIFICATION, userInfo.getDisplayName(), instanceName);
+    if (knownRooms.isEmpty()) {
+      message = String.format(UNDETERMINED_ROOM_NOTIFICATION, displayName, instanceName);
     } else {
-      message = String.format(DEFAULT_NOTIFICATION, userInfo.getDisplayName(), roomName, roomName);
+      String rooms = StringUtils.join(knownRooms, ", ");
+      message = String.format(DEFAULT_NOTIFICATION, displayName, rooms, rooms);
     }
 
     Message messageSubmission = new Message();
@@ -244,4 +428,106 @@ public class IntegrationBridgeExceptionHandler extends ExceptionHandler {
     streamService.postMessage(integrationUser, im, messageSubmission);
     LOGGER.info(logMessage.getMessage(UPDATE_INSTANCE_NOTIFY));
   }
+
+  /**
+   * Retrieves the display name of the integration user, caching it to be used by the following
+   * notifications.
+   * @param integrationUser Integration user
+   * @return Display name
+   * @throws RemoteApiException when something goes wrong with the API while retrieving the user.
+   */
+  private String getBotDisplayName(String integrationUser) throws RemoteApiException {
+    String displayName = getCachedValue(botDisplayNames, integrationUser);
+
+    if (displayName == null) {
+      User userInfo =
+          usersApi.getUserByUsername(authenticationProxy.getSessionToken(integrationUser),
+              integrationUser);
+
+      displayName = userInfo.getDisplayName();
+      botDisplayNames.put(integrationUser, new CachedValue(displayName));
+    }
+
+    return displayName;
+  }
+
+  private String getCachedValue(Map<String, CachedValue> cache, String key) {
+    CachedValue cached = cache.get(key);
+
+    if (cached == null) {
+      return null;
+    }
+
+    if (cached.isExpired()) {
+      cache.remove(key, cached);
+      return null;
+    }
+
+    return cached.value;
+  }
+
+  /**
+   * Value cached for {@link #CACHE_EXPIRATION} milliseconds.
+   */
+  private static class CachedValue {
+
+    private final String value;
+
+    private final long expiresAt;
+
+    CachedValue(String value) {
+      this.value = value;
+      this.expiresAt = System.currentTimeMillis() + CACHE_EXPIRATION;
+    }
+
+    boolean isExpired() {
+      return System.currentTimeMillis() >= expiresAt;
+    }
+
+  }
+
+  /**
+   * Streams revoked from an instance, waiting to be removed in a single update.
+   */
+  private static class PendingRemoval {
+
+    private final String integrationUser;
+
+    /**
+     * Time the batch window elapses, in milliseconds
+     */
+    private final long dueAt = System.currentTimeMillis() + STREAM_REMOVAL_WINDOW;
+
+    private final Set<String> streams = new LinkedHashSet<>();
+
+    private final Set<String> roomNames = new LinkedHashSet<>();
+
+    private IntegrationInstance instance;
+
+    private boolean closed;
+
+    PendingRemoval(String integrationUser) {
+      this.integrationUser = integrationUser;
+    }
+
+    /**
+     * Adds the stream to the batch. The most recent instance received is the one updated.
+     * @return false if the batch is already being processed
+     */
+    synchronized boolean add(IntegrationInstance instance, String stream, String roomName) {
+      if (closed) {
+        return false;
+      }
+
+      this.instance = instance;
+      this.streams.add(stream);
+      this.roomNames.add(roomName);
+      return true;
+    }
+
+    synchronized void close() {
+      closed = true;
+    }
+
+  }
 }
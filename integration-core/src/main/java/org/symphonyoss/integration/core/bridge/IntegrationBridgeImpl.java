@@ -34,6 +34,7 @@ import org.springframework.stereotype.Component;
 import org.symphonyoss.integration.Integration;
 import org.symphonyoss.integration.authentication.AuthenticationProxy;
 import org.symphonyoss.integration.core.bootstrap.IntegrationBootstrapContext;
+import org.symphonyoss.integration.core.deadletter.DeadLetterService;
 import org.symphonyoss.integration.exception.RemoteApiException;
 import org.symphonyoss.integration.exception.authentication.ConnectivityException;
 import org.symphonyoss.integration.logging.LogMessageSource;
@@ -43,6 +44,7 @@ import org.symphonyoss.integration.service.IntegrationBridge;
 import org.symphonyoss.integration.service.StreamService;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import javax.ws.rs.ProcessingException;
@@ -65,6 +67,9 @@ public class IntegrationBridgeImpl implements IntegrationBridge {
   @Autowired
   private IntegrationBridgeExceptionHandler exceptionHandler;
 
+  @Autowired
+  private DeadLetterService deadLetterService;
+
   @Autowired
   private LogMessageSource logMessage;
 
@@ -97,6 +102,13 @@ public class IntegrationBridgeImpl implements IntegrationBridge {
    * a RemoteApiException is thrown with 500. In this case, the Integration Bridge returns 500 because there might be
    * intermittent errors in the process and a retry by the originating system could cause the message to succeed.
    *
+   * When the dead-letter store is enabled, the streams that failed with an error that is safe to post again (see
+   * {@link AgentPostRetryPolicy#isRetryable(Exception)}) are stored to be posted again later, and they're no longer
+   * reported as failures. The originating system doesn't need to retry, so the streams that succeeded don't receive
+   * the message twice. A connectivity failure stores the remaining streams as well, without posting to them. If the
+   * message is reported as failed anyway, the dead letters stored for it are discarded, since the originating system
+   * will retry.
+   *
    * @param instance the integration instance
    * @param integrationUser the integration user
    * @param streams the list of streams
@@ -108,8 +120,6 @@ public class IntegrationBridgeImpl implements IntegrationBridge {
   @Override
   public List<Message> sendMessage(IntegrationInstance instance, String integrationUser,
       List<String> streams, Message message) throws RemoteApiException {
-    List<Message> result = new ArrayList<>();
-
     if (streams.isEmpty()) {
       LOGGER.info(logMessage.getMessage(NO_CONFIGURED_STREAM, instance.getInstanceId(), instance.getConfigurationId()));
       Integer code = Response.Status.NOT_FOUND.getStatusCode();
@@ -118,18 +128,52 @@ public class IntegrationBridgeImpl implements IntegrationBridge {
       throw new RemoteApiException(code, reason, solution);
     }
 
+    List<String> deadLetters = new ArrayList<>();
+
+    try {
+      return sendMessage(instance, integrationUser, streams, message, deadLetters);
+    } catch (RemoteApiException | RuntimeException e) {
+      deadLetterService.discard(deadLetters);
+      throw e;
+    }
+  }
+
+  /**
+   * Posts the message to each stream, keeping the identifiers of the dead letters stored along the way.
+   */
+  private List<Message> sendMessage(IntegrationInstance instance, String integrationUser,
+      List<String> streams, Message message, List<String> deadLetters) throws RemoteApiException {
+    List<Message> result = new ArrayList<>();
     RemoteApiException remoteApiException = null;
-    for (String stream : streams) {
+
+    for (int i = 0; i < streams.size(); i++) {
+      String stream = streams.get(i);
+
       try {
         Message messageResponse = postMessage(integrationUser, stream, message);
         result.add(messageResponse);
       } catch (RemoteApiException e) {
         exceptionHandler.handleRemoteApiException(e, instance, integrationUser, stream);
 
+        List<String> stored = deadLetterService.register(instance, integrationUser, Collections.singletonList(stream), message, e);
+
+        if (!stored.isEmpty()) {
+          deadLetters.addAll(stored);
+          continue;
+        }
+
         if (remoteApiException == null || Response.Status.fromStatusCode(remoteApiException.getCode()).getFamily() != Response.Status.Family.SERVER_ERROR) {
           remoteApiException = e;
         }
       } catch (ConnectivityException | ProcessingException e) {
+        // Nothing is stored if the message might have reached the stream that failed
+        List<String> stored = deadLetterService.register(instance, integrationUser, streams.subList(i, streams.size()), message, e);
+
+        if (!stored.isEmpty()) {
+          deadLetters.addAll(stored);
+          break;
+        }
+
         throw e;
       } catch (Exception e) {
         exceptionHandler.handleUnexpectedException(e);
@@ -139,7 +183,7 @@ public class IntegrationBridgeImpl implements IntegrationBridge {
 
     if (remoteApiException != null) {
       if (remoteApiException.getCode() == Response.Status.FORBIDDEN.getStatusCode()) {
-        if (result.size() > 0) {
+        if (result.size() > 0 || deadLetters.size() > 0) {
           Integer code = Response.Status.INTERNAL_SERVER_ERROR.getStatusCode();
           String reason = Response.Status.INTERNAL_SERVER_ERROR.getReasonPhrase();
           String solution = logMessage.getMessage(REMOTE_API_EXCEPTION_WITH_RESULT_REASON);
@@ -0,0 +1,104 @@
+/**
+ * Copyright 2016-2017 Symphony Integrations - Symphony LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.symphonyoss.integration.core.bridge;
+
+import com.codahale.metrics.Meter;
+import org.symphonyoss.integration.agent.api.client.MessageApiClient;
+import org.symphonyoss.integration.model.message.MessageMLVersion;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Immutable table that selects the Agent Message API client for each MessageML version.
+ *
+ * {@link StreamServiceImpl} replaces the whole table when the Agent version changes, so the
+ * threads posting messages always see a consistent set of clients.
+ */
+final class MessageApiRouting {
+
+  private final String agentVersion;
+
+  private final Map<MessageMLVersion, Route> routes;
+
+  private MessageApiRouting(String agentVersion, Map<MessageMLVersion, Route> routes) {
+    this.agentVersion = agentVersion;
+    this.routes = Collections.unmodifiableMap(new EnumMap<>(routes));
+  }
+
+  /**
+   * Creates the routing table.
+   * @param agentVersion Agent version the table was built for or null if it's unknown
+   * @param v1 Route for the MessageML v1 messages
+   * @param v2 Route for the MessageML v2 messages
+   * @return Routing table
+   */
+  static MessageApiRouting of(String agentVersion, Route v1, Route v2) {
+    Map<MessageMLVersion, Route> routes = new EnumMap<>(MessageMLVersion.class);
+    routes.put(MessageMLVersion.V1, v1);
+    routes.put(MessageMLVersion.V2, v2);
+
+    return new MessageApiRouting(agentVersion, routes);
+  }
+
+  String getAgentVersion() {
+    return agentVersion;
+  }
+
+  /**
+   * Route for the given MessageML version.
+   * @param version MessageML version
+   * @return Route or null if the version is not supported
+   */
+  Route getRoute(MessageMLVersion version) {
+    return version != null ? routes.get(version) : null;
+  }
+
+  /**
+   * Agent Message API client along with the API version it posts to and its post counter.
+   */
+  static final class Route {
+
+    private final MessageApiClient client;
+
+    private final String apiVersion;
+
+    private final Meter posts;
+
+    Route(MessageApiClient client, String apiVersion, Meter posts) {
+      this.client = client;
+      this.apiVersion = apiVersion;
+      this.posts = posts;
+    }
+
+    MessageApiClient getClient() {
+      return client;
+    }
+
+    String getApiVersion() {
+      return apiVersion;
+    }
+
+    Meter getPosts() {
+      return posts;
+    }
+
+  }
+
+}
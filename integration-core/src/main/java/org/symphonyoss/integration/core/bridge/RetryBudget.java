@@ -0,0 +1,101 @@
+/**
+ * Copyright 2016-2017 Symphony Integrations - Symphony LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.symphonyoss.integration.core.bridge;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Process-wide budget that limits the retries to a ratio of the requests.
+ *
+ * Every request deposits 'ratio' tokens and every retry withdraws one token. The balance is
+ * capped, so a quiet period only buys a small burst of retries. When the Agent is down, the
+ * retries are bounded by 'ratio' times the incoming requests instead of multiplying them.
+ *
+ * The balance is kept in thousandths of a token to avoid floating point arithmetic on the hot
+ * path.
+ */
+final class RetryBudget {
+
+  private static final long SCALE = 1000L;
+
+  private final long deposit;
+
+  private final long capacity;
+
+  private final AtomicLong balance;
+
+  /**
+   * @param ratio Retries allowed per request
+   * @param maxTokens Maximum number of retries that can be saved up
+   */
+  RetryBudget(double ratio, int maxTokens) {
+    this.deposit = (long) (Math.max(0, ratio) * SCALE);
+    this.capacity = Math.max(0, maxTokens) * SCALE;
+    this.balance = new AtomicLong(capacity);
+  }
+
+  /**
+   * Records a new request.
+   */
+  void deposit() {
+    if (deposit == 0) {
+      return;
+    }
+
+    while (true) {
+      long current = balance.get();
+
+      if (current >= capacity) {
+        return;
+      }
+
+      long next = Math.min(capacity, current + deposit);
+
+      if (balance.compareAndSet(current, next)) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * Takes a token to perform a retry.
+   * @return true if the retry is allowed or false if the budget is exhausted
+   */
+  boolean tryWithdraw() {
+    while (true) {
+      long current = balance.get();
+
+      if (current < SCALE) {
+        return false;
+      }
+
+      if (balance.compareAndSet(current, current - SCALE)) {
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Number of retries currently available.
+   * @return Available retries
+   */
+  long getAvailable() {
+    return balance.get() / SCALE;
+  }
+
+}
@@ -16,6 +16,12 @@
 
 package org.symphonyoss.integration.core.bridge;
 
+import static org.symphonyoss.integration.core.properties.StreamServiceImplProperties
+    .AGENT_API_SWITCHED;
+import static org.symphonyoss.integration.core.properties.StreamServiceImplProperties
+    .AGENT_POST_RETRY;
+import static org.symphonyoss.integration.core.properties.StreamServiceImplProperties
+    .AGENT_POST_RETRY_BUDGET_EXHAUSTED;
 import static org.symphonyoss.integration.core.properties.StreamServiceImplProperties
     .ERROR_GET_STREAM_INSTANCE;
 import static org.symphonyoss.integration.core.properties.StreamServiceImplProperties
@@ -25,12 +31,16 @@ import static org.symphonyoss.integration.core.properties.StreamServiceImplPrope
 import static org.symphonyoss.integration.core.properties.StreamServiceImplProperties
     .ERROR_GET_STREAM_JSON_SOLUTION;
 import static org.symphonyoss.integration.healthcheck.services.AgentHealthIndicator.AGENT_MESSAGEML_VERSION2;
+import static org.symphonyoss.integration.metrics.IntegrationMetricsConstants.BASE_METRIC_NAME;
 
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
 import com.github.zafarkhaja.semver.Version;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
 import org.springframework.stereotype.Component;
 import org.symphonyoss.integration.agent.api.client.AgentApiClient;
 import org.symphonyoss.integration.agent.api.client.MessageApiClient;
@@ -39,6 +49,7 @@ import org.symphonyoss.integration.agent.api.client.V4MessageApiClient;
 import org.symphonyoss.integration.authentication.AuthenticationProxy;
 import org.symphonyoss.integration.authentication.AuthenticationToken;
 import org.symphonyoss.integration.exception.RemoteApiException;
+import org.symphonyoss.integration.exception.authentication.ConnectivityException;
 import org.symphonyoss.integration.healthcheck.event.ServiceVersionUpdatedEventData;
 import org.symphonyoss.integration.logging.LogMessageSource;
 import org.symphonyoss.integration.model.config.IntegrationInstance;
@@ -54,11 +65,14 @@ import org.symphonyoss.integration.utils.WebHookConfigurationUtils;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
 import javax.annotation.PostConstruct;
+import javax.ws.rs.ProcessingException;
 
 /**
  * Service component responsible to post message through the Agent Message API.
@@ -71,6 +85,22 @@ public class StreamServiceImpl implements StreamService {
 
   private static final String AGENT_SERVICE_NAME = "Agent";
 
+  private static final String AGENT_API_V2 = "v2";
+
+  private static final String AGENT_API_V4 = "v4";
+
+  private static final String POSTED_MESSAGES_METRIC = "agent.messages";
+
+  private static final String RETRY_METRIC = "retry";
+
+  private static final String RETRY_BUDGET_RATIO = "integration.bridge.retry.budget.ratio";
+
+  private static final String RETRY_BUDGET_MAX_TOKENS = "integration.bridge.retry.budget.max-tokens";
+
+  private static final double DEFAULT_RETRY_BUDGET_RATIO = 0.1;
+
+  private static final int DEFAULT_RETRY_BUDGET_MAX_TOKENS = 10;
+
   @Autowired
   private AuthenticationProxy authenticationProxy;
 
@@ -86,15 +116,49 @@ public class StreamServiceImpl implements StreamService {
   @Autowired
   private LogMessageSource logMessage;
 
+  @Autowired(required = false)
+  private MetricRegistry metricsRegistry;
+
+  @Autowired
+  private Environment environment;
+
   /**
    * Pod Stream API Client
    */
   private StreamApiClient streamsApi;
 
   /**
-   * Select the correct Agent Message API Client according to the MessageML version
+   * Select the correct Agent Message API Client according to the MessageML version. The table is
+   * immutable and replaced as a whole when the Agent version changes.
+   */
+  private volatile MessageApiRouting apiRouting;
+
+  /**
+   * Agent Message API v2 client
+   */
+  private MessageApiClient v2MessageApiClient;
+
+  /**
+   * Agent Message API v4 client. Built the first time the Agent supports MessageML v2.
+   */
+  private MessageApiClient v4MessageApiClient;
+
+  /**
+   * Counters used when there is no metric registry
+   */
+  private final ConcurrentMap<String, Meter> meters = new ConcurrentHashMap<>();
+
+  /**
+   * Retry policies per integration user
+   */
+  private final ConcurrentMap<String, AgentPostRetryPolicy> retryPolicies =
+      new ConcurrentHashMap<>();
+
+  /**
+   * Retries allowed across all the integrations
    */
-  private Map<MessageMLVersion, MessageApiClient> apiResolver = new HashMap<>();
+  private volatile RetryBudget retryBudget =
+      new RetryBudget(DEFAULT_RETRY_BUDGET_RATIO, DEFAULT_RETRY_BUDGET_MAX_TOKENS);
 
   /**
    * Initialize
@@ -102,13 +166,24 @@ public class StreamServiceImpl implements StreamService {
   @PostConstruct
   public void init() {
     streamsApi = new StreamApiClient(podApiClient, logMessage);
+    initApiRouting(new V2MessageApiClient(agentV2ApiClient, logMessage));
 
-    MessageApiClient messageApiClient = new V2MessageApiClient(agentV2ApiClient, logMessage);
+    Double ratio = environment.getProperty(RETRY_BUDGET_RATIO, Double.class);
+    Integer maxTokens = environment.getProperty(RETRY_BUDGET_MAX_TOKENS, Integer.class);
 
-    // In the begin, we must configure the Agent Message API v2 for both versions of MessageML.
-    // After that, this API version might get overridden by the event handler method.
-    apiResolver.put(MessageMLVersion.V1, messageApiClient);
-    apiResolver.put(MessageMLVersion.V2, messageApiClient);
+    this.retryBudget = new RetryBudget(ratio != null ? ratio : DEFAULT_RETRY_BUDGET_RATIO,
+        maxTokens != null ? maxTokens : DEFAULT_RETRY_BUDGET_MAX_TOKENS);
+  }
+
+  /**
+   * In the begin, we must configure the Agent Message API v2 for both versions of MessageML.
+   * After that, this API version might get overridden by the event handler method.
+   * @param messageApiClient Agent Message API v2 client
+   */
+  synchronized void initApiRouting(MessageApiClient messageApiClient) {
+    this.v2MessageApiClient = messageApiClient;
+    this.v4MessageApiClient = null;
+    this.apiRouting = buildApiRouting(null, messageApiClient, AGENT_API_V2);
   }
 
   @Override
@@ -144,10 +219,95 @@ public class StreamServiceImpl implements StreamService {
     String sessionToken = authToken.getSessionToken();
     String keyManagerToken = authToken.getKeyManagerToken();
 
-    MessageApiClient messageApi = apiResolver.get(messageSubmission.getVersion());
+    MessageApiRouting.Route route = apiRouting.getRoute(messageSubmission.getVersion());
+    route.getPosts().mark();
+    retryBudget.deposit();
+
+    AgentPostRetryPolicy retryPolicy = getRetryPolicy(integrationUser);
+
+    int attempt = 1;
+
+    while (true) {
+      try {
+        // Post Message using Message API
+        Message result =
+            route.getClient().postMessage(sessionToken, keyManagerToken, stream, messageSubmission);
+
+        if (attempt > 1) {
+          getMeter(MetricRegistry.name(BASE_METRIC_NAME, POSTED_MESSAGES_METRIC, RETRY_METRIC,
+              integrationUser, "recovered")).mark();
+        }
+
+        return result;
+      } catch (RemoteApiException | ConnectivityException | ProcessingException e) {
+        if (!waitForRetry(retryPolicy, attempt, e, integrationUser, stream)) {
+          throw e;
+        }
+
+        attempt++;
+      }
+    }
+  }
+
+  /**
+   * Checks whether the failed post should be retried and waits for the backoff delay. The retry
+   * must be allowed by the integration retry policy and by the process-wide retry budget.
+   * @param retryPolicy Integration retry policy
+   * @param attempt Attempt that has failed, starting from 1
+   * @param e Failure raised by the failed attempt
+   * @param integrationUser Integration username
+   * @param stream Stream identifier
+   * @return true if the post should be retried or false otherwise
+   */
+  private boolean waitForRetry(AgentPostRetryPolicy retryPolicy, int attempt, Exception e,
+      String integrationUser, String stream) {
+    if (attempt >= retryPolicy.getMaxAttempts() || !AgentPostRetryPolicy.isRetryable(e)) {
+      return false;
+    }
+
+    if (!retryBudget.tryWithdraw()) {
+      getMeter(MetricRegistry.name(BASE_METRIC_NAME, POSTED_MESSAGES_METRIC, RETRY_METRIC,
+          "budget", "exhausted")).mark();
+      LOG.warn(logMessage.getMessage(AGENT_POST_RETRY_BUDGET_EXHAUSTED, stream, integrationUser));
+      return false;
+    }
+
+    long delay = retryPolicy.nextBackoff(attempt, ThreadLocalRandom.current());
+
+    getMeter(MetricRegistry.name(BASE_METRIC_NAME, POSTED_MESSAGES_METRIC, RETRY_METRIC,
+        integrationUser, "attempts")).mark();
+    LOG.warn(logMessage.getMessage(AGENT_POST_RETRY, stream, integrationUser,
+        String.valueOf(delay), String.valueOf(attempt + 1),
+        String.valueOf(retryPolicy.getMaxAttempts())), e);
 
-    // Post Message using Message API
-    return messageApi.postMessage(sessionToken, keyManagerToken, stream, messageSubmission);
+    try {
+      TimeUnit.MILLISECONDS.sleep(delay);
+      return true;
+    } catch (InterruptedException ie) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+
+  /**
+   * Gets the retry policy of the given integration user, reading it from the environment the
+   * first time.
+   * @param integrationUser Integration username
+   * @return Retry policy
+   */
+  private AgentPostRetryPolicy getRetryPolicy(String integrationUser) {
+    AgentPostRetryPolicy policy = retryPolicies.get(integrationUser);
+
+    if (policy == null) {
+      AgentPostRetryPolicy newPolicy = AgentPostRetryPolicy.from(environment, integrationUser);
+      policy = retryPolicies.putIfAbsent(integrationUser, newPolicy);
+
+      if (policy == null) {
+        policy = newPolicy;
+      }
+    }
+
+    return policy;
   }
 
   @Override
@@ -161,26 +321,125 @@ public class StreamServiceImpl implements StreamService {
 
   /**
    * Handle service version updated event to switch the Agent Message API version. If the Agent
-   * version is greater than or equal to '1.46.0' this service should use the API v3, otherwise it
-   * should use the API v2.
+   * version is greater than or equal to '1.46.0' this service should use the API v4 for MessageML
+   * v2, otherwise it should use the API v2.
+   *
+   * This event is raised on every Agent health check, so nothing is done unless the Agent version
+   * has changed. The new routing table is completely built before it's published to the threads
+   * posting messages.
    *
    * @param event Service version updated event
    */
   @EventListener
-  public void handleServiceVersionUpdatedEvent(ServiceVersionUpdatedEventData event) {
+  public synchronized void handleServiceVersionUpdatedEvent(ServiceVersionUpdatedEventData event) {
     // Check the service name
-    if (AGENT_SERVICE_NAME.equals(event.getServiceName())) {
+    if (!AGENT_SERVICE_NAME.equals(event.getServiceName())) {
+      return;
+    }
+
+    String newVersion = event.getNewVersion();
+
+    if (newVersion.equals(apiRouting.getAgentVersion())) {
+      return;
+    }
+
+    // Get the current version
+    Version version = Version.valueOf(newVersion);
+
+    MessageApiRouting routing;
+
+    if (version.greaterThanOrEqualTo(AGENT_MESSAGEML_VERSION2)) {
+      routing = buildApiRouting(newVersion, getV4MessageApiClient(), AGENT_API_V4);
+    } else {
+      routing = buildApiRouting(newVersion, v2MessageApiClient, AGENT_API_V2);
+    }
+
+    String previousApi = apiRouting.getRoute(MessageMLVersion.V2).getApiVersion();
+    String currentApi = routing.getRoute(MessageMLVersion.V2).getApiVersion();
+
+    this.apiRouting = routing;
+
+    if (!currentApi.equals(previousApi)) {
+      LOG.info(logMessage.getMessage(AGENT_API_SWITCHED, newVersion, currentApi));
+    }
+  }
 
-      // Get the current version
-      Version version = Version.valueOf(event.getNewVersion());
+  /**
+   * Gets the Agent Message API v4 client, building it the first time. Building the client sets
+   * the multipart serializer on the Agent API client, so it must happen before any message is
+   * routed to it.
+   * @return Agent Message API v4 client
+   */
+  private MessageApiClient getV4MessageApiClient() {
+    if (v4MessageApiClient == null) {
+      v4MessageApiClient = new V4MessageApiClient(agentV4ApiClient, logMessage);
+    }
 
-      if (version.greaterThanOrEqualTo(AGENT_MESSAGEML_VERSION2)) {
-        apiResolver.put(MessageMLVersion.V2, new V4MessageApiClient(agentV4ApiClient, logMessage));
-      } else {
-        MessageApiClient messageApiClient = apiResolver.get(MessageMLVersion.V1);
-        apiResolver.put(MessageMLVersion.V2, messageApiClient);
+    return v4MessageApiClient;
+  }
+
+  /**
+   * Builds the routing table. MessageML v1 messages are always posted through the Agent Message
+   * API v2.
+   * @param agentVersion Agent version or null if it's unknown
+   * @param messageMLv2Client Client used to post MessageML v2 messages
+   * @param messageMLv2Api Agent Message API version of the MessageML v2 client
+   * @return Routing table
+   */
+  private MessageApiRouting buildApiRouting(String agentVersion,
+      MessageApiClient messageMLv2Client, String messageMLv2Api) {
+    MessageApiRouting.Route v1 = new MessageApiRouting.Route(v2MessageApiClient, AGENT_API_V2,
+        getPostMeter(MessageMLVersion.V1, AGENT_API_V2));
+    MessageApiRouting.Route v2 = new MessageApiRouting.Route(messageMLv2Client, messageMLv2Api,
+        getPostMeter(MessageMLVersion.V2, messageMLv2Api));
+
+    return MessageApiRouting.of(agentVersion, v1, v2);
+  }
+
+  /**
+   * Gets the counter of messages posted with the given MessageML version through the given
+   * Agent Message API version.
+   * @param messageMLVersion MessageML version
+   * @param apiVersion Agent Message API version
+   * @return Post counter
+   */
+  private Meter getPostMeter(MessageMLVersion messageMLVersion, String apiVersion) {
+    String name = MetricRegistry.name(BASE_METRIC_NAME, POSTED_MESSAGES_METRIC, "messageML",
+        messageMLVersion.name().toLowerCase(), "api", apiVersion);
+    return getMeter(name);
+  }
+
+  /**
+   * Gets the meter with the given name from the metric registry, or from a local map when there
+   * is no metric registry.
+   * @param name Meter name
+   * @return Meter
+   */
+  private Meter getMeter(String name) {
+    if (metricsRegistry != null) {
+      return metricsRegistry.meter(name);
+    }
+
+    Meter meter = meters.get(name);
+
+    if (meter == null) {
+      Meter newMeter = new Meter();
+      meter = meters.putIfAbsent(name, newMeter);
+
+      if (meter == null) {
+        meter = newMeter;
       }
     }
+
+    return meter;
+  }
+
+  /**
+   * Routing table currently used to post messages.
+   * @return Routing table
+   */
+  MessageApiRouting getApiRouting() {
+    return apiRouting;
   }
 
 }
@@ -0,0 +1,160 @@
+/**
+ * Copyright 2016-2017 Symphony Integrations - Symphony LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.symphonyoss.integration.core.deadletter;
+
+import org.symphonyoss.integration.model.message.Message;
+
+/**
+ * Message that couldn't be delivered to a stream and was kept to be posted again later.
+ */
+public class DeadLetter {
+
+  private String id;
+
+  private String integrationUser;
+
+  private String configurationId;
+
+  private String instanceId;
+
+  private String stream;
+
+  private Message message;
+
+  private int attempts;
+
+  private long createdAt;
+
+  private long nextAttemptAt;
+
+  private String lastError;
+
+  private boolean parked;
+
+  public String getId() {
+    return id;
+  }
+
+  public void setId(String id) {
+    this.id = id;
+  }
+
+  public String getIntegrationUser() {
+    return integrationUser;
+  }
+
+  public void setIntegrationUser(String integrationUser) {
+    this.integrationUser = integrationUser;
+  }
+
+  public String getConfigurationId() {
+    return configurationId;
+  }
+
+  public void setConfigurationId(String configurationId) {
+    this.configurationId = configurationId;
+  }
+
+  public String getInstanceId() {
+    return instanceId;
+  }
+
+  public void setInstanceId(String instanceId) {
+    this.instanceId = instanceId;
+  }
+
+  public String getStream() {
+    return stream;
+  }
+
+  public void setStream(String stream) {
+    this.stream = stream;
+  }
+
+  public Message getMessage() {
+    return message;
+  }
+
+  public void setMessage(Message message) {
+    this.message = message;
+  }
+
+  /**
+   * Number of redelivery attempts
+   */
+  public int getAttempts() {
+    return attempts;
+  }
+
+  public void setAttempts(int attempts) {
+    this.attempts = attempts;
+  }
+
+  public long getCreatedAt() {
+    return createdAt;
+  }
+
+  public void setCreatedAt(long createdAt) {
+    this.createdAt = createdAt;
+  }
+
+  /**
+   * Time (in millis) when the re-driver may post this message again
+   */
+  public long getNextAttemptAt() {
+    return nextAttemptAt;
+  }
+
+  public void setNextAttemptAt(long nextAttemptAt) {
+    this.nextAttemptAt = nextAttemptAt;
+  }
+
+  public String getLastError() {
+    return lastError;
+  }
+
+  public void setLastError(String lastError) {
+    this.lastError = lastError;
+  }
+
+  /**
+   * Parked dead letters are no longer retried by the re-driver. They can only be replayed or
+   * purged through the admin API.
+   */
+  public boolean isParked() {
+    return parked;
+  }
+
+  public void setParked(boolean parked) {
+    this.parked = parked;
+  }
+
+  @Override
+  public String toString() {
+    return "DeadLetter{" +
+        "id='" + id + '\'' +
+        ", integrationUser='" + integrationUser + '\'' +
+        ", configurationId='" + configurationId + '\'' +
+        ", instanceId='" + instanceId + '\'' +
+        ", stream='" + stream + '\'' +
+        ", attempts=" + attempts +
+        ", parked=" + parked +
+        '}';
+  }
+
+}
@@ -0,0 +1,506 @@
+/**
+ * Copyright 2016-2017 Symphony Integrations - Symphony LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.symphonyoss.integration.core.deadletter;
+
+import static org.symphonyoss.integration.core.properties.DeadLetterServiceProperties.DEAD_LETTER_DELIVERED;
+import static org.symphonyoss.integration.core.properties.DeadLetterServiceProperties.DEAD_LETTER_ENABLED;
+import static org.symphonyoss.integration.core.properties.DeadLetterServiceProperties.DEAD_LETTER_PARKED;
+import static org.symphonyoss.integration.core.properties.DeadLetterServiceProperties.DEAD_LETTER_REDELIVERY_FAILED;
+import static org.symphonyoss.integration.core.properties.DeadLetterServiceProperties.DEAD_LETTER_STORED;
+import static org.symphonyoss.integration.core.properties.DeadLetterServiceProperties.DEAD_LETTER_STORE_FAILED;
+import static org.symphonyoss.integration.core.properties.DeadLetterServiceProperties.DEAD_LETTER_STORE_FULL;
+import static org.symphonyoss.integration.metrics.IntegrationMetricsConstants.BASE_METRIC_NAME;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.symphonyoss.integration.core.bridge.AgentPostRetryPolicy;
+import org.symphonyoss.integration.exception.RemoteApiException;
+import org.symphonyoss.integration.logging.LogMessageSource;
+import org.symphonyoss.integration.model.config.IntegrationInstance;
+import org.symphonyoss.integration.model.message.Message;
+import org.symphonyoss.integration.service.StreamService;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+/**
+ * Keeps the messages that couldn't be delivered to some streams and posts them again later.
+ *
+ * The dead letters are kept by {@link DeadLetterStore} in the directory informed by the property
+ * 'integration.bridge.dead-letter.dir'. The service is disabled when this property is not set.
+ *
+ * Only the failures that are safe to post again are stored, as decided by
+ * {@link AgentPostRetryPolicy#isRetryable(Exception)}: the Agent is known not to have processed the
+ * message. A background re-driver posts the pending dead letters to their stream
+ * with an exponential backoff. The dead letters that keep failing, or that fail with an error
+ * that won't go away by itself, are parked and kept until they're replayed or purged through the
+ * admin API.
+ */
+@Component
+public class DeadLetterService {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(DeadLetterService.class);
+
+  private static final String DEAD_LETTER_METRIC = "deadLetter";
+
+  /**
+   * Result of a dead letter replay
+   */
+  public enum ReplayResult {
+    DELIVERED,
+    FAILED,
+    NOT_FOUND,
+    IN_PROGRESS
+  }
+
+  @Value("${integration.bridge.dead-letter.dir:}")
+  private String directory;
+
+  @Value("${integration.bridge.dead-letter.max-entries:10000}")
+  private int maxEntries;
+
+  @Value("${integration.bridge.dead-letter.max-attempts:10}")
+  private int maxAttempts;
+
+  @Value("${integration.bridge.dead-letter.initial-backoff:30000}")
+  private long initialBackoff;
+
+  @Value("${integration.bridge.dead-letter.max-backoff:1800000}")
+  private long maxBackoff;
+
+  @Value("${integration.bridge.dead-letter.redrive-interval:30000}")
+  private long redriveInterval;
+
+  @Autowired
+  private StreamService streamService;
+
+  @Autowired
+  private LogMessageSource logMessage;
+
+  @Autowired(required = false)
+  private MetricRegistry metricsRegistry;
+
+  private DeadLetterStore store;
+
+  private ScheduledExecutorService scheduler;
+
+  private final Runnable redriveTask = new Runnable() {
+    @Override
+    public void run() {
+      try {
+        redrive();
+      } catch (Exception e) {
+        LOGGER.error("Fail to redrive the dead letters", e);
+      }
+    }
+  };
+
+  /**
+   * Dead letters being posted right now, to avoid posting the same dead letter twice when the
+   * re-driver and the admin API replay it at the same time
+   */
+  private final Set<String> inFlight =
+      Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+  private Meter storedMeter;
+
+  private Meter deliveredMeter;
+
+  private Meter parkedMeter;
+
+  /**
+   * Opens the dead-letter store and starts the re-driver.
+   */
+  @PostConstruct
+  public void init() throws IOException {
+    if (StringUtils.isBlank(directory)) {
+      return;
+    }
+
+    ObjectMapper mapper = new ObjectMapper();
+    mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    this.store = new DeadLetterStore(Paths.get(directory), mapper);
+
+    initMetrics();
+
+    LOGGER.info(logMessage.getMessage(DEAD_LETTER_ENABLED, directory, String.valueOf(store.size())));
+
+    this.scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+      @Override
+      public Thread newThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, "dead-letter-redriver");
+        thread.setDaemon(true);
+        return thread;
+      }
+    });
+
+    scheduler.scheduleWithFixedDelay(redriveTask, redriveInterval, redriveInterval,
+        TimeUnit.MILLISECONDS);
+  }
+
+  private void initMetrics() {
+    if (metricsRegistry == null) {
+      this.storedMeter = new Meter();
+      this.deliveredMeter = new Meter();
+      this.parkedMeter = new Meter();
+      return;
+    }
+
+    this.storedMeter = metricsRegistry.meter(
+        MetricRegistry.name(BASE_METRIC_NAME, DEAD_LETTER_METRIC, "stored"));
+    this.deliveredMeter = metricsRegistry.meter(
+        MetricRegistry.name(BASE_METRIC_NAME, DEAD_LETTER_METRIC, "delivered"));
+    this.parkedMeter = metricsRegistry.meter(
+        MetricRegistry.name(BASE_METRIC_NAME, DEAD_LETTER_METRIC, "parked"));
+
+    String pendingName = MetricRegistry.name(BASE_METRIC_NAME, DEAD_LETTER_METRIC, "pending");
+
+    if (!metricsRegistry.getGauges().containsKey(pendingName)) {
+      metricsRegistry.register(pendingName, new Gauge<Integer>() {
+        @Override
+        public Integer getValue() {
+          return store.size();
+        }
+      });
+    }
+  }
+
+  @PreDestroy
+  public void destroy() {
+    if (scheduler != null) {
+      scheduler.shutdownNow();
+    }
+  }
+
+  public boolean isEnabled() {
+    return store != null;
+  }
+
+  /**
+   * Stores the message as a dead letter for each informed stream.
+   *
+   * Nothing is stored when the service is disabled, when the failure isn't safe to post again or
+   * when the store is full. In that case, the caller must report the failure as before.
+   *
+   * @param instance Integration instance
+   * @param integrationUser Integration user
+   * @param streams Streams the message couldn't be delivered to
+   * @param message Message
+   * @param cause Delivery failure
+   * @return Identifiers of the dead letters stored, one per stream, or an empty list if nothing
+   * was stored
+   */
+  public List<String> register(IntegrationInstance instance, String integrationUser,
+      List<String> streams, Message message, Exception cause) {
+    if (!isEnabled() || streams.isEmpty() || !AgentPostRetryPolicy.isRetryable(cause)) {
+      return Collections.emptyList();
+    }
+
+    if (store.size() + streams.size() > maxEntries) {
+      LOGGER.warn(logMessage.getMessage(DEAD_LETTER_STORE_FULL, String.valueOf(store.size()),
+          integrationUser));
+      return Collections.emptyList();
+    }
+
+    long now = System.currentTimeMillis();
+    List<String> saved = new ArrayList<>();
+
+    try {
+      for (String stream : streams) {
+        DeadLetter deadLetter = new DeadLetter();
+        deadLetter.setId(UUID.randomUUID().toString());
+        deadLetter.setIntegrationUser(integrationUser);
+        deadLetter.setConfigurationId(instance.getConfigurationId());
+        deadLetter.setInstanceId(instance.getInstanceId());
+        deadLetter.setStream(stream);
+        deadLetter.setMessage(message);
+        deadLetter.setCreatedAt(now);
+        deadLetter.setNextAttemptAt(now + nextBackoff(0));
+        deadLetter.setLastError(describe(cause));
+
+        store.save(deadLetter);
+        saved.add(deadLetter.getId());
+
+        storedMeter.mark();
+        LOGGER.info(logMessage.getMessage(DEAD_LETTER_STORED, stream, integrationUser,
+            deadLetter.getId()));
+      }
+
+      return saved;
+    } catch (IOException e) {
+      LOGGER.error(logMessage.getMessage(DEAD_LETTER_STORE_FAILED, integrationUser), e);
+
+      // The caller will report the failure, so the streams stored so far must not be redriven
+      discard(saved);
+
+      return Collections.emptyList();
+    }
+  }
+
+  /**
+   * Removes the dead letters registered for a message whose delivery is reported as failed after
+   * all. The originating system is expected to retry, so they must not be posted again.
+   * @param ids Dead letter identifiers returned by {@link #register}
+   */
+  public void discard(List<String> ids) {
+    if (!isEnabled()) {
+      return;
+    }
+
+    for (String id : ids) {
+      delete(id);
+    }
+  }
+
+  /**
+   * Lists the dead letters, optionally filtered by configuration and instance.
+   * @param configurationId Configuration identifier or null to list all of them
+   * @param instanceId Instance identifier or null to list all of them
+   * @return Dead letters from the oldest to the newest
+   */
+  public List<DeadLetter> list(String configurationId, String instanceId) {
+    if (!isEnabled()) {
+      return Collections.emptyList();
+    }
+
+    List<DeadLetter> result = new ArrayList<>();
+
+    for (DeadLetter deadLetter : store.list()) {
+      if (matches(deadLetter, configurationId, instanceId)) {
+        result.add(deadLetter);
+      }
+    }
+
+    return result;
+  }
+
+  public DeadLetter get(String id) {
+    return isEnabled() ? store.get(id) : null;
+  }
+
+  /**
+   * Posts the dead letter to its stream right now, even if it was parked.
+   * @param id Dead letter identifier
+   * @return Replay result
+   */
+  public ReplayResult replay(String id) {
+    DeadLetter deadLetter = get(id);
+
+    if (deadLetter == null) {
+      return ReplayResult.NOT_FOUND;
+    }
+
+    return deliver(deadLetter);
+  }
+
+  /**
+   * Hands the dead letters over to the re-driver to be posted right away, even the parked ones,
+   * optionally filtered by configuration and instance. The deliveries happen in background, so
+   * the caller doesn't wait for them. A parked dead letter that fails again is parked again.
+   * @param configurationId Configuration identifier or null to requeue all of them
+   * @param instanceId Instance identifier or null to requeue all of them
+   * @return Number of dead letters requeued
+   */
+  public int requeue(String configurationId, String instanceId) {
+    long now = System.currentTimeMillis();
+    int requeued = 0;
+
+    for (DeadLetter deadLetter : list(configurationId, instanceId)) {
+      // Being posted by the re-driver right now
+      if (inFlight.contains(deadLetter.getId())) {
+        continue;
+      }
+
+      deadLetter.setParked(false);
+      deadLetter.setNextAttemptAt(now);
+
+      try {
+        store.save(deadLetter);
+        requeued++;
+      } catch (IOException e) {
+        LOGGER.error(logMessage.getMessage(DEAD_LETTER_STORE_FAILED,
+            deadLetter.getIntegrationUser()), e);
+      }
+    }
+
+    if (requeued > 0) {
+      scheduler.execute(redriveTask);
+    }
+
+    return requeued;
+  }
+
+  /**
+   * Removes the dead letter without posting it.
+   * @param id Dead letter identifier
+   * @return true if the dead letter was removed or false if it doesn't exist
+   */
+  public boolean purge(String id) {
+    return isEnabled() && !inFlight.contains(id) && delete(id);
+  }
+
+  /**
+   * Removes the dead letters without posting them, optionally filtered by configuration and
+   * instance.
+   * @param configurationId Configuration identifier or null to purge all of them
+   * @param instanceId Instance identifier or null to purge all of them
+   * @return Number of dead letters removed
+   */
+  public int purge(String configurationId, String instanceId) {
+    int purged = 0;
+
+    for (DeadLetter deadLetter : list(configurationId, instanceId)) {
+      if (purge(deadLetter.getId())) {
+        purged++;
+      }
+    }
+
+    return purged;
+  }
+
+  /**
+   * Posts the dead letters that are due. Parked dead letters are skipped.
+   */
+  void redrive() {
+    long now = System.currentTimeMillis();
+
+    for (DeadLetter deadLetter : list(null, null)) {
+      if (!deadLetter.isParked() && deadLetter.getNextAttemptAt() <= now) {
+        deliver(deadLetter);
+      }
+    }
+  }
+
+  private ReplayResult deliver(DeadLetter deadLetter) {
+    String id = deadLetter.getId();
+
+    if (!inFlight.add(id)) {
+      return ReplayResult.IN_PROGRESS;
+    }
+
+    try {
+      // Purged after it was listed
+      if (store.get(id) == null) {
+        return ReplayResult.NOT_FOUND;
+      }
+
+      streamService.postMessage(deadLetter.getIntegrationUser(), deadLetter.getStream(),
+          deadLetter.getMessage());
+
+      delete(id);
+
+      deliveredMeter.mark();
+      LOGGER.info(logMessage.getMessage(DEAD_LETTER_DELIVERED, id, deadLetter.getStream()));
+
+      return ReplayResult.DELIVERED;
+    } catch (RemoteApiException | RuntimeException e) {
+      failed(deadLetter, e);
+      return ReplayResult.FAILED;
+    } finally {
+      inFlight.remove(id);
+    }
+  }
+
+  private void failed(DeadLetter deadLetter, Exception cause) {
+    int attempts = deadLetter.getAttempts() + 1;
+
+    deadLetter.setAttempts(attempts);
+    deadLetter.setLastError(describe(cause));
+
+    if (!AgentPostRetryPolicy.isRetryable(cause) || attempts >= maxAttempts) {
+      if (!deadLetter.isParked()) {
+        parkedMeter.mark();
+      }
+
+      deadLetter.setParked(true);
+      LOGGER.warn(logMessage.getMessage(DEAD_LETTER_PARKED, deadLetter.getId(),
+          deadLetter.getStream(), String.valueOf(attempts)), cause);
+    } else {
+      deadLetter.setNextAttemptAt(System.currentTimeMillis() + nextBackoff(attempts));
+      LOGGER.warn(logMessage.getMessage(DEAD_LETTER_REDELIVERY_FAILED, deadLetter.getId(),
+          deadLetter.getStream(), String.valueOf(attempts)), cause);
+    }
+
+    try {
+      store.save(deadLetter);
+    } catch (IOException e) {
+      LOGGER.error(logMessage.getMessage(DEAD_LETTER_STORE_FAILED,
+          deadLetter.getIntegrationUser()), e);
+    }
+  }
+
+  private boolean delete(String id) {
+    try {
+      return store.delete(id);
+    } catch (IOException e) {
+      LOGGER.error("Fail to delete the dead letter " + id, e);
+      return false;
+    }
+  }
+
+  /**
+   * Delay before the next redelivery. The cap doubles on every attempt and the delay is drawn
+   * between half the cap and the cap.
+   * @param attempts Redelivery attempts so far
+   * @return Delay in milliseconds
+   */
+  private long nextBackoff(int attempts) {
+    double cap = Math.min(maxBackoff, initialBackoff * Math.pow(2, Math.min(attempts, 30)));
+    long half = (long) (cap / 2);
+
+    return half + (long) (ThreadLocalRandom.current().nextDouble() * (cap - half));
+  }
+
+  private String describe(Exception cause) {
+    if (cause instanceof RemoteApiException) {
+      return ((RemoteApiException) cause).getCode() + " " + cause.getMessage();
+    }
+
+    return cause.getClass().getSimpleName() + ": " + cause.getMessage();
+  }
+
+  private boolean matches(DeadLetter deadLetter, String configurationId, String instanceId) {
+    return (configurationId == null || configurationId.equals(deadLetter.getConfigurationId()))
+        && (instanceId == null || instanceId.equals(deadLetter.getInstanceId()));
+  }
+
+}
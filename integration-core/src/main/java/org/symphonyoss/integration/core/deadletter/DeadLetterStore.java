@@ -0,0 +1,160 @@
+/**
+ * Copyright 2016-2017 Symphony Integrations - Symphony LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.symphonyoss.integration.core.deadletter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * File-backed store for the dead letters.
+ *
+ * Each dead letter is kept in its own JSON file named after the dead letter identifier. The file
+ * is written to a temporary file, synced to the disk and then atomically moved over the previous
+ * version, so a crash never leaves a partially written dead letter behind. Removing a dead letter
+ * deletes its file.
+ *
+ * The dead letters are loaded into memory when the store is opened. Files that can't be parsed
+ * are skipped and left on the disk for inspection.
+ */
+public class DeadLetterStore {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(DeadLetterStore.class);
+
+  private static final String EXTENSION = ".json";
+
+  private static final String TEMP_SUFFIX = ".tmp";
+
+  private static final Comparator<DeadLetter> CREATION_ORDER = new Comparator<DeadLetter>() {
+    @Override
+    public int compare(DeadLetter o1, DeadLetter o2) {
+      return Long.compare(o1.getCreatedAt(), o2.getCreatedAt());
+    }
+  };
+
+  private final Path directory;
+
+  private final ObjectMapper mapper;
+
+  private final ConcurrentMap<String, DeadLetter> deadLetters = new ConcurrentHashMap<>();
+
+  public DeadLetterStore(Path directory, ObjectMapper mapper) throws IOException {
+    this.directory = directory;
+    this.mapper = mapper;
+
+    Files.createDirectories(directory);
+    load();
+  }
+
+  private void load() throws IOException {
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + EXTENSION)) {
+      for (Path file : files) {
+        try {
+          DeadLetter deadLetter = mapper.readValue(file.toFile(), DeadLetter.class);
+          deadLetters.put(deadLetter.getId(), deadLetter);
+        } catch (IOException e) {
+          LOGGER.warn("Skipping unreadable dead letter file " + file, e);
+        }
+      }
+    }
+  }
+
+  /**
+   * Writes the dead letter to the disk, replacing the previous version if any.
+   * @param deadLetter Dead letter
+   * @throws IOException Failure to write the file
+   */
+  public void save(DeadLetter deadLetter) throws IOException {
+    byte[] content = mapper.writeValueAsBytes(deadLetter);
+
+    Path file = getFile(deadLetter.getId());
+    Path tempFile = directory.resolve(deadLetter.getId() + EXTENSION + TEMP_SUFFIX);
+
+    try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.CREATE,
+        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      ByteBuffer buffer = ByteBuffer.wrap(content);
+
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+
+      channel.force(true);
+    }
+
+    Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE);
+
+    deadLetters.put(deadLetter.getId(), deadLetter);
+  }
+
+  /**
+   * Removes the dead letter.
+   * @param id Dead letter identifier
+   * @return true if the dead letter was removed or false if it doesn't exist
+   * @throws IOException Failure to delete the file
+   */
+  public boolean delete(String id) throws IOException {
+    DeadLetter removed = deadLetters.remove(id);
+
+    if (removed == null) {
+      return false;
+    }
+
+    Files.deleteIfExists(getFile(id));
+    return true;
+  }
+
+  public DeadLetter get(String id) {
+    return deadLetters.get(id);
+  }
+
+  /**
+   * Lists the dead letters from the oldest to the newest.
+   * @return Dead letters
+   */
+  public List<DeadLetter> list() {
+    List<DeadLetter> result = new ArrayList<>(deadLetters.values());
+    Collections.sort(result, CREATION_ORDER);
+
+    return result;
+  }
+
+  public int size() {
+    return deadLetters.size();
+  }
+
+  private Path getFile(String id) {
+    return directory.resolve(id + EXTENSION);
+  }
+
+}
@@ -0,0 +1,16 @@
+package org.symphonyoss.integration.core.properties;
+
+import org.symphonyoss.integration.core.deadletter.DeadLetterService;
+
+/**
+ * Log message keys used by the component {@link DeadLetterService}
+ */
+public class DeadLetterServiceProperties {
+  public static final String DEAD_LETTER_ENABLED = "core.dead.letter.service.enabled";
+  public static final String DEAD_LETTER_STORED = "core.dead.letter.service.stored";
+  public static final String DEAD_LETTER_STORE_FULL = "core.dead.letter.service.store.full";
+  public static final String DEAD_LETTER_STORE_FAILED = "core.dead.letter.service.store.failed";
+  public static final String DEAD_LETTER_DELIVERED = "core.dead.letter.service.delivered";
+  public static final String DEAD_LETTER_REDELIVERY_FAILED = "core.dead.letter.service.redelivery.failed";
+  public static final String DEAD_LETTER_PARKED = "core.dead.letter.service.parked";
+}
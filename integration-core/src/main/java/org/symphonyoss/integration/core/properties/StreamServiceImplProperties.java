@@ -13,4 +13,7 @@ public class StreamServiceImplProperties {
   public static final String ERROR_GET_STREAM_INSTANCE = "core.stream.service.impl.error.get.stream.instance";
   public static final String ERROR_GET_STREAM_JSON_SOLUTION = "core.stream.service.impl.error.get.stream.json.solution";
   public static final String ERROR_GET_STREAM_INSTANCE_SOLUTION = "core.stream.service.impl.error.get.stream.instance.solution";
+  public static final String AGENT_API_SWITCHED = "core.stream.service.impl.agent.api.switched";
+  public static final String AGENT_POST_RETRY = "core.stream.service.impl.agent.post.retry";
+  public static final String AGENT_POST_RETRY_BUDGET_EXHAUSTED = "core.stream.service.impl.agent.post.retry.budget.exhausted";
 }
@@ -0,0 +1,39 @@
+/**
+ * Copyright 2016-2017 Symphony Integrations - Symphony LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.symphonyoss.integration.core.service;
+
+import org.symphonyoss.integration.entity.model.User;
+import org.symphonyoss.integration.service.UserService;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * {@link UserService} able to retrieve several users at once, e.g. to render the mentions of all
+ * the assignees and commenters of a webhook event.
+ */
+public interface BulkUserService extends UserService {
+
+  /**
+   * Retrieves several users by identifier.
+   * @param integrationUser Integration user
+   * @param userIds User identifiers
+   * @return Users found by identifier. The users not found are omitted.
+   */
+  Map<Long, User> getUsers(String integrationUser, Collection<Long> userIds);
+
+}
@@ -0,0 +1,178 @@
+/**
+ * Copyright 2016-2017 Symphony Integrations - Symphony LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.symphonyoss.integration.core.service;
+
+import org.symphonyoss.integration.entity.model.User;
+
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory user directory. A user found on the POD is indexed by identifier, username and email,
+ * and all the indexes point to the same entry. Lookups that didn't find the user are also cached,
+ * for a shorter period, under the key used in the lookup.
+ *
+ * Usernames and emails are case-insensitive.
+ */
+public class UserDirectoryCache {
+
+  private final Map<Long, Entry> byId = new ConcurrentHashMap<>();
+
+  private final Map<String, Entry> byUsername = new ConcurrentHashMap<>();
+
+  private final Map<String, Entry> byEmail = new ConcurrentHashMap<>();
+
+  private final long ttl;
+
+  private final long negativeTtl;
+
+  private final int maxEntries;
+
+  /**
+   * @param ttl Time to live of the users found, in milliseconds
+   * @param negativeTtl Time to live of the users not found, in milliseconds
+   * @param maxEntries Max number of entries per index
+   */
+  public UserDirectoryCache(long ttl, long negativeTtl, int maxEntries) {
+    this.ttl = ttl;
+    this.negativeTtl = negativeTtl;
+    this.maxEntries = maxEntries;
+  }
+
+  public Entry getById(Long userId) {
+    return get(byId, userId);
+  }
+
+  public Entry getByUsername(String username) {
+    return get(byUsername, normalize(username));
+  }
+
+  public Entry getByEmail(String email) {
+    return get(byEmail, normalize(email));
+  }
+
+  /**
+   * Caches the user retrieved from the POD under all of its keys.
+   * @param user User found
+   */
+  public void put(User user) {
+    Entry entry = new Entry(user, System.currentTimeMillis() + ttl);
+
+    if (user.getId() != null) {
+      put(byId, user.getId(), entry);
+    }
+
+    if (user.getUsername() != null) {
+      put(byUsername, normalize(user.getUsername()), entry);
+    }
+
+    if (user.getEmailAddress() != null) {
+      put(byEmail, normalize(user.getEmailAddress()), entry);
+    }
+  }
+
+  public void putMissingId(Long userId) {
+    put(byId, userId, missing());
+  }
+
+  public void putMissingUsername(String username) {
+    put(byUsername, normalize(username), missing());
+  }
+
+  public void putMissingEmail(String email) {
+    put(byEmail, normalize(email), missing());
+  }
+
+  public void clear() {
+    byId.clear();
+    byUsername.clear();
+    byEmail.clear();
+  }
+
+  private Entry missing() {
+    return new Entry(null, System.currentTimeMillis() + negativeTtl);
+  }
+
+  private <K> Entry get(Map<K, Entry> index, K key) {
+    Entry entry = index.get(key);
+
+    if ((entry != null) && (entry.isExpired(System.currentTimeMillis()))) {
+      index.remove(key, entry);
+      return null;
+    }
+
+    return entry;
+  }
+
+  private <K> void put(Map<K, Entry> index, K key, Entry entry) {
+    if (index.size() >= maxEntries) {
+      evictExpired(index);
+    }
+
+    if (index.size() >= maxEntries) {
+      index.clear();
+    }
+
+    index.put(key, entry);
+  }
+
+  private <K> void evictExpired(Map<K, Entry> index) {
+    long now = System.currentTimeMillis();
+    Iterator<Entry> iterator = index.values().iterator();
+
+    while (iterator.hasNext()) {
+      if (iterator.next().isExpired(now)) {
+        iterator.remove();
+      }
+    }
+  }
+
+  private String normalize(String key) {
+    return key.toLowerCase(Locale.ENGLISH);
+  }
+
+  /**
+   * Cached lookup result. The user is null when the lookup didn't find the user.
+   */
+  public static class Entry {
+
+    private final User user;
+
+    private final long expiresAt;
+
+    Entry(User user, long expiresAt) {
+      this.user = user;
+      this.expiresAt = expiresAt;
+    }
+
+    public User getUser() {
+      return user;
+    }
+
+    public boolean isMissing() {
+      return user == null;
+    }
+
+    boolean isExpired(long now) {
+      return now >= expiresAt;
+    }
+
+  }
+
+}
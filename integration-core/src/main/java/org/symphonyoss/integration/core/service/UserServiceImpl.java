@@ -39,18 +39,42 @@ import org.symphonyoss.integration.pod.api.client.UserApiClient;
 import org.symphonyoss.integration.service.IntegrationBridge;
 import org.symphonyoss.integration.service.UserService;
 
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.ws.rs.core.Response;
 
 /**
  * Class responsible to search a user, and if it is found convert into {@link User}
  *
+ * Lookups are cached in a {@link UserDirectoryCache}, so a user found by identifier is also
+ * served from memory when looked up by username or email.
+ *
  * Created by cmarcondes on 11/2/16.
  */
 @Service
-public class UserServiceImpl implements UserService {
+public class UserServiceImpl implements BulkUserService {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(UserServiceImpl.class);
 
+  private static final long USER_TTL = TimeUnit.MINUTES.toMillis(10);
+
+  private static final long MISSING_USER_TTL = TimeUnit.MINUTES.toMillis(1);
+
+  private static final int MAX_CACHED_USERS = 10000;
+
+  private static final int LOOKUP_THREADS = 8;
+
   @Autowired
   private AuthenticationProxy authenticationProxy;
 
@@ -70,18 +94,45 @@ public class UserServiceImpl implements UserService {
 
   private RelayApiClient relayApiClient;
 
+  private final UserDirectoryCache userDirectory =
+      new UserDirectoryCache(USER_TTL, MISSING_USER_TTL, MAX_CACHED_USERS);
+
+  private final ExecutorService lookupExecutor =
+      Executors.newFixedThreadPool(LOOKUP_THREADS, new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+          Thread thread = new Thread(runnable, "user-lookup");
+          thread.setDaemon(true);
+          return thread;
+        }
+      });
+
   @PostConstruct
   public void init() {
     this.userApiClient = new UserApiClient(podHttpApiClient, logMessage);
     relayApiClient = new RelayApiClient(symphonyHttpApiClient, logMessage);
   }
 
+  /**
+   * Stops the bulk lookup threads.
+   */
+  @PreDestroy
+  public void destroy() {
+    lookupExecutor.shutdownNow();
+  }
+
   @Override
   public User getUserByUserId(String integrationUser, Long userId) {
     if (userId == null) {
       return null;
     }
 
+    UserDirectoryCache.Entry cached = userDirectory.getById(userId);
+
+    if (cached != null) {
+      return cached.isMissing() ? null : copyOf(cached.getUser());
+    }
+
     User user = null;
 
     try {
@@ -89,13 +140,16 @@ public class UserServiceImpl implements UserService {
           userApiClient.getUserById(authenticationProxy.getSessionToken(integrationUser), userId);
 
       if (remoteUser != null) {
-        user = new User();
-        user.setUserName(remoteUser.getUsername());
-        user.setEmailAddress(remoteUser.getEmailAddress());
-        user.setDisplayName(remoteUser.getDisplayName());
-        user.setId(remoteUser.getId());
+        userDirectory.put(remoteUser);
+        user = copyOf(remoteUser);
+      } else {
+        userDirectory.putMissingId(userId);
       }
     } catch (RemoteApiException e) {
+      if (isNotFound(e)) {
+        userDirectory.putMissingId(userId);
+      }
+
       LOGGER.debug(logMessage.getMessage(FAIL_GET_USER_BY_USERID, String.valueOf(userId)));
     }
 
@@ -113,17 +167,37 @@ public class UserServiceImpl implements UserService {
     User user = new User();
     user.setUserName(userName);
 
+    UserDirectoryCache.Entry cached = userDirectory.getByUsername(userName);
+
+    if (cached != null) {
+      if (!cached.isMissing()) {
+        user.setEmailAddress(cached.getUser().getEmailAddress());
+        user.setDisplayName(cached.getUser().getDisplayName());
+        user.setId(cached.getUser().getId());
+      }
+
+      return user;
+    }
+
     try {
       User userRemote =
           userApiClient.getUserByUsername(authenticationProxy.getSessionToken(integrationUser),
               userName);
 
       if (userRemote != null) {
+        userDirectory.put(userRemote);
+
         user.setEmailAddress(userRemote.getEmailAddress());
         user.setDisplayName(userRemote.getDisplayName());
         user.setId(userRemote.getId());
+      } else {
+        userDirectory.putMissingUsername(userName);
       }
     } catch (RemoteApiException e) {
+      if (isNotFound(e)) {
+        userDirectory.putMissingUsername(userName);
+      }
+
       LOGGER.debug(logMessage.getMessage(FAIL_GET_USER_BY_USERNAME,userName));
     }
 
@@ -141,22 +215,112 @@ public class UserServiceImpl implements UserService {
     User user = new User();
     user.setEmailAddress(email);
 
+    UserDirectoryCache.Entry cached = userDirectory.getByEmail(email);
+
+    if (cached != null) {
+      if (!cached.isMissing()) {
+        user.setDisplayName(cached.getUser().getDisplayName());
+        user.setId(cached.getUser().getId());
+        user.setUserName(cached.getUser().getUsername());
+      }
+
+      return user;
+    }
+
     try {
       User remoteUser =
           userApiClient.getUserByEmail(authenticationProxy.getSessionToken(integrationUser), email);
 
       if (remoteUser != null) {
+        userDirectory.put(remoteUser);
+
         user.setDisplayName(remoteUser.getDisplayName());
         user.setId(remoteUser.getId());
         user.setUserName(remoteUser.getUsername());
+      } else {
+        userDirectory.putMissingEmail(email);
       }
     } catch (RemoteApiException e) {
+      if (isNotFound(e)) {
+        userDirectory.putMissingEmail(email);
+      }
+
       LOGGER.debug(logMessage.getMessage(FAIL_GET_USER_BY_EMAIL, email));
     }
 
     return user;
   }
 
+  /**
+   * Retrieves several users at once. The users not cached are retrieved from the POD
+   * concurrently.
+   * @param integrationUser Integration user
+   * @param userIds User identifiers
+   * @return Users found by identifier. The users not found are omitted.
+   */
+  @Override
+  public Map<Long, User> getUsers(final String integrationUser, Collection<Long> userIds) {
+    Map<Long, User> result = new LinkedHashMap<>();
+    Map<Long, Future<User>> pending = new LinkedHashMap<>();
+
+    for (final Long userId : userIds) {
+      if ((userId == null) || (result.containsKey(userId)) || (pending.containsKey(userId))) {
+        continue;
+      }
+
+      UserDirectoryCache.Entry cached = userDirectory.getById(userId);
+
+      if (cached != null) {
+        if (!cached.isMissing()) {
+          result.put(userId, copyOf(cached.getUser()));
+        }
+      } else {
+        pending.put(userId, lookupExecutor.submit(new Callable<User>() {
+          @Override
+          public User call() throws Exception {
+            return getUserByUserId(integrationUser, userId);
+          }
+        }));
+      }
+    }
+
+    for (Map.Entry<Long, Future<User>> entry : pending.entrySet()) {
+      try {
+        User user = entry.getValue().get();
+
+        if (user != null) {
+          result.put(entry.getKey(), user);
+        }
+      } catch (ExecutionException e) {
+        LOGGER.debug(logMessage.getMessage(FAIL_GET_USER_BY_USERID,
+            String.valueOf(entry.getKey())), e.getCause());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        break;
+      }
+    }
+
+    return result;
+  }
+
+  private User copyOf(User remoteUser) {
+    User user = new User();
+    user.setUserName(remoteUser.getUsername());
+    user.setEmailAddress(remoteUser.getEmailAddress());
+    user.setDisplayName(remoteUser.getDisplayName());
+    user.setId(remoteUser.getId());
+    return user;
+  }
+
+  /**
+   * Only the users reported as missing by the POD are cached as not found. Other failures are
+   * retried on the next lookup.
+   */
+  private boolean isNotFound(RemoteApiException e) {
+    return (e.getCode() == Response.Status.NOT_FOUND.getStatusCode())
+        || (e.getCode() == Response.Status.BAD_REQUEST.getStatusCode());
+  }
+
   /**
    * @see UserService#getBotUserAccountKeyData(String)
    */
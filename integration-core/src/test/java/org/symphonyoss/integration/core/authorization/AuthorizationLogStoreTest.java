@@ -0,0 +1,167 @@
+/**
+ * Copyright 2016-2017 Symphony Integrations - Symphony LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.symphonyoss.integration.core.authorization;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.symphonyoss.integration.authorization.UserAuthorizationData;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Unit tests for {@link AuthorizationLogStore}
+ */
+public class AuthorizationLogStoreTest {
+
+  private static final String CONFIGURATION_ID = "configurationId";
+
+  private static final String URL = "https://test.symphony.com";
+
+  private static final Long USER_ID = 123456L;
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private String fileName;
+
+  private List<UserAuthorizationData> replayed = new ArrayList<>();
+
+  private AuthorizationLogStore.RecordHandler handler = new AuthorizationLogStore.RecordHandler() {
+    @Override
+    public void handle(String configurationId, UserAuthorizationData data) {
+      assertEquals(CONFIGURATION_ID, configurationId);
+      replayed.add(data);
+    }
+  };
+
+  @Before
+  public void init() {
+    fileName = new File(folder.getRoot(), "authorization.log").getAbsolutePath();
+  }
+
+  @Test
+  public void testAppendAndReplay() throws IOException {
+    try (AuthorizationLogStore store = new AuthorizationLogStore(fileName, new ObjectMapper())) {
+      store.append(CONFIGURATION_ID, mockData("token1"));
+      store.append(CONFIGURATION_ID, mockData("token2"));
+    }
+
+    try (AuthorizationLogStore store = new AuthorizationLogStore(fileName, new ObjectMapper())) {
+      assertEquals(2, store.replay(handler));
+      assertEquals(2, store.size());
+    }
+
+    assertEquals(URL, replayed.get(1).getUrl());
+    assertEquals(USER_ID, replayed.get(1).getUserId());
+    assertEquals("token2", ((Map) replayed.get(1).getData()).get("accessToken"));
+  }
+
+  @Test
+  public void testDiscardIncompleteRecord() throws IOException {
+    try (AuthorizationLogStore store = new AuthorizationLogStore(fileName, new ObjectMapper())) {
+      store.append(CONFIGURATION_ID, mockData("token1"));
+      store.append(CONFIGURATION_ID, mockData("token2"));
+    }
+
+    try (RandomAccessFile file = new RandomAccessFile(fileName, "rw")) {
+      file.setLength(file.length() - 3);
+    }
+
+    try (AuthorizationLogStore store = new AuthorizationLogStore(fileName, new ObjectMapper())) {
+      assertEquals(1, store.replay(handler));
+      store.append(CONFIGURATION_ID, mockData("token3"));
+    }
+
+    replayed.clear();
+
+    try (AuthorizationLogStore store = new AuthorizationLogStore(fileName, new ObjectMapper())) {
+      assertEquals(2, store.replay(handler));
+    }
+
+    assertEquals("token3", ((Map) replayed.get(1).getData()).get("accessToken"));
+  }
+
+  @Test
+  public void testCompact() throws IOException {
+    try (AuthorizationLogStore store = new AuthorizationLogStore(fileName, new ObjectMapper())) {
+      store.append(CONFIGURATION_ID, mockData("token1"));
+      store.append(CONFIGURATION_ID, mockData("token2"));
+
+      Map<String, Collection<UserAuthorizationData>> records = new HashMap<>();
+      records.put(CONFIGURATION_ID, Collections.singletonList(mockData("token2")));
+
+      store.compact(records);
+      assertEquals(1, store.size());
+
+      store.append(CONFIGURATION_ID, mockData("token3"));
+    }
+
+    try (AuthorizationLogStore store = new AuthorizationLogStore(fileName, new ObjectMapper())) {
+      assertEquals(2, store.replay(handler));
+    }
+
+    assertEquals("token2", ((Map) replayed.get(0).getData()).get("accessToken"));
+    assertEquals("token3", ((Map) replayed.get(1).getData()).get("accessToken"));
+  }
+
+  @Test
+  public void testCompactFailureKeepsTheLog() throws IOException {
+    // The compaction can't create its temporary file
+    new File(fileName + ".compact").mkdir();
+
+    try (AuthorizationLogStore store = new AuthorizationLogStore(fileName, new ObjectMapper())) {
+      store.append(CONFIGURATION_ID, mockData("token1"));
+
+      Map<String, Collection<UserAuthorizationData>> records = new HashMap<>();
+      records.put(CONFIGURATION_ID, Collections.singletonList(mockData("token1")));
+
+      try {
+        store.compact(records);
+        fail();
+      } catch (IOException e) {
+        assertEquals(1, store.size());
+      }
+
+      store.append(CONFIGURATION_ID, mockData("token2"));
+    }
+
+    try (AuthorizationLogStore store = new AuthorizationLogStore(fileName, new ObjectMapper())) {
+      assertEquals(2, store.replay(handler));
+    }
+
+    assertEquals("token2", ((Map) replayed.get(1).getData()).get("accessToken"));
+  }
+
+  private UserAuthorizationData mockData(String accessToken) {
+    return new UserAuthorizationData(URL, USER_ID, new MockOAuth1Data(accessToken, "verifier"));
+  }
+
+}
@@ -17,7 +17,11 @@
 package org.symphonyoss.integration.core.authorization;
 
 import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.anyMapOf;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.symphonyoss.integration.pod.api.client.BasePodApiClient
@@ -123,6 +127,48 @@ public class AuthorizationRepositoryServiceTest extends MockKeystore {
     assertEquals(userAuthData, userAuthDataFound);
   }
 
+  @Test
+  public void testFindCached() throws RemoteApiException, AuthorizationException {
+    String path = "/v1/configuration/" + CONFIGURATION_ID + "/auth/user";
+
+    Map<String, String> headerParams = new HashMap<>();
+    headerParams.put(SESSION_TOKEN_HEADER_PARAM, SESSION_TOKEN);
+
+    Map<String, String> queryParams = new HashMap<>();
+    queryParams.put("userId", String.valueOf(USER_ID));
+    queryParams.put("url", URL);
+
+    doReturn(userAuthData).when(integrationHttpApiClient)
+        .doGet(path, headerParams, queryParams, UserAuthorizationData.class);
+
+    authRepoService.find(INTEGRATION_USER, CONFIGURATION_ID, URL, USER_ID);
+    UserAuthorizationData result =
+        authRepoService.find(INTEGRATION_USER, CONFIGURATION_ID, URL, USER_ID);
+
+    assertEquals(userAuthData, result);
+    verify(integrationHttpApiClient, times(1))
+        .doGet(path, headerParams, queryParams, UserAuthorizationData.class);
+
+    ((AuthorizationRepositoryServiceImpl) authRepoService).invalidate(CONFIGURATION_ID);
+    authRepoService.find(INTEGRATION_USER, CONFIGURATION_ID, URL, USER_ID);
+
+    verify(integrationHttpApiClient, times(2))
+        .doGet(path, headerParams, queryParams, UserAuthorizationData.class);
+  }
+
+  @Test
+  public void testSaveWriteThrough() throws RemoteApiException, AuthorizationException {
+    authRepoService.save(INTEGRATION_USER, CONFIGURATION_ID, userAuthData);
+
+    UserAuthorizationData result =
+        authRepoService.find(INTEGRATION_USER, CONFIGURATION_ID, URL, USER_ID);
+
+    assertEquals(userAuthData, result);
+    verify(integrationHttpApiClient, never()).doGet(anyString(),
+        anyMapOf(String.class, String.class), anyMapOf(String.class, String.class),
+        eq(UserAuthorizationData.class));
+  }
+
   @Test(expected = AuthorizationException.class)
   public void testInvalidFind() throws RemoteApiException, AuthorizationException {
     doReturn(null).when(authenticationProxy).getSessionToken(INTEGRATION_USER);
@@ -5,11 +5,14 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.mockito.InjectMocks;
 import org.symphonyoss.integration.authorization.AuthorizationException;
 import org.symphonyoss.integration.authorization.UserAuthorizationData;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.List;
 
@@ -37,6 +40,9 @@ public class LocalAuthorizationRepositoryServiceTest {
 
   private UserAuthorizationData authorizationData;
 
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
   @InjectMocks
   private LocalAuthorizationRepositoryService service;
   
@@ -98,4 +104,58 @@ public class LocalAuthorizationRepositoryServiceTest {
     assertTrue(result.isEmpty());
   }
 
+  @Test
+  public void testSearchByConfiguration() throws AuthorizationException {
+    service.save(INTEGRATION_USER, CONFIGURATION_ID, authorizationData);
+
+    HashMap<String, String> filter = new HashMap<>();
+    filter.put("accessToken", MOCK_ACCESS_TOKEN);
+
+    assertTrue(service.search(INTEGRATION_USER, "otherConfiguration", filter).isEmpty());
+    assertNull(service.find(INTEGRATION_USER, "otherConfiguration", INTEGRATION_URL1, USER_ID));
+  }
+
+  @Test
+  public void testSearchAfterUpdate() throws AuthorizationException {
+    service.save(INTEGRATION_USER, CONFIGURATION_ID, authorizationData);
+
+    HashMap<String, String> filter = new HashMap<>();
+    filter.put("accessToken", MOCK_ACCESS_TOKEN);
+
+    assertEquals(1, service.search(INTEGRATION_USER, CONFIGURATION_ID, filter).size());
+
+    MockOAuth1Data newData = new MockOAuth1Data("newAccessToken", MOCK_VERIFIER);
+    UserAuthorizationData updated = new UserAuthorizationData(INTEGRATION_URL1, USER_ID, newData);
+    service.save(INTEGRATION_USER, CONFIGURATION_ID, updated);
+
+    assertTrue(service.search(INTEGRATION_USER, CONFIGURATION_ID, filter).isEmpty());
+
+    filter.put("accessToken", "newAccessToken");
+
+    List<UserAuthorizationData> result =
+        service.search(INTEGRATION_USER, CONFIGURATION_ID, filter);
+    assertEquals(1, result.size());
+    assertEquals(updated, result.get(0));
+  }
+
+  @Test
+  public void testRestoreFromFile() throws AuthorizationException, IOException {
+    String fileName = folder.newFile("authorization.log").getAbsolutePath();
+
+    service.open(fileName);
+    service.save(INTEGRATION_USER, CONFIGURATION_ID, authorizationData);
+
+    LocalAuthorizationRepositoryService restored = new LocalAuthorizationRepositoryService();
+    restored.open(fileName);
+
+    UserAuthorizationData result =
+        restored.find(INTEGRATION_USER, CONFIGURATION_ID, INTEGRATION_URL1, USER_ID);
+    assertEquals(USER_ID, result.getUserId());
+
+    HashMap<String, String> filter = new HashMap<>();
+    filter.put("accessToken", MOCK_ACCESS_TOKEN);
+
+    assertEquals(1, restored.search(INTEGRATION_USER, CONFIGURATION_ID, filter).size());
+  }
+
 }
@@ -24,6 +24,7 @@ import static org.mockito.Matchers.anyLong;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -36,6 +37,7 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.Spy;
+import org.mockito.internal.util.reflection.Whitebox;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.runners.MockitoJUnitRunner;
 import org.mockito.stubbing.Answer;
@@ -44,6 +46,7 @@ import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationEventPublisher;
 import org.symphonyoss.integration.Integration;
 import org.symphonyoss.integration.IntegrationStatus;
+import org.symphonyoss.integration.config.event.ConfigurationChangedEventData;
 import org.symphonyoss.integration.event.HealthCheckEventData;
 import org.symphonyoss.integration.exception.IntegrationRuntimeException;
 import org.symphonyoss.integration.exception.authentication.ConnectivityException;
@@ -51,6 +54,7 @@ import org.symphonyoss.integration.exception.bootstrap.RetryLifecycleException;
 import org.symphonyoss.integration.healthcheck.AsyncCompositeHealthEndpoint;
 import org.symphonyoss.integration.logging.LogMessageSource;
 import org.symphonyoss.integration.metrics.IntegrationMetricsController;
+import org.symphonyoss.integration.model.config.IntegrationInstance;
 import org.symphonyoss.integration.model.config.IntegrationSettings;
 import org.symphonyoss.integration.model.healthcheck.IntegrationHealth;
 import org.symphonyoss.integration.model.yaml.Application;
@@ -58,6 +62,7 @@ import org.symphonyoss.integration.model.yaml.ApplicationState;
 import org.symphonyoss.integration.model.yaml.IntegrationProperties;
 import org.symphonyoss.integration.utils.IntegrationUtils;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
@@ -416,4 +421,25 @@ public class IntegrationBootstrapContextTest {
     Integration integration = integrationBootstrapContext.getIntegrationById(appID);
     assertNull(integration);
   }
-}
\ No newline at end of file
+
+  @Test
+  public void testHandleConfigurationChangedEvent() {
+    Map<String, Integration> integrations = new HashMap<>();
+    integrations.put(CONFIGURATION_ID, integration);
+    Whitebox.setInternalState(integrationBootstrapContext, "integrations", integrations);
+
+    IntegrationSettings settings = new IntegrationSettings();
+    settings.setConfigurationId(CONFIGURATION_ID);
+
+    IntegrationSettings unknown = new IntegrationSettings();
+    unknown.setConfigurationId("unknown");
+
+    ConfigurationChangedEventData event = new ConfigurationChangedEventData(
+        Arrays.asList(unknown, settings), Collections.<IntegrationInstance>emptyList());
+
+    integrationBootstrapContext.handleConfigurationChangedEvent(event);
+
+    verify(integration, times(1)).onConfigChange(settings);
+    verify(integration, never()).onConfigChange(unknown);
+  }
+}
@@ -0,0 +1,102 @@
+/**
+ * Copyright 2016-2017 Symphony Integrations - Symphony LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.symphonyoss.integration.core.bridge;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.when;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.core.env.Environment;
+import org.symphonyoss.integration.exception.RemoteApiException;
+
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.util.Random;
+
+import javax.ws.rs.ProcessingException;
+
+/**
+ * Unit tests for {@link AgentPostRetryPolicy}
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class AgentPostRetryPolicyTest {
+
+  private static final String INTEGRATION_USER = "jirawebhook";
+
+  @Mock
+  private Environment environment;
+
+  @Test
+  public void testDefaultPolicy() {
+    AgentPostRetryPolicy policy = AgentPostRetryPolicy.from(environment, INTEGRATION_USER);
+    assertEquals(AgentPostRetryPolicy.DEFAULT_MAX_ATTEMPTS, policy.getMaxAttempts());
+  }
+
+  @Test
+  public void testIntegrationPolicy() {
+    when(environment.getProperty("integration.bridge.retry.max-attempts", Integer.class))
+        .thenReturn(5);
+    when(environment.getProperty("integration.bridge.retry.jirawebhook.max-attempts",
+        Integer.class)).thenReturn(1);
+
+    assertEquals(1, AgentPostRetryPolicy.from(environment, INTEGRATION_USER).getMaxAttempts());
+    assertEquals(5, AgentPostRetryPolicy.from(environment, "githubwebhook").getMaxAttempts());
+  }
+
+  @Test
+  public void testRetryableFailures() {
+    assertTrue(AgentPostRetryPolicy.isRetryable(new RemoteApiException(502, "Bad Gateway")));
+    assertTrue(
+        AgentPostRetryPolicy.isRetryable(new RemoteApiException(503, "Service Unavailable")));
+    assertTrue(AgentPostRetryPolicy.isRetryable(new RemoteApiException(504, "Gateway Timeout")));
+    assertTrue(AgentPostRetryPolicy.isRetryable(new ProcessingException(new ConnectException())));
+    assertTrue(AgentPostRetryPolicy.isRetryable(
+        new ProcessingException(new SocketTimeoutException("connect timed out"))));
+
+    assertFalse(AgentPostRetryPolicy.isRetryable(new RemoteApiException(400, "Bad Request")));
+    assertFalse(
+        AgentPostRetryPolicy.isRetryable(new RemoteApiException(500, "Internal Server Error")));
+    assertFalse(AgentPostRetryPolicy.isRetryable(
+        new ProcessingException(new SocketTimeoutException("Read timed out"))));
+    assertFalse(AgentPostRetryPolicy.isRetryable(new IllegalStateException()));
+  }
+
+  @Test
+  public void testBackoff() {
+    AgentPostRetryPolicy policy = new AgentPostRetryPolicy(5, 100, 300, 2.0);
+    Random random = new Random(0);
+
+    for (int i = 0; i < 1000; i++) {
+      long first = policy.nextBackoff(1, random);
+      long second = policy.nextBackoff(2, random);
+      long fourth = policy.nextBackoff(4, random);
+
+      assertTrue(first >= 0 && first <= 100);
+      assertTrue(second >= 0 && second <= 200);
+      assertTrue(fourth >= 0 && fourth <= 300);
+    }
+
+    assertEquals(0, new AgentPostRetryPolicy(3, 0, 0, 2.0).nextBackoff(1, random));
+  }
+
+}
@@ -19,32 +19,40 @@ package org.symphonyoss.integration.core.bridge;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyListOf;
 import static org.mockito.Matchers.anyLong;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.symphonyoss.integration.metrics.IntegrationMetricsConstants.BASE_METRIC_NAME;
 
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricRegistry;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Spy;
+import org.mockito.internal.util.reflection.Whitebox;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.runners.MockitoJUnitRunner;
 import org.mockito.stubbing.Answer;
 import org.symphonyoss.integration.authentication.AuthenticationProxy;
+import org.symphonyoss.integration.config.BatchIntegrationService;
 import org.symphonyoss.integration.entity.model.User;
 import org.symphonyoss.integration.logging.LogMessageSource;
 import org.symphonyoss.integration.model.config.IntegrationInstance;
 import org.symphonyoss.integration.model.message.Message;
 import org.symphonyoss.integration.model.stream.Stream;
 import org.symphonyoss.integration.pod.api.client.UserApiClient;
-import org.symphonyoss.integration.service.IntegrationService;
 import org.symphonyoss.integration.utils.WebHookConfigurationUtils;
 import org.symphonyoss.integration.exception.config.IntegrationConfigException;
 import org.symphonyoss.integration.config.exception.SaveConfigurationException;
@@ -52,6 +60,7 @@ import org.symphonyoss.integration.exception.RemoteApiException;
 import org.symphonyoss.integration.service.StreamService;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -75,6 +84,8 @@ public class IntegrationBridgeExceptionHandlerTest {
 
   private static final String STREAM_ID_ALT = "dsaDSAD1S56D/1Q0//WqjLdsA==";
 
+  private static final String OTHER_STREAM = "dsaDSAD1S56D_1Q0__WqjLdsA";
+
   private static final String IM = "im";
 
   private static final String USER_ID = "268745369";
@@ -83,7 +94,7 @@ public class IntegrationBridgeExceptionHandlerTest {
   private StreamService streamService = new StreamServiceImpl();
 
   @Mock
-  private IntegrationService integrationService;
+  private BatchIntegrationService integrationService;
 
   @Mock
   private AuthenticationProxy authenticationProxy;
@@ -121,11 +132,13 @@ public class IntegrationBridgeExceptionHandlerTest {
   public void testForbiddenConfigurationException() throws IntegrationConfigException, IOException {
     IntegrationInstance instance = mockInstance();
 
-    doThrow(SaveConfigurationException.class).when(integrationService).save(any(IntegrationInstance.class),
-        anyString());
+    doThrow(SaveConfigurationException.class).when(integrationService)
+        .saveAll(anyListOf(IntegrationInstance.class), anyString());
 
     exceptionHandler.handleRemoteApiException(new RemoteApiException(403, new RuntimeException()),
         instance, INTEGRATION_USER, STREAM);
+    exceptionHandler.flushStreamRemovals();
+
     assertTrue(messagePosted.isEmpty());
   }
 
@@ -163,6 +176,7 @@ public class IntegrationBridgeExceptionHandlerTest {
 
     exceptionHandler.handleRemoteApiException(new RemoteApiException(403, new RuntimeException()),
         instance, INTEGRATION_USER, STREAM);
+    exceptionHandler.flushStreamRemovals();
 
     List<String> streams =
         WebHookConfigurationUtils.getStreams(savedInstance.getOptionalProperties());
@@ -171,13 +185,14 @@ public class IntegrationBridgeExceptionHandlerTest {
   }
 
   private void mockIntegrationService() throws IntegrationConfigException {
-    when(integrationService.save(any(IntegrationInstance.class), anyString())).thenAnswer(
-        new Answer<IntegrationInstance>() {
+    when(integrationService.saveAll(anyListOf(IntegrationInstance.class), anyString())).thenAnswer(
+        new Answer<List<IntegrationInstance>>() {
           @Override
-          public IntegrationInstance answer(InvocationOnMock invocation) throws Throwable {
-            Object[] args = invocation.getArguments();
-            savedInstance = (IntegrationInstance) args[0];
-            return savedInstance;
+          public List<IntegrationInstance> answer(InvocationOnMock invocation) throws Throwable {
+            List<IntegrationInstance> instances =
+                (List<IntegrationInstance>) invocation.getArguments()[0];
+            savedInstance = instances.get(0);
+            return instances;
           }
         });
   }
@@ -212,6 +227,7 @@ public class IntegrationBridgeExceptionHandlerTest {
 
     exceptionHandler.handleRemoteApiException(new RemoteApiException(403, new RuntimeException()),
         instance, INTEGRATION_USER, STREAM);
+    exceptionHandler.flushStreamRemovals();
 
     List<String> streams =
         WebHookConfigurationUtils.getStreams(savedInstance.getOptionalProperties());
@@ -252,6 +268,7 @@ public class IntegrationBridgeExceptionHandlerTest {
 
     exceptionHandler.handleRemoteApiException(new RemoteApiException(403, new RuntimeException()),
         instance, INTEGRATION_USER, STREAM);
+    exceptionHandler.flushStreamRemovals();
 
     List<String> streams =
         WebHookConfigurationUtils.getStreams(savedInstance.getOptionalProperties());
@@ -262,6 +279,97 @@ public class IntegrationBridgeExceptionHandlerTest {
         messagePosted);
   }
 
+  @Test
+  public void testOwnerIMAndBotIdentityCached() throws IntegrationConfigException, IOException,
+      RemoteApiException {
+    mockIntegrationService();
+    mockNotification();
+
+    IntegrationInstance instance = mockInstance();
+    instance.setInstanceId("instance1");
+
+    IntegrationInstance otherInstance = mockInstance();
+    otherInstance.setInstanceId("instance2");
+
+    exceptionHandler.handleRemoteApiException(new RemoteApiException(403, new RuntimeException()),
+        instance, INTEGRATION_USER, STREAM);
+    exceptionHandler.handleRemoteApiException(new RemoteApiException(403, new RuntimeException()),
+        otherInstance, INTEGRATION_USER, STREAM);
+    exceptionHandler.flushStreamRemovals();
+
+    verify(streamService, times(2)).postMessage(eq(INTEGRATION_USER), eq(IM), any(Message.class));
+    verify(streamService, times(1)).createIM(INTEGRATION_USER, new Long(USER_ID));
+    verify(usersApi, times(1)).getUserByUsername(TOKEN, INTEGRATION_USER);
+  }
+
+  @Test
+  public void testStreamRemovalsBatchedForSameInstance() throws IntegrationConfigException,
+      IOException, RemoteApiException {
+    MetricRegistry metricsRegistry = new MetricRegistry();
+    Whitebox.setInternalState(exceptionHandler, "metricsRegistry", metricsRegistry);
+
+    mockIntegrationService();
+    mockNotification();
+
+    IntegrationInstance instance = mockInstance();
+    instance.setInstanceId("instance1");
+
+    exceptionHandler.handleRemoteApiException(new RemoteApiException(403, new RuntimeException()),
+        instance, INTEGRATION_USER, STREAM);
+    exceptionHandler.handleRemoteApiException(new RemoteApiException(403, new RuntimeException()),
+        instance, INTEGRATION_USER, OTHER_STREAM);
+    exceptionHandler.flushStreamRemovals();
+
+    verify(streamService, times(1)).postMessage(eq(INTEGRATION_USER), eq(IM), any(Message.class));
+    verify(integrationService, times(1)).saveAll(anyListOf(IntegrationInstance.class),
+        eq(INTEGRATION_USER));
+
+    Histogram batchSize = metricsRegistry.histogram(
+        MetricRegistry.name(BASE_METRIC_NAME, "streamRemoval.batchSize"));
+    assertEquals(1, batchSize.getCount());
+    assertEquals(2, batchSize.getSnapshot().getMax());
+  }
+
+  @Test
+  public void testStreamRemovalsOfSeveralInstancesSavedTogether()
+      throws IntegrationConfigException, IOException, RemoteApiException {
+    mockIntegrationService();
+    mockNotification();
+
+    IntegrationInstance instance = mockInstance();
+    instance.setInstanceId("instance1");
+
+    IntegrationInstance otherInstance = mockInstance();
+    otherInstance.setInstanceId("instance2");
+
+    exceptionHandler.handleRemoteApiException(new RemoteApiException(403, new RuntimeException()),
+        instance, INTEGRATION_USER, STREAM);
+    exceptionHandler.handleRemoteApiException(new RemoteApiException(403, new RuntimeException()),
+        otherInstance, INTEGRATION_USER, STREAM);
+    exceptionHandler.flushStreamRemovals();
+
+    ArgumentCaptor<List> saved = ArgumentCaptor.forClass(List.class);
+    verify(integrationService, times(1)).saveAll(saved.capture(), eq(INTEGRATION_USER));
+    assertEquals(2, saved.getValue().size());
+    assertTrue(saved.getValue().containsAll(Arrays.asList(instance, otherInstance)));
+    verify(streamService, times(2)).postMessage(eq(INTEGRATION_USER), eq(IM), any(Message.class));
+  }
+
+  private void mockNotification() throws RemoteApiException {
+    when(authenticationProxy.getSessionToken(INTEGRATION_USER)).thenReturn(TOKEN);
+
+    Stream resultIM = new Stream();
+    resultIM.setId(IM);
+    doReturn(resultIM).when(streamService).createIM(INTEGRATION_USER, new Long(USER_ID));
+
+    User userInfo = new User();
+    userInfo.setDisplayName(DISPLAY_NAME);
+    when(usersApi.getUserByUsername(TOKEN, INTEGRATION_USER)).thenReturn(userInfo);
+
+    doReturn(new Message()).when(streamService)
+        .postMessage(eq(INTEGRATION_USER), eq(IM), any(Message.class));
+  }
+
   @Test
   public void testInternalServerException() {
     exceptionHandler.handleRemoteApiException(new RemoteApiException(500, new RuntimeException()),
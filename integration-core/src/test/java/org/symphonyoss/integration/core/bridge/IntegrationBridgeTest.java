@@ -20,12 +20,16 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import org.hamcrest.Matchers;
@@ -39,6 +43,7 @@ import org.mockito.runners.MockitoJUnitRunner;
 import org.symphonyoss.integration.Integration;
 import org.symphonyoss.integration.core.NullIntegration;
 import org.symphonyoss.integration.core.bootstrap.IntegrationBootstrapContext;
+import org.symphonyoss.integration.core.deadletter.DeadLetterService;
 import org.symphonyoss.integration.exception.RemoteApiException;
 import org.symphonyoss.integration.exception.authentication.ConnectivityException;
 import org.symphonyoss.integration.logging.LogMessageSource;
@@ -48,6 +53,7 @@ import org.symphonyoss.integration.service.IntegrationBridge;
 import org.symphonyoss.integration.service.StreamService;
 
 import java.net.ConnectException;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
@@ -78,6 +84,9 @@ public class IntegrationBridgeTest {
   @Mock
   private IntegrationBootstrapContext bootstrap;
 
+  @Mock
+  private DeadLetterService deadLetterService;
+
   @InjectMocks
   private IntegrationBridge bridge = new IntegrationBridgeImpl();
 
@@ -239,6 +248,81 @@ public class IntegrationBridgeTest {
     List<Message> result = bridge.sendMessage(instance, INTEGRATION_USER, new Message());
   }
 
+  @Test
+  public void testSendMessageDeadLetter() throws RemoteApiException {
+    Message message = new Message();
+    RemoteApiException exception = new RemoteApiException(503, "Service Unavailable");
+
+    doReturn(message).when(streamService).postMessage(INTEGRATION_USER, "stream1", message);
+    doThrow(exception).when(streamService).postMessage(INTEGRATION_USER, "stream2", message);
+
+    IntegrationInstance instance = new IntegrationInstance();
+    instance.setConfigurationId("57756bca4b54433738037005");
+    instance.setInstanceId("1234");
+    instance.setOptionalProperties(OPTIONAL_PROPERTIES);
+
+    when(deadLetterService.register(instance, INTEGRATION_USER,
+        Collections.singletonList("stream2"), message, exception)).thenReturn(
+        Collections.singletonList("1"));
+
+    List<Message> result = bridge.sendMessage(instance, INTEGRATION_USER, message);
+
+    assertEquals(1, result.size());
+    assertEquals(message, result.get(0));
+  }
+
+  @Test
+  public void testSendMessageConnectivityExceptionDeadLetter() throws RemoteApiException {
+    Message message = new Message();
+    ProcessingException exception = new ProcessingException(new ConnectException());
+
+    doThrow(exception).when(streamService).postMessage(INTEGRATION_USER, "stream1", message);
+
+    IntegrationInstance instance = new IntegrationInstance();
+    instance.setConfigurationId("57756bca4b54433738037005");
+    instance.setInstanceId("1234");
+    instance.setOptionalProperties(OPTIONAL_PROPERTIES);
+
+    when(deadLetterService.register(instance, INTEGRATION_USER,
+        Arrays.asList("stream1", "stream2"), message, exception)).thenReturn(
+        Arrays.asList("1", "2"));
+
+    List<Message> result = bridge.sendMessage(instance, INTEGRATION_USER, message);
+
+    assertTrue(result.isEmpty());
+    verify(streamService, never()).postMessage(INTEGRATION_USER, "stream2", message);
+  }
+
+  @Test
+  public void testSendMessageForbiddenDiscardsDeadLetters() throws RemoteApiException {
+    Message message = new Message();
+    RemoteApiException unavailable = new RemoteApiException(503, "Service Unavailable");
+    RemoteApiException forbidden = new RemoteApiException(403, "Forbidden");
+
+    doThrow(unavailable).when(streamService).postMessage(INTEGRATION_USER, "stream1", message);
+    doThrow(forbidden).when(streamService).postMessage(INTEGRATION_USER, "stream2", message);
+
+    IntegrationInstance instance = new IntegrationInstance();
+    instance.setConfigurationId("57756bca4b54433738037005");
+    instance.setInstanceId("1234");
+    instance.setOptionalProperties(OPTIONAL_PROPERTIES);
+
+    List<String> deadLetters = Collections.singletonList("1");
+
+    when(deadLetterService.register(instance, INTEGRATION_USER,
+        Collections.singletonList("stream1"), message, unavailable)).thenReturn(deadLetters);
+
+    try {
+      bridge.sendMessage(instance, INTEGRATION_USER, message);
+      fail();
+    } catch (RemoteApiException e) {
+      assertEquals(Response.Status.INTERNAL_SERVER_ERROR.getStatusCode(), e.getCode());
+    }
+
+    // The originating system will retry, so the stored stream must not be posted again
+    verify(deadLetterService).discard(deadLetters);
+  }
+
   @Test
   public void testGetIntegrationById() {
     Integration integration = new NullIntegration(null, null, null, null, null);
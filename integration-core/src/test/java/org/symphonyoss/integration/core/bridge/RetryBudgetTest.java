@@ -0,0 +1,76 @@
+/**
+ * Copyright 2016-2017 Symphony Integrations - Symphony LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.symphonyoss.integration.core.bridge;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link RetryBudget}
+ */
+public class RetryBudgetTest {
+
+  @Test
+  public void testInitialBalance() {
+    RetryBudget budget = new RetryBudget(0.1, 2);
+
+    assertEquals(2, budget.getAvailable());
+    assertTrue(budget.tryWithdraw());
+    assertTrue(budget.tryWithdraw());
+    assertFalse(budget.tryWithdraw());
+  }
+
+  @Test
+  public void testDepositRatio() {
+    RetryBudget budget = new RetryBudget(0.1, 0);
+
+    assertFalse(budget.tryWithdraw());
+
+    budget = new RetryBudget(0.1, 5);
+
+    while (budget.tryWithdraw()) {
+      // drain the initial balance
+    }
+
+    for (int i = 0; i < 9; i++) {
+      budget.deposit();
+    }
+
+    assertFalse(budget.tryWithdraw());
+
+    budget.deposit();
+
+    assertTrue(budget.tryWithdraw());
+    assertFalse(budget.tryWithdraw());
+  }
+
+  @Test
+  public void testCapacity() {
+    RetryBudget budget = new RetryBudget(1.0, 3);
+
+    for (int i = 0; i < 100; i++) {
+      budget.deposit();
+    }
+
+    assertEquals(3, budget.getAvailable());
+  }
+
+}
@@ -18,24 +18,29 @@ package org.symphonyoss.integration.core.bridge;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.symphonyoss.integration.authentication.AuthenticationToken.VOID_KM_TOKEN;
 import static org.symphonyoss.integration.authentication.AuthenticationToken.VOID_SESSION_TOKEN;
+import static org.symphonyoss.integration.metrics.IntegrationMetricsConstants.BASE_METRIC_NAME;
 
+import com.codahale.metrics.MetricRegistry;
 import org.apache.commons.lang3.StringUtils;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
-import org.mockito.Spy;
 import org.mockito.internal.util.reflection.Whitebox;
 import org.mockito.runners.MockitoJUnitRunner;
-import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
 import org.symphonyoss.integration.agent.api.client.AgentApiClient;
-import org.symphonyoss.integration.agent.api.client.MessageApiClient;
 import org.symphonyoss.integration.agent.api.client.V2MessageApiClient;
 import org.symphonyoss.integration.agent.api.client.V4MessageApiClient;
 import org.symphonyoss.integration.authentication.AuthenticationProxy;
@@ -50,10 +55,11 @@ import org.symphonyoss.integration.model.stream.Stream;
 import org.symphonyoss.integration.model.stream.StreamType;
 import org.symphonyoss.integration.pod.api.client.StreamApiClient;
 
+import java.net.ConnectException;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+
+import javax.ws.rs.ProcessingException;
 
 /**
  * Test class responsible to test the flows in the Stream Service.
@@ -75,6 +81,21 @@ public class StreamServiceTest {
 
   private static final String AGENT_API_V3 = "1.46.0";
 
+  private static final String AGENT_API_V3_PATCH = "1.46.1";
+
+  private static final String V1_POSTS_METRIC =
+      MetricRegistry.name(BASE_METRIC_NAME, "agent.messages", "messageML", "v1", "api", "v2");
+
+  private static final String V2_POSTS_METRIC =
+      MetricRegistry.name(BASE_METRIC_NAME, "agent.messages", "messageML", "v2", "api", "v4");
+
+  private static final String RETRY_ATTEMPTS_METRIC =
+      MetricRegistry.name(BASE_METRIC_NAME, "agent.messages", "retry", INTEGRATION_USER,
+          "attempts");
+
+  private static final String RETRY_BUDGET_EXHAUSTED_METRIC =
+      MetricRegistry.name(BASE_METRIC_NAME, "agent.messages", "retry", "budget", "exhausted");
+
   @Mock
   private AuthenticationProxy authenticationProxy;
 
@@ -82,14 +103,11 @@ public class StreamServiceTest {
   private AgentApiClient agentV2ApiClient;
 
   @Mock
-  private AgentApiClient agentV3ApiClient;
+  private AgentApiClient agentV4ApiClient;
 
   @Mock
   private StreamApiClient streamsApi;
 
-  @Spy
-  private HashMap<MessageMLVersion, MessageApiClient> apiResolver;
-
   @InjectMocks
   private StreamServiceImpl streamService = new StreamServiceImpl();
 
@@ -99,21 +117,29 @@ public class StreamServiceTest {
   @Mock
   private LogMessageSource logMessage;
 
+  @Mock
+  private Environment environment;
+
   @Before
   public void init() {
-    apiResolver.put(MessageMLVersion.V1, messageApiClient);
-    apiResolver.put(MessageMLVersion.V2, messageApiClient);
+    streamService.initApiRouting(messageApiClient);
+
+    when(environment.getProperty("integration.bridge.retry.initial-backoff", Long.class))
+        .thenReturn(0L);
   }
 
   @Test
   public void testInit() {
-    apiResolver.clear();
     streamService.init();
 
-    assertNotNull(apiResolver);
-    assertEquals(2, apiResolver.size());
-    assertTrue(apiResolver.containsKey(MessageMLVersion.V1));
-    assertTrue(apiResolver.containsKey(MessageMLVersion.V2));
+    MessageApiRouting routing = streamService.getApiRouting();
+
+    assertNotNull(routing);
+    assertNull(routing.getAgentVersion());
+    assertEquals(V2MessageApiClient.class, routing.getRoute(MessageMLVersion.V1).getClient().getClass());
+    assertSame(routing.getRoute(MessageMLVersion.V1).getClient(),
+        routing.getRoute(MessageMLVersion.V2).getClient());
+    assertNull(routing.getRoute(null));
   }
 
   @Test
@@ -243,11 +269,14 @@ public class StreamServiceTest {
 
   @Test
   public void testHandleServiceVersionUpdatedWithoutServiceName() {
+    MessageApiRouting routing = streamService.getApiRouting();
+
     streamService.handleServiceVersionUpdatedEvent(
         new ServiceVersionUpdatedEventData(StringUtils.EMPTY, StringUtils.EMPTY, StringUtils.EMPTY));
 
-    assertEquals(messageApiClient, apiResolver.get(MessageMLVersion.V1));
-    assertEquals(messageApiClient, apiResolver.get(MessageMLVersion.V2));
+    assertSame(routing, streamService.getApiRouting());
+    assertEquals(messageApiClient, routing.getRoute(MessageMLVersion.V1).getClient());
+    assertEquals(messageApiClient, routing.getRoute(MessageMLVersion.V2).getClient());
   }
 
   @Test
@@ -255,8 +284,12 @@ public class StreamServiceTest {
     streamService.handleServiceVersionUpdatedEvent(
         new ServiceVersionUpdatedEventData(AGENT_SERVICE_NAME, StringUtils.EMPTY, AGENT_API_V2));
 
-    assertEquals(messageApiClient, apiResolver.get(MessageMLVersion.V1));
-    assertEquals(messageApiClient, apiResolver.get(MessageMLVersion.V2));
+    MessageApiRouting routing = streamService.getApiRouting();
+
+    assertEquals(AGENT_API_V2, routing.getAgentVersion());
+    assertEquals(messageApiClient, routing.getRoute(MessageMLVersion.V1).getClient());
+    assertEquals(messageApiClient, routing.getRoute(MessageMLVersion.V2).getClient());
+    assertEquals("v2", routing.getRoute(MessageMLVersion.V2).getApiVersion());
   }
 
   @Test
@@ -264,7 +297,182 @@ public class StreamServiceTest {
     streamService.handleServiceVersionUpdatedEvent(
         new ServiceVersionUpdatedEventData(AGENT_SERVICE_NAME, StringUtils.EMPTY, AGENT_API_V3));
 
-    assertEquals(messageApiClient, apiResolver.get(MessageMLVersion.V1));
-    assertEquals(V4MessageApiClient.class, apiResolver.get(MessageMLVersion.V2).getClass());
+    MessageApiRouting routing = streamService.getApiRouting();
+
+    assertEquals(AGENT_API_V3, routing.getAgentVersion());
+    assertEquals(messageApiClient, routing.getRoute(MessageMLVersion.V1).getClient());
+    assertEquals(V4MessageApiClient.class, routing.getRoute(MessageMLVersion.V2).getClient().getClass());
+    assertEquals("v4", routing.getRoute(MessageMLVersion.V2).getApiVersion());
+  }
+
+  @Test
+  public void testHandleServiceVersionUpdatedSameVersion() {
+    streamService.handleServiceVersionUpdatedEvent(
+        new ServiceVersionUpdatedEventData(AGENT_SERVICE_NAME, StringUtils.EMPTY, AGENT_API_V3));
+
+    MessageApiRouting routing = streamService.getApiRouting();
+
+    streamService.handleServiceVersionUpdatedEvent(
+        new ServiceVersionUpdatedEventData(AGENT_SERVICE_NAME, AGENT_API_V3, AGENT_API_V3));
+
+    assertSame(routing, streamService.getApiRouting());
+
+    streamService.handleServiceVersionUpdatedEvent(
+        new ServiceVersionUpdatedEventData(AGENT_SERVICE_NAME, AGENT_API_V3, AGENT_API_V3_PATCH));
+
+    MessageApiRouting patchRouting = streamService.getApiRouting();
+
+    assertEquals(AGENT_API_V3_PATCH, patchRouting.getAgentVersion());
+    assertSame(routing.getRoute(MessageMLVersion.V2).getClient(),
+        patchRouting.getRoute(MessageMLVersion.V2).getClient());
+  }
+
+  @Test
+  public void testHandleServiceVersionUpdatedDowngrade() {
+    streamService.handleServiceVersionUpdatedEvent(
+        new ServiceVersionUpdatedEventData(AGENT_SERVICE_NAME, StringUtils.EMPTY, AGENT_API_V3));
+    streamService.handleServiceVersionUpdatedEvent(
+        new ServiceVersionUpdatedEventData(AGENT_SERVICE_NAME, AGENT_API_V3, AGENT_API_V2));
+
+    MessageApiRouting routing = streamService.getApiRouting();
+
+    assertEquals(AGENT_API_V2, routing.getAgentVersion());
+    assertEquals(messageApiClient, routing.getRoute(MessageMLVersion.V2).getClient());
+    assertEquals("v2", routing.getRoute(MessageMLVersion.V2).getApiVersion());
+  }
+
+  @Test
+  public void testPostMessageMetrics() throws RemoteApiException {
+    MetricRegistry metricRegistry = new MetricRegistry();
+    Whitebox.setInternalState(streamService, "metricsRegistry", metricRegistry);
+
+    streamService.initApiRouting(messageApiClient);
+    streamService.handleServiceVersionUpdatedEvent(
+        new ServiceVersionUpdatedEventData(AGENT_SERVICE_NAME, StringUtils.EMPTY, AGENT_API_V3));
+
+    Message message = new Message();
+    message.setMessage(StringUtils.EMPTY);
+    message.setVersion(MessageMLVersion.V1);
+
+    when(authenticationProxy.isAuthenticated(INTEGRATION_USER)).thenReturn(true);
+    when(authenticationProxy.getToken(INTEGRATION_USER)).thenReturn(
+        AuthenticationToken.VOID_AUTH_TOKEN);
+
+    streamService.postMessage(INTEGRATION_USER, STREAM, message);
+    streamService.postMessage(INTEGRATION_USER, STREAM, message);
+
+    assertEquals(2, metricRegistry.meter(V1_POSTS_METRIC).getCount());
+    assertEquals(0, metricRegistry.meter(V2_POSTS_METRIC).getCount());
+  }
+
+  @Test
+  public void testPostMessageRetryServiceUnavailable() throws RemoteApiException {
+    Message message = mockPostMessage();
+
+    when(messageApiClient.postMessage(VOID_SESSION_TOKEN, VOID_KM_TOKEN, STREAM, message))
+        .thenThrow(new RemoteApiException(503, "Service Unavailable"))
+        .thenThrow(new ProcessingException(new ConnectException()))
+        .thenReturn(message);
+
+    Message result = streamService.postMessage(INTEGRATION_USER, STREAM, message);
+    assertEquals(message, result);
+
+    verify(messageApiClient, times(3)).postMessage(VOID_SESSION_TOKEN, VOID_KM_TOKEN, STREAM,
+        message);
+  }
+
+  @Test
+  public void testPostMessageRetryMaxAttempts() throws RemoteApiException {
+    Message message = mockPostMessage();
+    RemoteApiException exception = new RemoteApiException(502, "Bad Gateway");
+
+    doThrow(exception).when(messageApiClient)
+        .postMessage(VOID_SESSION_TOKEN, VOID_KM_TOKEN, STREAM, message);
+
+    try {
+      streamService.postMessage(INTEGRATION_USER, STREAM, message);
+      fail();
+    } catch (RemoteApiException e) {
+      assertSame(exception, e);
+    }
+
+    verify(messageApiClient, times(3)).postMessage(VOID_SESSION_TOKEN, VOID_KM_TOKEN, STREAM,
+        message);
+  }
+
+  @Test
+  public void testPostMessageNotRetryable() throws RemoteApiException {
+    Message message = mockPostMessage();
+
+    doThrow(new RemoteApiException(400, "Bad Request")).when(messageApiClient)
+        .postMessage(VOID_SESSION_TOKEN, VOID_KM_TOKEN, STREAM, message);
+
+    try {
+      streamService.postMessage(INTEGRATION_USER, STREAM, message);
+      fail();
+    } catch (RemoteApiException e) {
+      assertEquals(400, e.getCode());
+    }
+
+    verify(messageApiClient, times(1)).postMessage(VOID_SESSION_TOKEN, VOID_KM_TOKEN, STREAM,
+        message);
+  }
+
+  @Test
+  public void testPostMessageIntegrationRetryPolicy() throws RemoteApiException {
+    when(environment.getProperty("integration.bridge.retry." + INTEGRATION_USER + ".max-attempts",
+        Integer.class)).thenReturn(1);
+
+    Message message = mockPostMessage();
+
+    doThrow(new RemoteApiException(503, "Service Unavailable")).when(messageApiClient)
+        .postMessage(VOID_SESSION_TOKEN, VOID_KM_TOKEN, STREAM, message);
+
+    try {
+      streamService.postMessage(INTEGRATION_USER, STREAM, message);
+      fail();
+    } catch (RemoteApiException e) {
+      assertEquals(503, e.getCode());
+    }
+
+    verify(messageApiClient, times(1)).postMessage(VOID_SESSION_TOKEN, VOID_KM_TOKEN, STREAM,
+        message);
+  }
+
+  @Test
+  public void testPostMessageRetryBudgetExhausted() throws RemoteApiException {
+    MetricRegistry metricRegistry = new MetricRegistry();
+    Whitebox.setInternalState(streamService, "metricsRegistry", metricRegistry);
+    Whitebox.setInternalState(streamService, "retryBudget", new RetryBudget(0, 1));
+
+    Message message = mockPostMessage();
+
+    doThrow(new RemoteApiException(503, "Service Unavailable")).when(messageApiClient)
+        .postMessage(VOID_SESSION_TOKEN, VOID_KM_TOKEN, STREAM, message);
+
+    try {
+      streamService.postMessage(INTEGRATION_USER, STREAM, message);
+      fail();
+    } catch (RemoteApiException e) {
+      assertEquals(503, e.getCode());
+    }
+
+    verify(messageApiClient, times(2)).postMessage(VOID_SESSION_TOKEN, VOID_KM_TOKEN, STREAM,
+        message);
+
+    assertEquals(1, metricRegistry.meter(RETRY_ATTEMPTS_METRIC).getCount());
+    assertEquals(1, metricRegistry.meter(RETRY_BUDGET_EXHAUSTED_METRIC).getCount());
+  }
+
+  private Message mockPostMessage() {
+    Message message = new Message();
+    message.setMessage(StringUtils.EMPTY);
+    message.setVersion(MessageMLVersion.V1);
+
+    when(authenticationProxy.isAuthenticated(INTEGRATION_USER)).thenReturn(true);
+    when(authenticationProxy.getToken(INTEGRATION_USER)).thenReturn(
+        AuthenticationToken.VOID_AUTH_TOKEN);
+
+    return message;
   }
 }
@@ -0,0 +1,297 @@
+/**
+ * Copyright 2016-2017 Symphony Integrations - Symphony LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.symphonyoss.integration.core.deadletter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Matchers;
+import org.mockito.Mock;
+import org.mockito.internal.util.reflection.Whitebox;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.symphonyoss.integration.core.deadletter.DeadLetterService.ReplayResult;
+import org.symphonyoss.integration.exception.RemoteApiException;
+import org.symphonyoss.integration.logging.LogMessageSource;
+import org.symphonyoss.integration.model.config.IntegrationInstance;
+import org.symphonyoss.integration.model.message.Message;
+import org.symphonyoss.integration.service.StreamService;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.ws.rs.ProcessingException;
+
+/**
+ * Unit tests for {@link DeadLetterService}
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class DeadLetterServiceTest {
+
+  private static final String INTEGRATION_USER = "jirawebhook";
+
+  private static final String CONFIGURATION_ID = "57756bca4b54433738037005";
+
+  private static final String INSTANCE_ID = "1234";
+
+  private static final String STREAM = "stream1";
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Mock
+  private StreamService streamService;
+
+  @Mock
+  private LogMessageSource logMessage;
+
+  @InjectMocks
+  private DeadLetterService service = new DeadLetterService();
+
+  private IntegrationInstance instance;
+
+  private Message message;
+
+  @Before
+  public void init() throws IOException {
+    Whitebox.setInternalState(service, "directory", folder.getRoot().getAbsolutePath());
+    Whitebox.setInternalState(service, "maxEntries", 3);
+    Whitebox.setInternalState(service, "maxAttempts", 2);
+    Whitebox.setInternalState(service, "initialBackoff", 0L);
+    Whitebox.setInternalState(service, "maxBackoff", 0L);
+    Whitebox.setInternalState(service, "redriveInterval", 60000L);
+
+    service.init();
+
+    instance = new IntegrationInstance();
+    instance.setConfigurationId(CONFIGURATION_ID);
+    instance.setInstanceId(INSTANCE_ID);
+
+    message = new Message();
+    message.setMessage("<messageML>test</messageML>");
+  }
+
+  @After
+  public void destroy() {
+    service.destroy();
+  }
+
+  @Test
+  public void testDisabled() throws IOException {
+    DeadLetterService disabled = new DeadLetterService();
+    disabled.init();
+
+    assertFalse(disabled.isEnabled());
+    assertTrue(disabled.register(instance, INTEGRATION_USER, Collections.singletonList(STREAM),
+        message, new RemoteApiException(503, "Service Unavailable")).isEmpty());
+    assertTrue(disabled.list(null, null).isEmpty());
+  }
+
+  @Test
+  public void testRegisterOnlyRetryableFailures() {
+    assertTrue(service.register(instance, INTEGRATION_USER, Collections.singletonList(STREAM),
+        message, new RemoteApiException(400, "Bad Request")).isEmpty());
+    assertTrue(service.register(instance, INTEGRATION_USER, Collections.singletonList(STREAM),
+        message, new RemoteApiException(403, "Forbidden")).isEmpty());
+    assertTrue(service.register(instance, INTEGRATION_USER, Collections.singletonList(STREAM),
+        message, new RemoteApiException(500, "Internal Server Error")).isEmpty());
+    assertTrue(service.register(instance, INTEGRATION_USER, Collections.singletonList(STREAM),
+        message, new ProcessingException(new SocketTimeoutException("Read timed out"))).isEmpty());
+    assertTrue(service.list(null, null).isEmpty());
+
+    assertEquals(1, service.register(instance, INTEGRATION_USER,
+        Collections.singletonList(STREAM), message,
+        new RemoteApiException(503, "Service Unavailable")).size());
+    assertEquals(1, service.register(instance, INTEGRATION_USER,
+        Collections.singletonList("stream2"), message,
+        new ProcessingException(new ConnectException())).size());
+
+    List<DeadLetter> deadLetters = service.list(CONFIGURATION_ID, INSTANCE_ID);
+    assertEquals(2, deadLetters.size());
+    assertEquals(INTEGRATION_USER, deadLetters.get(0).getIntegrationUser());
+    assertTrue(service.list(CONFIGURATION_ID, "5678").isEmpty());
+  }
+
+  @Test
+  public void testDiscard() throws RemoteApiException {
+    List<String> ids = service.register(instance, INTEGRATION_USER,
+        Arrays.asList("stream1", "stream2"), message,
+        new RemoteApiException(503, "Service Unavailable"));
+
+    assertEquals(2, ids.size());
+
+    service.discard(ids);
+    assertTrue(service.list(null, null).isEmpty());
+
+    service.redrive();
+    verify(streamService, never()).postMessage(Matchers.anyString(), Matchers.anyString(),
+        Matchers.any(Message.class));
+  }
+
+  @Test
+  public void testStoreFull() {
+    assertTrue(service.register(instance, INTEGRATION_USER,
+        Arrays.asList("stream1", "stream2", "stream3", "stream4"), message,
+        new RemoteApiException(503, "Service Unavailable")).isEmpty());
+    assertTrue(service.list(null, null).isEmpty());
+  }
+
+  @Test
+  public void testRedriveDelivered() throws RemoteApiException, IOException {
+    service.register(instance, INTEGRATION_USER, Arrays.asList("stream1", "stream2"), message,
+        new RemoteApiException(503, "Service Unavailable"));
+
+    service.redrive();
+
+    verify(streamService, times(1)).postMessage(Matchers.eq(INTEGRATION_USER),
+        Matchers.eq("stream1"), Matchers.any(Message.class));
+    verify(streamService, times(1)).postMessage(Matchers.eq(INTEGRATION_USER),
+        Matchers.eq("stream2"), Matchers.any(Message.class));
+    assertTrue(service.list(null, null).isEmpty());
+
+    // The store must be empty after a restart
+    service.destroy();
+    service.init();
+    assertTrue(service.list(null, null).isEmpty());
+  }
+
+  @Test
+  public void testRedriveParked() throws RemoteApiException {
+    service.register(instance, INTEGRATION_USER, Collections.singletonList(STREAM), message,
+        new RemoteApiException(503, "Service Unavailable"));
+
+    doThrow(new RemoteApiException(503, "Service Unavailable")).when(streamService)
+        .postMessage(Matchers.eq(INTEGRATION_USER), Matchers.eq(STREAM),
+            Matchers.any(Message.class));
+
+    service.redrive();
+
+    DeadLetter deadLetter = service.list(null, null).get(0);
+    assertEquals(1, deadLetter.getAttempts());
+    assertFalse(deadLetter.isParked());
+
+    service.redrive();
+
+    deadLetter = service.list(null, null).get(0);
+    assertEquals(2, deadLetter.getAttempts());
+    assertTrue(deadLetter.isParked());
+
+    // Parked dead letters are no longer redriven
+    service.redrive();
+    verify(streamService, times(2)).postMessage(Matchers.eq(INTEGRATION_USER),
+        Matchers.eq(STREAM), Matchers.any(Message.class));
+  }
+
+  @Test
+  public void testRedrivePermanentFailure() throws RemoteApiException {
+    service.register(instance, INTEGRATION_USER, Collections.singletonList(STREAM), message,
+        new RemoteApiException(503, "Service Unavailable"));
+
+    doThrow(new RemoteApiException(403, "Forbidden")).when(streamService)
+        .postMessage(Matchers.eq(INTEGRATION_USER), Matchers.eq(STREAM),
+            Matchers.any(Message.class));
+
+    service.redrive();
+
+    assertTrue(service.list(null, null).get(0).isParked());
+  }
+
+  @Test
+  public void testReplay() throws RemoteApiException {
+    service.register(instance, INTEGRATION_USER, Collections.singletonList(STREAM), message,
+        new RemoteApiException(503, "Service Unavailable"));
+
+    String id = service.list(null, null).get(0).getId();
+
+    when(streamService.postMessage(Matchers.eq(INTEGRATION_USER), Matchers.eq(STREAM),
+        Matchers.any(Message.class))).thenThrow(new RemoteApiException(502, "Bad Gateway"))
+        .thenReturn(message);
+
+    assertEquals(ReplayResult.FAILED, service.replay(id));
+    assertEquals(1, service.get(id).getAttempts());
+
+    assertEquals(ReplayResult.DELIVERED, service.replay(id));
+    assertNull(service.get(id));
+
+    assertEquals(ReplayResult.NOT_FOUND, service.replay(id));
+  }
+
+  @Test
+  public void testRequeue() throws RemoteApiException {
+    service.register(instance, INTEGRATION_USER, Collections.singletonList(STREAM), message,
+        new RemoteApiException(503, "Service Unavailable"));
+
+    when(streamService.postMessage(Matchers.eq(INTEGRATION_USER), Matchers.eq(STREAM),
+        Matchers.any(Message.class))).thenThrow(new RemoteApiException(403, "Forbidden"))
+        .thenReturn(message);
+
+    service.redrive();
+    assertTrue(service.list(null, null).get(0).isParked());
+
+    assertEquals(0, service.requeue("other", null));
+    assertEquals(1, service.requeue(CONFIGURATION_ID, INSTANCE_ID));
+
+    // Posted by the re-driver, not by the caller
+    verify(streamService, timeout(5000).times(2)).postMessage(Matchers.eq(INTEGRATION_USER),
+        Matchers.eq(STREAM), Matchers.any(Message.class));
+  }
+
+  @Test
+  public void testPurge() throws RemoteApiException {
+    service.register(instance, INTEGRATION_USER, Arrays.asList("stream1", "stream2"), message,
+        new RemoteApiException(503, "Service Unavailable"));
+
+    IntegrationInstance other = new IntegrationInstance();
+    other.setConfigurationId(CONFIGURATION_ID);
+    other.setInstanceId("5678");
+
+    service.register(other, INTEGRATION_USER, Collections.singletonList("stream3"), message,
+        new RemoteApiException(503, "Service Unavailable"));
+
+    String id = service.list(CONFIGURATION_ID, "5678").get(0).getId();
+
+    assertTrue(service.purge(id));
+    assertFalse(service.purge(id));
+
+    assertEquals(2, service.purge(CONFIGURATION_ID, INSTANCE_ID));
+    assertTrue(service.list(null, null).isEmpty());
+
+    service.redrive();
+    verify(streamService, never()).postMessage(Matchers.anyString(), Matchers.anyString(),
+        Matchers.any(Message.class));
+  }
+
+}
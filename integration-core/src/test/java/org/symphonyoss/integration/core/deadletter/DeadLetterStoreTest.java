@@ -0,0 +1,141 @@
+/**
+ * Copyright 2016-2017 Symphony Integrations - Symphony LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.symphonyoss.integration.core.deadletter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.symphonyoss.integration.model.message.Message;
+import org.symphonyoss.integration.model.message.MessageMLVersion;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Unit tests for {@link DeadLetterStore}
+ */
+public class DeadLetterStoreTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private Path directory;
+
+  private ObjectMapper mapper = new ObjectMapper();
+
+  @Before
+  public void init() throws IOException {
+    directory = folder.newFolder("deadLetters").toPath();
+    mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+  }
+
+  @Test
+  public void testSaveAndReload() throws IOException {
+    DeadLetterStore store = new DeadLetterStore(directory, mapper);
+    store.save(mockDeadLetter("2", 2L));
+    store.save(mockDeadLetter("1", 1L));
+
+    DeadLetterStore reloaded = new DeadLetterStore(directory, mapper);
+    List<DeadLetter> deadLetters = reloaded.list();
+
+    assertEquals(2, reloaded.size());
+    assertEquals("1", deadLetters.get(0).getId());
+    assertEquals("2", deadLetters.get(1).getId());
+    assertEquals("stream1", deadLetters.get(0).getStream());
+    assertEquals("<messageML>test</messageML>", deadLetters.get(0).getMessage().getMessage());
+    assertEquals(MessageMLVersion.V1, deadLetters.get(0).getMessage().getVersion());
+  }
+
+  @Test
+  public void testUpdate() throws IOException {
+    DeadLetterStore store = new DeadLetterStore(directory, mapper);
+
+    DeadLetter deadLetter = mockDeadLetter("1", 1L);
+    store.save(deadLetter);
+
+    deadLetter.setAttempts(3);
+    deadLetter.setParked(true);
+    store.save(deadLetter);
+
+    DeadLetter reloaded = new DeadLetterStore(directory, mapper).get("1");
+
+    assertEquals(3, reloaded.getAttempts());
+    assertTrue(reloaded.isParked());
+  }
+
+  @Test
+  public void testDelete() throws IOException {
+    DeadLetterStore store = new DeadLetterStore(directory, mapper);
+    store.save(mockDeadLetter("1", 1L));
+
+    assertTrue(store.delete("1"));
+    assertFalse(store.delete("1"));
+    assertNull(store.get("1"));
+
+    assertEquals(0, new DeadLetterStore(directory, mapper).size());
+  }
+
+  @Test
+  public void testDeleteUnknownFile() throws IOException {
+    Path other = folder.newFile("other.json").toPath();
+
+    DeadLetterStore store = new DeadLetterStore(directory, mapper);
+
+    assertFalse(store.delete("../other"));
+    assertTrue(Files.exists(other));
+  }
+
+  @Test
+  public void testSkipUnreadableFile() throws IOException {
+    Files.write(directory.resolve("broken.json"), "{ \"id\": ".getBytes(StandardCharsets.UTF_8));
+
+    DeadLetterStore store = new DeadLetterStore(directory, mapper);
+    store.save(mockDeadLetter("1", 1L));
+
+    assertEquals(1, new DeadLetterStore(directory, mapper).size());
+  }
+
+  private DeadLetter mockDeadLetter(String id, long createdAt) {
+    Message message = new Message();
+    message.setMessage("<messageML>test</messageML>");
+    message.setVersion(MessageMLVersion.V1);
+
+    DeadLetter deadLetter = new DeadLetter();
+    deadLetter.setId(id);
+    deadLetter.setIntegrationUser("jirawebhook");
+    deadLetter.setConfigurationId("57756bca4b54433738037005");
+    deadLetter.setInstanceId("1234");
+    deadLetter.setStream("stream" + id);
+    deadLetter.setMessage(message);
+    deadLetter.setCreatedAt(createdAt);
+
+    return deadLetter;
+  }
+
+}
@@ -0,0 +1,87 @@
+/**
+ * Copyright 2016-2017 Symphony Integrations - Symphony LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.symphonyoss.integration.core.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.symphonyoss.integration.entity.model.User;
+
+/**
+ * Unit tests for {@link UserDirectoryCache}
+ */
+public class UserDirectoryCacheTest {
+
+  private static final Long USER_ID = 123L;
+
+  private static final String USER_NAME = "symphony";
+
+  private static final String USER_EMAIL = "symphony@symphony.com";
+
+  @Test
+  public void testSharedEntry() {
+    UserDirectoryCache cache = new UserDirectoryCache(60000, 60000, 10);
+    cache.put(mockUser());
+
+    UserDirectoryCache.Entry entry = cache.getById(USER_ID);
+    assertEquals(USER_NAME, entry.getUser().getUsername());
+    assertSame(entry, cache.getByUsername("Symphony"));
+    assertSame(entry, cache.getByEmail(USER_EMAIL));
+  }
+
+  @Test
+  public void testMissingEntry() {
+    UserDirectoryCache cache = new UserDirectoryCache(60000, 60000, 10);
+    cache.putMissingEmail(USER_EMAIL);
+
+    assertTrue(cache.getByEmail(USER_EMAIL).isMissing());
+    assertNull(cache.getById(USER_ID));
+  }
+
+  @Test
+  public void testExpiredEntry() {
+    UserDirectoryCache cache = new UserDirectoryCache(0, 0, 10);
+    cache.put(mockUser());
+    cache.putMissingId(456L);
+
+    assertNull(cache.getById(USER_ID));
+    assertNull(cache.getById(456L));
+  }
+
+  @Test
+  public void testMaxEntries() {
+    UserDirectoryCache cache = new UserDirectoryCache(60000, 60000, 2);
+    cache.putMissingId(1L);
+    cache.putMissingId(2L);
+    cache.putMissingId(3L);
+
+    assertNull(cache.getById(1L));
+    assertTrue(cache.getById(3L).isMissing());
+  }
+
+  private User mockUser() {
+    User user = new User();
+    user.setId(USER_ID);
+    user.setUserName(USER_NAME);
+    user.setEmailAddress(USER_EMAIL);
+    return user;
+  }
+
+}
@@ -21,6 +21,9 @@ import static org.junit.Assert.assertNull;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -41,6 +44,9 @@ import org.symphonyoss.integration.pod.api.client.UserApiClient;
 import org.symphonyoss.integration.service.IntegrationBridge;
 import org.symphonyoss.integration.service.UserService;
 
+import java.util.Arrays;
+import java.util.Map;
+
 /**
  * Class with unit tests for {@link UserService}
  * Created by cmarcondes on 11/7/16.
@@ -174,6 +180,64 @@ public class UserServiceTest {
     assertNull(user);
   }
 
+  @Test
+  public void testUserCachedByAllKeys() throws RemoteApiException {
+    prepareToReturnUser();
+
+    userService.getUserByUserId(null, USER_ID);
+
+    assertEquals(USER_ID, userService.getUserByUserName(null, USER_NAME).getId());
+    assertEquals(USER_ID, userService.getUserByEmail(null, USER_EMAIL.toUpperCase()).getId());
+    assertEquals(USER_EMAIL, userService.getUserByUserId(null, USER_ID).getEmailAddress());
+
+    verify(usersApi, times(1)).getUserById(SESSION_TOKEN, USER_ID);
+    verify(usersApi, never()).getUserByUsername(anyString(), anyString());
+    verify(usersApi, never()).getUserByEmail(anyString(), anyString());
+  }
+
+  @Test
+  public void testUserNotFoundCached() throws RemoteApiException {
+    doThrow(new RemoteApiException(404, "not found")).when(usersApi)
+        .getUserById(SESSION_TOKEN, USER_ID);
+
+    assertNull(userService.getUserByUserId(null, USER_ID));
+    assertNull(userService.getUserByUserId(null, USER_ID));
+
+    verify(usersApi, times(1)).getUserById(SESSION_TOKEN, USER_ID);
+  }
+
+  @Test
+  public void testUnexpectedFailureNotCached() throws RemoteApiException {
+    doThrow(new RemoteApiException(500, "unavailable")).when(usersApi)
+        .getUserById(SESSION_TOKEN, USER_ID);
+
+    assertNull(userService.getUserByUserId(null, USER_ID));
+    assertNull(userService.getUserByUserId(null, USER_ID));
+
+    verify(usersApi, times(2)).getUserById(SESSION_TOKEN, USER_ID);
+  }
+
+  @Test
+  public void testGetUsers() throws RemoteApiException {
+    prepareToReturnUser();
+
+    Long missingUserId = 456L;
+    doThrow(new RemoteApiException(404, "not found")).when(usersApi)
+        .getUserById(SESSION_TOKEN, missingUserId);
+
+    Map<Long, User> result =
+        userService.getUsers(null, Arrays.asList(USER_ID, missingUserId, USER_ID, null));
+
+    assertEquals(1, result.size());
+    assertEquals(USER_NAME, result.get(USER_ID).getUsername());
+
+    result = userService.getUsers(null, Arrays.asList(USER_ID, missingUserId));
+    assertEquals(1, result.size());
+
+    verify(usersApi, times(1)).getUserById(SESSION_TOKEN, USER_ID);
+    verify(usersApi, times(1)).getUserById(SESSION_TOKEN, missingUserId);
+  }
+
   @Test
   public void testGetBotUserAccountKeyByConfiguration() {
     String userId = String.valueOf(USER_ID);
@@ -19,10 +19,12 @@ package org.symphonyoss.integration.healthcheck;
 import static org.symphonyoss.integration.healthcheck.application.ApplicationsHealthIndicator.APPLICATIONS;
 import static org.symphonyoss.integration.healthcheck.services.CompositeServiceHealthIndicator.SERVICES;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.actuate.health.Health;
 import org.springframework.boot.actuate.health.HealthAggregator;
 import org.springframework.boot.actuate.health.Status;
 import org.springframework.stereotype.Component;
+import org.symphonyoss.integration.authentication.jwt.PodCertificateRefreshStatus;
 import org.symphonyoss.integration.healthcheck.services.IntegrationBridgeService;
 import org.symphonyoss.integration.model.healthcheck.IntegrationHealth;
 
@@ -61,11 +63,19 @@ public class IntegrationBridgeHealthAggregator implements HealthAggregator {
    */
   private static final String MESSAGE = "message";
 
+  /**
+   * Pod certificate refresh failures field
+   */
+  private static final String POD_CERTIFICATE_FAILURES = "podCertificateFailures";
+
   /**
    * Integration Bridge version
    */
   private String bridgeVersion;
 
+  @Autowired(required = false)
+  private PodCertificateRefreshStatus podCertificateRefreshStatus;
+
   public IntegrationBridgeHealthAggregator() {
     this.bridgeVersion = BRIDGE_VERSION == null ? UNKNOWN_VERSION : BRIDGE_VERSION;
   }
@@ -80,10 +90,29 @@ public class IntegrationBridgeHealthAggregator implements HealthAggregator {
     List<IntegrationHealth> appsHealth = getApplicationsHealth(healthApplications);
     Map<String, IntegrationBridgeService> services = getServicesHealth(healthServices);
 
-    return builder.withDetail(VERSION, bridgeVersion)
+    builder.withDetail(VERSION, bridgeVersion)
         .withDetail(SERVICES, services)
-        .withDetail(APPLICATIONS, appsHealth)
-        .build();
+        .withDetail(APPLICATIONS, appsHealth);
+
+    Map<String, String> certificateFailures = getPodCertificateFailures();
+    if (!certificateFailures.isEmpty()) {
+      builder.withDetail(POD_CERTIFICATE_FAILURES, certificateFailures);
+    }
+
+    return builder.build();
+  }
+
+  /**
+   * Retrieves the applications whose latest pod public certificate refresh has failed. These
+   * failures don't change the main status since the previous certificate is still being used.
+   * @return Failure messages per application ID.
+   */
+  private Map<String, String> getPodCertificateFailures() {
+    if (podCertificateRefreshStatus == null) {
+      return new LinkedHashMap<>();
+    }
+
+    return podCertificateRefreshStatus.getPodCertificateRefreshFailures();
   }
 
   /**
@@ -17,6 +17,8 @@
 package org.symphonyoss.integration.healthcheck;
 
 import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
 import static org.symphonyoss.integration.healthcheck.application.ApplicationsHealthIndicator.APPLICATIONS;
 import static org.symphonyoss.integration.healthcheck.services.CompositeServiceHealthIndicator.SERVICES;
 
@@ -24,6 +26,8 @@ import org.junit.Before;
 import org.junit.Test;
 import org.springframework.boot.actuate.health.Health;
 import org.springframework.boot.actuate.health.Status;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.symphonyoss.integration.authentication.jwt.PodCertificateRefreshStatus;
 import org.symphonyoss.integration.healthcheck.services.IntegrationBridgeService;
 import org.symphonyoss.integration.model.healthcheck.IntegrationHealth;
 
@@ -125,6 +129,35 @@ public class IntegrationBridgeHealthAggregatorTest {
     assertEquals(expected, aggregator.aggregate(healths));
   }
 
+  @Test
+  public void testPodCertificateFailures() {
+    Map<String, String> failures = new HashMap<>();
+    failures.put("jiraWebHookIntegration", "Failed to refresh the pod public certificate");
+
+    PodCertificateRefreshStatus refreshStatus = mock(PodCertificateRefreshStatus.class);
+    doReturn(failures).when(refreshStatus).getPodCertificateRefreshFailures();
+    ReflectionTestUtils.setField(aggregator, "podCertificateRefreshStatus", refreshStatus);
+
+    List<IntegrationHealth> appsHealth = mockApplications();
+    Health healthApplications = mockAppsHealth(Status.UP, appsHealth);
+
+    Map<String, IntegrationBridgeService> services = mockServices();
+    Health healthServices = mockServicesHealth(Status.UP, services);
+
+    Map<String, Health> healths = new HashMap<>();
+    healths.put(APPLICATIONS, healthApplications);
+    healths.put(SERVICES, healthServices);
+
+    Health expected = builder.up()
+        .withDetail(MESSAGE, "Success")
+        .withDetail(SERVICES, services)
+        .withDetail(APPLICATIONS, appsHealth)
+        .withDetail("podCertificateFailures", failures)
+        .build();
+
+    assertEquals(expected, aggregator.aggregate(healths));
+  }
+
   private List<IntegrationHealth> mockApplications() {
     List<IntegrationHealth> appsHealth = new ArrayList<>();
 
@@ -40,6 +40,9 @@ import org.symphonyoss.integration.pod.api.model.IntegrationInstanceSubmissionUp
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 
 /**
  * Part of Integration API, holds all endpoints to maintain the integration instances.
@@ -56,6 +59,22 @@ public abstract class BaseIntegrationInstanceApiClient extends BasePodApiClient
   public static final String ACTIVATE_INSTANCE = "activateInstance";
   public static final String DEACTIVATE_INSTANCE = "deactivateInstance";
   public static final String UPDATE_INSTANCE = "updateInstance";
+  public static final int DEFAULT_PAGE_SIZE = 100;
+  public static final int DEFAULT_PAGES_IN_FLIGHT = 2;
+
+  /**
+   * Shared by all the clients to request the pages of integration instances in background
+   */
+  private static final ExecutorService PREFETCH_EXECUTOR =
+      Executors.newCachedThreadPool(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+          Thread thread = new Thread(runnable, "integration-instance-prefetch");
+          thread.setDaemon(true);
+          return thread;
+        }
+      });
+
   protected HttpApiClient apiClient;
 
   public BaseIntegrationInstanceApiClient(HttpApiClient apiClient, LogMessageSource logMessage) {
@@ -134,6 +153,43 @@ public abstract class BaseIntegrationInstanceApiClient extends BasePodApiClient
     return apiClient.doGet(path, headerParams, queryParams, IntegrationInstanceList.class);
   }
 
+  /**
+   * Iterates over all the integration instances using the default page size and pages in flight.
+   * @param sessionToken Session authentication token.
+   * @param integrationId Integration identifier
+   * @return Iterator over the integration instances
+   * @see #iterateInstances(String, String, int, int)
+   */
+  public IntegrationInstanceIterator iterateInstances(String sessionToken, String integrationId)
+      throws RemoteApiException {
+    return iterateInstances(sessionToken, integrationId, DEFAULT_PAGE_SIZE,
+        DEFAULT_PAGES_IN_FLIGHT);
+  }
+
+  /**
+   * Iterates over all the integration instances. The following pages are requested in background
+   * while the caller is consuming the current one. Failures to retrieve a page are reported as
+   * {@link org.symphonyoss.integration.exception.IntegrationRuntimeException} by the iterator.
+   * @param sessionToken Session authentication token.
+   * @param integrationId Integration identifier
+   * @param pageSize Number of integration instances requested per page.
+   * @param maxPagesInFlight Max number of pages requested in advance.
+   * @return Iterator over the integration instances
+   */
+  public IntegrationInstanceIterator iterateInstances(String sessionToken, String integrationId,
+      int pageSize, int maxPagesInFlight) throws RemoteApiException {
+    checkAuthToken(sessionToken);
+
+    if (integrationId == null) {
+      String reason = logMessage.getMessage(MISSING_PARAMETER_WHEN_CALLING, INTEGRATION_ID, LIST_INSTANCES);
+      String solution = logMessage.getMessage(MISSING_PARAMETER_WHEN_CALLING_SOLUTION, INTEGRATION_ID);
+      throw new RemoteApiException(HTTP_BAD_REQUEST_ERROR, reason, solution);
+    }
+
+    return new IntegrationInstanceIterator(this, PREFETCH_EXECUTOR, sessionToken, integrationId,
+        pageSize, maxPagesInFlight);
+  }
+
   /**
    * Retrieves the existing integration instance.
    * @param sessionToken Session authentication token.
@@ -0,0 +1,203 @@
+/**
+ * Copyright 2016-2017 Symphony Integrations - Symphony LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.symphonyoss.integration.pod.api.client;
+
+import static org.symphonyoss.integration.pod.api.properties
+    .BaseIntegrationInstanceApiClientProperties.LIST_INSTANCES_FAILED;
+import static org.symphonyoss.integration.pod.api.properties
+    .BaseIntegrationInstanceApiClientProperties.LIST_INSTANCES_FAILED_SOLUTION;
+
+import org.symphonyoss.integration.exception.IntegrationRuntimeException;
+import org.symphonyoss.integration.logging.LogMessageSource;
+import org.symphonyoss.integration.model.config.IntegrationInstance;
+import org.symphonyoss.integration.pod.api.model.IntegrationInstanceList;
+
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Iterates over all the integration instances of an integration, page by page.
+ *
+ * The following pages are requested in background while the caller is still consuming the
+ * current one, keeping up to a configured number of pages in flight. The iteration ends when the
+ * API returns a page smaller than the page size.
+ *
+ * This class is not thread-safe. Callers that stop iterating before the end should invoke
+ * {@link #close()} to cancel the pending requests.
+ */
+public class IntegrationInstanceIterator implements Iterator<IntegrationInstance>, Closeable {
+
+  private static final String COMPONENT = "Integration Instance API Client";
+
+  private final BaseIntegrationInstanceApiClient apiClient;
+
+  private final LogMessageSource logMessage;
+
+  private final ExecutorService executor;
+
+  private final String sessionToken;
+
+  private final String integrationId;
+
+  private final int pageSize;
+
+  private final int maxPagesInFlight;
+
+  private final Deque<PendingPage> pending = new ArrayDeque<>();
+
+  private Iterator<IntegrationInstance> current = Collections.emptyIterator();
+
+  private int nextOffset;
+
+  private boolean lastPageReached;
+
+  public IntegrationInstanceIterator(BaseIntegrationInstanceApiClient apiClient,
+      ExecutorService executor, String sessionToken, String integrationId, int pageSize,
+      int maxPagesInFlight) {
+    if (pageSize <= 0) {
+      throw new IllegalArgumentException("Page size must be positive");
+    }
+
+    if (maxPagesInFlight <= 0) {
+      throw new IllegalArgumentException("Maximum pages in flight must be positive");
+    }
+
+    this.apiClient = apiClient;
+    this.logMessage = apiClient.logMessage;
+    this.executor = executor;
+    this.sessionToken = sessionToken;
+    this.integrationId = integrationId;
+    this.pageSize = pageSize;
+    this.maxPagesInFlight = maxPagesInFlight;
+
+    prefetch();
+  }
+
+  @Override
+  public boolean hasNext() {
+    while (!current.hasNext()) {
+      if (pending.isEmpty()) {
+        return false;
+      }
+
+      IntegrationInstanceList page = await(pending.poll());
+
+      if (page.size() < pageSize) {
+        lastPageReached = true;
+        close();
+      }
+
+      current = page.iterator();
+      prefetch();
+    }
+
+    return true;
+  }
+
+  @Override
+  public IntegrationInstance next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+
+    return current.next();
+  }
+
+  @Override
+  public void remove() {
+    throw new UnsupportedOperationException();
+  }
+
+  /**
+   * Cancels the pages requested in background and not consumed yet.
+   */
+  @Override
+  public void close() {
+    lastPageReached = true;
+
+    while (!pending.isEmpty()) {
+      pending.poll().future.cancel(true);
+    }
+  }
+
+  /**
+   * Requests the following pages until the limit of pages in flight is reached.
+   */
+  private void prefetch() {
+    while (!lastPageReached && pending.size() < maxPagesInFlight) {
+      final int offset = nextOffset;
+
+      Future<IntegrationInstanceList> future =
+          executor.submit(new Callable<IntegrationInstanceList>() {
+            @Override
+            public IntegrationInstanceList call() throws Exception {
+              return apiClient.listInstances(sessionToken, integrationId, offset, pageSize);
+            }
+          });
+
+      pending.add(new PendingPage(offset, future));
+      nextOffset += pageSize;
+    }
+  }
+
+  private IntegrationInstanceList await(PendingPage page) {
+    try {
+      IntegrationInstanceList result = page.future.get();
+      return result == null ? new IntegrationInstanceList() : result;
+    } catch (ExecutionException e) {
+      close();
+      throw listFailed(page.offset, e.getCause());
+    } catch (InterruptedException e) {
+      close();
+      Thread.currentThread().interrupt();
+      throw listFailed(page.offset, e);
+    }
+  }
+
+  private IntegrationRuntimeException listFailed(int offset, Throwable cause) {
+    String message = logMessage.getMessage(LIST_INSTANCES_FAILED, integrationId,
+        String.valueOf(offset));
+    String solution = logMessage.getMessage(LIST_INSTANCES_FAILED_SOLUTION);
+
+    return new IntegrationRuntimeException(COMPONENT, message, cause, solution);
+  }
+
+  /**
+   * Page requested in background.
+   */
+  private static class PendingPage {
+
+    private final int offset;
+
+    private final Future<IntegrationInstanceList> future;
+
+    PendingPage(int offset, Future<IntegrationInstanceList> future) {
+      this.offset = offset;
+      this.future = future;
+    }
+
+  }
+
+}
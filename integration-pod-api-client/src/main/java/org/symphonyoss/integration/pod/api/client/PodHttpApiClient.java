@@ -16,15 +16,32 @@
 
 package org.symphonyoss.integration.pod.api.client;
 
+import static org.symphonyoss.integration.metrics.IntegrationMetricsConstants.BASE_METRIC_NAME;
+import static org.symphonyoss.integration.metrics.IntegrationMetricsConstants.RATIO;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.symphonyoss.integration.api.client.SymphonyApiClient;
 import org.symphonyoss.integration.exception.MissingConfigurationException;
+import org.symphonyoss.integration.exception.RemoteApiException;
 import org.symphonyoss.integration.model.yaml.IntegrationProperties;
 
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import javax.annotation.PostConstruct;
+
 /**
  * Low-level HTTP client to query POD API.
+ *
+ * Identical lookups of users by identifier performed at the same time are coalesced into a single
+ * request to the POD, and the response is shared by all the callers. Other GET requests are never
+ * coalesced, since their callers may modify the response (e.g. the streams of an integration
+ * instance are edited when the integration user can't post to them).
+ *
  * Created by rsanchez on 22/02/17.
  */
 @Component
@@ -34,13 +51,93 @@ public class PodHttpApiClient extends SymphonyApiClient {
 
   private static final String REQUIRED_KEY = "pod.host";
 
+  private static final String COALESCING_METRIC = "pod.requests";
+
+  /**
+   * Path and query parameter used by {@link UserApiClient#getUserById}
+   */
+  private static final String USER_PATH = "/v2/user";
+
+  private static final String USER_ID_PARAM = "uid";
+
   @Autowired
   private IntegrationProperties properties;
 
+  @Autowired(required = false)
+  private MetricRegistry metricsRegistry;
+
+  private final SingleFlightRequests singleFlight = new SingleFlightRequests();
+
   public PodHttpApiClient() {
     super(SERVICE_NAME);
   }
 
+  /**
+   * Registers the request coalescing metrics.
+   */
+  @PostConstruct
+  public void registerMetrics() {
+    if (metricsRegistry == null) {
+      return;
+    }
+
+    metricsRegistry.register(MetricRegistry.name(BASE_METRIC_NAME, COALESCING_METRIC, "total"),
+        new Gauge<Long>() {
+          @Override
+          public Long getValue() {
+            return singleFlight.getRequests();
+          }
+        });
+
+    metricsRegistry.register(
+        MetricRegistry.name(BASE_METRIC_NAME, COALESCING_METRIC, "coalesced"),
+        new Gauge<Long>() {
+          @Override
+          public Long getValue() {
+            return singleFlight.getCoalesced();
+          }
+        });
+
+    metricsRegistry.register(
+        MetricRegistry.name(BASE_METRIC_NAME, COALESCING_METRIC, "coalesced", RATIO),
+        new Gauge<Double>() {
+          @Override
+          public Double getValue() {
+            return singleFlight.getCoalescingRatio();
+          }
+        });
+  }
+
+  @Override
+  public <T> T doGet(final String path, final Map<String, String> headerParams,
+      final Map<String, String> queryParams, final Class<T> returnType) throws RemoteApiException {
+    if (!isCoalesced(path, queryParams)) {
+      return super.doGet(path, headerParams, queryParams, returnType);
+    }
+
+    String key = SingleFlightRequests.requestKey(path, headerParams, queryParams) + "@"
+        + returnType.getName();
+
+    return singleFlight.execute(key, new Callable<T>() {
+      @Override
+      public T call() throws Exception {
+        return PodHttpApiClient.super.doGet(path, headerParams, queryParams, returnType);
+      }
+    });
+  }
+
+  /**
+   * Checks if the GET request may share its response with identical requests in flight. Only the
+   * lookups whose response is never modified by the callers are allowed.
+   * @param path Request path
+   * @param queryParams Query parameters
+   * @return true if the request can be coalesced
+   */
+  static boolean isCoalesced(String path, Map<String, String> queryParams) {
+    return USER_PATH.equals(path) && (queryParams != null)
+        && (queryParams.containsKey(USER_ID_PARAM));
+  }
+
   @Override
   protected String getBasePath() {
     String url = properties.getPodUrl();
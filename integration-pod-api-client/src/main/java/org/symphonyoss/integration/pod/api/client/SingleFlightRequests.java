@@ -0,0 +1,156 @@
+/**
+ * Copyright 2016-2017 Symphony Integrations - Symphony LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.symphonyoss.integration.pod.api.client;
+
+import org.symphonyoss.integration.exception.RemoteApiException;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Deduplicates identical requests executed at the same time. The first caller performs the
+ * request while the others wait for it and receive the same response, or the same exception.
+ *
+ * Only idempotent requests should go through this class, and the callers must not modify the
+ * shared response.
+ */
+public class SingleFlightRequests {
+
+  private final ConcurrentMap<String, FutureTask<Object>> inFlight = new ConcurrentHashMap<>();
+
+  /**
+   * Number of requests received
+   */
+  private final AtomicLong requests = new AtomicLong();
+
+  /**
+   * Number of requests that waited for an identical request already in flight
+   */
+  private final AtomicLong coalesced = new AtomicLong();
+
+  /**
+   * Builds the key that identifies a GET request.
+   * @param path Request path
+   * @param headerParams Header parameters. Only the session token is considered.
+   * @param queryParams Query parameters
+   * @return Request key
+   */
+  public static String requestKey(String path, Map<String, String> headerParams,
+      Map<String, String> queryParams) {
+    StringBuilder key = new StringBuilder(path);
+
+    if ((queryParams != null) && (!queryParams.isEmpty())) {
+      key.append('?').append(new TreeMap<>(queryParams));
+    }
+
+    if (headerParams != null) {
+      key.append('#').append(headerParams.get(BasePodApiClient.SESSION_TOKEN_HEADER_PARAM));
+    }
+
+    return key.toString();
+  }
+
+  /**
+   * Executes the request, or waits for the identical request already in flight.
+   * @param key Request key
+   * @param request Request to be performed
+   * @return Request response
+   * @throws RemoteApiException Failure reported by the request
+   */
+  @SuppressWarnings("unchecked")
+  public <T> T execute(String key, final Callable<T> request) throws RemoteApiException {
+    requests.incrementAndGet();
+
+    FutureTask<Object> task = new FutureTask<>(new Callable<Object>() {
+      @Override
+      public Object call() throws Exception {
+        return request.call();
+      }
+    });
+
+    FutureTask<Object> current = inFlight.putIfAbsent(key, task);
+
+    if (current == null) {
+      try {
+        task.run();
+      } finally {
+        inFlight.remove(key, task);
+      }
+
+      current = task;
+    } else {
+      coalesced.incrementAndGet();
+    }
+
+    return (T) await(current);
+  }
+
+  private Object await(FutureTask<Object> task) throws RemoteApiException {
+    boolean interrupted = false;
+
+    try {
+      while (true) {
+        try {
+          return task.get();
+        } catch (InterruptedException e) {
+          // The request is performed by another thread, so keep waiting for its outcome
+          interrupted = true;
+        }
+      }
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+
+      if (cause instanceof RemoteApiException) {
+        throw (RemoteApiException) cause;
+      } else if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      } else if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+
+      throw new IllegalStateException(cause);
+    } finally {
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  public long getRequests() {
+    return requests.get();
+  }
+
+  public long getCoalesced() {
+    return coalesced.get();
+  }
+
+  /**
+   * Ratio of the requests served by an identical request already in flight.
+   * @return Coalescing ratio, between 0 and 1
+   */
+  public double getCoalescingRatio() {
+    long total = requests.get();
+    return total == 0 ? 0 : (double) coalesced.get() / total;
+  }
+
+}
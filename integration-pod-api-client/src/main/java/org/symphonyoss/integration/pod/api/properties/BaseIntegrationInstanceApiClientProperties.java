@@ -13,5 +13,7 @@ public class BaseIntegrationInstanceApiClientProperties {
   public static final String ID_SOLUTION = "integration.pod.base.integration.instance.api.client.id.solution";
   public static final String MISSING_PARAMETER_WHEN_CALLING = "integration.pod.base.integration.instance.api.client.missing.parameter";
   public static final String MISSING_PARAMETER_WHEN_CALLING_SOLUTION = "integration.pod.base.integration.instance.api.client.missing.parameter.solution";
+  public static final String LIST_INSTANCES_FAILED = "integration.pod.base.integration.instance.api.client.list.failed";
+  public static final String LIST_INSTANCES_FAILED_SOLUTION = "integration.pod.base.integration.instance.api.client.list.failed.solution";
 
 }
@@ -17,8 +17,10 @@
 package org.symphonyoss.integration.pod.api.client;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.fail;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.when;
 import static org.symphonyoss.integration.pod.api.client.BaseIntegrationInstanceApiClient
     .CONFIGURATION_ID;
@@ -48,6 +50,7 @@ import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 import org.symphonyoss.integration.api.client.HttpApiClient;
 import org.symphonyoss.integration.exception.ExceptionMessageFormatter;
+import org.symphonyoss.integration.exception.IntegrationRuntimeException;
 import org.symphonyoss.integration.exception.RemoteApiException;
 import org.symphonyoss.integration.logging.LogMessageSource;
 import org.symphonyoss.integration.model.config.IntegrationInstance;
@@ -391,6 +394,64 @@ public class IntegrationInstanceApiClientTest {
     assertEquals(list, result);
   }
 
+  @Test
+  public void testIterateInstances() throws RemoteApiException {
+    String path = "/v1/configuration/" + MOCK_CONFIGURATION_ID + "/instance";
+    doReturn(MOCK_CONFIGURATION_ID).when(httpClient).escapeString(MOCK_CONFIGURATION_ID);
+
+    mockInstancePage(path, 0, 2, 2);
+    mockInstancePage(path, 2, 2, 2);
+    mockInstancePage(path, 4, 2, 1);
+
+    IntegrationInstanceIterator iterator =
+        apiClient.iterateInstances(MOCK_SESSION, MOCK_CONFIGURATION_ID, 2, 2);
+
+    int count = 0;
+    while (iterator.hasNext()) {
+      assertEquals(MOCK_INSTANCE_ID, iterator.next().getInstanceId());
+      count++;
+    }
+
+    assertEquals(5, count);
+    assertFalse(iterator.hasNext());
+  }
+
+  @Test(expected = IntegrationRuntimeException.class)
+  public void testIterateInstancesFailed() throws RemoteApiException {
+    String path = "/v1/configuration/" + MOCK_CONFIGURATION_ID + "/instance";
+    doReturn(MOCK_CONFIGURATION_ID).when(httpClient).escapeString(MOCK_CONFIGURATION_ID);
+
+    Map<String, String> headerParams = new HashMap<>();
+    headerParams.put("sessionToken", MOCK_SESSION);
+
+    Map<String, String> queryParams = new HashMap<>();
+    queryParams.put("offset", String.valueOf(0));
+    queryParams.put("limit", String.valueOf(2));
+
+    doThrow(new RemoteApiException(500, "unavailable")).when(httpClient)
+        .doGet(path, headerParams, queryParams, IntegrationInstanceList.class);
+
+    apiClient.iterateInstances(MOCK_SESSION, MOCK_CONFIGURATION_ID, 2, 2).hasNext();
+  }
+
+  private void mockInstancePage(String path, int offset, int limit, int size)
+      throws RemoteApiException {
+    Map<String, String> headerParams = new HashMap<>();
+    headerParams.put("sessionToken", MOCK_SESSION);
+
+    Map<String, String> queryParams = new HashMap<>();
+    queryParams.put("offset", String.valueOf(offset));
+    queryParams.put("limit", String.valueOf(limit));
+
+    IntegrationInstanceList list = new IntegrationInstanceList();
+
+    for (int i = 0; i < size; i++) {
+      list.add(mockInstance());
+    }
+
+    doReturn(list).when(httpClient).doGet(path, headerParams, queryParams, IntegrationInstanceList.class);
+  }
+
   @Test
   public void testGetInstanceByIdNullSessionToken() {
     String expectedMessage =
@@ -17,6 +17,8 @@
 package org.symphonyoss.integration.pod.api.client;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.doReturn;
 
 import org.junit.Test;
@@ -27,6 +29,10 @@ import org.mockito.runners.MockitoJUnitRunner;
 import org.symphonyoss.integration.exception.MissingConfigurationException;
 import org.symphonyoss.integration.model.yaml.IntegrationProperties;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * Unit test for {@link PodHttpApiClient}
  * Created by campidelli on 13-jun-17.
@@ -52,4 +58,31 @@ public class PodHttpApiClientTest {
     doReturn(MOCK_BASE_PATH).when(properties).getPodUrl();
     assertEquals(MOCK_BASE_PATH, httpApiClient.getBasePath());
   }
+
+  @Test
+  public void testNotCoalesceInstanceById() {
+    assertFalse(PodHttpApiClient.isCoalesced("/v1/admin/configuration/5810d144e4b0f884b709cc90"
+        + "/instance/58c2e5b1e4b0d1e1d0d4d1b4/get", Collections.<String, String>emptyMap()));
+  }
+
+  @Test
+  public void testCoalesceUserById() {
+    Map<String, String> queryParams = new HashMap<>();
+    queryParams.put("uid", "123456");
+    queryParams.put("local", Boolean.TRUE.toString());
+
+    assertTrue(PodHttpApiClient.isCoalesced("/v2/user", queryParams));
+  }
+
+  @Test
+  public void testNotCoalesceOtherRequests() {
+    Map<String, String> queryParams = new HashMap<>();
+    queryParams.put("email", "test@symphony.com");
+
+    assertFalse(PodHttpApiClient.isCoalesced("/v2/user", queryParams));
+    assertFalse(PodHttpApiClient.isCoalesced("/v1/configuration/5810d144e4b0f884b709cc90/get",
+        Collections.<String, String>emptyMap()));
+    assertFalse(PodHttpApiClient.isCoalesced("/v1/admin/configuration/5810d144e4b0f884b709cc90"
+        + "/instance/58c2e5b1e4b0d1e1d0d4d1b4/update", Collections.<String, String>emptyMap()));
+  }
 }
@@ -0,0 +1,144 @@
+/**
+ * Copyright 2016-2017 Symphony Integrations - Symphony LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.symphonyoss.integration.pod.api.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+import org.symphonyoss.integration.exception.RemoteApiException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Unit tests for {@link SingleFlightRequests}
+ */
+public class SingleFlightRequestsTest {
+
+  private static final String MOCK_PATH = "/v1/configuration/123/instance/456";
+
+  private static final String MOCK_SESSION = "37ee62570a52804c1fb388a49f30df59fa1513b0368871a031c6de1036db";
+
+  private static final int CALLERS = 4;
+
+  private SingleFlightRequests singleFlight = new SingleFlightRequests();
+
+  @Test
+  public void testRequestKey() {
+    Map<String, String> headerParams = new HashMap<>();
+    headerParams.put(BasePodApiClient.SESSION_TOKEN_HEADER_PARAM, MOCK_SESSION);
+
+    Map<String, String> queryParams = new HashMap<>();
+    queryParams.put("offset", "0");
+    queryParams.put("limit", "10");
+
+    assertEquals(MOCK_PATH + "?{limit=10, offset=0}#" + MOCK_SESSION,
+        SingleFlightRequests.requestKey(MOCK_PATH, headerParams, queryParams));
+    assertEquals(MOCK_PATH + "#" + MOCK_SESSION, SingleFlightRequests.requestKey(MOCK_PATH,
+        headerParams, Collections.<String, String>emptyMap()));
+  }
+
+  @Test
+  public void testCoalesceConcurrentRequests() throws Exception {
+    final CountDownLatch release = new CountDownLatch(1);
+    final AtomicInteger calls = new AtomicInteger();
+    final Object response = new Object();
+
+    final Callable<Object> request = new Callable<Object>() {
+      @Override
+      public Object call() throws Exception {
+        calls.incrementAndGet();
+        release.await(5, TimeUnit.SECONDS);
+        return response;
+      }
+    };
+
+    ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+    List<Future<Object>> results = new ArrayList<>();
+
+    for (int i = 0; i < CALLERS; i++) {
+      results.add(executor.submit(new Callable<Object>() {
+        @Override
+        public Object call() throws Exception {
+          return singleFlight.execute(MOCK_PATH, request);
+        }
+      }));
+    }
+
+    while (singleFlight.getCoalesced() < CALLERS - 1) {
+      Thread.sleep(10);
+    }
+
+    release.countDown();
+
+    for (Future<Object> result : results) {
+      assertSame(response, result.get(5, TimeUnit.SECONDS));
+    }
+
+    executor.shutdown();
+
+    assertEquals(1, calls.get());
+    assertEquals(CALLERS - 1, singleFlight.getCoalesced());
+    assertEquals(0.75, singleFlight.getCoalescingRatio(), 0.001);
+  }
+
+  @Test
+  public void testSequentialRequestsAreNotCoalesced() throws RemoteApiException {
+    final AtomicInteger calls = new AtomicInteger();
+
+    Callable<Integer> request = new Callable<Integer>() {
+      @Override
+      public Integer call() throws Exception {
+        return calls.incrementAndGet();
+      }
+    };
+
+    assertEquals(Integer.valueOf(1), singleFlight.execute(MOCK_PATH, request));
+    assertEquals(Integer.valueOf(2), singleFlight.execute(MOCK_PATH, request));
+    assertEquals(0, singleFlight.getCoalesced());
+  }
+
+  @Test
+  public void testRemoteApiException() {
+    final RemoteApiException exception = new RemoteApiException(404, "not found");
+
+    try {
+      singleFlight.execute(MOCK_PATH, new Callable<Object>() {
+        @Override
+        public Object call() throws Exception {
+          throw exception;
+        }
+      });
+      fail();
+    } catch (RemoteApiException e) {
+      assertSame(exception, e);
+    }
+  }
+
+}
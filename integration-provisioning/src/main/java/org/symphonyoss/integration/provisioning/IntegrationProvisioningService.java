@@ -45,6 +45,8 @@ import org.symphonyoss.integration.provisioning.service.ApplicationService;
 import org.symphonyoss.integration.provisioning.service.CompanyCertificateService;
 import org.symphonyoss.integration.provisioning.service.ConfigurationProvisioningService;
 import org.symphonyoss.integration.provisioning.service.KeyPairService;
+import org.symphonyoss.integration.provisioning.service.ProvisioningStateService;
+import org.symphonyoss.integration.provisioning.service.ProvisioningStateService.Step;
 import org.symphonyoss.integration.provisioning.service.UserKeyPairService;
 import org.symphonyoss.integration.provisioning.service.UserService;
 
@@ -52,7 +54,15 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.Collection;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Service class to coordinate the workflow to provisioning all the integrations, according
@@ -71,6 +81,8 @@ public class IntegrationProvisioningService {
 
   private static final String FILE_RESOURCE_PREFIX = "file://";
 
+  private static final String WORKER_THREAD_NAME = "provisioning-worker-";
+
   @Autowired
   private ApplicationContext context;
 
@@ -95,9 +107,19 @@ public class IntegrationProvisioningService {
   @Autowired
   private UserService userService;
 
+  @Autowired
+  private ProvisioningStateService stateService;
+
   @Value("${spring.config.name:application}")
   private String configName;
 
+  /**
+   * Number of applications provisioned at the same time. The steps of a single application are
+   * always executed in order by the same worker.
+   */
+  @Value("${provisioning.workers:4}")
+  private int workers;
+
   @Autowired
   private LogMessageSource logMessage;
 
@@ -106,15 +128,18 @@ public class IntegrationProvisioningService {
    * Users, Bot Users's authentication certificates, and Webhook Configurations.
    *
    * The provisioning process is based on an input YAML file and can be run multiple times
-   * to recover from temporary errors, i.e. the provisioning process is idempotent.
+   * to recover from temporary errors, i.e. the provisioning process is idempotent. Only the steps
+   * whose inputs changed since the last successful run are executed.
    * @return Success indication (boolean).
    */
   public boolean configure() {
     LOGGER.info("Retrieving applications.\n");
 
-    Map<String, ApplicationState> summary = new LinkedHashMap<>();
+    if (stateService.isPlanOnly()) {
+      return plan();
+    }
 
-    String appId = StringUtils.EMPTY;
+    Map<String, ApplicationState> summary = new LinkedHashMap<>();
 
     try {
       Map<String, Application> applications = properties.getApplications();
@@ -123,36 +148,126 @@ public class IntegrationProvisioningService {
         summary.put(app, ApplicationState.SKIPPED);
       }
 
+      if (!applications.isEmpty()) {
+        summary.putAll(configureApplications(applications));
+      }
+    } catch (Exception e) {
+      LOGGER.error(logMessage.getMessage(APP_FAIL, StringUtils.EMPTY, StringUtils.EMPTY), e);
+    } finally {
+      printSummary(summary);
+    }
+
+    Collection<ApplicationState> appStatus = summary.values();
+    boolean failedOrSkippedApps = appStatus.contains(ApplicationState.FAILED) ||
+        appStatus.contains(ApplicationState.UNKNOWN) ||
+        appStatus.contains(ApplicationState.SKIPPED);
+
+    return !failedOrSkippedApps;
+  }
+
+  /**
+   * Provisions the applications in parallel using a fixed number of workers. The failure of an
+   * application doesn't abort the provisioning of the others.
+   * @param applications Applications to be provisioned, indexed by application identifier
+   * @return Final state of each application, in the same order of the input
+   */
+  private Map<String, ApplicationState> configureApplications(
+      Map<String, Application> applications) {
+    int poolSize = Math.max(1, Math.min(workers, applications.size()));
+    ExecutorService executor = Executors.newFixedThreadPool(poolSize, new WorkerThreadFactory());
+
+    try {
+      Map<String, Future<ApplicationState>> tasks = new LinkedHashMap<>();
+
       for (Map.Entry<String, Application> entry : applications.entrySet()) {
-        Application application = entry.getValue();
-        appId = entry.getKey();
+        tasks.put(entry.getKey(), executor.submit(
+            new ApplicationProvisioningTask(entry.getKey(), entry.getValue())));
+      }
 
-        fillInApplicationInfo(appId, application);
+      Map<String, ApplicationState> result = new LinkedHashMap<>();
 
-        if (ApplicationState.PROVISIONED.equals(application.getState())) {
-          provisioningApplication(application);
-        } else {
-          disableApplication(application);
+      for (Map.Entry<String, Future<ApplicationState>> task : tasks.entrySet()) {
+        String appId = task.getKey();
+
+        try {
+          result.put(appId, task.getValue().get());
+        } catch (ExecutionException e) {
+          LOGGER.error(logMessage.getMessage(APP_FAIL, appId, StringUtils.EMPTY), e.getCause());
+          result.put(appId, ApplicationState.FAILED);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          LOGGER.error(logMessage.getMessage(APP_FAIL, appId, StringUtils.EMPTY), e);
+          result.put(appId, ApplicationState.FAILED);
         }
+      }
+
+      return result;
+    } finally {
+      executor.shutdownNow();
+    }
+  }
 
-        summary.put(appId, application.getState());
+  /**
+   * Runs all the provisioning steps for a single application.
+   * @param appId Application identifier
+   * @param application Application object
+   * @return Final state of the application
+   */
+  private ApplicationState configureApplication(String appId, Application application) {
+    try {
+      fillInApplicationInfo(appId, application);
+
+      if (ApplicationState.PROVISIONED.equals(application.getState())) {
+        provisioningApplication(application);
+      } else {
+        disableApplication(application);
       }
+
+      return application.getState();
     } catch (IntegrationRuntimeException e) {
       LOGGER.error(logMessage.getMessage(APP_FAIL, appId, e.getMessage()));
-      summary.put(appId, ApplicationState.FAILED);
+      return ApplicationState.FAILED;
     } catch (Exception e) {
       LOGGER.error(logMessage.getMessage(APP_FAIL, appId, StringUtils.EMPTY), e);
-      summary.put(appId, ApplicationState.FAILED);
-    } finally {
-      printSummary(summary);
+      return ApplicationState.FAILED;
     }
+  }
 
-    Collection<ApplicationState> appStatus = summary.values();
-    boolean failedOrSkippedApps = appStatus.contains(ApplicationState.FAILED) ||
-        appStatus.contains(ApplicationState.UNKNOWN) ||
-        appStatus.contains(ApplicationState.SKIPPED);
+  /**
+   * Prints the steps that would be executed for each application, without applying any change.
+   * @return Success indication (boolean).
+   */
+  private boolean plan() {
+    LOGGER.info("Execution Plan\n");
 
-    return !failedOrSkippedApps;
+    boolean success = true;
+
+    for (Map.Entry<String, Application> entry : properties.getApplications().entrySet()) {
+      String appId = entry.getKey();
+      Application application = entry.getValue();
+
+      String steps;
+
+      try {
+        fillInApplicationInfo(appId, application);
+
+        if (ApplicationState.PROVISIONED.equals(application.getState())) {
+          List<Step> changedSteps = stateService.getChangedSteps(application);
+          steps = changedSteps.isEmpty() ? "UNCHANGED" : StringUtils.join(changedSteps, ", ");
+        } else {
+          steps = "DISABLE";
+        }
+      } catch (Exception e) {
+        LOGGER.error(logMessage.getMessage(APP_FAIL, appId, e.getMessage()));
+        steps = ApplicationState.FAILED.name();
+        success = false;
+      }
+
+      String formattedMessage = String.format("%1$-52s", appId).replace(' ', '.').concat(steps);
+      LOGGER.info(formattedMessage);
+    }
+
+    return success;
   }
 
   /**
@@ -176,17 +291,41 @@ public class IntegrationProvisioningService {
    * @param application Application object
    */
   private void provisioningApplication(Application application) {
+    if (stateService.getChangedSteps(application).isEmpty()) {
+      LOGGER.info("Application {} unchanged since the last provisioning\n", application.getId());
+      return;
+    }
+
     LOGGER.info("Provisioning application: {}", application.getId());
 
+    // The configuration always runs since it provides the settings required by the other steps
     IntegrationSettings settings = configurationService.setupConfiguration(application);
-    applicationService.setupApplication(settings, application);
+    stateService.update(application, Step.CONFIGURATION);
 
-    userService.setupBotUser(settings, application);
+    if (stateService.hasChanged(application, Step.APPLICATION)) {
+      applicationService.setupApplication(settings, application);
+      stateService.update(application, Step.APPLICATION);
+    }
 
-    userKeyPairService.exportCertificate(settings, application);
-    appKeyPairService.exportCertificate(application);
+    if (stateService.hasChanged(application, Step.BOT_USER)) {
+      userService.setupBotUser(settings, application);
+      stateService.update(application, Step.BOT_USER);
+    }
 
-    companyCertificateService.importCertificate(application);
+    if (stateService.hasChanged(application, Step.USER_CERTIFICATE)) {
+      userKeyPairService.exportCertificate(settings, application);
+      stateService.update(application, Step.USER_CERTIFICATE);
+    }
+
+    if (stateService.hasChanged(application, Step.APP_CERTIFICATE)) {
+      appKeyPairService.exportCertificate(application);
+      stateService.update(application, Step.APP_CERTIFICATE);
+    }
+
+    if (stateService.hasChanged(application, Step.COMPANY_CERTIFICATE)) {
+      companyCertificateService.importCertificate(application);
+      stateService.update(application, Step.COMPANY_CERTIFICATE);
+    }
 
     LOGGER.info("Application {} provisioned\n", application.getId());
   }
@@ -202,6 +341,7 @@ public class IntegrationProvisioningService {
     application.setVisible(Boolean.FALSE);
 
     boolean updated = applicationService.updateAppSettings(application);
+    stateService.remove(application.getId());
 
     if (updated) {
       application.setState(ApplicationState.REMOVED);
@@ -335,4 +475,41 @@ public class IntegrationProvisioningService {
     }
   }
 
+  /**
+   * Worker task to provision a single application.
+   */
+  private class ApplicationProvisioningTask implements Callable<ApplicationState> {
+
+    private final String appId;
+
+    private final Application application;
+
+    ApplicationProvisioningTask(String appId, Application application) {
+      this.appId = appId;
+      this.application = application;
+    }
+
+    @Override
+    public ApplicationState call() {
+      return configureApplication(appId, application);
+    }
+
+  }
+
+  /**
+   * Thread factory to name the provisioning workers.
+   */
+  private static class WorkerThreadFactory implements ThreadFactory {
+
+    private final AtomicInteger counter = new AtomicInteger();
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+      Thread thread = new Thread(runnable, WORKER_THREAD_NAME + counter.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+
+  }
+
 }
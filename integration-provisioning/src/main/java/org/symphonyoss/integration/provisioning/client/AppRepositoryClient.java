@@ -16,6 +16,8 @@
 
 package org.symphonyoss.integration.provisioning.client;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.symphonyoss.integration.authentication.AuthenticationProxy;
@@ -30,15 +32,22 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * App Repository Client, interfacing all calls to it.
  *
+ * The lookups by appGroupId are served from a snapshot of the available applications, downloaded
+ * once per provisioning run and kept up to date with the applications created or updated through
+ * this client.
+ *
  * Created by Milton Quilzini on 08/08/16.
  */
 @Component
 public class AppRepositoryClient {
 
+  private static final Logger LOGGER = LoggerFactory.getLogger(AppRepositoryClient.class);
+
   private static final String APP_REPOSITORY_PATH = "/appstore/v1/repository";
 
   private static final String APP_REPOSITORY_APPS_AVAILABLE =
@@ -62,6 +71,11 @@ public class AppRepositoryClient {
   @Autowired
   private SymphonyHttpApiClient client;
 
+  /**
+   * Snapshot of the available applications indexed by appGroupId. Null until the first lookup.
+   */
+  private volatile Map<String, Map<String, String>> catalog;
+
   /**
    * Retrieves all the available applications in the Appstore repository.
    * @param userId User identifier
@@ -93,18 +107,115 @@ public class AppRepositoryClient {
    */
   public Map<String, String> getAppByAppGroupId(String appGroupId, String userId) throws
       AppRepositoryClientException {
+    return getCatalog(userId).get(appGroupId);
+  }
+
+  /**
+   * Discards the snapshot of the available applications, so the next lookup downloads it again.
+   */
+  public void invalidateCatalog() {
+    this.catalog = null;
+  }
+
+  /**
+   * Retrieves the snapshot of the available applications, downloading it on the first call.
+   * @param userId User identifier
+   * @return Available applications indexed by appGroupId
+   * @throws AppRepositoryClientException Failed to retrieve available applications
+   */
+  private Map<String, Map<String, String>> getCatalog(String userId)
+      throws AppRepositoryClientException {
+    Map<String, Map<String, String>> current = catalog;
+
+    if (current == null) {
+      synchronized (this) {
+        current = catalog;
+
+        if (current == null) {
+          current = loadCatalog(userId);
+          catalog = current;
+        }
+      }
+    }
+
+    return current;
+  }
+
+  /**
+   * Downloads the available applications and indexes them by appGroupId.
+   * @param userId User identifier
+   * @return Available applications indexed by appGroupId
+   * @throws AppRepositoryClientException Failed to retrieve available applications
+   */
+  private Map<String, Map<String, String>> loadCatalog(String userId)
+      throws AppRepositoryClientException {
     List appsAvailable = getAppsAvailable(userId);
+    Map<String, Map<String, String>> result = new ConcurrentHashMap<>();
+
+    if (appsAvailable != null) {
+      for (Object app : appsAvailable) {
+        Map<String, String> appData = (Map<String, String>) app;
+        String appGroupId = appData.get(APPS_REP_APP_GROUP_ID_PATH);
+
+        if (appGroupId != null) {
+          result.put(appGroupId, appData);
+        }
+      }
+    }
+
+    LOGGER.info("Application catalog loaded with {} applications", result.size());
+
+    return result;
+  }
+
+  /**
+   * Updates the snapshot with the application returned by the Appstore repository. If the
+   * response has no application data, updated applications are merged with the attributes sent
+   * and created applications discard the snapshot, since their identifier is still unknown.
+   * @param envelope Response envelope
+   * @param appStoreApp Application object sent to the Appstore repository
+   * @param created true if the application was created, false if it was updated
+   */
+  private void updateCatalog(Envelope envelope, AppStoreWrapper appStoreApp,
+      boolean created) {
+    Map<String, Map<String, String>> current = catalog;
+
+    if (current == null) {
+      return;
+    }
+
+    Object data = envelope != null ? envelope.getData() : null;
 
-    for (Object app : appsAvailable) {
-      Map<String, String> appData = (Map<String, String>) app;
-      String currentAppGroupId = appData.get(APPS_REP_APP_GROUP_ID_PATH);
+    if (data instanceof Map) {
+      Map<String, String> appData = (Map<String, String>) data;
+      String appGroupId = appData.get(APPS_REP_APP_GROUP_ID_PATH);
 
-      if (currentAppGroupId.equals(appGroupId)) {
-        return appData;
+      if (appGroupId != null) {
+        current.put(appGroupId, appData);
+        return;
       }
     }
 
-    return null;
+    Map<String, String> cached = current.get(appStoreApp.getAppGroupId());
+
+    if (created || cached == null) {
+      invalidateCatalog();
+    } else {
+      Map<String, String> appData = new HashMap<>(cached);
+      putIfNotNull(appData, "name", appStoreApp.getName());
+      putIfNotNull(appData, "description", appStoreApp.getDescription());
+      putIfNotNull(appData, "publisher", appStoreApp.getPublisher());
+      putIfNotNull(appData, "type", appStoreApp.getType());
+      putIfNotNull(appData, "version", appStoreApp.getVersion());
+      putIfNotNull(appData, "domain", appStoreApp.getDomain());
+      current.put(appStoreApp.getAppGroupId(), appData);
+    }
+  }
+
+  private void putIfNotNull(Map<String, String> appData, String key, String value) {
+    if (value != null) {
+      appData.put(key, value);
+    }
   }
 
   /**
@@ -120,8 +231,9 @@ public class AppRepositoryClient {
     Envelope<AppStoreWrapper> envelope = new Envelope<>(appStoreApp);
 
     try {
-      client.doPost(APP_REPOSITORY_APP_CREATE, headers, Collections.<String, String>emptyMap(),
-          envelope, Envelope.class);
+      Envelope response = client.doPost(APP_REPOSITORY_APP_CREATE, headers,
+          Collections.<String, String>emptyMap(), envelope, Envelope.class);
+      updateCatalog(response, appStoreApp, true);
     } catch (RemoteApiException e) {
       throw new AppRepositoryClientException(
           "Failed to create a new app due to an error calling the server: " + e.getCode() + " "
@@ -144,7 +256,9 @@ public class AppRepositoryClient {
     Envelope<AppStoreWrapper> envelope = new Envelope<>(appStoreApp);
 
     try {
-      client.doPost(path, headers, Collections.<String, String>emptyMap(), envelope, Envelope.class);
+      Envelope response = client.doPost(path, headers, Collections.<String, String>emptyMap(),
+          envelope, Envelope.class);
+      updateCatalog(response, appStoreApp, false);
     } catch (RemoteApiException e) {
       throw new AppRepositoryClientException(
           "Failed to update the application " + appId + " due to an error calling the server: "
@@ -0,0 +1,37 @@
+/**
+ * Copyright 2016-2017 Symphony Integrations - Symphony LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.symphonyoss.integration.provisioning.properties;
+
+import org.symphonyoss.integration.provisioning.service.ProvisioningStateService;
+
+/**
+ * Properties keys and default values used by the component {@link ProvisioningStateService}.
+ */
+public class ProvisioningStateProperties {
+
+  /**
+   * Property key to identify if the provisioning should only print the steps to be executed.
+   */
+  public static final String PLAN_ONLY = "planOnly";
+
+  /**
+   * Default state file name, created inside the certificates directory.
+   */
+  public static final String DEFAULT_STATE_FILE = "provisioning-state.json";
+
+}
@@ -16,17 +16,19 @@
 
 package org.symphonyoss.integration.provisioning.service;
 
+import org.bouncycastle.pkcs.PKCS10CertificationRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.ApplicationArguments;
 import org.springframework.stereotype.Service;
 import org.symphonyoss.integration.logging.LogMessageSource;
 import org.symphonyoss.integration.model.yaml.Application;
-import org.symphonyoss.integration.model.yaml.Certificate;
 import org.symphonyoss.integration.model.yaml.IntegrationProperties;
 import org.symphonyoss.integration.utils.IntegrationUtils;
 
-import java.util.Locale;
+import java.security.KeyPair;
+import java.security.cert.X509Certificate;
+import java.util.Collections;
 
 /**
  * Service class responsible for generating application private keys, public keys and certificates.
@@ -38,17 +40,9 @@ public class AppKeyPairService extends KeyPairService {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(AppKeyPairService.class);
 
-  private static final String OPENSSL_GEN_KEY_CMD = "openssl genrsa -out %s 1024";
+  private static final int KEY_SIZE = 1024;
 
-  private static final String OPENSSL_PKCS8_CMD = "openssl pkcs8 -topk8 -nocrypt -in %s -out %s";
-
-  private static final String OPENSSL_PUB_KEY_CMD = "openssl rsa -pubout -in %s -out %s";
-
-  private static final String OPENSSL_GEN_CERT_CMD = "openssl x509 -req -sha256 -days 3650 -in %s"
-      + " -CA %s -passin pass:%s -out %s -CAkey %s -set_serial 0x%s";
-
-  private static final String OPENSSL_PKCS12_CMD = "openssl pkcs12 -export -out %s -in %s"
-      + " -inkey %s -passout pass:%s";
+  private static final int CERTIFICATE_VALIDITY_DAYS = 3650;
 
   private final IntegrationUtils utils;
 
@@ -68,106 +62,74 @@ public class AppKeyPairService extends KeyPairService {
    */
   public void exportCertificate(Application application) {
     if (shouldGenerateCertificate() && (application.getAppKeystore() != null)) {
-      String keyFileName = generatePrivateKey(application);
-      String reqFileName = generateCSR(application, keyFileName);
-      generateCertificate(application, keyFileName, reqFileName);
-      generatePublicKey(application, keyFileName);
+      KeyPair keyPair = generatePrivateKey(application);
+      PKCS10CertificationRequest request = generateCSR(application, keyPair);
+      generateCertificate(application, keyPair, request);
+      generatePublicKey(application, keyPair);
     }
   }
 
   /**
-   * Generate application private key.
+   * Generate application private key and export it using PKCS#8 format.
    *
    * @param application Application object
-   * @return Private key filename
+   * @return Application key pair
    */
-  private String generatePrivateKey(Application application) {
+  private KeyPair generatePrivateKey(Application application) {
     LOGGER.info("Generating application private key: {}", application.getComponent());
 
-    String appKeyFilename = String.format("%s/%s_app_key.pem", System.getProperty("java.io.tmpdir"),
-        application.getId());
-
-    String genKeyPairCommand = String.format(OPENSSL_GEN_KEY_CMD, appKeyFilename);
-    executeProcess(genKeyPairCommand);
+    KeyPair keyPair = generateKeyPair(KEY_SIZE);
 
     String appPKCS8Filename = utils.getCertsDirectory() + application.getId() + "_app.pkcs8";
+    writePKCS8(appPKCS8Filename, keyPair.getPrivate());
 
-    String genPkcs8Command = String.format(OPENSSL_PKCS8_CMD, appKeyFilename, appPKCS8Filename);
-    executeProcess(genPkcs8Command);
-
-    return appKeyFilename;
+    return keyPair;
   }
 
   /**
    * Generate the Certificate Signing Request (CSR).
    * @param application Application object
-   * @param appKeyFilename Key filename
-   * @return Request filename
+   * @param keyPair Application key pair
+   * @return Certificate signing request
    */
-  private String generateCSR(Application application, String appKeyFilename) {
+  private PKCS10CertificationRequest generateCSR(Application application, KeyPair keyPair) {
     LOGGER.info("Generating certificate signing request: {}", application.getComponent());
-
-    String subject =
-        String.format("/CN=%s/O=%s/C=%s", application.getComponent(), DEFAULT_ORGANIZATION,
-            Locale.US.getCountry());
-
-    String appReqFilename = String.format("%s/%s_app_req.pem", System.getProperty("java.io.tmpdir"),
-        application.getId());
-
-    String[] genCSRCommand = new String[] { "openssl", "req", "-new", "-key", appKeyFilename,
-        "-subj", subject, "-out", appReqFilename };
-
-    executeProcess(genCSRCommand);
-
-    return appReqFilename;
+    return generateCSR(application.getComponent(), keyPair);
   }
 
   /**
-   * Generate the application certificate.
+   * Generate the application certificate and the PKCS#12 keystore.
    *
    * @param application Application object
-   * @param appKeyFilename Key filename
-   * @param appReqFilename Request filename
-   * @return App certificate filename
+   * @param keyPair Application key pair
+   * @param request Certificate signing request
    */
-  private void generateCertificate(Application application, String appKeyFilename, String appReqFilename) {
+  private void generateCertificate(Application application, KeyPair keyPair,
+      PKCS10CertificationRequest request) {
     LOGGER.info("Generating application certificate: {}", application.getComponent());
 
-    Certificate certificateInfo = properties.getSigningCert();
-
-    String caCertFilename = certificateInfo.getCaCertFile();
-    String caCertKeyFilename = certificateInfo.getCaKeyFile();
-    String password = certificateInfo.getCaKeyPassword();
-    String sn = Long.toHexString(System.currentTimeMillis());
+    SigningAuthority authority = getSigningAuthority(properties.getSigningCert());
+    X509Certificate certificate = signCertificate(request, authority, CERTIFICATE_VALIDITY_DAYS);
 
     String appCertFilename = utils.getCertsDirectory() + application.getId() + "_app.pem";
+    writePEM(appCertFilename, certificate);
 
-    String genCerticateCommand =
-        String.format(OPENSSL_GEN_CERT_CMD, appReqFilename, caCertFilename, password,
-            appCertFilename, caCertKeyFilename, sn);
-
-    executeProcess(genCerticateCommand);
-
-    String passOutput = application.getAppKeystore().getPassword();
+    String password = application.getAppKeystore().getPassword();
     String appPKCS12Filename = utils.getCertsDirectory() + application.getId() + "_app.p12";
 
-    String genPKCS12Command = String.format(OPENSSL_PKCS12_CMD, appPKCS12Filename,
-        appCertFilename, appKeyFilename, passOutput);
-    executeProcess(genPKCS12Command);
+    writePKCS12(appPKCS12Filename, application.getId(), keyPair.getPrivate(), password,
+        Collections.singletonList(certificate));
   }
 
   /**
    * Generate application public key
    * @param application Application object
-   * @param appKeyFilename Application key filename
+   * @param keyPair Application key pair
    */
-  private void generatePublicKey(Application application, String appKeyFilename) {
+  private void generatePublicKey(Application application, KeyPair keyPair) {
     LOGGER.info("Generating public key: {}", application.getComponent());
 
     String appPubKeyFilename = utils.getCertsDirectory() + application.getId() + "_app_pub.pem";
-
-    String genPublicKeyCommand = String.format(OPENSSL_PUB_KEY_CMD, appKeyFilename, appPubKeyFilename);
-
-    executeProcess(genPublicKeyCommand);
+    writePEM(appPubKeyFilename, keyPair.getPublic());
   }
 }
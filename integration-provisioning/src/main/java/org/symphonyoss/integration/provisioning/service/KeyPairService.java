@@ -14,28 +14,89 @@
  * limitations under the License.
  */
 
+
 package org.symphonyoss.integration.provisioning.service;
 
 import static org.symphonyoss.integration.provisioning.properties.KeyPairProperties.FAIL_MESSAGE;
 import static org.symphonyoss.integration.provisioning.properties.KeyPairProperties.FAIL_PERMISSION_SOLUTION;
-import static org.symphonyoss.integration.provisioning.properties.KeyPairProperties.FAIL_PROCESS_MESSAGE;
 import static org.symphonyoss.integration.provisioning.properties.KeyPairProperties.FAIL_YAML_SOLUTION;
 import static org.symphonyoss.integration.provisioning.properties.KeyPairProperties.GENERATE_CERTIFICATE;
 
+import org.apache.commons.lang3.StringUtils;
+import org.bouncycastle.asn1.ASN1Encoding;
+import org.bouncycastle.asn1.DERBMPString;
+import org.bouncycastle.asn1.nist.NISTObjectIdentifiers;
+import org.bouncycastle.asn1.pkcs.PKCSObjectIdentifiers;
+import org.bouncycastle.asn1.pkcs.PrivateKeyInfo;
+import org.bouncycastle.asn1.x509.SubjectKeyIdentifier;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.asn1.x500.X500NameBuilder;
+import org.bouncycastle.asn1.x500.style.BCStyle;
+import org.bouncycastle.cert.X509CertificateHolder;
+import org.bouncycastle.cert.X509v3CertificateBuilder;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateHolder;
+import org.bouncycastle.cert.jcajce.JcaX509ExtensionUtils;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.bouncycastle.openssl.PEMEncryptedKeyPair;
+import org.bouncycastle.openssl.PEMKeyPair;
+import org.bouncycastle.openssl.PEMParser;
+import org.bouncycastle.openssl.jcajce.JcaPEMKeyConverter;
+import org.bouncycastle.openssl.jcajce.JcaPEMWriter;
+import org.bouncycastle.openssl.jcajce.JceOpenSSLPKCS8DecryptorProviderBuilder;
+import org.bouncycastle.openssl.jcajce.JcePEMDecryptorProviderBuilder;
+import org.bouncycastle.operator.ContentSigner;
+import org.bouncycastle.operator.OperatorCreationException;
+import org.bouncycastle.operator.OutputEncryptor;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.bouncycastle.pkcs.PKCS10CertificationRequest;
+import org.bouncycastle.pkcs.PKCS12PfxPdu;
+import org.bouncycastle.pkcs.PKCS12PfxPduBuilder;
+import org.bouncycastle.pkcs.PKCS12SafeBag;
+import org.bouncycastle.pkcs.PKCS12SafeBagBuilder;
+import org.bouncycastle.pkcs.PKCS8EncryptedPrivateKeyInfo;
+import org.bouncycastle.pkcs.PKCSException;
+import org.bouncycastle.pkcs.jcajce.JcaPKCS10CertificationRequestBuilder;
+import org.bouncycastle.pkcs.jcajce.JcaPKCS12SafeBagBuilder;
+import org.bouncycastle.pkcs.jcajce.JcePKCS12MacCalculatorBuilder;
+import org.bouncycastle.pkcs.jcajce.JcePKCSPBEOutputEncryptorBuilder;
+import org.bouncycastle.util.io.pem.PemObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.ApplicationArguments;
 import org.symphonyoss.integration.logging.LogMessageSource;
-import org.symphonyoss.integration.model.yaml.Application;
+import org.symphonyoss.integration.model.yaml.Certificate;
 import org.symphonyoss.integration.provisioning.exception.KeyPairException;
 
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.FileWriter;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.Provider;
+import java.security.SecureRandom;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
 import java.util.List;
-import java.util.Scanner;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Abstract service class to provide commons methods for generating private keys and certificates.
  *
+ * Keys, certificate signing requests, certificates and keystores are generated in memory using
+ * BouncyCastle, so the only files written are the final artifacts inside the certificates
+ * directory. All the methods are safe to be called concurrently for different applications.
+ *
  * Created by rsanchez on 20/10/16.
  */
 public abstract class KeyPairService {
@@ -44,6 +105,24 @@ public abstract class KeyPairService {
 
   public static final String DEFAULT_ORGANIZATION = "Symphony Communications LLC";
 
+  private static final String KEY_ALGORITHM = "RSA";
+
+  private static final String EC_KEY_ALGORITHM = "EC";
+
+  private static final String RSA_SIGNATURE_ALGORITHM = "SHA256withRSA";
+
+  private static final String EC_SIGNATURE_ALGORITHM = "SHA256withECDSA";
+
+  private static final String PRIVATE_KEY_PEM_TYPE = "PRIVATE KEY";
+
+  private static final int SERIAL_NUMBER_BITS = 64;
+
+  private static final Provider PROVIDER = new BouncyCastleProvider();
+
+  private static final SecureRandom RANDOM = new SecureRandom();
+
+  private final ConcurrentMap<String, SigningAuthority> authorities = new ConcurrentHashMap<>();
+
   private ApplicationArguments arguments;
 
   private LogMessageSource logMessage;
@@ -68,67 +147,312 @@ public abstract class KeyPairService {
   }
 
   /**
-   * Executes a system process.
-   * @param command Command to be executed
+   * Generates a new RSA key pair.
+   * @param keySize Key size in bits
+   * @return Key pair
    */
-  protected void executeProcess(String... command) {
+  protected KeyPair generateKeyPair(int keySize) {
     try {
-      Process process = Runtime.getRuntime().exec(command);
-      process.waitFor();
+      KeyPairGenerator generator = KeyPairGenerator.getInstance(KEY_ALGORITHM);
+      generator.initialize(keySize, RANDOM);
+      return generator.generateKeyPair();
+    } catch (GeneralSecurityException e) {
+      throw keyPairException(e);
+    }
+  }
 
-      validateExitValue(process);
-    } catch (IOException | InterruptedException e) {
-      throwKeyPairException(logMessage.getMessage(FAIL_MESSAGE));
+  /**
+   * Generates the Certificate Signing Request (CSR) signed by the provided key pair.
+   * @param commonName Subject common name
+   * @param keyPair Key pair to be certified
+   * @return Certificate signing request
+   */
+  protected PKCS10CertificationRequest generateCSR(String commonName, KeyPair keyPair) {
+    X500Name subject = new X500NameBuilder(BCStyle.INSTANCE)
+        .addRDN(BCStyle.CN, commonName)
+        .addRDN(BCStyle.O, DEFAULT_ORGANIZATION)
+        .addRDN(BCStyle.C, Locale.US.getCountry())
+        .build();
+
+    try {
+      return new JcaPKCS10CertificationRequestBuilder(subject, keyPair.getPublic())
+          .build(getContentSigner(keyPair.getPrivate()));
+    } catch (OperatorCreationException e) {
+      throw keyPairException(e);
     }
   }
 
   /**
-   * Executes a system process.
-   * @param command Command to be executed
+   * Issues a certificate for the provided signing request. The certificate gets a random serial
+   * number, so certificates issued at the same time never collide.
+   * @param request Certificate signing request
+   * @param authority Signing authority
+   * @param validityDays Number of days the certificate is valid
+   * @return Signed certificate
    */
-  protected void executeProcess(String command) {
+  protected X509Certificate signCertificate(PKCS10CertificationRequest request,
+      SigningAuthority authority, int validityDays) {
     try {
-      Process process = Runtime.getRuntime().exec(command);
-      process.waitFor();
+      X500Name issuer = new JcaX509CertificateHolder(authority.getCertificate()).getSubject();
+      BigInteger serial = new BigInteger(SERIAL_NUMBER_BITS, RANDOM);
+
+      long now = System.currentTimeMillis();
+      Date notBefore = new Date(now);
+      Date notAfter = new Date(now + TimeUnit.DAYS.toMillis(validityDays));
+
+      X509v3CertificateBuilder builder = new X509v3CertificateBuilder(issuer, serial, notBefore,
+          notAfter, request.getSubject(), request.getSubjectPublicKeyInfo());
+
+      X509CertificateHolder holder = builder.build(getContentSigner(authority.getPrivateKey()));
+
+      return new JcaX509CertificateConverter().setProvider(PROVIDER).getCertificate(holder);
+    } catch (GeneralSecurityException | OperatorCreationException e) {
+      throw keyPairException(e);
+    }
+  }
+
+  /**
+   * Retrieves the signing authority described by the YAML file. The CA certificate, the CA key
+   * and the certificate chain are read only once and kept in memory.
+   * @param certificateInfo Signing certificate info
+   * @return Signing authority
+   */
+  protected SigningAuthority getSigningAuthority(Certificate certificateInfo) {
+    String key = StringUtils.join(new String[] { certificateInfo.getCaCertFile(),
+        certificateInfo.getCaKeyFile(), certificateInfo.getCaCertChainFile() }, '|');
+
+    SigningAuthority authority = authorities.get(key);
+
+    if (authority == null) {
+      authority = loadSigningAuthority(certificateInfo);
+
+      SigningAuthority current = authorities.putIfAbsent(key, authority);
+      if (current != null) {
+        authority = current;
+      }
+    }
+
+    return authority;
+  }
+
+  /**
+   * Reads the signing authority files.
+   * @param certificateInfo Signing certificate info
+   * @return Signing authority
+   */
+  private SigningAuthority loadSigningAuthority(Certificate certificateInfo) {
+    LOGGER.info("Loading signing certificate: {}", certificateInfo.getCaCertFile());
+
+    try {
+      List<X509Certificate> certificates = readCertificates(certificateInfo.getCaCertFile());
+
+      if (certificates.isEmpty()) {
+        throw new IOException("No certificate found in " + certificateInfo.getCaCertFile());
+      }
+
+      PrivateKey privateKey = readPrivateKey(certificateInfo.getCaKeyFile(),
+          certificateInfo.getCaKeyPassword());
+
+      List<X509Certificate> chain = Collections.emptyList();
+
+      if (StringUtils.isNotEmpty(certificateInfo.getCaCertChainFile())) {
+        chain = readCertificates(certificateInfo.getCaCertChainFile());
+      }
+
+      return new SigningAuthority(certificates.get(0), privateKey, chain);
+    } catch (GeneralSecurityException | IOException | OperatorCreationException | PKCSException e) {
+      throw keyPairException(e);
+    }
+  }
+
+  /**
+   * Reads all the certificates from a PEM file.
+   * @param fileName PEM filename
+   * @return Certificates in the same order of the file
+   */
+  private List<X509Certificate> readCertificates(String fileName)
+      throws IOException, GeneralSecurityException {
+    List<X509Certificate> certificates = new ArrayList<>();
+    JcaX509CertificateConverter converter = new JcaX509CertificateConverter().setProvider(PROVIDER);
+
+    try (PEMParser parser = new PEMParser(new FileReader(fileName))) {
+      Object object;
 
-      validateExitValue(process);
-    } catch (IOException | InterruptedException e) {
-      throwKeyPairException(logMessage.getMessage(FAIL_MESSAGE));
+      while ((object = parser.readObject()) != null) {
+        if (object instanceof X509CertificateHolder) {
+          certificates.add(converter.getCertificate((X509CertificateHolder) object));
+        }
+      }
     }
+
+    return certificates;
   }
 
   /**
-   * Validates the result of the execution of the system process.
-   * @param process System process
+   * Reads a private key from a PEM file. Supports traditional (optionally encrypted) and PKCS#8
+   * (optionally encrypted) formats.
+   * @param fileName PEM filename
+   * @param password Key password
+   * @return Private key
    */
-  private void validateExitValue(Process process) {
-    int exitCode = process.exitValue();
-    if (exitCode != 0) {
-      LOGGER.error("Fail to execute command\n");
-
-      Scanner sc = new Scanner(process.getErrorStream());
-      while (sc.hasNextLine()) {
-        LOGGER.error(sc.nextLine());
+  private PrivateKey readPrivateKey(String fileName, String password)
+      throws IOException, OperatorCreationException, PKCSException {
+    char[] passwordChars = password == null ? new char[0] : password.toCharArray();
+    JcaPEMKeyConverter converter = new JcaPEMKeyConverter().setProvider(PROVIDER);
+
+    try (PEMParser parser = new PEMParser(new FileReader(fileName))) {
+      Object object = parser.readObject();
+
+      if (object instanceof PEMEncryptedKeyPair) {
+        PEMKeyPair keyPair = ((PEMEncryptedKeyPair) object).decryptKeyPair(
+            new JcePEMDecryptorProviderBuilder().setProvider(PROVIDER).build(passwordChars));
+        return converter.getKeyPair(keyPair).getPrivate();
+      } else if (object instanceof PEMKeyPair) {
+        return converter.getKeyPair((PEMKeyPair) object).getPrivate();
+      } else if (object instanceof PKCS8EncryptedPrivateKeyInfo) {
+        PrivateKeyInfo keyInfo = ((PKCS8EncryptedPrivateKeyInfo) object).decryptPrivateKeyInfo(
+            new JceOpenSSLPKCS8DecryptorProviderBuilder().setProvider(PROVIDER)
+                .build(passwordChars));
+        return converter.getPrivateKey(keyInfo);
+      } else if (object instanceof PrivateKeyInfo) {
+        return converter.getPrivateKey((PrivateKeyInfo) object);
       }
+    }
+
+    throw new IOException("No private key found in " + fileName);
+  }
+
+  /**
+   * Builds a content signer according to the private key algorithm.
+   * @param privateKey Private key
+   * @return Content signer
+   */
+  private ContentSigner getContentSigner(PrivateKey privateKey) throws OperatorCreationException {
+    String algorithm = EC_KEY_ALGORITHM.equals(privateKey.getAlgorithm())
+        ? EC_SIGNATURE_ALGORITHM : RSA_SIGNATURE_ALGORITHM;
+    return new JcaContentSignerBuilder(algorithm).setProvider(PROVIDER).build(privateKey);
+  }
 
-      String message = logMessage.getMessage(FAIL_PROCESS_MESSAGE, String.valueOf(process.exitValue()));
-      throwKeyPairException(message);
+  /**
+   * Writes an object (certificate or public key) using PEM format.
+   * @param fileName Output filename
+   * @param object Object to be written
+   */
+  protected void writePEM(String fileName, Object object) {
+    try (JcaPEMWriter writer = new JcaPEMWriter(new FileWriter(fileName))) {
+      writer.writeObject(object);
+    } catch (IOException e) {
+      throw keyPairException(e);
     }
   }
 
   /**
-   * Generate temporary password
-   * @param application Application object
-   * @return Temporary password
+   * Writes a private key using unencrypted PKCS#8 PEM format.
+   * @param fileName Output filename
+   * @param privateKey Private key
    */
-  protected String getTempPassword(Application application) {
-    return application.getId();
+  protected void writePKCS8(String fileName, PrivateKey privateKey) {
+    writePEM(fileName, new PemObject(PRIVATE_KEY_PEM_TYPE, privateKey.getEncoded()));
   }
 
-  protected void throwKeyPairException(String errorMessage) {
+  /**
+   * Writes a PKCS#12 keystore containing the private key and the certificate chain. The private
+   * key and the certificates are encrypted with AES-256-CBC (PBES2), like
+   * "openssl pkcs12 -export -aes256" does.
+   * @param fileName Output filename
+   * @param alias Key entry alias
+   * @param privateKey Private key
+   * @param password Keystore password
+   * @param chain Certificate chain, starting with the certificate of the private key
+   */
+  protected void writePKCS12(String fileName, String alias, PrivateKey privateKey,
+      String password, List<X509Certificate> chain) {
+    char[] passwordChars = password == null ? new char[0] : password.toCharArray();
+
+    try (OutputStream outputStream = new FileOutputStream(fileName)) {
+      SubjectKeyIdentifier keyId =
+          new JcaX509ExtensionUtils().createSubjectKeyIdentifier(chain.get(0).getPublicKey());
+      DERBMPString friendlyName = new DERBMPString(alias);
+
+      PKCS12SafeBag[] certificateBags = new PKCS12SafeBag[chain.size()];
+
+      for (int i = 0; i < chain.size(); i++) {
+        PKCS12SafeBagBuilder certificateBag = new JcaPKCS12SafeBagBuilder(chain.get(i));
+
+        if (i == 0) {
+          certificateBag.addBagAttribute(PKCSObjectIdentifiers.pkcs_9_at_friendlyName,
+              friendlyName);
+          certificateBag.addBagAttribute(PKCSObjectIdentifiers.pkcs_9_at_localKeyId, keyId);
+        }
+
+        certificateBags[i] = certificateBag.build();
+      }
+
+      PKCS12SafeBagBuilder keyBag =
+          new JcaPKCS12SafeBagBuilder(privateKey, pkcs12Encryptor(passwordChars));
+      keyBag.addBagAttribute(PKCSObjectIdentifiers.pkcs_9_at_friendlyName, friendlyName);
+      keyBag.addBagAttribute(PKCSObjectIdentifiers.pkcs_9_at_localKeyId, keyId);
+
+      PKCS12PfxPduBuilder pfxBuilder = new PKCS12PfxPduBuilder();
+      pfxBuilder.addEncryptedData(pkcs12Encryptor(passwordChars), certificateBags);
+      pfxBuilder.addData(keyBag.build());
+
+      PKCS12PfxPdu pfx = pfxBuilder.build(new JcePKCS12MacCalculatorBuilder(), passwordChars);
+      outputStream.write(pfx.getEncoded(ASN1Encoding.DER));
+    } catch (GeneralSecurityException | OperatorCreationException | PKCSException
+        | IOException e) {
+      throw keyPairException(e);
+    }
+  }
+
+  private OutputEncryptor pkcs12Encryptor(char[] password) throws OperatorCreationException {
+    return new JcePKCSPBEOutputEncryptorBuilder(NISTObjectIdentifiers.id_aes256_CBC)
+        .setProvider(PROVIDER)
+        .build(password);
+  }
+
+  /**
+   * Builds the exception to be thrown when the key generation fails.
+   * @param cause Failure cause
+   * @return Key pair exception
+   */
+  private KeyPairException keyPairException(Exception cause) {
+    String errorMessage = logMessage.getMessage(FAIL_MESSAGE);
     String yamlSolution = logMessage.getMessage(FAIL_YAML_SOLUTION);
     String permissionSolution = logMessage.getMessage(FAIL_PERMISSION_SOLUTION);
 
-    throw new KeyPairException(errorMessage, yamlSolution, permissionSolution);
+    return new KeyPairException(errorMessage, cause, yamlSolution, permissionSolution);
+  }
+
+  /**
+   * CA certificate and key used to sign the generated certificates.
+   */
+  protected static class SigningAuthority {
+
+    private final X509Certificate certificate;
+
+    private final PrivateKey privateKey;
+
+    private final List<X509Certificate> chain;
+
+    SigningAuthority(X509Certificate certificate, PrivateKey privateKey,
+        List<X509Certificate> chain) {
+      this.certificate = certificate;
+      this.privateKey = privateKey;
+      this.chain = chain;
+    }
+
+    public X509Certificate getCertificate() {
+      return certificate;
+    }
+
+    public PrivateKey getPrivateKey() {
+      return privateKey;
+    }
+
+    public List<X509Certificate> getChain() {
+      return chain;
+    }
+
   }
 }
@@ -0,0 +1,393 @@
+/**
+ * Copyright 2016-2017 Symphony Integrations - Symphony LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.symphonyoss.integration.provisioning.service;
+
+import static org.symphonyoss.integration.provisioning.properties.KeyPairProperties.GENERATE_CERTIFICATE;
+import static org.symphonyoss.integration.provisioning.properties.ProvisioningStateProperties.DEFAULT_STATE_FILE;
+import static org.symphonyoss.integration.provisioning.properties.ProvisioningStateProperties.PLAN_ONLY;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.stereotype.Service;
+import org.symphonyoss.integration.exception.IntegrationRuntimeException;
+import org.symphonyoss.integration.model.yaml.Application;
+import org.symphonyoss.integration.model.yaml.Certificate;
+import org.symphonyoss.integration.model.yaml.IntegrationBridge;
+import org.symphonyoss.integration.model.yaml.IntegrationProperties;
+import org.symphonyoss.integration.utils.IntegrationUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Keeps track of the inputs used by the last successful provisioning of each application, so the
+ * steps whose inputs didn't change can be skipped.
+ *
+ * Every step has a fingerprint (SHA-256) computed from its inputs: the POD, Agent and Key Manager
+ * URLs, the YAML fields of the application, the avatar image and the hashes of the certificate
+ * files involved. Pointing the provisioning to another environment therefore runs every step
+ * again. The fingerprints are stored in a JSON state file, by default inside the certificates
+ * directory.
+ * Removing the state file forces a full provisioning.
+ */
+@Service
+public class ProvisioningStateService {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ProvisioningStateService.class);
+
+  private static final String AVATAR_FIELD = "avatar";
+
+  private static final String MISSING_INPUT = "-";
+
+  private static final String TMP_EXTENSION = ".tmp";
+
+  private static final byte INPUT_SEPARATOR = '\n';
+
+  /**
+   * Provisioning steps tracked by the state file, in execution order.
+   */
+  public enum Step {
+    CONFIGURATION,
+    APPLICATION,
+    BOT_USER,
+    USER_CERTIFICATE,
+    APP_CERTIFICATE,
+    COMPANY_CERTIFICATE
+  }
+
+  private final ObjectMapper mapper = new ObjectMapper()
+      .configure(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY, true)
+      .configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true);
+
+  private final ApplicationArguments arguments;
+
+  private final IntegrationProperties properties;
+
+  private final IntegrationUtils utils;
+
+  private final String stateFileName;
+
+  /**
+   * Fingerprints of the last successful provisioning, indexed by application and step. Null until
+   * the state file is loaded.
+   */
+  private Map<String, Map<String, String>> state;
+
+  private File stateFile;
+
+  public ProvisioningStateService(ApplicationArguments arguments, IntegrationProperties properties,
+      IntegrationUtils utils, @Value("${provisioning.state.file:}") String stateFileName) {
+    this.arguments = arguments;
+    this.properties = properties;
+    this.utils = utils;
+    this.stateFileName = stateFileName;
+  }
+
+  /**
+   * Validates if the provisioning should only print the steps to be executed.
+   * @return true if no change should be applied or false otherwise.
+   */
+  public boolean isPlanOnly() {
+    return getBooleanOption(PLAN_ONLY);
+  }
+
+  /**
+   * Retrieves the steps whose inputs changed since the last successful provisioning.
+   * @param application Application object
+   * @return Changed steps in execution order
+   */
+  public List<Step> getChangedSteps(Application application) {
+    List<Step> result = new ArrayList<>();
+
+    for (Step step : Step.values()) {
+      if (hasChanged(application, step)) {
+        result.add(step);
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * Validates if the inputs of the step changed since the last successful provisioning.
+   * @param application Application object
+   * @param step Provisioning step
+   * @return true if the step should be executed or false otherwise.
+   */
+  public synchronized boolean hasChanged(Application application, Step step) {
+    Map<String, String> fingerprints = getState().get(application.getId());
+
+    if (fingerprints == null) {
+      return true;
+    }
+
+    String previous = fingerprints.get(step.name());
+    return (previous == null) || !previous.equals(fingerprint(application, step));
+  }
+
+  /**
+   * Records the current inputs of the step as successfully provisioned. Must be called after the
+   * step is executed, since some inputs are produced by the step itself (e.g. certificates).
+   * @param application Application object
+   * @param step Provisioning step
+   */
+  public synchronized void update(Application application, Step step) {
+    Map<String, Map<String, String>> current = getState();
+    Map<String, String> fingerprints = current.get(application.getId());
+
+    if (fingerprints == null) {
+      fingerprints = new TreeMap<>();
+      current.put(application.getId(), fingerprints);
+    }
+
+    fingerprints.put(step.name(), fingerprint(application, step));
+    write();
+  }
+
+  /**
+   * Removes the state of an application, so it will be fully provisioned in the next run.
+   * @param appId Application identifier
+   */
+  public synchronized void remove(String appId) {
+    if (getState().remove(appId) != null) {
+      write();
+    }
+  }
+
+  /**
+   * Computes the fingerprint of the step inputs.
+   * @param application Application object
+   * @param step Provisioning step
+   * @return Fingerprint
+   */
+  private String fingerprint(Application application, Step step) {
+    MessageDigest digest = DigestUtils.getSha256Digest();
+
+    add(digest, step.name());
+    addEnvironment(digest);
+    add(digest, getApplicationFingerprint(application));
+
+    switch (step) {
+      case APPLICATION:
+        add(digest, hash(application.getAvatar()));
+        addIntegrationBridgeDomain(digest);
+        break;
+      case BOT_USER:
+        add(digest, hash(application.getAvatar()));
+        break;
+      case USER_CERTIFICATE:
+        add(digest, String.valueOf(getBooleanOption(GENERATE_CERTIFICATE)));
+        addSigningCertificate(digest);
+        addCertsFile(digest, application.getId() + ".pem");
+        addCertsFile(digest, application.getId() + ".p12");
+        break;
+      case APP_CERTIFICATE:
+        add(digest, String.valueOf(getBooleanOption(GENERATE_CERTIFICATE)));
+        addSigningCertificate(digest);
+        addCertsFile(digest, application.getId() + "_app.pem");
+        addCertsFile(digest, application.getId() + "_app.p12");
+        addCertsFile(digest, application.getId() + "_app.pkcs8");
+        addCertsFile(digest, application.getId() + "_app_pub.pem");
+        break;
+      case COMPANY_CERTIFICATE:
+        addCertsFile(digest, application.getId() + ".pem");
+        addCertsFile(digest, application.getId() + "_app.pem");
+        break;
+      default:
+        break;
+    }
+
+    return Hex.encodeHexString(digest.digest());
+  }
+
+  /**
+   * Computes the fingerprint of the application YAML fields. The avatar image is handled apart,
+   * since it only affects some of the steps.
+   * @param application Application object
+   * @return Fingerprint
+   */
+  private String getApplicationFingerprint(Application application) {
+    try {
+      ObjectNode node = mapper.valueToTree(application);
+      node.remove(AVATAR_FIELD);
+      return DigestUtils.sha256Hex(mapper.writeValueAsBytes(node));
+    } catch (IOException | IllegalArgumentException e) {
+      LOGGER.warn("Fail to compute the fingerprint of the application " + application.getId(), e);
+      return String.valueOf(System.nanoTime());
+    }
+  }
+
+  /**
+   * Adds the URLs of the environment being provisioned, since the state of one environment says
+   * nothing about the others.
+   */
+  private void addEnvironment(MessageDigest digest) {
+    add(digest, String.valueOf(properties.getPodUrl()));
+    add(digest, String.valueOf(properties.getAgentUrl()));
+    add(digest, String.valueOf(properties.getKeyManagerUrl()));
+  }
+
+  private void addIntegrationBridgeDomain(MessageDigest digest) {
+    IntegrationBridge bridge = properties.getIntegrationBridge();
+    add(digest, bridge == null ? MISSING_INPUT : String.valueOf(bridge.getDomain()));
+  }
+
+  private void addSigningCertificate(MessageDigest digest) {
+    Certificate signingCert = properties.getSigningCert();
+
+    if (signingCert == null) {
+      add(digest, MISSING_INPUT);
+      return;
+    }
+
+    addFile(digest, signingCert.getCaCertFile());
+    addFile(digest, signingCert.getCaKeyFile());
+    addFile(digest, signingCert.getCaCertChainFile());
+  }
+
+  private void addCertsFile(MessageDigest digest, String fileName) {
+    String certsDirectory = getCertsDirectory();
+    addFile(digest, certsDirectory == null ? null : certsDirectory + fileName);
+  }
+
+  private void addFile(MessageDigest digest, String fileName) {
+    if (StringUtils.isEmpty(fileName)) {
+      add(digest, MISSING_INPUT);
+      return;
+    }
+
+    File file = new File(fileName);
+
+    if (!file.isFile()) {
+      add(digest, MISSING_INPUT);
+      return;
+    }
+
+    try {
+      add(digest, DigestUtils.sha256Hex(Files.readAllBytes(file.toPath())));
+    } catch (IOException e) {
+      LOGGER.warn("Fail to read the file " + fileName, e);
+      add(digest, String.valueOf(System.nanoTime()));
+    }
+  }
+
+  private void add(MessageDigest digest, String input) {
+    digest.update(input.getBytes(StandardCharsets.UTF_8));
+    digest.update(INPUT_SEPARATOR);
+  }
+
+  private String hash(String value) {
+    return value == null ? MISSING_INPUT : DigestUtils.sha256Hex(value);
+  }
+
+  private boolean getBooleanOption(String option) {
+    List<String> optionValues = arguments.getOptionValues(option);
+
+    if ((optionValues == null) || (optionValues.isEmpty())) {
+      return Boolean.FALSE;
+    }
+
+    return Boolean.valueOf(optionValues.get(0));
+  }
+
+  private String getCertsDirectory() {
+    try {
+      return utils.getCertsDirectory();
+    } catch (IntegrationRuntimeException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Loads the state file on the first access.
+   * @return Fingerprints indexed by application and step
+   */
+  private Map<String, Map<String, String>> getState() {
+    if (state == null) {
+      state = new TreeMap<>();
+      stateFile = resolveStateFile();
+
+      if ((stateFile != null) && stateFile.isFile()) {
+        try {
+          Map<String, Map<String, String>> saved = mapper.readValue(stateFile,
+              new TypeReference<Map<String, Map<String, String>>>() {});
+          state.putAll(saved);
+          LOGGER.info("Provisioning state loaded from {}", stateFile);
+        } catch (IOException e) {
+          LOGGER.warn("Ignoring invalid provisioning state file " + stateFile, e);
+        }
+      }
+    }
+
+    return state;
+  }
+
+  private File resolveStateFile() {
+    if (StringUtils.isNotEmpty(stateFileName)) {
+      return new File(stateFileName);
+    }
+
+    String certsDirectory = getCertsDirectory();
+
+    if (certsDirectory == null) {
+      LOGGER.warn("Certificates directory not found, the provisioning state won't be saved");
+      return null;
+    }
+
+    return new File(certsDirectory, DEFAULT_STATE_FILE);
+  }
+
+  /**
+   * Writes the state to a temporary file and moves it over the current one, so an interrupted
+   * run never leaves a partially written file. Plan-only runs never write the state.
+   */
+  private void write() {
+    if ((stateFile == null) || isPlanOnly()) {
+      return;
+    }
+
+    File tmpFile = new File(stateFile.getPath() + TMP_EXTENSION);
+
+    try {
+      mapper.writeValue(tmpFile, state);
+      Files.move(tmpFile.toPath(), stateFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      LOGGER.warn("Fail to write the provisioning state file " + stateFile, e);
+    }
+  }
+
+}
@@ -16,7 +16,7 @@
 
 package org.symphonyoss.integration.provisioning.service;
 
-import org.apache.commons.lang3.StringUtils;
+import org.bouncycastle.pkcs.PKCS10CertificationRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.ApplicationArguments;
@@ -24,11 +24,13 @@ import org.springframework.stereotype.Service;
 import org.symphonyoss.integration.logging.LogMessageSource;
 import org.symphonyoss.integration.model.config.IntegrationSettings;
 import org.symphonyoss.integration.model.yaml.Application;
-import org.symphonyoss.integration.model.yaml.Certificate;
 import org.symphonyoss.integration.model.yaml.IntegrationProperties;
 import org.symphonyoss.integration.utils.IntegrationUtils;
 
-import java.util.Locale;
+import java.security.KeyPair;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Service class responsible for generating user private key and certificate.
@@ -40,14 +42,9 @@ public class UserKeyPairService extends KeyPairService {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(UserKeyPairService.class);
 
-  private static final String OPENSSL_GEN_KEY_CMD = "openssl genrsa -aes256 -passout pass:%s -out"
-      + " %s 2048";
+  private static final int KEY_SIZE = 2048;
 
-  private static final String OPENSSL_GEN_CERT_CMD = "openssl x509 -req -sha256 -days 2922 -in %s"
-      + " -CA %s -passin pass:%s -out %s -CAkey %s -set_serial 0x%s";
-
-  private static final String OPENSSL_PKCS12_CMD = "openssl pkcs12 -export -out %s -aes256 -in %s"
-      + " -inkey %s -passin pass:%s -passout pass:%s";
+  private static final int CERTIFICATE_VALIDITY_DAYS = 2922;
 
   private final IntegrationProperties properties;
 
@@ -67,91 +64,60 @@ public class UserKeyPairService extends KeyPairService {
    */
   public void exportCertificate(IntegrationSettings settings, Application application) {
     if (shouldGenerateCertificate()) {
-      String keyFileName = generatePrivateKey(application);
-      String reqFileName = generateCSR(settings.getUsername(), application, keyFileName);
-      generateCertificate(application, keyFileName, reqFileName);
+      KeyPair keyPair = generatePrivateKey(application);
+      PKCS10CertificationRequest request = generateCSR(settings.getUsername(), application,
+          keyPair);
+      generateCertificate(application, keyPair, request);
     }
   }
 
   /**
    * Generate private key.
    * @param application Application object
-   * @return Key filename
+   * @return Key pair
    */
-  private String generatePrivateKey(Application application) {
+  private KeyPair generatePrivateKey(Application application) {
     LOGGER.info("Generating user private key: {}", application.getComponent());
-
-    String password = getTempPassword(application);
-    String appKeyFilename = String.format("%s/%s-key.pem", System.getProperty("java.io.tmpdir"),
-        application.getId());
-
-    String genKeyPairCommand = String.format(OPENSSL_GEN_KEY_CMD, password, appKeyFilename);
-
-    executeProcess(genKeyPairCommand);
-
-    return appKeyFilename;
+    return generateKeyPair(KEY_SIZE);
   }
 
   /**
    * Generate the Certificate Signing Request (CSR).
+   * @param username Bot username
    * @param application Application object
-   * @param appKeyFilename Key filename
-   * @return Request filename
+   * @param keyPair User key pair
+   * @return Certificate signing request
    */
-  private String generateCSR(String username, Application application, String appKeyFilename) {
+  private PKCS10CertificationRequest generateCSR(String username, Application application,
+      KeyPair keyPair) {
     LOGGER.info("Generating certificate signing request: {}", application.getComponent());
-
-    String password = String.format("pass:%s", getTempPassword(application));
-    String subject =
-        String.format("/CN=%s/O=%s/C=%s", username, DEFAULT_ORGANIZATION, Locale.US.getCountry());
-
-    String appReqFilename = String.format("%s/%s-req.pem", System.getProperty("java.io.tmpdir"),
-        application.getId());
-
-    String[] genCSRCommand = new String[] {"openssl", "req", "-new", "-key", appKeyFilename,
-        "-passin", password, "-subj", subject, "-out", appReqFilename};
-
-    executeProcess(genCSRCommand);
-
-    return appReqFilename;
+    return generateCSR(username, keyPair);
   }
 
   /**
-   * Generate user certificate
+   * Generate user certificate and the PKCS#12 keystore with the user key, the user certificate
+   * and the CA certificate chain.
    * @param application Application object
-   * @param appKeyFilename Key filename
-   * @param appReqFilename Request filename
+   * @param keyPair User key pair
+   * @param request Certificate signing request
    */
-  private void generateCertificate(Application application, String appKeyFilename, String
-      appReqFilename) {
+  private void generateCertificate(Application application, KeyPair keyPair,
+      PKCS10CertificationRequest request) {
     LOGGER.info("Generating certificate: {}", application.getComponent());
 
-    Certificate certificateInfo = properties.getSigningCert();
-
-    String keyPassword = getTempPassword(application);
-    String password = certificateInfo.getCaKeyPassword();
-    String passOutput = application.getKeystore().getPassword();
-    String sn = Long.toHexString(System.currentTimeMillis());
+    SigningAuthority authority = getSigningAuthority(properties.getSigningCert());
+    X509Certificate certificate = signCertificate(request, authority, CERTIFICATE_VALIDITY_DAYS);
 
     String appCertFilename = utils.getCertsDirectory() + application.getId() + ".pem";
     String appPKCS12Filename = utils.getCertsDirectory() + application.getId() + ".p12";
-    String caCertFilename = certificateInfo.getCaCertFile();
-    String caCertKeyFilename = certificateInfo.getCaKeyFile();
-    String caCertChain = certificateInfo.getCaCertChainFile();
 
-    String genCerticateCommand =
-        String.format(OPENSSL_GEN_CERT_CMD, appReqFilename, caCertFilename, password,
-            appCertFilename, caCertKeyFilename, sn);
+    writePEM(appCertFilename, certificate);
 
-    executeProcess(genCerticateCommand);
-
-    String genPKCS12Command = String.format(OPENSSL_PKCS12_CMD, appPKCS12Filename,
-        appCertFilename, appKeyFilename, keyPassword, passOutput);
-
-    if (!StringUtils.isEmpty(caCertChain)) {
-      genPKCS12Command = genPKCS12Command.concat(" -certfile ").concat(caCertChain);
-    }
+    List<X509Certificate> chain = new ArrayList<>();
+    chain.add(certificate);
+    chain.addAll(authority.getChain());
 
-    executeProcess(genPKCS12Command);
+    String password = application.getKeystore().getPassword();
+    writePKCS12(appPKCS12Filename, application.getId(), keyPair.getPrivate(), password, chain);
   }
 }
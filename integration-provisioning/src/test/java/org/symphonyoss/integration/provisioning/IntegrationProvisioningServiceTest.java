@@ -19,11 +19,17 @@ package org.symphonyoss.integration.provisioning;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.argThat;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentMatcher;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
@@ -45,9 +51,12 @@ import org.symphonyoss.integration.provisioning.service.ApplicationService;
 import org.symphonyoss.integration.provisioning.service.CompanyCertificateService;
 import org.symphonyoss.integration.provisioning.service.ConfigurationProvisioningService;
 import org.symphonyoss.integration.provisioning.service.KeyPairService;
+import org.symphonyoss.integration.provisioning.service.ProvisioningStateService;
+import org.symphonyoss.integration.provisioning.service.ProvisioningStateService.Step;
 import org.symphonyoss.integration.provisioning.service.UserKeyPairService;
 import org.symphonyoss.integration.provisioning.service.UserService;
 
+import java.util.Arrays;
 import java.util.Collections;
 
 /**
@@ -89,6 +98,9 @@ public class IntegrationProvisioningServiceTest {
   @MockBean
   private LogMessageSource logMessage;
 
+  @MockBean
+  private ProvisioningStateService stateService;
+
   @Autowired
   private IntegrationProvisioningService service;
 
@@ -99,6 +111,10 @@ public class IntegrationProvisioningServiceTest {
 
     doReturn(settings).when(configurationService).setupConfiguration(any(Application.class));
     doReturn(Boolean.TRUE).when(applicationService).updateAppSettings(any(Application.class));
+
+    doReturn(Arrays.asList(Step.values())).when(stateService)
+        .getChangedSteps(any(Application.class));
+    doReturn(Boolean.TRUE).when(stateService).hasChanged(any(Application.class), any(Step.class));
   }
 
   @Test
@@ -139,6 +155,61 @@ public class IntegrationProvisioningServiceTest {
     assertFalse(service.configure());
   }
 
+  @Test
+  public void testFailProvisioningDoesNotAbortOtherApps() {
+    doThrow(UserSearchException.class).when(userService)
+        .setupBotUser(any(IntegrationSettings.class), argThat(new ArgumentMatcher<Application>() {
+          @Override
+          public boolean matches(Object argument) {
+            return "jira".equals(((Application) argument).getId());
+          }
+        }));
+
+    assertFalse(service.configure());
+
+    verify(userService, times(4)).setupBotUser(any(IntegrationSettings.class),
+        any(Application.class));
+    verify(appKeyPairService, times(3)).exportCertificate(any(Application.class));
+    verify(applicationService, times(1)).updateAppSettings(any(Application.class));
+  }
+
+  @Test
+  public void testUnchangedApplications() {
+    doReturn(Collections.emptyList()).when(stateService).getChangedSteps(any(Application.class));
+
+    assertTrue(service.configure());
+
+    verify(configurationService, never()).setupConfiguration(any(Application.class));
+    verify(userService, never()).setupBotUser(any(IntegrationSettings.class),
+        any(Application.class));
+  }
+
+  @Test
+  public void testOnlyChangedStepsExecuted() {
+    doReturn(Boolean.FALSE).when(stateService).hasChanged(any(Application.class), any(Step.class));
+    doReturn(Boolean.TRUE).when(stateService).hasChanged(any(Application.class),
+        eq(Step.COMPANY_CERTIFICATE));
+
+    assertTrue(service.configure());
+
+    verify(userService, never()).setupBotUser(any(IntegrationSettings.class),
+        any(Application.class));
+    verify(appKeyPairService, never()).exportCertificate(any(Application.class));
+    verify(companyCertificateService, times(5)).importCertificate(any(Application.class));
+    verify(stateService, times(5)).update(any(Application.class), eq(Step.COMPANY_CERTIFICATE));
+  }
+
+  @Test
+  public void testPlanOnly() {
+    doReturn(Boolean.TRUE).when(stateService).isPlanOnly();
+
+    assertTrue(service.configure());
+
+    verify(configurationService, never()).setupConfiguration(any(Application.class));
+    verify(applicationService, never()).updateAppSettings(any(Application.class));
+    verify(stateService, never()).update(any(Application.class), any(Step.class));
+  }
+
   @Test
   public void testSuccess() {
     assertTrue(service.configure());
@@ -194,6 +194,84 @@ public class AppRepositoryClientTest {
     assertEquals(expected, result);
   }
 
+  @Test
+  public void testGetAppGroupIdUsesCatalogSnapshot()
+      throws AppRepositoryClientException, MalformedURLException, RemoteApiException {
+    testAppsAvailable();
+
+    repository.getAppByAppGroupId(MOCK_APP_ID, DEFAULT_USER_ID);
+    repository.getAppByAppGroupId(MOCK_APP_ID, DEFAULT_USER_ID);
+    assertNull(repository.getAppByAppGroupId("unknown", DEFAULT_USER_ID));
+
+    // One call from testAppsAvailable and one to build the snapshot
+    verify(client, times(2)).doGet(APP_REPOSITORY_APPS_AVAILABLE, getRequiredHeaders(),
+        Collections.<String, String>emptyMap(), Envelope.class);
+  }
+
+  @Test
+  public void testUpdateAppMergesCatalog()
+      throws AppRepositoryClientException, MalformedURLException, RemoteApiException {
+    testGetAppGroupId();
+
+    AppStoreWrapper wrapper = mockAppStoreWrapper();
+    wrapper.setName("Renamed");
+
+    repository.updateApp(wrapper, DEFAULT_USER_ID, MOCK_APP_ID);
+
+    Map<String, String> result = repository.getAppByAppGroupId(MOCK_APP_ID, DEFAULT_USER_ID);
+    assertEquals("Renamed", result.get("name"));
+
+    verify(client, times(2)).doGet(APP_REPOSITORY_APPS_AVAILABLE, getRequiredHeaders(),
+        Collections.<String, String>emptyMap(), Envelope.class);
+  }
+
+  @Test
+  public void testCreateAppUpdatesCatalog() throws AppRepositoryClientException,
+      RemoteApiException {
+    Map<String, String> headers = getRequiredHeaders();
+
+    Envelope<List> available = new Envelope<>();
+    available.setData(new ArrayList());
+
+    doReturn(available).when(client).doGet(APP_REPOSITORY_APPS_AVAILABLE, headers,
+        Collections.<String, String>emptyMap(), Envelope.class);
+
+    assertNull(repository.getAppByAppGroupId(MOCK_APP_ID, DEFAULT_USER_ID));
+
+    Map<String, String> created = new HashMap<>();
+    created.put("id", MOCK_CONFIGURATION_ID);
+    created.put("appGroupId", MOCK_APP_ID);
+
+    doReturn(new Envelope<>(created)).when(client).doPost(eq(APP_REPOSITORY_APPS), eq(headers),
+        eq(Collections.<String, String>emptyMap()), any(Envelope.class), eq(Envelope.class));
+
+    repository.createNewApp(new AppStoreWrapper(), DEFAULT_USER_ID);
+
+    assertEquals(created, repository.getAppByAppGroupId(MOCK_APP_ID, DEFAULT_USER_ID));
+
+    verify(client, times(1)).doGet(APP_REPOSITORY_APPS_AVAILABLE, headers,
+        Collections.<String, String>emptyMap(), Envelope.class);
+  }
+
+  @Test
+  public void testCreateAppWithoutDataInvalidatesCatalog() throws AppRepositoryClientException,
+      RemoteApiException {
+    Map<String, String> headers = getRequiredHeaders();
+
+    Envelope<List> available = new Envelope<>();
+    available.setData(new ArrayList());
+
+    doReturn(available).when(client).doGet(APP_REPOSITORY_APPS_AVAILABLE, headers,
+        Collections.<String, String>emptyMap(), Envelope.class);
+
+    repository.getAppByAppGroupId(MOCK_APP_ID, DEFAULT_USER_ID);
+    repository.createNewApp(new AppStoreWrapper(), DEFAULT_USER_ID);
+    repository.getAppByAppGroupId(MOCK_APP_ID, DEFAULT_USER_ID);
+
+    verify(client, times(2)).doGet(APP_REPOSITORY_APPS_AVAILABLE, headers,
+        Collections.<String, String>emptyMap(), Envelope.class);
+  }
+
   @Test(expected = AppRepositoryClientException.class)
   public void testCreateAppRemoteApiException()
       throws RemoteApiException, AppRepositoryClientException {
@@ -14,48 +14,39 @@
  * limitations under the License.
  */
 
+
 package org.symphonyoss.integration.provisioning.service;
 
-import static org.mockito.Matchers.any;
-import static org.mockito.Matchers.anyString;
-import static org.mockito.Matchers.eq;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.doReturn;
-import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.times;
-import static org.mockito.Mockito.verify;
-import static org.mockito.Mockito.when;
 import static org.symphonyoss.integration.provisioning.properties.KeyPairProperties
     .GENERATE_CERTIFICATE;
 
-import org.apache.commons.lang3.StringUtils;
+import org.bouncycastle.asn1.pkcs.PrivateKeyInfo;
+import org.bouncycastle.asn1.x509.SubjectPublicKeyInfo;
+import org.bouncycastle.openssl.PEMParser;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
-import org.mockito.Spy;
-import org.powermock.api.mockito.PowerMockito;
-import org.powermock.core.classloader.annotations.PowerMockIgnore;
-import org.powermock.core.classloader.annotations.PrepareForTest;
-import org.powermock.modules.junit4.PowerMockRunner;
+import org.mockito.runners.MockitoJUnitRunner;
 import org.springframework.boot.ApplicationArguments;
 import org.symphonyoss.integration.logging.LogMessageSource;
-import org.symphonyoss.integration.model.config.IntegrationSettings;
 import org.symphonyoss.integration.model.yaml.Application;
-import org.symphonyoss.integration.model.yaml.Certificate;
 import org.symphonyoss.integration.model.yaml.IntegrationProperties;
 import org.symphonyoss.integration.model.yaml.Keystore;
 import org.symphonyoss.integration.provisioning.exception.KeyPairException;
 import org.symphonyoss.integration.utils.IntegrationUtils;
 
-import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileReader;
 import java.io.IOException;
-import java.nio.file.FileSystem;
-import java.nio.file.FileSystems;
-import java.nio.file.Files;
-import java.nio.file.LinkOption;
-import java.nio.file.Path;
-import java.nio.file.attribute.PosixFileAttributeView;
-import java.nio.file.attribute.UserPrincipalLookupService;
+import java.security.KeyStore;
+import java.security.cert.X509Certificate;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -65,9 +56,7 @@ import java.util.List;
  *
  * Created by rsanchez on 11/08/17.
  */
-@RunWith(PowerMockRunner.class)
-@PowerMockIgnore("javax.management.*")
-@PrepareForTest({KeyPairService.class})
+@RunWith(MockitoJUnitRunner.class)
 public class AppKeyPairServiceTest {
 
   private static final String MOCK_APP_TYPE = "appTest";
@@ -76,25 +65,12 @@ public class AppKeyPairServiceTest {
 
   private static final String MOCK_KEY_PASSWORD = "changeit";
 
-  private static final String MOCK_ROOT_CERT_FILE = "root-cert.pem";
-
-  private static final String MOCK_ROOT_KEY_FILE = "root-key.pem";
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
 
   @Mock
   private ApplicationArguments arguments;
 
-  @Mock
-  private Runtime runtime;
-
-  @Mock
-  private Process process;
-
-  @Mock
-  private UserPrincipalLookupService lookupService;
-
-  @Mock
-  private PosixFileAttributeView attributeView;
-
   @Mock
   private IntegrationUtils utils;
 
@@ -104,124 +80,77 @@ public class AppKeyPairServiceTest {
   @Mock
   private IntegrationProperties properties;
 
+  private MockSigningAuthority authority;
+
   private AppKeyPairService keyPairService;
 
+  private String certsDirectory;
+
   @Before
-  public void init() throws IOException {
+  public void init() throws Exception {
     keyPairService = new AppKeyPairService(arguments, logMessage, utils, properties);
 
-    PowerMockito.mockStatic(Runtime.class);
-    PowerMockito.mockStatic(FileSystems.class);
-    PowerMockito.mockStatic(Files.class);
-
-    FileSystem fileSystem = mock(FileSystem.class);
-
-    when(FileSystems.getDefault()).thenReturn(fileSystem);
-    when(Files.getFileAttributeView(any(Path.class), eq(PosixFileAttributeView.class),
-        eq(LinkOption.NOFOLLOW_LINKS))).thenReturn(attributeView);
-    when(Runtime.getRuntime()).thenReturn(runtime);
-
-    doReturn(lookupService).when(fileSystem).getUserPrincipalLookupService();
-
     List<String> optionValues = Arrays.asList(Boolean.TRUE.toString());
     doReturn(optionValues).when(arguments).getOptionValues(GENERATE_CERTIFICATE);
 
-    doReturn(process).when(runtime).exec(anyString());
-    doReturn(process).when(runtime).exec(any(String[].class));
-
-    doReturn(new ByteArrayInputStream(new byte[] {})).when(process).getErrorStream();
-
-    doReturn(StringUtils.EMPTY).when(utils).getCertsDirectory();
+    authority = new MockSigningAuthority(folder.newFolder("ca"), MOCK_KEY_PASSWORD);
+    doReturn(authority.getCertificateInfo()).when(properties).getSigningCert();
 
-    Certificate certificateInfo = new Certificate();
-    certificateInfo.setCaCertFile(MOCK_ROOT_CERT_FILE);
-    certificateInfo.setCaKeyFile(MOCK_ROOT_KEY_FILE);
-    certificateInfo.setCaKeyPassword(MOCK_KEY_PASSWORD);
-
-    doReturn(certificateInfo).when(properties).getSigningCert();
+    certsDirectory = folder.newFolder("certs").getAbsolutePath() + File.separator;
+    doReturn(certsDirectory).when(utils).getCertsDirectory();
   }
 
   @Test
-  public void testShouldNotGenerateCertificate() throws InterruptedException {
+  public void testShouldNotGenerateCertificate() {
     doReturn(Collections.EMPTY_LIST).when(arguments).getOptionValues(GENERATE_CERTIFICATE);
 
     keyPairService.exportCertificate(null);
 
-    verify(process, times(0)).waitFor();
+    assertEquals(0, new File(certsDirectory).list().length);
   }
 
   @Test
-  public void testNullAppKeystore() throws InterruptedException {
+  public void testNullAppKeystore() {
     Application application = getApplication();
     application.setAppKeystore(null);
 
     keyPairService.exportCertificate(application);
 
-    verify(process, times(0)).waitFor();
-  }
-
-  @Test(expected = KeyPairException.class)
-  public void testFailGeneratePrivateKey() throws IOException {
-    Application application = getApplication();
-
-    doReturn(-1).when(process).exitValue();
-
-    keyPairService.exportCertificate(application);
-  }
-
-  @Test(expected = KeyPairException.class)
-  public void testFailGeneratePKCS8() throws IOException {
-    Application application = getApplication();
-
-    doReturn(0).doReturn(-1).when(process).exitValue();
-
-    keyPairService.exportCertificate(application);
-  }
-
-  @Test(expected = KeyPairException.class)
-  public void testFailGenerateCSR() throws IOException, InterruptedException {
-    Application application = getApplication();
-
-    doReturn(0).when(process).exitValue();
-    doReturn(0).doReturn(0).doThrow(IOException.class).when(process).waitFor();
-
-    keyPairService.exportCertificate(application);
+    assertEquals(0, new File(certsDirectory).list().length);
   }
 
   @Test(expected = KeyPairException.class)
-  public void testFailGenerateCertificate() throws IOException, InterruptedException {
-    Application application = getApplication();
-
-    doReturn(0).doReturn(0).doReturn(0).doReturn(-1).when(process).exitValue();
+  public void testFailReadSigningKey() {
+    authority.getCertificateInfo().setCaKeyFile(new File(folder.getRoot(), "none.pem").getPath());
 
-    keyPairService.exportCertificate(application);
+    keyPairService.exportCertificate(getApplication());
   }
 
-  @Test(expected = KeyPairException.class)
-  public void testFailGeneratePKCS12() throws IOException, InterruptedException {
-    Application application = getApplication();
+  @Test
+  public void testSuccess() throws Exception {
+    keyPairService.exportCertificate(getApplication());
 
-    doReturn(0).doReturn(0).doReturn(0).doReturn(0).doReturn(-1).when(process).exitValue();
+    assertTrue(readPEM(MOCK_APP_ID + "_app.pkcs8") instanceof PrivateKeyInfo);
+    assertTrue(readPEM(MOCK_APP_ID + "_app_pub.pem") instanceof SubjectPublicKeyInfo);
+    assertTrue(new File(certsDirectory + MOCK_APP_ID + "_app.pem").exists());
 
-    keyPairService.exportCertificate(application);
-  }
+    KeyStore keyStore = KeyStore.getInstance("pkcs12");
 
-  @Test(expected = KeyPairException.class)
-  public void testFailGeneratePublicKey() throws IOException, InterruptedException {
-    Application application = getApplication();
+    try (FileInputStream inputStream = new FileInputStream(
+        certsDirectory + MOCK_APP_ID + "_app.p12")) {
+      keyStore.load(inputStream, MOCK_KEY_PASSWORD.toCharArray());
+    }
 
-    doReturn(0).doReturn(0).doReturn(0).doReturn(0).doReturn(0).doReturn(-1).when(process).exitValue();
+    X509Certificate certificate = (X509Certificate) keyStore.getCertificate(MOCK_APP_ID);
 
-    keyPairService.exportCertificate(application);
+    assertEquals(1, keyStore.getCertificateChain(MOCK_APP_ID).length);
+    certificate.verify(authority.getCertificate().getPublicKey());
   }
 
-  @Test
-  public void testSuccess() throws IOException {
-    Application application = getApplication();
-
-    doReturn(0).when(process).exitValue();
-
-    keyPairService.exportCertificate(application);
+  private Object readPEM(String fileName) throws IOException {
+    try (PEMParser parser = new PEMParser(new FileReader(certsDirectory + fileName))) {
+      return parser.readObject();
+    }
   }
 
   private Application getApplication() {
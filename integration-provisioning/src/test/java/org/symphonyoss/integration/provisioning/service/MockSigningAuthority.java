@@ -0,0 +1,90 @@
+/**
+ * Copyright 2016-2017 Symphony Integrations - Symphony LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.symphonyoss.integration.provisioning.service;
+
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.cert.X509CertificateHolder;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
+import org.bouncycastle.cert.jcajce.JcaX509v3CertificateBuilder;
+import org.bouncycastle.openssl.jcajce.JcaMiscPEMGenerator;
+import org.bouncycastle.openssl.jcajce.JcaPEMWriter;
+import org.bouncycastle.openssl.jcajce.JcePEMEncryptorBuilder;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.symphonyoss.integration.model.yaml.Certificate;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.math.BigInteger;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.cert.X509Certificate;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generates a self-signed CA to be used as signing certificate by the key pair unit tests.
+ */
+public class MockSigningAuthority {
+
+  public static final String CA_SUBJECT = "CN=Mock CA,O=Symphony Communications LLC,C=US";
+
+  private final X509Certificate certificate;
+
+  private final Certificate certificateInfo;
+
+  public MockSigningAuthority(File folder, String password) throws Exception {
+    KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+    generator.initialize(1024);
+    KeyPair keyPair = generator.generateKeyPair();
+
+    X500Name subject = new X500Name(CA_SUBJECT);
+    long now = System.currentTimeMillis();
+
+    X509CertificateHolder holder = new JcaX509v3CertificateBuilder(subject, BigInteger.ONE,
+        new Date(now), new Date(now + TimeUnit.DAYS.toMillis(1)), subject, keyPair.getPublic())
+        .build(new JcaContentSignerBuilder("SHA256withRSA").build(keyPair.getPrivate()));
+
+    this.certificate = new JcaX509CertificateConverter().getCertificate(holder);
+
+    File certFile = new File(folder, "ca-cert.pem");
+    File keyFile = new File(folder, "ca-key.pem");
+
+    try (JcaPEMWriter writer = new JcaPEMWriter(new FileWriter(certFile))) {
+      writer.writeObject(certificate);
+    }
+
+    try (JcaPEMWriter writer = new JcaPEMWriter(new FileWriter(keyFile))) {
+      writer.writeObject(new JcaMiscPEMGenerator(keyPair.getPrivate(),
+          new JcePEMEncryptorBuilder("AES-256-CBC").build(password.toCharArray())));
+    }
+
+    this.certificateInfo = new Certificate();
+    this.certificateInfo.setCaCertFile(certFile.getAbsolutePath());
+    this.certificateInfo.setCaKeyFile(keyFile.getAbsolutePath());
+    this.certificateInfo.setCaKeyPassword(password);
+  }
+
+  public X509Certificate getCertificate() {
+    return certificate;
+  }
+
+  public Certificate getCertificateInfo() {
+    return certificateInfo;
+  }
+
+}
@@ -0,0 +1,206 @@
+/**
+ * Copyright 2016-2017 Symphony Integrations - Symphony LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.symphonyoss.integration.provisioning.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.doReturn;
+import static org.symphonyoss.integration.provisioning.properties.KeyPairProperties.GENERATE_CERTIFICATE;
+import static org.symphonyoss.integration.provisioning.properties.ProvisioningStateProperties.PLAN_ONLY;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.boot.ApplicationArguments;
+import org.symphonyoss.integration.model.yaml.Application;
+import org.symphonyoss.integration.model.yaml.IntegrationProperties;
+import org.symphonyoss.integration.provisioning.service.ProvisioningStateService.Step;
+import org.symphonyoss.integration.utils.IntegrationUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * Unit test for {@link ProvisioningStateService}
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class ProvisioningStateServiceTest {
+
+  private static final String MOCK_APP_ID = "jira";
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Mock
+  private ApplicationArguments arguments;
+
+  @Mock
+  private IntegrationProperties properties;
+
+  @Mock
+  private IntegrationUtils utils;
+
+  private String certsDirectory;
+
+  private ProvisioningStateService service;
+
+  @Before
+  public void init() throws IOException {
+    certsDirectory = folder.getRoot().getAbsolutePath() + File.separator;
+    doReturn(certsDirectory).when(utils).getCertsDirectory();
+
+    service = newService();
+  }
+
+  private ProvisioningStateService newService() {
+    return new ProvisioningStateService(arguments, properties, utils, "");
+  }
+
+  @Test
+  public void testNewApplication() {
+    Application application = getApplication();
+
+    assertEquals(Arrays.asList(Step.values()), service.getChangedSteps(application));
+  }
+
+  @Test
+  public void testUnchangedAfterRestart() {
+    Application application = getApplication();
+
+    for (Step step : Step.values()) {
+      service.update(application, step);
+    }
+
+    assertTrue(new File(certsDirectory, "provisioning-state.json").isFile());
+    assertTrue(newService().getChangedSteps(getApplication()).isEmpty());
+  }
+
+  @Test
+  public void testAvatarChanged() {
+    Application application = getApplication();
+
+    for (Step step : Step.values()) {
+      service.update(application, step);
+    }
+
+    application.setAvatar("bmV3IGF2YXRhcg==");
+
+    assertEquals(Arrays.asList(Step.APPLICATION, Step.BOT_USER),
+        service.getChangedSteps(application));
+  }
+
+  @Test
+  public void testYamlChanged() {
+    Application application = getApplication();
+
+    for (Step step : Step.values()) {
+      service.update(application, step);
+    }
+
+    application.setDescription("New description");
+
+    assertEquals(Arrays.asList(Step.values()), service.getChangedSteps(application));
+  }
+
+  @Test
+  public void testPodChanged() {
+    doReturn("https://pod1.symphony.com").when(properties).getPodUrl();
+
+    Application application = getApplication();
+
+    for (Step step : Step.values()) {
+      service.update(application, step);
+    }
+
+    doReturn("https://pod2.symphony.com").when(properties).getPodUrl();
+
+    assertEquals(Arrays.asList(Step.values()), service.getChangedSteps(getApplication()));
+  }
+
+  @Test
+  public void testCertificateChanged() throws IOException {
+    Application application = getApplication();
+
+    for (Step step : Step.values()) {
+      service.update(application, step);
+    }
+
+    Files.write(new File(certsDirectory, MOCK_APP_ID + ".pem").toPath(),
+        "certificate".getBytes(StandardCharsets.UTF_8));
+
+    assertEquals(Arrays.asList(Step.USER_CERTIFICATE, Step.COMPANY_CERTIFICATE),
+        service.getChangedSteps(application));
+  }
+
+  @Test
+  public void testGenerateCertificateOptionChanged() {
+    Application application = getApplication();
+
+    for (Step step : Step.values()) {
+      service.update(application, step);
+    }
+
+    doReturn(Collections.singletonList(Boolean.TRUE.toString())).when(arguments)
+        .getOptionValues(GENERATE_CERTIFICATE);
+
+    assertEquals(Arrays.asList(Step.USER_CERTIFICATE, Step.APP_CERTIFICATE),
+        service.getChangedSteps(application));
+  }
+
+  @Test
+  public void testRemove() {
+    Application application = getApplication();
+    service.update(application, Step.CONFIGURATION);
+
+    service.remove(MOCK_APP_ID);
+
+    assertTrue(newService().hasChanged(application, Step.CONFIGURATION));
+  }
+
+  @Test
+  public void testPlanOnlyDoesNotWriteState() {
+    doReturn(Collections.singletonList(Boolean.TRUE.toString())).when(arguments)
+        .getOptionValues(PLAN_ONLY);
+
+    assertTrue(service.isPlanOnly());
+
+    service.update(getApplication(), Step.CONFIGURATION);
+
+    assertFalse(new File(certsDirectory, "provisioning-state.json").exists());
+  }
+
+  private Application getApplication() {
+    Application application = new Application();
+    application.setId(MOCK_APP_ID);
+    application.setComponent(MOCK_APP_ID);
+    application.setName("JIRA");
+    application.setDescription("Integration for JIRA");
+    application.setAvatar("YXZhdGFy");
+    return application;
+  }
+
+}
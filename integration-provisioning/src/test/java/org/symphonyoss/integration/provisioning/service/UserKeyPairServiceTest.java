@@ -14,33 +14,24 @@
  * limitations under the License.
  */
 
+
 package org.symphonyoss.integration.provisioning.service;
 
-import static org.mockito.Matchers.any;
-import static org.mockito.Matchers.anyString;
-import static org.mockito.Matchers.eq;
-import static org.mockito.Matchers.matches;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.doReturn;
-import static org.mockito.Mockito.doThrow;
-import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.mockingDetails;
-import static org.mockito.Mockito.times;
-import static org.mockito.Mockito.verify;
-import static org.mockito.Mockito.when;
 import static org.symphonyoss.integration.provisioning.properties.KeyPairProperties
     .GENERATE_CERTIFICATE;
 
-import org.apache.commons.lang3.StringUtils;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Spy;
-import org.powermock.api.mockito.PowerMockito;
-import org.powermock.core.classloader.annotations.PowerMockIgnore;
-import org.powermock.core.classloader.annotations.PrepareForTest;
-import org.powermock.modules.junit4.PowerMockRunner;
+import org.mockito.runners.MockitoJUnitRunner;
 import org.springframework.boot.ApplicationArguments;
 import org.symphonyoss.integration.logging.LogMessageSource;
 import org.symphonyoss.integration.model.config.IntegrationSettings;
@@ -51,28 +42,24 @@ import org.symphonyoss.integration.model.yaml.Keystore;
 import org.symphonyoss.integration.provisioning.exception.KeyPairException;
 import org.symphonyoss.integration.utils.IntegrationUtils;
 
-import java.io.ByteArrayInputStream;
-import java.io.IOException;
-import java.nio.file.FileSystem;
-import java.nio.file.FileSystems;
-import java.nio.file.Files;
-import java.nio.file.LinkOption;
-import java.nio.file.Path;
-import java.nio.file.attribute.GroupPrincipal;
-import java.nio.file.attribute.PosixFileAttributeView;
-import java.nio.file.attribute.UserPrincipal;
-import java.nio.file.attribute.UserPrincipalLookupService;
+import java.io.File;
+import java.io.FileInputStream;
+import java.security.KeyStore;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Unit test for {@link UserKeyPairService}
  * Created by rsanchez on 14/06/17.
  */
-@RunWith(PowerMockRunner.class)
-@PowerMockIgnore("javax.management.*")
-@PrepareForTest({KeyPairService.class})
+@RunWith(MockitoJUnitRunner.class)
 public class UserKeyPairServiceTest {
 
   private static final String MOCK_APP_TYPE = "appTest";
@@ -81,27 +68,12 @@ public class UserKeyPairServiceTest {
 
   private static final String MOCK_KEY_PASSWORD = "changeit";
 
-  private static final String MOCK_KEY_FILE = "mock-key.pem";
-
-  private static final String MOCK_CERT_FILE = "mock-cert.pem";
-
-  private static final String MOCK_CERT_CA_CHAIN_FILE = "mock-chain.pem";
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
 
   @Mock
   private ApplicationArguments arguments;
 
-  @Mock
-  private Runtime runtime;
-
-  @Mock
-  private Process process;
-
-  @Mock
-  private UserPrincipalLookupService lookupService;
-
-  @Mock
-  private PosixFileAttributeView attributeView;
-
   @Mock
   private IntegrationUtils utils;
 
@@ -111,123 +83,124 @@ public class UserKeyPairServiceTest {
   @Mock
   private LogMessageSource logMessage;
 
+  private MockSigningAuthority authority;
+
   private UserKeyPairService keyPairService;
 
   @Before
-  public void init() throws IOException {
+  public void init() throws Exception {
     keyPairService = new UserKeyPairService(arguments, logMessage, properties, utils);
 
-    PowerMockito.mockStatic(Runtime.class);
-    PowerMockito.mockStatic(FileSystems.class);
-    PowerMockito.mockStatic(Files.class);
-
-    FileSystem fileSystem = mock(FileSystem.class);
-
-    when(FileSystems.getDefault()).thenReturn(fileSystem);
-    when(Files.getFileAttributeView(any(Path.class), eq(PosixFileAttributeView.class),
-        eq(LinkOption.NOFOLLOW_LINKS))).thenReturn(attributeView);
-    when(Runtime.getRuntime()).thenReturn(runtime);
-
-    doReturn(lookupService).when(fileSystem).getUserPrincipalLookupService();
-
     List<String> optionValues = Arrays.asList(Boolean.TRUE.toString());
     doReturn(optionValues).when(arguments).getOptionValues(GENERATE_CERTIFICATE);
 
-    doReturn(process).when(runtime).exec(anyString());
-    doReturn(process).when(runtime).exec(any(String[].class));
-
-    doReturn(new ByteArrayInputStream(new byte[] {})).when(process).getErrorStream();
+    File caFolder = folder.newFolder("ca");
+    authority = new MockSigningAuthority(caFolder, MOCK_KEY_PASSWORD);
 
-    Certificate certificateInfo = new Certificate();
-    certificateInfo.setCaKeyPassword(MOCK_KEY_PASSWORD);
-    certificateInfo.setCaKeyFile(MOCK_KEY_FILE);
-    certificateInfo.setCaCertFile(MOCK_CERT_FILE);
-    certificateInfo.setCaCertChainFile(MOCK_CERT_CA_CHAIN_FILE);
+    Certificate certificateInfo = authority.getCertificateInfo();
+    certificateInfo.setCaCertChainFile(certificateInfo.getCaCertFile());
 
     this.properties.setSigningCert(certificateInfo);
 
-    doReturn(StringUtils.EMPTY).when(utils).getCertsDirectory();
+    File certsFolder = folder.newFolder("certs");
+    doReturn(certsFolder.getAbsolutePath() + File.separator).when(utils).getCertsDirectory();
   }
 
   @Test
-  public void testShouldNotGenerateCertificate() throws InterruptedException {
+  public void testShouldNotGenerateCertificate() {
     doReturn(Collections.EMPTY_LIST).when(arguments).getOptionValues(GENERATE_CERTIFICATE);
 
     keyPairService.exportCertificate(null, null);
 
-    verify(process, times(0)).waitFor();
+    assertEquals(0, new File(utils.getCertsDirectory()).list().length);
   }
 
   @Test(expected = KeyPairException.class)
-  public void testFailGenerateKeyPair() throws IOException {
-    Application application = getApplication(false);
-
-    doReturn(-1).when(process).exitValue();
+  public void testFailReadSigningCertificate() {
+    properties.getSigningCert().setCaCertFile(new File(folder.getRoot(), "none.pem").getPath());
 
-    keyPairService.exportCertificate(null, application);
+    keyPairService.exportCertificate(getSettings(), getApplication());
   }
 
   @Test(expected = KeyPairException.class)
-  public void testFailGenerateCSR() throws IOException, InterruptedException {
-    Application application = getApplication(false);
-
-    IntegrationSettings settings = new IntegrationSettings();
-    settings.setUsername(MOCK_APP_TYPE);
-
-    doReturn(0).when(process).exitValue();
-    doReturn(0).doThrow(IOException.class).when(process).waitFor();
+  public void testFailInvalidSigningKeyPassword() {
+    properties.getSigningCert().setCaKeyPassword("invalid");
 
-    keyPairService.exportCertificate(settings, application);
+    keyPairService.exportCertificate(getSettings(), getApplication());
   }
 
-  @Test(expected = KeyPairException.class)
-  public void testFailGenerateCertificate() throws IOException, InterruptedException {
-    Application application = getApplication(true);
+  @Test
+  public void testSuccess() throws Exception {
+    keyPairService.exportCertificate(getSettings(), getApplication());
 
-    IntegrationSettings settings = new IntegrationSettings();
-    settings.setUsername(MOCK_APP_TYPE);
+    assertTrue(new File(utils.getCertsDirectory() + MOCK_APP_ID + ".pem").exists());
+
+    KeyStore keyStore = loadKeyStore(MOCK_APP_ID);
+    X509Certificate certificate = (X509Certificate) keyStore.getCertificate(MOCK_APP_ID);
 
-    doReturn(0).when(process).exitValue();
-    doReturn(0).doReturn(0).doThrow(IOException.class).when(process).waitFor();
+    assertTrue(keyStore.isKeyEntry(MOCK_APP_ID));
+    assertEquals(2, keyStore.getCertificateChain(MOCK_APP_ID).length);
+    assertTrue(certificate.getSubjectX500Principal().getName().contains("CN=" + MOCK_APP_TYPE));
+    assertEquals(authority.getCertificate().getSubjectX500Principal(),
+        certificate.getIssuerX500Principal());
 
-    keyPairService.exportCertificate(settings, application);
+    certificate.verify(authority.getCertificate().getPublicKey());
   }
 
-  @Test(expected = KeyPairException.class)
-  public void testFailGeneratePKCS12() throws IOException, InterruptedException {
-    Application application = getApplication(true);
+  @Test
+  public void testConcurrentExport() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    List<Future<X509Certificate>> results = new ArrayList<>();
+
+    try {
+      for (int i = 0; i < 4; i++) {
+        final Application application = getApplication();
+        application.setId(MOCK_APP_ID + i);
+
+        results.add(executor.submit(new Callable<X509Certificate>() {
+          @Override
+          public X509Certificate call() throws Exception {
+            keyPairService.exportCertificate(getSettings(), application);
+            return (X509Certificate) loadKeyStore(application.getId())
+                .getCertificate(application.getId());
+          }
+        }));
+      }
+
+      X509Certificate first = results.get(0).get();
+      for (int i = 1; i < results.size(); i++) {
+        assertNotEquals(first.getSerialNumber(), results.get(i).get().getSerialNumber());
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
 
-    IntegrationSettings settings = new IntegrationSettings();
-    settings.setUsername(MOCK_APP_TYPE);
+  private KeyStore loadKeyStore(String appId) throws Exception {
+    KeyStore keyStore = KeyStore.getInstance("pkcs12");
 
-    doReturn(0).doReturn(0).doReturn(0).doReturn(-1).when(process).exitValue();
+    try (FileInputStream inputStream = new FileInputStream(
+        utils.getCertsDirectory() + appId + ".p12")) {
+      keyStore.load(inputStream, MOCK_KEY_PASSWORD.toCharArray());
+    }
 
-    keyPairService.exportCertificate(settings, application);
+    return keyStore;
   }
 
-  @Test
-  public void testSuccess() throws IOException {
-    Application application = getApplication(true);
-
+  private IntegrationSettings getSettings() {
     IntegrationSettings settings = new IntegrationSettings();
     settings.setUsername(MOCK_APP_TYPE);
-
-    doReturn(0).when(process).exitValue();
-
-    keyPairService.exportCertificate(settings, application);
-
+    return settings;
   }
 
-  private Application getApplication(boolean addKeystore) {
+  private Application getApplication() {
     Application application = new Application();
     application.setId(MOCK_APP_ID);
     application.setComponent(MOCK_APP_TYPE);
 
-    if (addKeystore) {
-      Keystore keystore = new Keystore();
-      keystore.setPassword(MOCK_KEY_PASSWORD);
-      application.setKeystore(keystore);
-    }
+    Keystore keystore = new Keystore();
+    keystore.setPassword(MOCK_KEY_PASSWORD);
+    application.setKeystore(keystore);
 
     return application;
   }
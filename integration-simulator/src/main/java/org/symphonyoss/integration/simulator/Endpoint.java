@@ -0,0 +1,114 @@
+/**
+ * Copyright 2016-2017 Symphony Integrations - Symphony LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.symphonyoss.integration.simulator;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Endpoints served by the {@link SymphonySimulator}.
+ *
+ * Each path may be preceded by a single context segment (e.g. '/pod', '/agent', '/sessionauth',
+ * '/keyauth'), so the same simulator can stand in for all the Symphony components. The endpoints
+ * are matched in the declaration order.
+ */
+public enum Endpoint {
+
+  /**
+   * Session and Key Manager authentication.
+   */
+  AUTHENTICATE("POST", "/v1/authenticate"),
+
+  /**
+   * Post message (Agent API v2 and v4).
+   */
+  POST_MESSAGE("POST", "/v[24]/stream/([^/]+)/message/create"),
+
+  /**
+   * Get and update an integration instance (admin API), used to resolve the webhook instances.
+   */
+  CONFIGURATION_INSTANCE(null, "/v1/admin/configuration/([^/]+)/instance/([^/]+)/(get|update)"),
+
+  /**
+   * Integration configurations and instances.
+   */
+  CONFIGURATION(null, "/v1/configuration(/.*)?"),
+
+  /**
+   * User lookup.
+   */
+  USER("GET", "/v2/user"),
+
+  /**
+   * Pod health check.
+   */
+  POD_HEALTH("GET", "/webcontroller/HealthCheck/version"),
+
+  /**
+   * Agent health check.
+   */
+  AGENT_HEALTH("GET", "/v1/HealthCheck"),
+
+  /**
+   * Key Manager health check.
+   */
+  KM_HEALTH("GET", "/HealthCheck/version");
+
+  private static final String CONTEXT_PREFIX = "^(/[\\w.-]+)?";
+
+  private final String method;
+
+  private final Pattern pattern;
+
+  Endpoint(String method, String path) {
+    this.method = method;
+    this.pattern = Pattern.compile(CONTEXT_PREFIX + path + "/?$");
+  }
+
+  /**
+   * Matches the request against this endpoint.
+   * @param method HTTP method
+   * @param path Request path
+   * @return Path matcher or null if the request doesn't match this endpoint
+   */
+  public Matcher match(String method, String path) {
+    if (this.method != null && !this.method.equalsIgnoreCase(method)) {
+      return null;
+    }
+
+    Matcher matcher = pattern.matcher(path);
+    return matcher.matches() ? matcher : null;
+  }
+
+  /**
+   * Finds the endpoint that serves the request.
+   * @param method HTTP method
+   * @param path Request path
+   * @return Endpoint or null if there is no endpoint to serve the request
+   */
+  public static Endpoint of(String method, String path) {
+    for (Endpoint endpoint : values()) {
+      if (endpoint.match(method, path) != null) {
+        return endpoint;
+      }
+    }
+
+    return null;
+  }
+
+}
@@ -0,0 +1,189 @@
+/**
+ * Copyright 2016-2017 Symphony Integrations - Symphony LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.symphonyoss.integration.simulator;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Controls how the {@link SymphonySimulator} answers the requests to an endpoint: the latency
+ * added before answering, the rate of the error responses and the rate of the requests that are
+ * never answered (timeouts).
+ *
+ * It can be changed while the simulator is running.
+ */
+public class EndpointBehavior {
+
+  /**
+   * Outcome returned by {@link #nextOutcome(Random)} when the request must not be answered.
+   */
+  public static final int TIMEOUT = -1;
+
+  /**
+   * Outcome returned by {@link #nextOutcome(Random)} when the request must succeed.
+   */
+  public static final int OK = 200;
+
+  private static final long DEFAULT_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+  private volatile LatencyDistribution latency = LatencyDistribution.NONE;
+
+  private final Map<Integer, Double> errorRates = new ConcurrentSkipListMap<>();
+
+  private volatile double timeoutRate;
+
+  private volatile long timeoutMillis = DEFAULT_TIMEOUT_MILLIS;
+
+  public LatencyDistribution getLatency() {
+    return latency;
+  }
+
+  public void setLatency(LatencyDistribution latency) {
+    if (latency == null) {
+      throw new IllegalArgumentException("Latency distribution must be informed");
+    }
+
+    this.latency = latency;
+  }
+
+  /**
+   * Sets the fraction of the requests answered with the given HTTP status.
+   * @param status HTTP status (e.g. 401, 403, 500, 503)
+   * @param rate Fraction of the requests, between 0 and 1. Zero removes the error.
+   */
+  public synchronized void setErrorRate(int status, double rate) {
+    checkRate(rate);
+
+    double previous = errorRates.containsKey(status) ? errorRates.get(status) : 0;
+    checkTotalRate(getTotalRate() - previous + rate);
+
+    if (rate == 0) {
+      errorRates.remove(status);
+    } else {
+      errorRates.put(status, rate);
+    }
+  }
+
+  public double getErrorRate(int status) {
+    Double rate = errorRates.get(status);
+    return rate != null ? rate : 0;
+  }
+
+  public double getTimeoutRate() {
+    return timeoutRate;
+  }
+
+  /**
+   * Sets the fraction of the requests that are held for {@link #getTimeoutMillis()} and then
+   * dropped without response.
+   * @param rate Fraction of the requests, between 0 and 1.
+   */
+  public synchronized void setTimeoutRate(double rate) {
+    checkRate(rate);
+    checkTotalRate(getTotalRate() - timeoutRate + rate);
+
+    this.timeoutRate = rate;
+  }
+
+  public long getTimeoutMillis() {
+    return timeoutMillis;
+  }
+
+  /**
+   * Sets how long a timed out request is held before the connection is dropped. It should be
+   * longer than the read timeout of the client under test.
+   * @param timeoutMillis Time in milliseconds
+   */
+  public void setTimeoutMillis(long timeoutMillis) {
+    if (timeoutMillis < 0) {
+      throw new IllegalArgumentException("Timeout must not be negative");
+    }
+
+    this.timeoutMillis = timeoutMillis;
+  }
+
+  /**
+   * Removes the latency, the errors and the timeouts.
+   */
+  public synchronized void reset() {
+    this.latency = LatencyDistribution.NONE;
+    this.errorRates.clear();
+    this.timeoutRate = 0;
+    this.timeoutMillis = DEFAULT_TIMEOUT_MILLIS;
+  }
+
+  /**
+   * Draws the outcome of the next request.
+   * @param random Source of randomness
+   * @return {@link #TIMEOUT}, {@link #OK} or the HTTP status of the injected error
+   */
+  public int nextOutcome(Random random) {
+    double value = random.nextDouble();
+
+    if (value < timeoutRate) {
+      return TIMEOUT;
+    }
+
+    value -= timeoutRate;
+
+    for (Map.Entry<Integer, Double> entry : errorRates.entrySet()) {
+      if (value < entry.getValue()) {
+        return entry.getKey();
+      }
+
+      value -= entry.getValue();
+    }
+
+    return OK;
+  }
+
+  private double getTotalRate() {
+    double total = timeoutRate;
+
+    for (Double rate : errorRates.values()) {
+      total += rate;
+    }
+
+    return total;
+  }
+
+  private void checkRate(double rate) {
+    if (rate < 0 || rate > 1) {
+      throw new IllegalArgumentException("Rate must be between 0 and 1");
+    }
+  }
+
+  private void checkTotalRate(double total) {
+    if (total > 1 + 1e-9) {
+      throw new IllegalArgumentException("The sum of the error and timeout rates exceeds 1");
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "EndpointBehavior{" +
+        "latency=" + latency +
+        ", errorRates=" + errorRates +
+        ", timeoutRate=" + timeoutRate +
+        ", timeoutMillis=" + timeoutMillis +
+        '}';
+  }
+
+}
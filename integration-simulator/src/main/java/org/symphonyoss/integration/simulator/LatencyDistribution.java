@@ -0,0 +1,140 @@
+/**
+ * Copyright 2016-2017 Symphony Integrations - Symphony LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.symphonyoss.integration.simulator;
+
+import java.util.Random;
+
+/**
+ * Distribution of the latency added by the {@link SymphonySimulator} before answering a request.
+ */
+public abstract class LatencyDistribution {
+
+  /**
+   * No latency.
+   */
+  public static final LatencyDistribution NONE = fixed(0);
+
+  /**
+   * Draws the next delay.
+   * @param random Source of randomness
+   * @return Delay in milliseconds, never negative
+   */
+  public abstract long nextDelay(Random random);
+
+  /**
+   * Always the same delay.
+   * @param millis Delay in milliseconds
+   * @return Latency distribution
+   */
+  public static LatencyDistribution fixed(final long millis) {
+    checkNotNegative(millis);
+
+    return new LatencyDistribution() {
+      @Override
+      public long nextDelay(Random random) {
+        return millis;
+      }
+
+      @Override
+      public String toString() {
+        return "fixed(" + millis + "ms)";
+      }
+    };
+  }
+
+  /**
+   * Delays evenly spread between the bounds.
+   * @param minMillis Minimum delay in milliseconds
+   * @param maxMillis Maximum delay in milliseconds
+   * @return Latency distribution
+   */
+  public static LatencyDistribution uniform(final long minMillis, final long maxMillis) {
+    checkNotNegative(minMillis);
+
+    if (maxMillis < minMillis) {
+      throw new IllegalArgumentException("Maximum delay must not be lower than the minimum delay");
+    }
+
+    return new LatencyDistribution() {
+      @Override
+      public long nextDelay(Random random) {
+        return minMillis + (long) (random.nextDouble() * (maxMillis - minMillis));
+      }
+
+      @Override
+      public String toString() {
+        return "uniform(" + minMillis + "ms, " + maxMillis + "ms)";
+      }
+    };
+  }
+
+  /**
+   * Exponentially distributed delays, mostly short with occasional long ones.
+   * @param meanMillis Mean delay in milliseconds
+   * @return Latency distribution
+   */
+  public static LatencyDistribution exponential(final long meanMillis) {
+    checkNotNegative(meanMillis);
+
+    return new LatencyDistribution() {
+      @Override
+      public long nextDelay(Random random) {
+        return (long) (-meanMillis * Math.log(1 - random.nextDouble()));
+      }
+
+      @Override
+      public String toString() {
+        return "exponential(" + meanMillis + "ms)";
+      }
+    };
+  }
+
+  /**
+   * Log-normally distributed delays, which usually resembles the latency of a remote service with
+   * a long tail.
+   * @param medianMillis Median delay in milliseconds
+   * @param sigma Shape of the distribution. Higher values produce a longer tail.
+   * @return Latency distribution
+   */
+  public static LatencyDistribution logNormal(final long medianMillis, final double sigma) {
+    checkNotNegative(medianMillis);
+
+    if (sigma < 0) {
+      throw new IllegalArgumentException("Sigma must not be negative");
+    }
+
+    return new LatencyDistribution() {
+      @Override
+      public long nextDelay(Random random) {
+        return (long) (medianMillis * Math.exp(sigma * random.nextGaussian()));
+      }
+
+      @Override
+      public String toString() {
+        return "logNormal(" + medianMillis + "ms, " + sigma + ")";
+      }
+    };
+  }
+
+  private static void checkNotNegative(long millis) {
+    if (millis < 0) {
+      throw new IllegalArgumentException("Delay must not be negative");
+    }
+  }
+
+}
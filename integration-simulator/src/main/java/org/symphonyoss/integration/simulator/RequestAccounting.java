@@ -0,0 +1,219 @@
+/**
+ * Copyright 2016-2017 Symphony Integrations - Symphony LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.symphonyoss.integration.simulator;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts the requests received by the {@link SymphonySimulator}, per endpoint and outcome.
+ */
+public class RequestAccounting {
+
+  private final Map<Endpoint, EndpointCounters> counters = new EnumMap<>(Endpoint.class);
+
+  private final AtomicLong unmatched = new AtomicLong();
+
+  public RequestAccounting() {
+    for (Endpoint endpoint : Endpoint.values()) {
+      counters.put(endpoint, new EndpointCounters());
+    }
+  }
+
+  /**
+   * Records a request answered with the given HTTP status.
+   * @param endpoint Endpoint
+   * @param status HTTP status
+   * @param delayMillis Latency added to the response
+   */
+  void recordResponse(Endpoint endpoint, int status, long delayMillis) {
+    EndpointCounters endpointCounters = counters.get(endpoint);
+    endpointCounters.requests.incrementAndGet();
+    endpointCounters.delay.addAndGet(delayMillis);
+
+    AtomicLong counter = endpointCounters.statuses.get(status);
+
+    if (counter == null) {
+      AtomicLong newCounter = new AtomicLong();
+      counter = endpointCounters.statuses.putIfAbsent(status, newCounter);
+
+      if (counter == null) {
+        counter = newCounter;
+      }
+    }
+
+    counter.incrementAndGet();
+  }
+
+  /**
+   * Records a request that was dropped without response.
+   * @param endpoint Endpoint
+   */
+  void recordTimeout(Endpoint endpoint) {
+    EndpointCounters endpointCounters = counters.get(endpoint);
+    endpointCounters.requests.incrementAndGet();
+    endpointCounters.timeouts.incrementAndGet();
+  }
+
+  /**
+   * Records a request that doesn't match any endpoint.
+   */
+  void recordUnmatched() {
+    unmatched.incrementAndGet();
+  }
+
+  /**
+   * Total requests received by the endpoint, including errors and timeouts.
+   * @param endpoint Endpoint
+   * @return Number of requests
+   */
+  public long getRequests(Endpoint endpoint) {
+    return counters.get(endpoint).requests.get();
+  }
+
+  /**
+   * Requests to the endpoint answered with the given HTTP status.
+   * @param endpoint Endpoint
+   * @param status HTTP status
+   * @return Number of responses
+   */
+  public long getResponses(Endpoint endpoint, int status) {
+    AtomicLong counter = counters.get(endpoint).statuses.get(status);
+    return counter != null ? counter.get() : 0;
+  }
+
+  /**
+   * Requests to the endpoint grouped by HTTP status.
+   * @param endpoint Endpoint
+   * @return Number of responses per HTTP status
+   */
+  public SortedMap<Integer, Long> getResponses(Endpoint endpoint) {
+    SortedMap<Integer, Long> result = new TreeMap<>();
+
+    for (Map.Entry<Integer, AtomicLong> entry : counters.get(endpoint).statuses.entrySet()) {
+      result.put(entry.getKey(), entry.getValue().get());
+    }
+
+    return Collections.unmodifiableSortedMap(result);
+  }
+
+  /**
+   * Requests to the endpoint dropped without response.
+   * @param endpoint Endpoint
+   * @return Number of requests
+   */
+  public long getTimeouts(Endpoint endpoint) {
+    return counters.get(endpoint).timeouts.get();
+  }
+
+  /**
+   * Average latency added to the responses of the endpoint.
+   * @param endpoint Endpoint
+   * @return Average latency in milliseconds
+   */
+  public double getAverageDelay(Endpoint endpoint) {
+    EndpointCounters endpointCounters = counters.get(endpoint);
+    long answered = endpointCounters.requests.get() - endpointCounters.timeouts.get();
+
+    return answered > 0 ? (double) endpointCounters.delay.get() / answered : 0;
+  }
+
+  /**
+   * Requests that don't match any endpoint. They are answered with 404.
+   * @return Number of requests
+   */
+  public long getUnmatched() {
+    return unmatched.get();
+  }
+
+  /**
+   * Total requests received by the simulator.
+   * @return Number of requests
+   */
+  public long getTotalRequests() {
+    long total = unmatched.get();
+
+    for (EndpointCounters endpointCounters : counters.values()) {
+      total += endpointCounters.requests.get();
+    }
+
+    return total;
+  }
+
+  /**
+   * Clears all the counters.
+   */
+  public void reset() {
+    for (EndpointCounters endpointCounters : counters.values()) {
+      endpointCounters.reset();
+    }
+
+    unmatched.set(0);
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder builder = new StringBuilder();
+
+    for (Endpoint endpoint : Endpoint.values()) {
+      if (getRequests(endpoint) == 0) {
+        continue;
+      }
+
+      builder.append(endpoint)
+          .append(": requests=").append(getRequests(endpoint))
+          .append(", responses=").append(getResponses(endpoint))
+          .append(", timeouts=").append(getTimeouts(endpoint))
+          .append(", avgDelay=").append(String.format("%.1fms", getAverageDelay(endpoint)))
+          .append(System.lineSeparator());
+    }
+
+    builder.append("UNMATCHED: requests=").append(unmatched.get());
+
+    return builder.toString();
+  }
+
+  /**
+   * Counters of a single endpoint.
+   */
+  private static class EndpointCounters {
+
+    private final AtomicLong requests = new AtomicLong();
+
+    private final AtomicLong timeouts = new AtomicLong();
+
+    private final AtomicLong delay = new AtomicLong();
+
+    private final ConcurrentMap<Integer, AtomicLong> statuses = new ConcurrentHashMap<>();
+
+    private void reset() {
+      requests.set(0);
+      timeouts.set(0);
+      delay.set(0);
+      statuses.clear();
+    }
+
+  }
+
+}
@@ -0,0 +1,504 @@
+/**
+ * Copyright 2016-2017 Symphony Integrations - Symphony LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.symphonyoss.integration.simulator;
+
+import static org.symphonyoss.integration.simulator.EndpointBehavior.OK;
+import static org.symphonyoss.integration.simulator.EndpointBehavior.TIMEOUT;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import com.sun.net.httpserver.HttpsConfigurator;
+import com.sun.net.httpserver.HttpsServer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+
+import javax.net.ssl.SSLContext;
+
+/**
+ * In-process stand-in for the Pod, Agent and Key Manager endpoints used by the Integration
+ * Bridge (see {@link Endpoint}), to run the bridge end to end under load without a Symphony
+ * environment.
+ *
+ * The latency, the injected errors and the timeouts of each endpoint are controlled through
+ * {@link #getBehavior(Endpoint)}, and every request is counted in {@link #getAccounting()}.
+ *
+ * The simulator listens on the loopback interface only. It serves plain HTTP unless an SSL context
+ * is informed through {@link #setSslContext(SSLContext)} before starting it.
+ */
+public class SymphonySimulator implements Closeable {
+
+  private static final String LOCALHOST = "localhost";
+
+  private static final String CONTENT_TYPE_HEADER = "Content-Type";
+
+  private static final String APPLICATION_JSON = "application/json";
+
+  private static final String KM_CONTEXT = "/keyauth";
+
+  private static final String USERNAME_PARAM = "username=";
+
+  private static final String DEFAULT_VERSION = "1.46.0";
+
+  /**
+   * Configuration identifier returned by the configuration endpoints
+   */
+  public static final String DEFAULT_CONFIGURATION_ID = "57e82afce4b07fea0651e8ac";
+
+  /**
+   * Stream configured for the integration instances unless informed through
+   * {@link #setInstanceStreams(List)}
+   */
+  public static final String DEFAULT_STREAM = "t7uufOOl8JXeDcamEVLvSn___qvMMOjEdA";
+
+  private static final String DEFAULT_INTEGRATION_TYPE = "simulatorIntegration";
+
+  private static final String DEFAULT_USERNAME = "simulator.bot";
+
+  private static final long DEFAULT_USER_ID = 9000L;
+
+  private static final int BACKLOG = 1024;
+
+  private final int requestedPort;
+
+  private final Map<Endpoint, EndpointBehavior> behaviors = new EnumMap<>(Endpoint.class);
+
+  private final Map<Endpoint, String> responseBodies = new ConcurrentHashMap<>();
+
+  private final RequestAccounting accounting = new RequestAccounting();
+
+  private volatile List<String> instanceStreams = Collections.singletonList(DEFAULT_STREAM);
+
+  private SSLContext sslContext;
+
+  private HttpServer server;
+
+  private ExecutorService executor;
+
+  /**
+   * Creates a simulator listening on an ephemeral port.
+   */
+  public SymphonySimulator() {
+    this(0);
+  }
+
+  /**
+   * Creates a simulator listening on the given port.
+   * @param port Port number or zero to use an ephemeral port
+   */
+  public SymphonySimulator(int port) {
+    this.requestedPort = port;
+
+    for (Endpoint endpoint : Endpoint.values()) {
+      behaviors.put(endpoint, new EndpointBehavior());
+    }
+  }
+
+  /**
+   * Serves HTTPS using the given SSL context. Must be called before {@link #start()}.
+   * @param sslContext SSL context holding the server certificate
+   */
+  public synchronized void setSslContext(SSLContext sslContext) {
+    if (isRunning()) {
+      throw new IllegalStateException("Simulator already started");
+    }
+
+    this.sslContext = sslContext;
+  }
+
+  /**
+   * Starts listening for requests.
+   * @throws IOException Report failure to bind the server socket
+   */
+  public synchronized void start() throws IOException {
+    if (isRunning()) {
+      throw new IllegalStateException("Simulator already started");
+    }
+
+    InetSocketAddress address =
+        new InetSocketAddress(InetAddress.getLoopbackAddress(), requestedPort);
+
+    if (sslContext != null) {
+      HttpsServer httpsServer = HttpsServer.create(address, BACKLOG);
+      httpsServer.setHttpsConfigurator(new HttpsConfigurator(sslContext));
+      server = httpsServer;
+    } else {
+      server = HttpServer.create(address, BACKLOG);
+    }
+
+    // Requests wait for the simulated latency in their own thread
+    executor = Executors.newCachedThreadPool(new SimulatorThreadFactory());
+
+    server.createContext("/", new SimulatorHandler());
+    server.setExecutor(executor);
+    server.start();
+  }
+
+  /**
+   * Stops the simulator. Requests being held to simulate latency or timeouts are dropped.
+   */
+  public synchronized void stop() {
+    if (!isRunning()) {
+      return;
+    }
+
+    server.stop(0);
+    executor.shutdownNow();
+
+    server = null;
+    executor = null;
+  }
+
+  @Override
+  public void close() {
+    stop();
+  }
+
+  public synchronized boolean isRunning() {
+    return server != null;
+  }
+
+  /**
+   * Port the simulator is listening on.
+   * @return Port number
+   */
+  public synchronized int getPort() {
+    if (!isRunning()) {
+      throw new IllegalStateException("Simulator not started");
+    }
+
+    return server.getAddress().getPort();
+  }
+
+  /**
+   * Base URL of the simulator. Any context path (e.g. '/pod', '/agent') can be appended to it.
+   * @return Base URL
+   */
+  public String getBaseUrl() {
+    String scheme = sslContext != null ? "https" : "http";
+    return scheme + "://" + LOCALHOST + ":" + getPort();
+  }
+
+  /**
+   * Behavior of the given endpoint. It can be changed while the simulator is running.
+   * @param endpoint Endpoint
+   * @return Endpoint behavior
+   */
+  public EndpointBehavior getBehavior(Endpoint endpoint) {
+    return behaviors.get(endpoint);
+  }
+
+  /**
+   * Replaces the default successful response body of the given endpoint.
+   * @param endpoint Endpoint
+   * @param body JSON response body or null to restore the default one
+   */
+  public void setResponseBody(Endpoint endpoint, String body) {
+    if (body == null) {
+      responseBodies.remove(endpoint);
+    } else {
+      responseBodies.put(endpoint, body);
+    }
+  }
+
+  /**
+   * Sets the streams of the integration instances returned by
+   * {@link Endpoint#CONFIGURATION_INSTANCE}. The bridge posts each webhook message to all of them.
+   * @param streams Stream identifiers
+   */
+  public void setInstanceStreams(List<String> streams) {
+    this.instanceStreams = Collections.unmodifiableList(new ArrayList<>(streams));
+  }
+
+  public RequestAccounting getAccounting() {
+    return accounting;
+  }
+
+  /**
+   * Restores the default behavior and response bodies of all endpoints, the default instance
+   * streams and clears the counters.
+   */
+  public void reset() {
+    for (EndpointBehavior behavior : behaviors.values()) {
+      behavior.reset();
+    }
+
+    responseBodies.clear();
+    accounting.reset();
+
+    instanceStreams = Collections.singletonList(DEFAULT_STREAM);
+  }
+
+  /**
+   * Builds the successful response body for a request.
+   * @param endpoint Endpoint serving the request
+   * @param exchange HTTP exchange
+   * @return JSON response body
+   */
+  private String getResponseBody(Endpoint endpoint, HttpExchange exchange) {
+    String body = responseBodies.get(endpoint);
+
+    if (body != null) {
+      return body;
+    }
+
+    String path = exchange.getRequestURI().getPath();
+    Matcher matcher = endpoint.match(exchange.getRequestMethod(), path);
+
+    switch (endpoint) {
+      case AUTHENTICATE:
+        String tokenName = KM_CONTEXT.equals(matcher.group(1)) ? "keyManagerToken" : "sessionToken";
+        return "{\"name\":\"" + tokenName + "\",\"token\":\"" + UUID.randomUUID() + "\"}";
+      case POST_MESSAGE:
+        return "{\"message\":\"<div data-format=\\\"PresentationML\\\" data-version=\\\"2.0\\\">"
+            + "Message posted to " + escape(matcher.group(2)) + "</div>\"}";
+      case CONFIGURATION_INSTANCE:
+        return getInstanceBody(matcher.group(2), matcher.group(3));
+      case CONFIGURATION:
+        return getConfigurationBody(matcher.group(2));
+      case USER:
+        return "{\"id\":" + DEFAULT_USER_ID + ",\"username\":\""
+            + escape(getUsername(exchange.getRequestURI().getRawQuery()))
+            + "\",\"emailAddress\":\"simulator.bot@symphony.com\",\"displayName\":\"Simulator Bot\"}";
+      case AGENT_HEALTH:
+        return "{\"podConnectivity\":true,\"keyManagerConnectivity\":true,\"version\":\""
+            + DEFAULT_VERSION + "\"}";
+      default:
+        return "{\"version\":\"" + DEFAULT_VERSION + "\"}";
+    }
+  }
+
+  /**
+   * Builds the configuration response body. Instance list requests get an empty list, any other
+   * request gets the configuration itself.
+   * @param subPath Path after '/v1/configuration'
+   * @return JSON response body
+   */
+  private String getConfigurationBody(String subPath) {
+    if (subPath != null && subPath.contains("/instance") && subPath.endsWith("/list")) {
+      return "[]";
+    }
+
+    String type = DEFAULT_INTEGRATION_TYPE;
+
+    if (subPath != null && subPath.startsWith("/type/")) {
+      String[] segments = subPath.split("/");
+      type = segments[2];
+    }
+
+    return "{\"configurationId\":\"" + DEFAULT_CONFIGURATION_ID + "\",\"type\":\"" + escape(type)
+        + "\",\"name\":\"Simulated integration\",\"description\":\"Simulated integration\","
+        + "\"enabled\":true,\"visible\":true}";
+  }
+
+  /**
+   * Builds the integration instance response body. The instance is owned by the simulated user
+   * and configured to post to the instance streams.
+   * @param configurationId Configuration identifier
+   * @param instanceId Instance identifier
+   * @return JSON response body
+   */
+  private String getInstanceBody(String configurationId, String instanceId) {
+    StringBuilder streams = new StringBuilder();
+
+    for (String stream : instanceStreams) {
+      if (streams.length() > 0) {
+        streams.append(',');
+      }
+
+      streams.append("\"").append(escape(stream)).append("\"");
+    }
+
+    String optionalProperties = "{\"owner\":" + DEFAULT_USER_ID + ",\"streamType\":\"CHATROOM\","
+        + "\"streams\":[" + streams + "]}";
+
+    return "{\"instanceId\":\"" + escape(instanceId) + "\",\"configurationId\":\""
+        + escape(configurationId) + "\",\"name\":\"Simulated instance\",\"creatorId\":\""
+        + DEFAULT_USER_ID + "\",\"optionalProperties\":\"" + escape(optionalProperties) + "\"}";
+  }
+
+  private String getUsername(String query) {
+    if (query == null) {
+      return DEFAULT_USERNAME;
+    }
+
+    for (String param : query.split("&")) {
+      if (param.startsWith(USERNAME_PARAM)) {
+        return param.substring(USERNAME_PARAM.length());
+      }
+    }
+
+    return DEFAULT_USERNAME;
+  }
+
+  private String getErrorBody(int status) {
+    return "{\"code\":" + status + ",\"message\":\"Simulated error\"}";
+  }
+
+  private static String escape(String value) {
+    return value.replace("\\", "\\\\").replace("\"", "\\\"");
+  }
+
+  /**
+   * Answers the requests according to the endpoint behavior.
+   */
+  private class SimulatorHandler implements HttpHandler {
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+      try {
+        drain(exchange.getRequestBody());
+
+        String method = exchange.getRequestMethod();
+        String path = exchange.getRequestURI().getPath();
+        Endpoint endpoint = Endpoint.of(method, path);
+
+        if (endpoint == null) {
+          accounting.recordUnmatched();
+          sendResponse(exchange, 404, getErrorBody(404));
+          return;
+        }
+
+        EndpointBehavior behavior = behaviors.get(endpoint);
+        Random random = ThreadLocalRandom.current();
+        int outcome = behavior.nextOutcome(random);
+
+        if (outcome == TIMEOUT) {
+          // Holds the request and then drops the connection without response
+          accounting.recordTimeout(endpoint);
+          Thread.sleep(behavior.getTimeoutMillis());
+          return;
+        }
+
+        long delay = behavior.getLatency().nextDelay(random);
+
+        if (delay > 0) {
+          Thread.sleep(delay);
+        }
+
+        String body = outcome == OK ? getResponseBody(endpoint, exchange) : getErrorBody(outcome);
+
+        accounting.recordResponse(endpoint, outcome, delay);
+        sendResponse(exchange, outcome, body);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } finally {
+        exchange.close();
+      }
+    }
+
+    private void drain(InputStream input) throws IOException {
+      byte[] buffer = new byte[4096];
+
+      while (input.read(buffer) != -1) {
+        // Discards the request body
+      }
+    }
+
+    private void sendResponse(HttpExchange exchange, int status, String body) throws IOException {
+      byte[] content = body.getBytes(StandardCharsets.UTF_8);
+
+      exchange.getResponseHeaders().set(CONTENT_TYPE_HEADER, APPLICATION_JSON);
+      exchange.sendResponseHeaders(status, content.length);
+
+      try (OutputStream output = exchange.getResponseBody()) {
+        output.write(content);
+      }
+    }
+
+  }
+
+  /**
+   * Creates daemon threads so the simulator never keeps the JVM alive.
+   */
+  private static class SimulatorThreadFactory implements ThreadFactory {
+
+    private final AtomicInteger counter = new AtomicInteger();
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+      Thread thread = new Thread(runnable, "symphony-simulator-" + counter.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+
+  }
+
+  /**
+   * Runs the simulator standalone until the process is killed, printing the request accounting
+   * on exit.
+   *
+   * Usage: SymphonySimulator [port]
+   *
+   * The latency and the failures of all endpoints can be set with the system properties
+   * 'simulator.latency' (median latency in milliseconds, log-normally distributed),
+   * 'simulator.errorRate' (fraction of the requests answered with 503) and
+   * 'simulator.timeoutRate' (fraction of the requests dropped without response).
+   */
+  public static void main(String[] args) throws IOException, InterruptedException {
+    int port = args.length > 0 ? Integer.parseInt(args[0]) : 0;
+
+    long latency = Long.getLong("simulator.latency", 0L);
+    double errorRate = Double.parseDouble(System.getProperty("simulator.errorRate", "0"));
+    double timeoutRate = Double.parseDouble(System.getProperty("simulator.timeoutRate", "0"));
+
+    final SymphonySimulator simulator = new SymphonySimulator(port);
+
+    for (Endpoint endpoint : Endpoint.values()) {
+      EndpointBehavior behavior = simulator.getBehavior(endpoint);
+      behavior.setLatency(LatencyDistribution.logNormal(latency, 0.5));
+      behavior.setErrorRate(503, errorRate);
+      behavior.setTimeoutRate(timeoutRate);
+    }
+
+    Runtime.getRuntime().addShutdownHook(new Thread() {
+      @Override
+      public void run() {
+        simulator.stop();
+        System.out.println(simulator.getAccounting());
+      }
+    });
+
+    simulator.start();
+
+    System.out.println("Symphony simulator listening on " + simulator.getBaseUrl());
+
+    Thread.currentThread().join();
+  }
+
+}
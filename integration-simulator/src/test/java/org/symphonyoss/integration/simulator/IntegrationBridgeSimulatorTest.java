@@ -0,0 +1,202 @@
+/**
+ * Copyright 2016-2017 Symphony Integrations - Symphony LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.symphonyoss.integration.simulator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.symphonyoss.integration.Integration;
+import org.symphonyoss.integration.core.bootstrap.IntegrationBootstrap;
+import org.symphonyoss.integration.web.IntegrationBridgeApplication;
+import org.symphonyoss.integration.web.listener.BootstrapApplicationListener;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.util.Arrays;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+
+/**
+ * Boots the Integration Bridge against the {@link SymphonySimulator} and delivers a webhook end to
+ * end: the integration user authenticates, the instance is resolved through the Pod admin API and
+ * the message is posted by the Agent to every stream of the instance.
+ *
+ * The simulator serves HTTPS with the self-signed certificate in 'simulator.p12', which is also the
+ * bridge truststore and the integration user keystore.
+ */
+public class IntegrationBridgeSimulatorTest {
+
+  private static final String KEYSTORE_FILE = "simulator.p12";
+
+  private static final String KEYSTORE_PASSWORD = "changeit";
+
+  private static final String KEYSTORE_TYPE = "pkcs12";
+
+  private static final String INSTANCE_ID = "5810d144e4b0f884b709cc90";
+
+  private static final String STREAM1 = "t7uufOOl8JXeDcamEVLvSn___qvMMOjEdA";
+
+  private static final String STREAM2 = "JHbxCfFqwResXmyVn3VGr3___qvU3O";
+
+  private static final long TIMEOUT = 60000L;
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private SymphonySimulator simulator;
+
+  private ConfigurableApplicationContext context;
+
+  @Before
+  public void init() throws IOException, GeneralSecurityException, URISyntaxException {
+    File keyStoreFile = new File(getClass().getClassLoader().getResource(KEYSTORE_FILE).toURI());
+
+    simulator = new SymphonySimulator();
+    simulator.setSslContext(createSslContext(keyStoreFile));
+    simulator.setInstanceStreams(Arrays.asList(STREAM1, STREAM2));
+    simulator.start();
+
+    System.setProperty("logs.basedir", folder.newFolder("logs").getAbsolutePath());
+
+    SpringApplication application = new SpringApplication(IntegrationBridgeApplication.class);
+    application.addListeners(new BootstrapApplicationListener());
+
+    String port = String.valueOf(simulator.getPort());
+    String applicationProperty = "--applications." + SimulatorWebHookIntegration.INTEGRATION_USER;
+
+    this.context = application.run("--server.port=0",
+        "--server.tomcat.basedir=" + folder.newFolder("tomcat").getAbsolutePath(),
+        "--server.tomcat.accesslog.enabled=false",
+        "--integration_bridge.host=localhost",
+        "--integration_bridge.truststore_file=" + keyStoreFile.getAbsolutePath(),
+        "--integration_bridge.truststore_type=" + KEYSTORE_TYPE,
+        "--integration_bridge.truststore_password=" + KEYSTORE_PASSWORD,
+        "--pod.host=localhost", "--pod.port=" + port,
+        "--agent.host=localhost", "--agent.port=" + port,
+        "--key_manager.host=localhost", "--key_manager.port=" + port,
+        "--key_manager_auth.host=localhost", "--key_manager_auth.port=" + port,
+        "--pod_session_manager.host=localhost", "--pod_session_manager.port=" + port,
+        applicationProperty + ".state=PROVISIONED",
+        applicationProperty + ".keystore.file=" + KEYSTORE_FILE,
+        applicationProperty + ".keystore.password=" + KEYSTORE_PASSWORD,
+        applicationProperty + ".keystore.type=" + KEYSTORE_TYPE,
+        "--simulator.certs_dir=" + keyStoreFile.getParent() + File.separator);
+  }
+
+  @After
+  public void cleanup() {
+    if (context != null) {
+      context.close();
+    }
+
+    simulator.stop();
+  }
+
+  @Test
+  public void testWebHook() throws IOException, InterruptedException {
+    waitForBootstrap();
+
+    String url = "http://localhost:" + context.getEnvironment().getProperty("local.server.port")
+        + "/integration/v1/whi/" + SimulatorWebHookIntegration.INTEGRATION_USER + "/"
+        + SymphonySimulator.DEFAULT_CONFIGURATION_ID + "/" + INSTANCE_ID;
+
+    assertEquals(200, post(url, "{\"event\":\"test\"}").getResponseCode());
+
+    RequestAccounting accounting = simulator.getAccounting();
+    long deadline = System.currentTimeMillis() + TIMEOUT;
+
+    while (accounting.getResponses(Endpoint.POST_MESSAGE, 200) < 2
+        && System.currentTimeMillis() < deadline) {
+      Thread.sleep(100);
+    }
+
+    assertTrue(accounting.getRequests(Endpoint.AUTHENTICATE) > 0);
+    assertTrue(accounting.getRequests(Endpoint.CONFIGURATION_INSTANCE) > 0);
+    assertEquals(2, accounting.getResponses(Endpoint.POST_MESSAGE, 200));
+  }
+
+  /**
+   * Waits until the integration is bootstrapped, which happens in background after the bridge
+   * starts.
+   */
+  private void waitForBootstrap() throws InterruptedException {
+    IntegrationBootstrap bootstrap = context.getBean(IntegrationBootstrap.class);
+    long deadline = System.currentTimeMillis() + TIMEOUT;
+
+    Integration integration = null;
+
+    while (integration == null && System.currentTimeMillis() < deadline) {
+      integration = bootstrap.getIntegrationById(SymphonySimulator.DEFAULT_CONFIGURATION_ID);
+
+      if (integration == null) {
+        Thread.sleep(100);
+      }
+    }
+
+    assertNotNull(integration);
+  }
+
+  private SSLContext createSslContext(File keyStoreFile)
+      throws IOException, GeneralSecurityException {
+    KeyStore keyStore = KeyStore.getInstance(KEYSTORE_TYPE);
+
+    try (InputStream input = new FileInputStream(keyStoreFile)) {
+      keyStore.load(input, KEYSTORE_PASSWORD.toCharArray());
+    }
+
+    KeyManagerFactory keyManagerFactory =
+        KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+    keyManagerFactory.init(keyStore, KEYSTORE_PASSWORD.toCharArray());
+
+    SSLContext sslContext = SSLContext.getInstance("TLS");
+    sslContext.init(keyManagerFactory.getKeyManagers(), null, null);
+
+    return sslContext;
+  }
+
+  private HttpURLConnection post(String url, String body) throws IOException {
+    HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+    connection.setRequestMethod("POST");
+    connection.setRequestProperty("Content-Type", "application/json");
+    connection.setDoOutput(true);
+
+    try (OutputStream output = connection.getOutputStream()) {
+      output.write(body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    return connection;
+  }
+
+}
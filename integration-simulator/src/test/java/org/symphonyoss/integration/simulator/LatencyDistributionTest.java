@@ -0,0 +1,95 @@
+/**
+ * Copyright 2016-2017 Symphony Integrations - Symphony LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.symphonyoss.integration.simulator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+/**
+ * Unit test for {@link LatencyDistribution}
+ */
+public class LatencyDistributionTest {
+
+  private static final int SAMPLES = 10000;
+
+  private final Random random = new Random(42);
+
+  @Test
+  public void testFixed() {
+    assertEquals(0, LatencyDistribution.NONE.nextDelay(random));
+    assertEquals(50, LatencyDistribution.fixed(50).nextDelay(random));
+  }
+
+  @Test
+  public void testUniform() {
+    LatencyDistribution distribution = LatencyDistribution.uniform(10, 20);
+
+    for (int i = 0; i < SAMPLES; i++) {
+      long delay = distribution.nextDelay(random);
+      assertTrue(delay >= 10 && delay <= 20);
+    }
+  }
+
+  @Test
+  public void testExponential() {
+    assertEquals(100, mean(LatencyDistribution.exponential(100)), 5);
+  }
+
+  @Test
+  public void testLogNormal() {
+    LatencyDistribution distribution = LatencyDistribution.logNormal(100, 0.5);
+
+    int belowMedian = 0;
+
+    for (int i = 0; i < SAMPLES; i++) {
+      long delay = distribution.nextDelay(random);
+      assertTrue(delay >= 0);
+
+      if (delay < 100) {
+        belowMedian++;
+      }
+    }
+
+    assertEquals(0.5, (double) belowMedian / SAMPLES, 0.05);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNegativeDelay() {
+    LatencyDistribution.fixed(-1);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidBounds() {
+    LatencyDistribution.uniform(20, 10);
+  }
+
+  private double mean(LatencyDistribution distribution) {
+    long total = 0;
+
+    for (int i = 0; i < SAMPLES; i++) {
+      total += distribution.nextDelay(random);
+    }
+
+    return (double) total / SAMPLES;
+  }
+
+}
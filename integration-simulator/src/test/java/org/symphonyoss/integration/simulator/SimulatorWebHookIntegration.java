@@ -0,0 +1,75 @@
+/**
+ * Copyright 2016-2017 Symphony Integrations - Symphony LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.symphonyoss.integration.simulator;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.symphonyoss.integration.authentication.AuthenticationProxy;
+import org.symphonyoss.integration.model.message.Message;
+import org.symphonyoss.integration.model.message.MessageMLVersion;
+import org.symphonyoss.integration.model.yaml.Application;
+import org.symphonyoss.integration.model.yaml.IntegrationProperties;
+import org.symphonyoss.integration.webhook.WebHookIntegration;
+import org.symphonyoss.integration.webhook.WebHookPayload;
+import org.symphonyoss.integration.webhook.exception.WebHookParseException;
+
+import java.security.KeyStore;
+
+/**
+ * Webhook integration bootstrapped by the Integration Bridge in
+ * {@link IntegrationBridgeSimulatorTest}. It posts the same message for every webhook received.
+ */
+@Component(SimulatorWebHookIntegration.INTEGRATION_USER)
+public class SimulatorWebHookIntegration extends WebHookIntegration {
+
+  public static final String INTEGRATION_USER = "simulatorWebHookIntegration";
+
+  public static final String MESSAGE = "<messageML>Simulated webhook event</messageML>";
+
+  @Value("${simulator.certs_dir:}")
+  private String certsDirectory;
+
+  @Autowired
+  private IntegrationProperties properties;
+
+  @Autowired
+  private AuthenticationProxy authenticationProxy;
+
+  /**
+   * Loads the user keystore from the test resources instead of the bridge certificate directory.
+   * @param integrationUser Integration user
+   */
+  @Override
+  public void registerUser(String integrationUser) {
+    Application application = properties.getApplication(integrationUser);
+    KeyStore keyStore = loadUserKeyStore(certsDirectory, application, integrationUser);
+
+    authenticationProxy.registerUser(integrationUser, keyStore,
+        application.getKeystore().getPassword());
+  }
+
+  @Override
+  public Message parse(WebHookPayload input) throws WebHookParseException {
+    Message message = new Message();
+    message.setMessage(MESSAGE);
+    message.setVersion(MessageMLVersion.V1);
+
+    return message;
+  }
+
+}
@@ -0,0 +1,227 @@
+/**
+ * Copyright 2016-2017 Symphony Integrations - Symphony LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.symphonyoss.integration.simulator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Unit test for {@link SymphonySimulator}
+ */
+public class SymphonySimulatorTest {
+
+  private static final String STREAM_ID = "t7uufOOl8JXeDcamEVLvSn___qvMMOjEdA";
+
+  private SymphonySimulator simulator;
+
+  @Before
+  public void init() throws IOException {
+    simulator = new SymphonySimulator();
+    simulator.start();
+  }
+
+  @After
+  public void cleanup() {
+    simulator.stop();
+  }
+
+  @Test
+  public void testAuthenticate() throws IOException {
+    HttpURLConnection session = post("/sessionauth/v1/authenticate");
+    assertEquals(200, session.getResponseCode());
+    assertTrue(read(session).contains("\"name\":\"sessionToken\""));
+
+    HttpURLConnection km = post("/keyauth/v1/authenticate");
+    assertEquals(200, km.getResponseCode());
+    assertTrue(read(km).contains("\"name\":\"keyManagerToken\""));
+
+    assertEquals(2, simulator.getAccounting().getRequests(Endpoint.AUTHENTICATE));
+    assertEquals(2, simulator.getAccounting().getResponses(Endpoint.AUTHENTICATE, 200));
+  }
+
+  @Test
+  public void testEndpoints() throws IOException {
+    assertEquals(200, post("/agent/v4/stream/" + STREAM_ID + "/message/create").getResponseCode());
+    assertEquals(200, get("/pod/v1/configuration/type/jiraWebHookIntegration/get").getResponseCode());
+    assertEquals(200, get("/pod/v2/user?username=jira.bot&local=true").getResponseCode());
+    assertEquals(200, get("/webcontroller/HealthCheck/version").getResponseCode());
+    assertEquals(200, get("/agent/v1/HealthCheck").getResponseCode());
+    assertEquals(200, get("/relay/HealthCheck/version").getResponseCode());
+
+    RequestAccounting accounting = simulator.getAccounting();
+    assertEquals(1, accounting.getRequests(Endpoint.POST_MESSAGE));
+    assertEquals(1, accounting.getRequests(Endpoint.CONFIGURATION));
+    assertEquals(1, accounting.getRequests(Endpoint.USER));
+    assertEquals(1, accounting.getRequests(Endpoint.POD_HEALTH));
+    assertEquals(1, accounting.getRequests(Endpoint.AGENT_HEALTH));
+    assertEquals(1, accounting.getRequests(Endpoint.KM_HEALTH));
+    assertEquals(6, accounting.getTotalRequests());
+  }
+
+  @Test
+  public void testResponseBody() throws IOException {
+    HttpURLConnection user = get("/pod/v2/user?username=jira.bot");
+    assertTrue(read(user).contains("\"username\":\"jira.bot\""));
+
+    HttpURLConnection config = get("/pod/v1/configuration/type/jiraWebHookIntegration/get");
+    assertTrue(read(config).contains("\"type\":\"jiraWebHookIntegration\""));
+
+    simulator.setResponseBody(Endpoint.USER, "{\"id\":1}");
+    assertEquals("{\"id\":1}", read(get("/pod/v2/user")));
+  }
+
+  @Test
+  public void testInstance() throws IOException {
+    String path = "/pod/v1/admin/configuration/" + SymphonySimulator.DEFAULT_CONFIGURATION_ID
+        + "/instance/1234/get";
+
+    String instance = read(get(path));
+    assertTrue(instance.contains("\"instanceId\":\"1234\""));
+    assertTrue(instance.contains("\"configurationId\":\""
+        + SymphonySimulator.DEFAULT_CONFIGURATION_ID + "\""));
+    assertTrue(instance.contains(SymphonySimulator.DEFAULT_STREAM));
+
+    simulator.setInstanceStreams(Arrays.asList("stream1", "stream2"));
+
+    instance = read(get(path));
+    assertTrue(instance.contains("\\\"streams\\\":[\\\"stream1\\\",\\\"stream2\\\"]"));
+
+    assertEquals(2, simulator.getAccounting().getRequests(Endpoint.CONFIGURATION_INSTANCE));
+    assertEquals(0, simulator.getAccounting().getRequests(Endpoint.CONFIGURATION));
+  }
+
+  @Test
+  public void testUnmatched() throws IOException {
+    assertEquals(404, get("/pod/v1/unknown").getResponseCode());
+    assertEquals(404, get("/sessionauth/v1/authenticate").getResponseCode());
+
+    assertEquals(2, simulator.getAccounting().getUnmatched());
+    assertEquals(0, simulator.getAccounting().getRequests(Endpoint.AUTHENTICATE));
+  }
+
+  @Test
+  public void testErrorInjection() throws IOException {
+    simulator.getBehavior(Endpoint.POST_MESSAGE).setErrorRate(403, 1);
+
+    HttpURLConnection connection = post("/agent/v4/stream/" + STREAM_ID + "/message/create");
+    assertEquals(403, connection.getResponseCode());
+
+    assertEquals(1, simulator.getAccounting().getResponses(Endpoint.POST_MESSAGE, 403));
+    assertEquals(0, simulator.getAccounting().getResponses(Endpoint.POST_MESSAGE, 200));
+  }
+
+  @Test
+  public void testTimeout() throws IOException {
+    EndpointBehavior behavior = simulator.getBehavior(Endpoint.USER);
+    behavior.setTimeoutRate(1);
+    behavior.setTimeoutMillis(2000);
+
+    HttpURLConnection connection = get("/pod/v2/user");
+    connection.setReadTimeout(200);
+
+    try {
+      connection.getResponseCode();
+      fail();
+    } catch (IOException e) {
+      assertEquals(1, simulator.getAccounting().getTimeouts(Endpoint.USER));
+    }
+  }
+
+  @Test
+  public void testLatency() throws IOException {
+    simulator.getBehavior(Endpoint.POD_HEALTH).setLatency(LatencyDistribution.fixed(200));
+
+    long start = System.currentTimeMillis();
+    assertEquals(200, get("/webcontroller/HealthCheck/version").getResponseCode());
+
+    assertTrue(System.currentTimeMillis() - start >= 200);
+    assertEquals(200, simulator.getAccounting().getAverageDelay(Endpoint.POD_HEALTH), 0);
+  }
+
+  @Test
+  public void testReset() throws IOException {
+    simulator.getBehavior(Endpoint.USER).setErrorRate(500, 1);
+    assertEquals(500, get("/pod/v2/user").getResponseCode());
+
+    simulator.reset();
+
+    assertEquals(0, simulator.getAccounting().getTotalRequests());
+    assertEquals(200, get("/pod/v2/user").getResponseCode());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidRates() {
+    EndpointBehavior behavior = simulator.getBehavior(Endpoint.USER);
+    behavior.setErrorRate(500, 0.6);
+    behavior.setTimeoutRate(0.6);
+  }
+
+  private HttpURLConnection get(String path) throws IOException {
+    return open(path, "GET");
+  }
+
+  private HttpURLConnection post(String path) throws IOException {
+    HttpURLConnection connection = open(path, "POST");
+    connection.setDoOutput(true);
+
+    try (OutputStream output = connection.getOutputStream()) {
+      output.write("{}".getBytes(StandardCharsets.UTF_8));
+    }
+
+    return connection;
+  }
+
+  private HttpURLConnection open(String path, String method) throws IOException {
+    URL url = new URL(simulator.getBaseUrl() + path);
+
+    HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+    connection.setRequestMethod(method);
+
+    return connection;
+  }
+
+  private String read(HttpURLConnection connection) throws IOException {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+    try (InputStream input = connection.getInputStream()) {
+      byte[] buffer = new byte[1024];
+      int read;
+
+      while ((read = input.read(buffer)) != -1) {
+        output.write(buffer, 0, read);
+      }
+    }
+
+    return new String(output.toByteArray(), StandardCharsets.UTF_8);
+  }
+
+}
@@ -0,0 +1,119 @@
+/**
+ * Copyright 2016-2017 Symphony Integrations - Symphony LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.symphonyoss.integration.web.filter;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Protects the admin API, which shares the servlet context with the public webhook endpoints.
+ *
+ * The admin API is off unless the property 'integration.bridge.admin.token' is set. In that case
+ * the requests must send the same token in the 'Authorization' header using the 'Bearer' scheme,
+ * otherwise they're rejected with HTTP 401 (Unauthorized).
+ */
+public class AdminAuthenticationFilter implements Filter {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(AdminAuthenticationFilter.class);
+
+  public static final String URL_PATTERN = "/integration/v1/admin/";
+
+  public static final String ADMIN_TOKEN_PROPERTY = "integration.bridge.admin.token";
+
+  private static final String AUTHORIZATION_HEADER = "Authorization";
+
+  private static final String AUTHENTICATE_HEADER = "WWW-Authenticate";
+
+  private static final String BEARER_SCHEME = "Bearer";
+
+  private static final String BEARER_PREFIX = BEARER_SCHEME + " ";
+
+  private final byte[] adminToken;
+
+  /**
+   * @param adminToken Token expected from the admin requests. The admin API is off when it's blank.
+   */
+  public AdminAuthenticationFilter(String adminToken) {
+    this.adminToken =
+        StringUtils.isBlank(adminToken) ? null : adminToken.getBytes(StandardCharsets.UTF_8);
+  }
+
+  @Override
+  public void init(FilterConfig config) throws ServletException {}
+
+  /**
+   * Returns HTTP 404 (Not Found) when the admin API is off or HTTP 401 (Unauthorized) when the
+   * request doesn't send the admin token.
+   */
+  @Override
+  public void doFilter(ServletRequest servletRequest, ServletResponse servletResponse,
+      FilterChain filterChain) throws IOException, ServletException {
+    HttpServletRequest request = (HttpServletRequest) servletRequest;
+    HttpServletResponse response = (HttpServletResponse) servletResponse;
+
+    if (adminToken == null) {
+      response.sendError(HttpServletResponse.SC_NOT_FOUND);
+      return;
+    }
+
+    if (!isAuthenticated(request)) {
+      LOGGER.warn("Rejected unauthenticated admin request {} {} from {}", request.getMethod(),
+          request.getRequestURI(), request.getRemoteAddr());
+      response.setHeader(AUTHENTICATE_HEADER, BEARER_SCHEME);
+      response.sendError(HttpServletResponse.SC_UNAUTHORIZED);
+      return;
+    }
+
+    filterChain.doFilter(servletRequest, servletResponse);
+  }
+
+  /**
+   * Compares the bearer token in constant time, so the response time doesn't disclose how much of
+   * the token is right.
+   * @param request HTTP request
+   * @return true if the request sends the admin token or false otherwise.
+   */
+  private boolean isAuthenticated(HttpServletRequest request) {
+    String authorization = request.getHeader(AUTHORIZATION_HEADER);
+
+    if (authorization == null || !authorization.startsWith(BEARER_PREFIX)) {
+      return false;
+    }
+
+    byte[] token = authorization.substring(BEARER_PREFIX.length()).trim()
+        .getBytes(StandardCharsets.UTF_8);
+
+    return MessageDigest.isEqual(adminToken, token);
+  }
+
+  @Override
+  public void destroy() {}
+}
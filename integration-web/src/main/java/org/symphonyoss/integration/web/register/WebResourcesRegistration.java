@@ -22,11 +22,13 @@ import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.boot.web.servlet.ServletRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
 import org.springframework.web.context.WebApplicationContext;
 import org.springframework.web.servlet.DispatcherServlet;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurerAdapter;
+import org.symphonyoss.integration.web.filter.AdminAuthenticationFilter;
 import org.symphonyoss.integration.web.filter.IntegrationMetricsFilter;
 import org.symphonyoss.integration.web.filter.WebHookOriginCheckFilter;
 import org.symphonyoss.integration.web.filter.WebHookTracingFilter;
@@ -70,6 +72,24 @@ public class WebResourcesRegistration {
     return registration;
   }
 
+  /**
+   * Register admin authentication filter.
+   * @param environment Spring environment
+   * @return Filter registration object
+   */
+  @Bean
+  public FilterRegistrationBean adminAuthenticationFilterRegistration(Environment environment) {
+    String adminToken = environment.getProperty(AdminAuthenticationFilter.ADMIN_TOKEN_PROPERTY);
+
+    AdminAuthenticationFilter filter = new AdminAuthenticationFilter(adminToken);
+    FilterRegistrationBean registration = new FilterRegistrationBean(filter);
+
+    String urlPattern = AdminAuthenticationFilter.URL_PATTERN + PATH_WILDCARD;
+    registration.setUrlPatterns(Collections.singletonList(urlPattern));
+
+    return registration;
+  }
+
   /**
    * Register webhook tracing filter.
    * @return Filter registration object
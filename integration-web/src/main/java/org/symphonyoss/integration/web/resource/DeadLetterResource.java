@@ -0,0 +1,160 @@
+/**
+ * Copyright 2016-2017 Symphony Integrations - Symphony LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.symphonyoss.integration.web.resource;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.symphonyoss.integration.core.deadletter.DeadLetter;
+import org.symphonyoss.integration.core.deadletter.DeadLetterService;
+import org.symphonyoss.integration.core.deadletter.DeadLetterService.ReplayResult;
+
+import java.util.List;
+
+/**
+ * Admin REST endpoint to list, replay and purge the messages kept in the dead-letter store.
+ *
+ * Every operation returns HTTP 404 (Not Found) when the dead-letter store is disabled. The
+ * requests are authenticated by
+ * {@link org.symphonyoss.integration.web.filter.AdminAuthenticationFilter}, so this API stays off
+ * unless the admin token is configured.
+ */
+@RestController
+@RequestMapping("/v1/admin/deadLetters")
+public class DeadLetterResource {
+
+  private final DeadLetterService deadLetterService;
+
+  public DeadLetterResource(DeadLetterService deadLetterService) {
+    this.deadLetterService = deadLetterService;
+  }
+
+  /**
+   * List the dead letters.
+   * @param configurationId Configuration identifier (optional)
+   * @param instanceId Instance identifier (optional)
+   * @return Dead letters from the oldest to the newest
+   */
+  @GetMapping
+  public ResponseEntity<List<DeadLetter>> list(
+      @RequestParam(name = "configurationId", required = false) String configurationId,
+      @RequestParam(name = "instanceId", required = false) String instanceId) {
+    if (!deadLetterService.isEnabled()) {
+      return ResponseEntity.notFound().build();
+    }
+
+    return ResponseEntity.ok().body(deadLetterService.list(configurationId, instanceId));
+  }
+
+  /**
+   * Get a dead letter.
+   * @param id Dead letter identifier
+   * @return Dead letter or HTTP 404 (Not Found) if it doesn't exist
+   */
+  @GetMapping("/{id}")
+  public ResponseEntity<DeadLetter> get(@PathVariable String id) {
+    DeadLetter deadLetter = deadLetterService.get(id);
+
+    if (deadLetter == null) {
+      return ResponseEntity.notFound().build();
+    }
+
+    return ResponseEntity.ok().body(deadLetter);
+  }
+
+  /**
+   * Post a dead letter to its stream right now, even if it was parked.
+   * @param id Dead letter identifier
+   * @return HTTP 200 if the message was delivered, HTTP 404 if the dead letter doesn't exist,
+   * HTTP 409 if it's being posted by the re-driver or HTTP 502 if the delivery failed again.
+   */
+  @PostMapping("/{id}/replay")
+  public ResponseEntity<DeadLetter> replay(@PathVariable String id) {
+    ReplayResult result = deadLetterService.replay(id);
+
+    switch (result) {
+      case DELIVERED:
+        return ResponseEntity.ok().build();
+      case IN_PROGRESS:
+        return ResponseEntity.status(HttpStatus.CONFLICT).build();
+      case FAILED:
+        return ResponseEntity.status(HttpStatus.BAD_GATEWAY).body(deadLetterService.get(id));
+      default:
+        return ResponseEntity.notFound().build();
+    }
+  }
+
+  /**
+   * Hand the dead letters over to the re-driver to be posted right away, even the parked ones.
+   * The deliveries happen in background and their results can be followed through the list
+   * operation.
+   * @param configurationId Configuration identifier (optional)
+   * @param instanceId Instance identifier (optional)
+   * @return HTTP 202 (Accepted) with the number of dead letters requeued
+   */
+  @PostMapping("/replay")
+  public ResponseEntity<Integer> replayAll(
+      @RequestParam(name = "configurationId", required = false) String configurationId,
+      @RequestParam(name = "instanceId", required = false) String instanceId) {
+    if (!deadLetterService.isEnabled()) {
+      return ResponseEntity.notFound().build();
+    }
+
+    int requeued = deadLetterService.requeue(configurationId, instanceId);
+
+    return ResponseEntity.status(HttpStatus.ACCEPTED).body(requeued);
+  }
+
+  /**
+   * Remove a dead letter without posting it.
+   * @param id Dead letter identifier
+   * @return HTTP 204 if the dead letter was removed or HTTP 404 otherwise
+   */
+  @DeleteMapping("/{id}")
+  public ResponseEntity<Void> purge(@PathVariable String id) {
+    if (!deadLetterService.purge(id)) {
+      return ResponseEntity.notFound().build();
+    }
+
+    return ResponseEntity.noContent().build();
+  }
+
+  /**
+   * Remove the dead letters without posting them.
+   * @param configurationId Configuration identifier (optional)
+   * @param instanceId Instance identifier (optional)
+   * @return Number of dead letters removed
+   */
+  @DeleteMapping
+  public ResponseEntity<Integer> purgeAll(
+      @RequestParam(name = "configurationId", required = false) String configurationId,
+      @RequestParam(name = "instanceId", required = false) String instanceId) {
+    if (!deadLetterService.isEnabled()) {
+      return ResponseEntity.notFound().build();
+    }
+
+    return ResponseEntity.ok().body(deadLetterService.purge(configurationId, instanceId));
+  }
+
+}
@@ -77,7 +77,7 @@ public abstract class WebHookResource {
   private static final String COMPONENT = "Webhook Dispatcher";
 
   @Autowired
-  @Qualifier("remoteIntegrationService")
+  @Qualifier("cachedIntegrationService")
   private IntegrationService integrationService;
 
   @Autowired
@@ -0,0 +1,88 @@
+/**
+ * Copyright 2016-2017 Symphony Integrations - Symphony LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.symphonyoss.integration.web.filter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Unit tests to validate {@link AdminAuthenticationFilter}
+ */
+public class AdminAuthenticationFilterTest {
+
+  private static final String ADMIN_URL = "/integration/v1/admin/deadLetters";
+
+  private static final String ADMIN_TOKEN = "s3cr3t";
+
+  private MockHttpServletRequest request = new MockHttpServletRequest("GET", ADMIN_URL);
+
+  private MockHttpServletResponse response = new MockHttpServletResponse();
+
+  private MockFilterChain chain = new MockFilterChain();
+
+  @Test
+  public void testAdminApiOff() throws IOException, ServletException {
+    request.addHeader("Authorization", "Bearer " + ADMIN_TOKEN);
+
+    new AdminAuthenticationFilter(null).doFilter(request, response, chain);
+
+    assertEquals(HttpServletResponse.SC_NOT_FOUND, response.getStatus());
+    assertNull(chain.getRequest());
+  }
+
+  @Test
+  public void testUnauthenticatedRequest() throws IOException, ServletException {
+    request.setRemoteAddr("127.0.0.1");
+
+    new AdminAuthenticationFilter(ADMIN_TOKEN).doFilter(request, response, chain);
+
+    assertEquals(HttpServletResponse.SC_UNAUTHORIZED, response.getStatus());
+    assertEquals("Bearer", response.getHeader("WWW-Authenticate"));
+    assertNull(chain.getRequest());
+  }
+
+  @Test
+  public void testWrongToken() throws IOException, ServletException {
+    request.addHeader("Authorization", "Bearer wrong");
+
+    new AdminAuthenticationFilter(ADMIN_TOKEN).doFilter(request, response, chain);
+
+    assertEquals(HttpServletResponse.SC_UNAUTHORIZED, response.getStatus());
+    assertNull(chain.getRequest());
+  }
+
+  @Test
+  public void testAuthenticatedRequest() throws IOException, ServletException {
+    request.addHeader("Authorization", "Bearer " + ADMIN_TOKEN);
+
+    new AdminAuthenticationFilter(ADMIN_TOKEN).doFilter(request, response, chain);
+
+    assertEquals(HttpServletResponse.SC_OK, response.getStatus());
+    assertNotNull(chain.getRequest());
+  }
+}
@@ -0,0 +1,137 @@
+/**
+ * Copyright 2016-2017 Symphony Integrations - Symphony LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.symphonyoss.integration.web.resource;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.when;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.symphonyoss.integration.core.deadletter.DeadLetter;
+import org.symphonyoss.integration.core.deadletter.DeadLetterService;
+import org.symphonyoss.integration.core.deadletter.DeadLetterService.ReplayResult;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Unit tests for {@link DeadLetterResource}
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class DeadLetterResourceTest {
+
+  private static final String CONFIGURATION_ID = "57756bca4b54433738037005";
+
+  private static final String INSTANCE_ID = "1234";
+
+  @Mock
+  private DeadLetterService deadLetterService;
+
+  private DeadLetterResource resource;
+
+  @Before
+  public void init() {
+    this.resource = new DeadLetterResource(deadLetterService);
+    when(deadLetterService.isEnabled()).thenReturn(true);
+  }
+
+  @Test
+  public void testDisabled() {
+    when(deadLetterService.isEnabled()).thenReturn(false);
+
+    assertEquals(HttpStatus.NOT_FOUND, resource.list(null, null).getStatusCode());
+    assertEquals(HttpStatus.NOT_FOUND, resource.replayAll(null, null).getStatusCode());
+    assertEquals(HttpStatus.NOT_FOUND, resource.purgeAll(null, null).getStatusCode());
+  }
+
+  @Test
+  public void testList() {
+    List<DeadLetter> deadLetters = Collections.singletonList(mockDeadLetter("1"));
+    when(deadLetterService.list(CONFIGURATION_ID, INSTANCE_ID)).thenReturn(deadLetters);
+
+    ResponseEntity<List<DeadLetter>> response = resource.list(CONFIGURATION_ID, INSTANCE_ID);
+
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertEquals(deadLetters, response.getBody());
+  }
+
+  @Test
+  public void testGet() {
+    DeadLetter deadLetter = mockDeadLetter("1");
+    when(deadLetterService.get("1")).thenReturn(deadLetter);
+
+    assertEquals(deadLetter, resource.get("1").getBody());
+    assertEquals(HttpStatus.NOT_FOUND, resource.get("2").getStatusCode());
+  }
+
+  @Test
+  public void testReplay() {
+    DeadLetter deadLetter = mockDeadLetter("2");
+
+    when(deadLetterService.replay("1")).thenReturn(ReplayResult.DELIVERED);
+    when(deadLetterService.replay("2")).thenReturn(ReplayResult.FAILED);
+    when(deadLetterService.get("2")).thenReturn(deadLetter);
+    when(deadLetterService.replay("3")).thenReturn(ReplayResult.IN_PROGRESS);
+    when(deadLetterService.replay("4")).thenReturn(ReplayResult.NOT_FOUND);
+
+    assertEquals(HttpStatus.OK, resource.replay("1").getStatusCode());
+
+    ResponseEntity<DeadLetter> failed = resource.replay("2");
+    assertEquals(HttpStatus.BAD_GATEWAY, failed.getStatusCode());
+    assertEquals(deadLetter, failed.getBody());
+
+    assertEquals(HttpStatus.CONFLICT, resource.replay("3").getStatusCode());
+    assertEquals(HttpStatus.NOT_FOUND, resource.replay("4").getStatusCode());
+  }
+
+  @Test
+  public void testReplayAll() {
+    when(deadLetterService.requeue(CONFIGURATION_ID, null)).thenReturn(3);
+
+    ResponseEntity<Integer> response = resource.replayAll(CONFIGURATION_ID, null);
+
+    assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+    assertEquals(Integer.valueOf(3), response.getBody());
+  }
+
+  @Test
+  public void testPurge() {
+    when(deadLetterService.purge("1")).thenReturn(true);
+    when(deadLetterService.purge(CONFIGURATION_ID, INSTANCE_ID)).thenReturn(5);
+
+    assertEquals(HttpStatus.NO_CONTENT, resource.purge("1").getStatusCode());
+    assertEquals(HttpStatus.NOT_FOUND, resource.purge("2").getStatusCode());
+    assertEquals(Integer.valueOf(5), resource.purgeAll(CONFIGURATION_ID, INSTANCE_ID).getBody());
+  }
+
+  private DeadLetter mockDeadLetter(String id) {
+    DeadLetter deadLetter = new DeadLetter();
+    deadLetter.setId(id);
+    deadLetter.setConfigurationId(CONFIGURATION_ID);
+    deadLetter.setInstanceId(INSTANCE_ID);
+    deadLetter.setStream("stream" + id);
+
+    return deadLetter;
+  }
+
+}